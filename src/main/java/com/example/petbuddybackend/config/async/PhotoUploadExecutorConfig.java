@@ -0,0 +1,39 @@
+package com.example.petbuddybackend.config.async;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class PhotoUploadExecutorConfig {
+
+    @Value("${firebase.photo.upload.threads}")
+    private Integer UPLOAD_THREADS;
+
+    @Value("${firebase.photo.upload.queue-capacity}")
+    private Integer UPLOAD_QUEUE_CAPACITY;
+
+    /**
+     * Bounded pool for blocking uploads to the storage. When saturated, the uploading request thread does the work
+     * itself instead of queueing without limit.
+     * */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService photoUploadExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                UPLOAD_THREADS,
+                UPLOAD_THREADS,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(UPLOAD_QUEUE_CAPACITY),
+                new CustomizableThreadFactory("photo-upload-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
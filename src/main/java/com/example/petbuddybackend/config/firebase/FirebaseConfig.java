@@ -1,21 +1,26 @@
 package com.example.petbuddybackend.config.firebase;
 
+import com.example.petbuddybackend.service.photo.V4PhotoUrlSigner;
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.util.StringUtils;
 
 import java.io.*;
+import java.time.Clock;
 
 @Slf4j
 @Profile("dev | prod")
 @Configuration
+@ConditionalOnProperty(name = "photo.storage", havingValue = "firebase", matchIfMissing = true)
 @RequiredArgsConstructor
 public class FirebaseConfig {
 
@@ -34,7 +39,12 @@ public class FirebaseConfig {
     private static boolean initialized = false;
 
     @Bean
-    public FirebaseApp firebaseApp() {
+    public GoogleCredentials firebaseCredentials() {
+        return createCredentials();
+    }
+
+    @Bean
+    public FirebaseApp firebaseApp(GoogleCredentials firebaseCredentials) {
         if(initialized) {
             log.info("Firebase SDK already initialized!");
             return FirebaseApp.getInstance();
@@ -43,7 +53,7 @@ public class FirebaseConfig {
         log.info("Initializing Firebase SDK...");
 
         FirebaseOptions options = FirebaseOptions.builder()
-                .setCredentials(createCredentials())
+                .setCredentials(firebaseCredentials)
                 .setStorageBucket(FIREBASE_BUCKET_LINK)
                 .setProjectId(FIREBASE_PROJECT_ID)
                 .build();
@@ -54,6 +64,25 @@ public class FirebaseConfig {
         return app;
     }
 
+    /**
+     * Signs photo urls locally with the service account key instead of fetching the blob and signing it through the SDK
+     * */
+    @Bean
+    @ConditionalOnProperty(name = "firebase.photo.signing.mode", havingValue = "offline")
+    public V4PhotoUrlSigner v4PhotoUrlSigner(GoogleCredentials firebaseCredentials) {
+        if(!(firebaseCredentials instanceof ServiceAccountCredentials serviceAccount)) {
+            throw new IllegalStateException("Offline photo url signing requires service account credentials");
+        }
+
+        log.info("Photo urls will be signed offline as {}", serviceAccount.getClientEmail());
+        return new V4PhotoUrlSigner(
+                serviceAccount.getClientEmail(),
+                serviceAccount.getPrivateKey(),
+                FIREBASE_BUCKET_LINK,
+                Clock.systemUTC()
+        );
+    }
+
     private GoogleCredentials createCredentials() {
         File firebaseCredentialsFile = new File(FIREBASE_SERVICE_ACCOUNT_KEY_PATH);
 
@@ -8,6 +8,7 @@ import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
@@ -19,6 +20,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 @Component
 @Profile("dev")
+@ConditionalOnProperty(name = "photo.storage", havingValue = "firebase", matchIfMissing = true)
 @RequiredArgsConstructor
 public class FirebasePhotosCleaner  {
 
@@ -1,19 +1,36 @@
 package com.example.petbuddybackend.config.geolocation;
 
+import com.example.petbuddybackend.utils.provider.geolocation.TokenBucket;
 import com.opencagedata.jopencage.JOpenCageGeocoder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class GeocodingConfig {
 
     @Value("${opencage.api.key}")
     private String openCageApiKey;
 
+    @Value("${geocoding.rate-limit.capacity}")
+    private Integer RATE_LIMIT_CAPACITY;
+
+    @Value("${geocoding.rate-limit.refill-interval}")
+    private Duration RATE_LIMIT_REFILL_INTERVAL;
+
+    @Value("${geocoding.rate-limit.max-wait}")
+    private Duration RATE_LIMIT_MAX_WAIT;
+
     @Bean
     public JOpenCageGeocoder jOpenCageGeocoder() {
         return new JOpenCageGeocoder(openCageApiKey);
     }
 
+    @Bean
+    public TokenBucket geocodingRateLimiter() {
+        return new TokenBucket(RATE_LIMIT_CAPACITY, RATE_LIMIT_REFILL_INTERVAL, RATE_LIMIT_MAX_WAIT);
+    }
+
 }
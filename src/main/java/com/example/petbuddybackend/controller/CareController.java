@@ -6,13 +6,16 @@ import com.example.petbuddybackend.dto.care.DetailedCareWithHistoryDTO;
 import com.example.petbuddybackend.dto.care.UpdateCareDTO;
 import com.example.petbuddybackend.dto.criteriaSearch.CareSearchCriteria;
 import com.example.petbuddybackend.dto.criteriaSearch.CareStatisticsSearchCriteria;
+import com.example.petbuddybackend.dto.criteriaSearch.CaretakerStatisticsSearchCriteria;
 import com.example.petbuddybackend.dto.paging.PagingParams;
 import com.example.petbuddybackend.dto.paging.SortedPagingParams;
+import com.example.petbuddybackend.dto.statistic.CaretakerStatisticsDTO;
 import com.example.petbuddybackend.dto.statistic.MonthlyRevenueDTO;
 import com.example.petbuddybackend.dto.user.SimplifiedAccountDataDTO;
 import com.example.petbuddybackend.entity.care.CareStatus;
 import com.example.petbuddybackend.entity.user.Role;
 import com.example.petbuddybackend.service.care.CareService;
+import com.example.petbuddybackend.service.care.CareStatisticsService;
 import com.example.petbuddybackend.utils.annotation.swaggerdocs.RoleParameter;
 import com.example.petbuddybackend.utils.annotation.swaggerdocs.TimeZoneParameter;
 import com.example.petbuddybackend.utils.annotation.validation.AcceptRole;
@@ -39,6 +42,7 @@ import java.util.Set;
 public class CareController {
 
     private final CareService careService;
+    private final CareStatisticsService careStatisticsService;
 
     @GetMapping
     @Operation(
@@ -271,4 +275,21 @@ public class CareController {
         return careService.getMonthlyRevenue(principal.getName(), filters, emails);
     }
 
+    @GetMapping("/statistics")
+    @Operation(
+            summary = "Get care statistics for the logged in caretaker",
+            description = """
+                    Returns number of cares per month and status, revenue of confirmed cares per month, number of cares
+                    per animal type, acceptance and cancellation rates and average daily price of cares of the logged in
+                    caretaker. Statistics are pre-aggregated, so they are answered without scanning cares.
+                    Months refer to care start and statuses to statuses of the caretaker.
+                    """
+    )
+    @PreAuthorize("isAuthenticated()")
+    public CaretakerStatisticsDTO getCaretakerStatistics(Principal principal,
+                                                         @ParameterObject @ModelAttribute @Valid CaretakerStatisticsSearchCriteria filters,
+                                                         @RequestHeader(value = "${header-name.role}") @AcceptRole(acceptRole = Role.CARETAKER) Role role) {
+        return careStatisticsService.getCaretakerStatistics(principal.getName(), filters);
+    }
+
 }
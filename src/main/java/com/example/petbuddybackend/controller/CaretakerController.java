@@ -1,12 +1,16 @@
 package com.example.petbuddybackend.controller;
 
 import com.example.petbuddybackend.dto.criteriaSearch.CaretakerSearchCriteria;
+import com.example.petbuddybackend.dto.criteriaSearch.MapViewportCriteria;
 import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
+import com.example.petbuddybackend.dto.paging.CursorPagingParams;
 import com.example.petbuddybackend.dto.paging.SortedPagingParams;
 import com.example.petbuddybackend.dto.photo.PhotoLinkDTO;
+import com.example.petbuddybackend.dto.user.CaretakerClusterDTO;
 import com.example.petbuddybackend.dto.user.CaretakerComplexDTO;
 import com.example.petbuddybackend.dto.user.CaretakerComplexPublicDTO;
 import com.example.petbuddybackend.dto.user.ModifyCaretakerDTO;
+import com.example.petbuddybackend.dto.user.ScrollCaretakersResponseDTO;
 import com.example.petbuddybackend.dto.user.SearchCaretakersResponseDTO;
 import com.example.petbuddybackend.entity.user.Role;
 import com.example.petbuddybackend.service.user.CaretakerService;
@@ -49,7 +53,7 @@ public class CaretakerController {
     )
     public SearchCaretakersResponseDTO getCaretakers(
             @ParameterObject @ModelAttribute @Valid SortedPagingParams pagingParams,
-            @ParameterObject @ModelAttribute CaretakerSearchCriteria filters,
+            @ParameterObject @ModelAttribute @Valid CaretakerSearchCriteria filters,
             @RequestBody(required = false) Set<@Valid OfferFilterDTO> offerFilters
     ) {
         if(offerFilters == null) {
@@ -60,6 +64,53 @@ public class CaretakerController {
         return caretakerService.getCaretakers(pageable, filters, offerFilters);
     }
 
+    @SecurityRequirements
+    @PostMapping("/all/scroll")
+    @Operation(
+            summary = "Scroll through caretakers",
+            description = """
+                    Retrieves caretakers based on provided search criteria, ordered by rating score and email.
+                    Next page is requested with the cursor returned with the previous one, the cursor is null on the
+                    last page. Results are not counted. Sorting by distance is not supported.
+                    Request body is not required!
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Caretakers returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or search criteria")
+    })
+    public ScrollCaretakersResponseDTO scrollCaretakers(
+            @ParameterObject @ModelAttribute @Valid CursorPagingParams pagingParams,
+            @ParameterObject @ModelAttribute @Valid CaretakerSearchCriteria filters,
+            @RequestBody(required = false) Set<@Valid OfferFilterDTO> offerFilters
+    ) {
+        if(offerFilters == null) {
+            offerFilters = Collections.emptySet();
+        }
+
+        return caretakerService.scrollCaretakers(pagingParams, filters, offerFilters);
+    }
+
+    @SecurityRequirements
+    @GetMapping("/clusters")
+    @Operation(
+            summary = "Get clusters of caretakers on a map",
+            description = """
+                    Groups caretakers living within the map view into clusters. The higher the zoom level,
+                    the smaller the area covered by a single cluster. Every cluster has the number of caretakers,
+                    their mean location and emails of a few of them.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Clusters returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid map view")
+    })
+    public List<CaretakerClusterDTO> getCaretakerClusters(
+            @ParameterObject @ModelAttribute @Valid MapViewportCriteria viewport
+    ) {
+        return caretakerService.getCaretakerClusters(viewport);
+    }
+
     @SecurityRequirements
     @GetMapping("/{caretakerEmail}")
     @Operation(
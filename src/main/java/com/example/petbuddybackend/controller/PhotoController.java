@@ -0,0 +1,87 @@
+package com.example.petbuddybackend.controller;
+
+import com.example.petbuddybackend.service.photo.LocalPhotoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/photo")
+@ConditionalOnProperty(name = "photo.storage", havingValue = "local")
+public class PhotoController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${photo.local.cache-max-age}")
+    private Duration CACHE_MAX_AGE;
+
+    private final LocalPhotoService photoService;
+
+    @GetMapping("/{blob}")
+    @Operation(
+            summary = "Get photo",
+            description = """
+                Returns photo stored on the local filesystem. Photos never change, so they can be cached by clients
+                for a long time. Conditional requests (ETag, Last-Modified) and range requests are supported.
+                """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Photo returned"),
+            @ApiResponse(responseCode = "206", description = "Requested range of the photo returned"),
+            @ApiResponse(responseCode = "304", description = "Photo not modified since cached by the client"),
+            @ApiResponse(responseCode = "404", description = "Photo not found")
+    })
+    public ResponseEntity<Resource> getPhoto(@PathVariable String blob, ServletWebRequest webRequest) {
+        LocalPhotoService.PhotoFile photo = photoService.getPhotoFile(blob);
+
+        if(webRequest.checkNotModified(blob, photo.lastModified().toEpochMilli())) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(blob)
+                .lastModified(photo.lastModified())
+                .cacheControl(CacheControl.maxAge(CACHE_MAX_AGE).cachePublic())
+                .contentType(photo.contentType());
+
+        HttpServletRequest request = webRequest.getRequest();
+
+        if(canSendFile(request)) {
+            // Tomcat writes the file with FileChannel.transferTo after the headers, without copying it through the heap
+            request.setAttribute(SENDFILE_FILENAME, photo.path().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, photo.size());
+            return response.contentLength(photo.size()).build();
+        }
+
+        // Range requests are answered by Spring with 206 and the requested regions of the resource
+        return response.body(new FileSystemResource(photo.path()));
+    }
+
+    private boolean canSendFile(HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) &&
+                HttpMethod.GET.matches(request.getMethod()) &&
+                request.getHeader(HttpHeaders.RANGE) == null;
+    }
+}
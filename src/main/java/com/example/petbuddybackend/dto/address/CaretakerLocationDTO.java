@@ -0,0 +1,15 @@
+package com.example.petbuddybackend.dto.address;
+
+import com.example.petbuddybackend.entity.address.Voivodeship;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record CaretakerLocationDTO(
+        String caretakerEmail,
+        Voivodeship voivodeship,
+        BigDecimal latitude,
+        BigDecimal longitude
+) {
+}
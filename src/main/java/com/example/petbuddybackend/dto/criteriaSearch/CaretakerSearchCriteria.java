@@ -2,8 +2,12 @@ package com.example.petbuddybackend.dto.criteriaSearch;
 
 import com.example.petbuddybackend.entity.address.Voivodeship;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Positive;
 import lombok.Builder;
 
+import java.math.BigDecimal;
 import java.util.Set;
 
 @Builder
@@ -22,6 +26,29 @@ public record CaretakerSearchCriteria(
                         "PODLASKIE", "POMORSKIE", "SLASKIE", "SWIETOKRZYSKIE", "WARMINSKO_MAZURSKIE",
                         "WIELKOPOLSKIE", "ZACHODNIOPOMORSKIE"
                 })
-        Voivodeship voivodeship
+        Voivodeship voivodeship,
+
+        @Schema(description = "Latitude of the point to search around. Required by radiusKm and sortByDistance")
+        @DecimalMin("-90.0") @DecimalMax("90.0")
+        BigDecimal latitude,
+
+        @Schema(description = "Longitude of the point to search around. Required by radiusKm and sortByDistance")
+        @DecimalMin("-180.0") @DecimalMax("180.0")
+        BigDecimal longitude,
+
+        @Schema(description = "Filters caretakers living within this distance in kilometers from the point")
+        @Positive @DecimalMax("1000.0")
+        Double radiusKm,
+
+        @Schema(description = "Sorts caretakers from the nearest to the point. Takes precedence over sortBy")
+        Boolean sortByDistance
 ) {
+
+    public boolean searchesByDistance() {
+        return radiusKm != null || Boolean.TRUE.equals(sortByDistance);
+    }
+
+    public boolean hasPoint() {
+        return latitude != null && longitude != null;
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.petbuddybackend.dto.criteriaSearch;
+
+import com.example.petbuddybackend.utils.annotation.validation.DateRange;
+import com.example.petbuddybackend.utils.annotation.validation.DateRangeField;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.time.YearMonth;
+import java.util.Set;
+
+@Builder
+@DateRange(fields = {
+        @DateRangeField(startDateField = "minCareStart", endDateField = "maxCareStart")
+}, message = "Max date should be greater than min date")
+public record CaretakerStatisticsSearchCriteria(
+        @Schema(
+                description = "Filters by animal types in cares",
+                allowableValues = {"DOG", "CAT", "BIRD", "FISH", "REPTILE", "HORSE"},
+                type = "array"
+        )
+        Set<String> animalTypes,
+
+        @Schema(
+                description = "Filters by min care start - NOT PRESENT DATE, ONLY YEAR AND MONTH",
+                example = "2020-01",
+                type = "string"
+        )
+        YearMonth minCareStart,
+
+        @Schema(
+                description = "Filters by max care start - NOT PRESENT DATE, ONLY YEAR AND MONTH",
+                example = "2020-02",
+                type = "string"
+        )
+        YearMonth maxCareStart
+) {}
@@ -0,0 +1,31 @@
+package com.example.petbuddybackend.dto.criteriaSearch;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.*;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record MapViewportCriteria(
+        @Schema(description = "Southern edge of the map view")
+        @NotNull @DecimalMin("-90.0") @DecimalMax("90.0")
+        BigDecimal minLatitude,
+
+        @Schema(description = "Northern edge of the map view")
+        @NotNull @DecimalMin("-90.0") @DecimalMax("90.0")
+        BigDecimal maxLatitude,
+
+        @Schema(description = "Western edge of the map view")
+        @NotNull @DecimalMin("-180.0") @DecimalMax("180.0")
+        BigDecimal minLongitude,
+
+        @Schema(description = "Eastern edge of the map view")
+        @NotNull @DecimalMin("-180.0") @DecimalMax("180.0")
+        BigDecimal maxLongitude,
+
+        @Schema(description = "Zoom level of the map, the same as of web map tiles")
+        @NotNull @Min(0) @Max(22)
+        Integer zoom
+) {
+}
@@ -0,0 +1,20 @@
+package com.example.petbuddybackend.dto.paging;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPagingParams {
+
+    @Schema(description = "Cursor returned with the previous page, empty for the first page")
+    private String cursor;
+
+    @Positive
+    @Schema(defaultValue = "10", description = "Page size")
+    private int size = 10;
+}
@@ -1,10 +1,14 @@
 package com.example.petbuddybackend.dto.photo;
 
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
 import lombok.Builder;
 
+import java.util.Map;
+
 @Builder
 public record PhotoLinkDTO(
         String blob,
-        String url
+        String url,
+        Map<PhotoVariant, String> variantUrls
 ) {
 }
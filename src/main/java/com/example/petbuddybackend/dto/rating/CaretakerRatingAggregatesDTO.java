@@ -0,0 +1,11 @@
+package com.example.petbuddybackend.dto.rating;
+
+import lombok.Builder;
+
+@Builder
+public record CaretakerRatingAggregatesDTO(
+        String caretakerEmail,
+        Integer numberOfRatings,
+        Integer ratingSum
+) {
+}
@@ -0,0 +1,14 @@
+package com.example.petbuddybackend.dto.statistic;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Builder
+public record CareRevenueDTO(
+        String caretakerEmail,
+        YearMonth month,
+        String animalType,
+        BigDecimal revenue
+) {}
@@ -0,0 +1,18 @@
+package com.example.petbuddybackend.dto.statistic;
+
+import com.example.petbuddybackend.entity.care.CareStatus;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+@Builder
+public record CareStatisticsDTO(
+        String caretakerEmail,
+        YearMonth month,
+        String animalType,
+        CareStatus caretakerStatus,
+        Long numberOfCares,
+        BigDecimal dailyPriceSum,
+        BigDecimal revenue
+) {}
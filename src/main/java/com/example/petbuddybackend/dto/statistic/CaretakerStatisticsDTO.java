@@ -0,0 +1,32 @@
+package com.example.petbuddybackend.dto.statistic;
+
+import com.example.petbuddybackend.entity.care.CareStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.Map;
+
+@Builder
+public record CaretakerStatisticsDTO(
+        @Schema(description = "Number of cares per month of care start and status of the caretaker")
+        Map<YearMonth, Map<CareStatus, Long>> monthlyNumberOfCares,
+
+        @Schema(description = "Revenue of confirmed cares per month of care start")
+        Map<YearMonth, BigDecimal> monthlyRevenue,
+
+        @Schema(description = "Number of cares per animal type")
+        Map<String, Long> numberOfCaresByAnimalType,
+
+        Long numberOfCares,
+
+        @Schema(description = "Share of cares ready to proceed or confirmed, null without cares")
+        Float acceptanceRate,
+
+        @Schema(description = "Share of cancelled cares, null without cares")
+        Float cancellationRate,
+
+        @Schema(description = "Average daily price of cares, null without cares")
+        BigDecimal avgDailyPrice
+) {}
@@ -0,0 +1,15 @@
+package com.example.petbuddybackend.dto.user;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Builder
+public record CaretakerClusterDTO(
+        int count,
+        BigDecimal latitude,
+        BigDecimal longitude,
+        List<String> sampleCaretakerEmails
+) {
+}
@@ -0,0 +1,15 @@
+package com.example.petbuddybackend.dto.user;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Builder
+public record ScrollCaretakersResponseDTO(
+        List<CaretakerDTO> caretakers,
+        String nextCursor,
+        BigDecimal cityLatitude,
+        BigDecimal cityLongitude
+) {
+}
@@ -1,5 +1,6 @@
 package com.example.petbuddybackend.entity.address;
 
+import com.example.petbuddybackend.utils.geo.GeoUtils;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -10,6 +11,7 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Table(indexes = @Index(name = "addressGridCellIndex", columnList = "gridCell"))
 public class Address {
 
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -38,4 +40,17 @@ public class Address {
 
     @Column(nullable = false, precision = 9, scale = 4)
     private BigDecimal longitude;
+
+    /**
+     * Cell of {@link GeoUtils} grid containing the coordinates, derived from them on every write.
+     * */
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false)
+    private Integer gridCell;
+
+    @PrePersist
+    @PreUpdate
+    private void updateGridCell() {
+        gridCell = GeoUtils.gridCellOf(latitude, longitude);
+    }
 }
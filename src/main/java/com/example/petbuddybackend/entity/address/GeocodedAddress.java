@@ -0,0 +1,35 @@
+package com.example.petbuddybackend.entity.address;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Cached result of geocoding an address. Coordinates are null for addresses that could not be geocoded.
+ * */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeocodedAddress {
+
+    @Id @Column(length = 255)
+    private String addressKey;
+
+    @Column(precision = 9, scale = 4)
+    private BigDecimal latitude;
+
+    @Column(precision = 9, scale = 4)
+    private BigDecimal longitude;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
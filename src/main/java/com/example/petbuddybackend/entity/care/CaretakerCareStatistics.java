@@ -0,0 +1,46 @@
+package com.example.petbuddybackend.entity.care;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Cares of a caretaker counted per month of care start, animal type and status of the caretaker, together with sums
+ * of their daily prices and revenue. Cares move between rows as their statuses change.
+ * */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@IdClass(CaretakerCareStatisticsId.class)
+public class CaretakerCareStatistics {
+
+    @Id
+    private String caretakerEmail;
+
+    /**
+     * First day of the month the cares started in
+     * */
+    @Id
+    private LocalDate careStartMonth;
+
+    @Id
+    private String animalType;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private CareStatus caretakerStatus;
+
+    @Column(nullable = false)
+    private Long numberOfCares;
+
+    @Column(nullable = false)
+    private BigDecimal dailyPriceSum;
+
+    @Column(nullable = false)
+    private BigDecimal revenue;
+}
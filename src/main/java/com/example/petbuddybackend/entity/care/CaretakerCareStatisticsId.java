@@ -0,0 +1,17 @@
+package com.example.petbuddybackend.entity.care;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CaretakerCareStatisticsId implements Serializable {
+    private String caretakerEmail;
+    private LocalDate careStartMonth;
+    private String animalType;
+    private CareStatus caretakerStatus;
+}
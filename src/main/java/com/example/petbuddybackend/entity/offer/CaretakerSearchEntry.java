@@ -0,0 +1,60 @@
+package com.example.petbuddybackend.entity.offer;
+
+import com.example.petbuddybackend.utils.search.SearchTokens;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Flattened copy of an offer used by caretaker search. Every offer has a row of its own and a row for each of its
+ * configurations. Attribute values and amenities are kept as tokens, so a filter is a containment check on the tokens
+ * of a single row instead of nested subqueries over offers, configurations and options.
+ * <p>
+ * Tokens are built by {@link SearchTokens}. Rows of configurations hold a token for every value the configuration
+ * accepts. A configuration without any option for an attribute name accepts all values of that attribute, so it holds
+ * tokens of all of them.
+ * */
+@Getter @Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(
+        indexes = {
+                @Index(name = "caretakerSearchEntryAnimalTypePriceIndex", columnList = "animalType, dailyPrice"),
+                @Index(name = "caretakerSearchEntryOfferIndex", columnList = "offerId")
+        }
+)
+public class CaretakerSearchEntry {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long offerId;
+
+    // Null for the row of the offer itself
+    private Long offerConfigurationId;
+
+    @Column(nullable = false)
+    private String caretakerEmail;
+
+    @Column(length = 15, nullable = false)
+    private String animalType;
+
+    // Null for the row of the offer itself
+    private BigDecimal dailyPrice;
+
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(
+            name = "caretaker_search_entry_token",
+            joinColumns = @JoinColumn(name = "entryId"),
+            indexes = @Index(name = "caretakerSearchEntryTokenIndex", columnList = "token, entryId")
+    )
+    @Column(name = "token", length = 64, nullable = false)
+    @Builder.Default
+    private Set<String> tokens = new HashSet<>();
+}
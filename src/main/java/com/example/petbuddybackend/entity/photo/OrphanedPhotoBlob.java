@@ -0,0 +1,35 @@
+package com.example.petbuddybackend.entity.photo;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Tombstone of a blob whose photo row was removed directly through JPA. It is written in the transaction removing the
+ * row, so the blob is deleted from the storage even if the application stops before the next drain.
+ * */
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(
+        name = OrphanedPhotoBlob.TABLE_NAME,
+        indexes = @Index(name = "orphanedPhotoBlobDeletionDueIndex", columnList = "nextDeletionAttemptAt")
+)
+public class OrphanedPhotoBlob {
+
+    public static final String TABLE_NAME = "orphaned_photo_blob";
+
+    @Id @Column(length = 64)
+    private String blob;
+
+    @Column(nullable = false)
+    private LocalDateTime orphanedAt;
+
+    private int deletionAttempts;
+
+    private LocalDateTime nextDeletionAttemptAt;
+}
@@ -1,20 +1,26 @@
 package com.example.petbuddybackend.entity.photo;
 
-import jakarta.persistence.Column;
-import jakarta.persistence.Entity;
-import jakarta.persistence.EntityListeners;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
 @Data
 @Entity
 @Builder
+@DynamicUpdate
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(of = "blob")
 @EntityListeners(PhotoLinkDeleteListener.class)
+@Table(indexes = {
+        @Index(name = "photoLinkDeletionDueIndex", columnList = "markedForDeletionAt, nextDeletionAttemptAt"),
+        @Index(name = "photoLinkContentHashIndex", columnList = "contentHash", unique = true)
+})
 public class PhotoLink {
 
     @Id @Column(length = 64)
@@ -26,5 +32,61 @@ public class PhotoLink {
     @Column(nullable = false)
     private LocalDateTime urlExpiresAt;
 
+    /**
+     * Signed urls of downscaled variants, sharing the expiration of the original url. Variant blobs are named after the
+     * original blob, see {@link PhotoVariant#blobOf(String)}.
+     * */
+    @Builder.Default
+    @BatchSize(size = 50)
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "photo_link_variant", joinColumns = @JoinColumn(name = "photo_link_blob"))
+    @MapKeyEnumerated(EnumType.STRING)
+    @MapKeyColumn(name = "variant")
+    @Column(name = "url", nullable = false, length = 1024)
+    private Map<PhotoVariant, String> variantUrls = new HashMap<>();
+
+    /**
+     * Hex encoded SHA-256 of the uploaded content. Identical uploads reuse the photo instead of writing a new blob.
+     * Unique, and cleared once the photo is marked for deletion, so the content can be uploaded again.
+     * */
+    @Column(length = 64)
+    private String contentHash;
+
+    /**
+     * Number of owners (profile pictures and offer galleries) using the photo. The photo is marked for deletion when
+     * the last owner releases it. Changed only by conditional updates in the database, so loaded values may be stale and
+     * must not be written back, which dynamic update ensures as long as the field is not set.
+     * */
+    @Builder.Default
+    @Column(nullable = false)
+    private int referenceCount = 1;
+
     private LocalDateTime markedForDeletionAt;
+
+    private int deletionAttempts;
+
+    private LocalDateTime nextDeletionAttemptAt;
+
+    /**
+     * Urls the photo is served with, resolved on read paths from the cache of renewed urls. Never persisted, so serving
+     * fresh urls neither writes the photo nor requires detaching it.
+     * */
+    @Transient
+    private String servedUrl;
+
+    @Transient
+    private Map<PhotoVariant, String> servedVariantUrls;
+
+    public void serveWith(String url, Map<PhotoVariant, String> variantUrls) {
+        this.servedUrl = url;
+        this.servedVariantUrls = variantUrls;
+    }
+
+    public String getServedUrl() {
+        return servedUrl != null ? servedUrl : url;
+    }
+
+    public Map<PhotoVariant, String> getServedVariantUrls() {
+        return servedVariantUrls != null ? servedVariantUrls : variantUrls;
+    }
 }
@@ -1,27 +1,23 @@
 package com.example.petbuddybackend.entity.photo;
 
-import com.google.cloud.storage.Blob;
-import com.google.cloud.storage.Bucket;
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.cloud.StorageClient;
-import jakarta.persistence.PreRemove;
+import com.example.petbuddybackend.service.photo.PhotoDeletionQueue;
+import jakarta.persistence.PostRemove;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
+/**
+ * Records blobs of removed photo rows as tombstones in the transaction removing them, so the blob is deleted from the
+ * storage by the deletion queue only if the removal is committed, and no storage call is made during the flush.
+ * */
 @Component
 @RequiredArgsConstructor
 public class PhotoLinkDeleteListener {
 
-    private final FirebaseApp firebaseApp;
+    private final ObjectProvider<PhotoDeletionQueue> photoDeletionQueue;
 
-    @PreRemove
-    public void removePhotoFromRemote(PhotoLink photo) {
-        StorageClient storageClient = StorageClient.getInstance(firebaseApp);
-        Bucket bucket = storageClient.bucket();
-        Blob blobToDelete = bucket.get(photo.getBlob());
-
-        if(blobToDelete != null) {
-            blobToDelete.delete();
-        }
+    @PostRemove
+    public void enqueueRemoteDeletion(PhotoLink photo) {
+        photoDeletionQueue.getObject().recordOrphanedBlob(photo.getBlob());
     }
 }
@@ -0,0 +1,35 @@
+package com.example.petbuddybackend.entity.photo;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public enum PhotoVariant {
+    AVATAR(64),
+    CARD(320),
+    DETAIL(1280);
+
+    private final int maxDimension;
+
+    public String blobOf(String originalBlob) {
+        return originalBlob + "-" + name().toLowerCase();
+    }
+
+    /**
+     * Returns the original blob followed by blobs of all its possible variants
+     * */
+    public static List<String> blobsWithVariants(String originalBlob) {
+        List<String> blobs = new ArrayList<>(values().length + 1);
+        blobs.add(originalBlob);
+
+        for(PhotoVariant variant : values()) {
+            blobs.add(variant.blobOf(originalBlob));
+        }
+
+        return blobs;
+    }
+}
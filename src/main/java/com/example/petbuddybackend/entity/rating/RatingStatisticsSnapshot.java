@@ -0,0 +1,41 @@
+package com.example.petbuddybackend.entity.rating;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of running rating statistics, restoring them at startup without scanning all caretakers. There is a single
+ * snapshot, replaced whenever statistics are persisted.
+ * */
+@Entity
+@Builder
+@Getter @Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RatingStatisticsSnapshot {
+
+    public static final Long SNAPSHOT_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long ratingSum;
+
+    /**
+     * Number of caretakers having a given number of ratings.
+     * */
+    @Builder.Default
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "rating_statistics_snapshot_bucket", joinColumns = @JoinColumn(name = "snapshot_id"))
+    @MapKeyColumn(name = "number_of_ratings")
+    @Column(name = "caretakers", nullable = false)
+    private Map<Integer, Integer> caretakersByNumberOfRatings = new HashMap<>();
+
+    @Column(nullable = false)
+    private ZonedDateTime takenAt;
+}
@@ -21,7 +21,7 @@ public class AppUser {
     @Column(nullable = false, length = 100)
     private String surname;
 
-    @OneToOne(cascade = CascadeType.REMOVE, fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "profile_picture_blob", referencedColumnName = "blob")
     private PhotoLink profilePicture;
 
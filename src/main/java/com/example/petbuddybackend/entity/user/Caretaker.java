@@ -7,6 +7,8 @@ import com.example.petbuddybackend.entity.offer.Offer;
 import com.example.petbuddybackend.entity.photo.PhotoLink;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.Formula;
 
 import java.util.ArrayList;
@@ -20,6 +22,8 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @EqualsAndHashCode(of = "email")
+@DynamicUpdate
+@Table(indexes = @Index(name = "caretakerRatingScoreEmailIndex", columnList = "ratingScore DESC, email"))
 public class Caretaker {
 
     public static final int MAX_OFFER_PHOTO_LIMIT = 10;
@@ -37,18 +41,20 @@ public class Caretaker {
     @OneToOne(cascade = CascadeType.MERGE, optional = false)
     private AppUser accountData;
 
-    @Basic(fetch = FetchType.LAZY)
-    @Formula("(SELECT COUNT(*) " +
-            " FROM Rating r " +
-            " JOIN Care c ON r.care_id = c.id " +
-            " WHERE c.caretaker_email = email)")
-    private Integer numberOfRatings;
-
-    @Basic(fetch = FetchType.LAZY)
-    @Formula("(SELECT AVG(r.rating) " +
-            " FROM Rating r " +
-            " JOIN Care c ON r.care_id = c.id " +
-            " WHERE c.caretaker_email = email)")
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer numberOfRatings = 0;
+
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer ratingSum = 0;
+
+    /**
+     * Computed from the rating aggregates of the same row, without querying ratings.
+     * */
+    @Formula("(rating_sum * 1.0 / NULLIF(number_of_ratings, 0))")
     private Float avgRating;
 
     @Column
@@ -71,7 +77,8 @@ public class Caretaker {
 
     @Builder.Default
     @OrderColumn(name = "index_id")
-    @OneToMany(cascade = CascadeType.REMOVE, fetch = FetchType.LAZY, orphanRemoval = true)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "caretaker_offer_photos")
     private List<PhotoLink> offerPhotos = new ArrayList<>();
 
     @PrePersist
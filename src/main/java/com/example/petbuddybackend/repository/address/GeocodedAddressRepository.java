@@ -0,0 +1,9 @@
+package com.example.petbuddybackend.repository.address;
+
+import com.example.petbuddybackend.entity.address.GeocodedAddress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GeocodedAddressRepository extends JpaRepository<GeocodedAddress, String> {
+}
@@ -16,7 +16,7 @@ import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 
-public interface CareRepository extends JpaRepository<Care, Long>, JpaSpecificationExecutor<Care> {
+public interface CareRepository extends JpaRepository<Care, Long>, JpaSpecificationExecutor<Care>, CareStatisticsRepository {
 
     Page<Care> findAll(Specification<Care> spec, Pageable pageable);
 
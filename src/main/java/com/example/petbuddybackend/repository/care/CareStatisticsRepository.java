@@ -0,0 +1,25 @@
+package com.example.petbuddybackend.repository.care;
+
+import com.example.petbuddybackend.dto.statistic.CareRevenueDTO;
+import com.example.petbuddybackend.dto.statistic.CareStatisticsDTO;
+import com.example.petbuddybackend.entity.care.Care;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Aggregations of cares computed in the database. Revenue of a care is its daily price times the number of days of care.
+ * */
+public interface CareStatisticsRepository {
+
+    /**
+     * Sums revenue of cares matching the specification, grouped by caretaker, month of care start and animal type.
+     * */
+    List<CareRevenueDTO> sumRevenue(Specification<Care> spec);
+
+    /**
+     * Counts cares matching the specification and sums their daily prices and revenue, grouped by caretaker, month of
+     * care start, animal type and caretaker status.
+     * */
+    List<CareStatisticsDTO> sumStatistics(Specification<Care> spec);
+}
@@ -0,0 +1,120 @@
+package com.example.petbuddybackend.repository.care;
+
+import com.example.petbuddybackend.dto.statistic.CareRevenueDTO;
+import com.example.petbuddybackend.dto.statistic.CareStatisticsDTO;
+import com.example.petbuddybackend.entity.care.Care;
+import com.example.petbuddybackend.entity.care.CareStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.hibernate.query.sqm.TemporalUnit;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class CareStatisticsRepositoryImpl implements CareStatisticsRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<CareRevenueDTO> sumRevenue(Specification<Care> spec) {
+        GroupedCareQuery grouped = new GroupedCareQuery(spec);
+
+        grouped.query.multiselect(grouped.caretakerEmail, grouped.year, grouped.month, grouped.animalType,
+                        grouped.cb.sum(grouped.revenue))
+                .groupBy(grouped.caretakerEmail, grouped.year, grouped.month, grouped.animalType);
+
+        return entityManager.createQuery(grouped.query)
+                .getResultStream()
+                .map(tuple -> CareRevenueDTO.builder()
+                        .caretakerEmail(tuple.get(0, String.class))
+                        .month(toYearMonth(tuple.get(1, Number.class), tuple.get(2, Number.class)))
+                        .animalType(tuple.get(3, String.class))
+                        .revenue(toBigDecimal(tuple.get(4, Number.class)))
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public List<CareStatisticsDTO> sumStatistics(Specification<Care> spec) {
+        GroupedCareQuery grouped = new GroupedCareQuery(spec);
+        Expression<CareStatus> caretakerStatus = grouped.root.get("caretakerStatus");
+
+        grouped.query.multiselect(grouped.caretakerEmail, grouped.year, grouped.month, grouped.animalType,
+                        caretakerStatus, grouped.cb.count(grouped.root), grouped.cb.sum(grouped.dailyPrice),
+                        grouped.cb.sum(grouped.revenue))
+                .groupBy(grouped.caretakerEmail, grouped.year, grouped.month, grouped.animalType, caretakerStatus);
+
+        return entityManager.createQuery(grouped.query)
+                .getResultStream()
+                .map(tuple -> CareStatisticsDTO.builder()
+                        .caretakerEmail(tuple.get(0, String.class))
+                        .month(toYearMonth(tuple.get(1, Number.class), tuple.get(2, Number.class)))
+                        .animalType(tuple.get(3, String.class))
+                        .caretakerStatus(tuple.get(4, CareStatus.class))
+                        .numberOfCares(tuple.get(5, Long.class))
+                        .dailyPriceSum(toBigDecimal(tuple.get(6, Number.class)))
+                        .revenue(toBigDecimal(tuple.get(7, Number.class)))
+                        .build())
+                .toList();
+    }
+
+    private static YearMonth toYearMonth(Number year, Number month) {
+        return YearMonth.of(year.intValue(), month.intValue());
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        return number instanceof BigDecimal decimal ? decimal : new BigDecimal(number.toString());
+    }
+
+    /**
+     * Tuple query over cares matching the specification, with expressions of the dimensions cares are grouped by
+     * */
+    private class GroupedCareQuery {
+
+        private final HibernateCriteriaBuilder cb;
+        private final CriteriaQuery<Tuple> query;
+        private final Root<Care> root;
+        private final Expression<String> caretakerEmail;
+        private final Expression<String> animalType;
+        private final Expression<Integer> year;
+        private final Expression<Integer> month;
+        private final Expression<BigDecimal> dailyPrice;
+        private final Expression<Number> revenue;
+
+        private GroupedCareQuery(Specification<Care> spec) {
+            cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+            query = cb.createTupleQuery();
+            root = query.from(Care.class);
+
+            Expression<LocalDate> careStart = root.get("careStart");
+            caretakerEmail = root.get("caretaker").get("email");
+            animalType = root.get("animal").get("animalType");
+            year = cb.function("year", Integer.class, careStart);
+            month = cb.function("month", Integer.class, careStart);
+            dailyPrice = root.get("dailyPrice");
+
+            Expression<Long> days = cb.sum(
+                    cb.durationByUnit(TemporalUnit.DAY, cb.durationBetween(root.<LocalDate>get("careEnd"), careStart)),
+                    1L
+            );
+            revenue = cb.prod(dailyPrice, days);
+
+            Predicate predicate = spec.toPredicate(root, query, cb);
+
+            if(predicate != null) {
+                query.where(predicate);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.petbuddybackend.repository.care;
+
+import com.example.petbuddybackend.entity.care.CareStatus;
+import com.example.petbuddybackend.entity.care.CaretakerCareStatistics;
+import com.example.petbuddybackend.entity.care.CaretakerCareStatisticsId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public interface CaretakerCareStatisticsRepository extends JpaRepository<CaretakerCareStatistics, CaretakerCareStatisticsId>,
+        JpaSpecificationExecutor<CaretakerCareStatistics> {
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE CaretakerCareStatistics s SET
+                s.numberOfCares = s.numberOfCares + :numberOfCares,
+                s.dailyPriceSum = s.dailyPriceSum + :dailyPriceSum,
+                s.revenue = s.revenue + :revenue
+            WHERE s.caretakerEmail = :caretakerEmail
+            AND s.careStartMonth = :careStartMonth
+            AND s.animalType = :animalType
+            AND s.caretakerStatus = :caretakerStatus
+            """
+    )
+    int addToStatistics(
+            String caretakerEmail,
+            LocalDate careStartMonth,
+            String animalType,
+            CareStatus caretakerStatus,
+            long numberOfCares,
+            BigDecimal dailyPriceSum,
+            BigDecimal revenue
+    );
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM CaretakerCareStatistics s
+            WHERE s.caretakerEmail = :caretakerEmail
+            """
+    )
+    void deleteAllByCaretakerEmail(String caretakerEmail);
+}
@@ -0,0 +1,22 @@
+package com.example.petbuddybackend.repository.offer;
+
+import com.example.petbuddybackend.entity.offer.CaretakerSearchEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface CaretakerSearchEntryRepository extends JpaRepository<CaretakerSearchEntry, Long> {
+
+    List<CaretakerSearchEntry> findAllByCaretakerEmail(String caretakerEmail);
+
+    void deleteAllByOfferId(Long offerId);
+
+    @Query("""
+        SELECT DISTINCT e
+        FROM CaretakerSearchEntry e
+        LEFT JOIN FETCH e.tokens
+        """)
+    List<CaretakerSearchEntry> findAllWithTokens();
+
+}
@@ -2,6 +2,18 @@ package com.example.petbuddybackend.repository.offer;
 
 import com.example.petbuddybackend.entity.offer.OfferConfiguration;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface OfferConfigurationRepository extends JpaRepository<OfferConfiguration, Long> {
+
+    @Query("""
+        SELECT DISTINCT oc
+        FROM OfferConfiguration oc
+        LEFT JOIN FETCH oc.offerOptions op
+        LEFT JOIN FETCH op.animalAttribute
+        """)
+    List<OfferConfiguration> findAllWithOptions();
+
 }
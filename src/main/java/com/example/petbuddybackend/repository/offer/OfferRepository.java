@@ -2,7 +2,9 @@ package com.example.petbuddybackend.repository.offer;
 
 import com.example.petbuddybackend.entity.offer.Offer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface OfferRepository extends JpaRepository<Offer, Long> {
@@ -11,4 +13,37 @@ public interface OfferRepository extends JpaRepository<Offer, Long> {
 
     Optional<Offer> findByAnimal_AnimalType(String animalType);
 
+    @Query("""
+        SELECT DISTINCT o
+        FROM Offer o
+        JOIN FETCH o.caretaker c
+        JOIN FETCH c.accountData u
+        LEFT JOIN FETCH u.client
+        JOIN FETCH o.animal
+        LEFT JOIN FETCH o.availabilities
+        """)
+    List<Offer> findAllWithAvailabilities();
+
+    /**
+     * Initializes amenities of the offers already loaded in the persistence context.
+     * */
+    @Query("""
+        SELECT DISTINCT o
+        FROM Offer o
+        LEFT JOIN FETCH o.animalAmenities a
+        LEFT JOIN FETCH a.amenity
+        """)
+    List<Offer> findAllWithAmenities();
+
+    /**
+     * Initializes configurations of the offers already loaded in the persistence context. Configurations are expected
+     * to be loaded with their options beforehand, as their options are fetched eagerly one configuration at a time.
+     * */
+    @Query("""
+        SELECT DISTINCT o
+        FROM Offer o
+        LEFT JOIN FETCH o.offerConfigurations
+        """)
+    List<Offer> findAllWithConfigurations();
+
 }
@@ -0,0 +1,21 @@
+package com.example.petbuddybackend.repository.photo;
+
+import com.example.petbuddybackend.entity.photo.OrphanedPhotoBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrphanedPhotoBlobRepository extends JpaRepository<OrphanedPhotoBlob, String> {
+
+    @Query("""
+        SELECT o FROM OrphanedPhotoBlob o
+        WHERE o.nextDeletionAttemptAt IS NULL OR o.nextDeletionAttemptAt <= :now
+        ORDER BY o.orphanedAt
+        """)
+    List<OrphanedPhotoBlob> findDueForDeletion(LocalDateTime now, Pageable pageable);
+}
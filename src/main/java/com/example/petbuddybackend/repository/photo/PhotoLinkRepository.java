@@ -1,13 +1,74 @@
 package com.example.petbuddybackend.repository.photo;
 
 import com.example.petbuddybackend.entity.photo.PhotoLink;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PhotoLinkRepository extends JpaRepository<PhotoLink, String> {
 
-    List<PhotoLink> getAllByMarkedForDeletionAtNotNull();
+    List<PhotoLink> findAllByContentHashInAndMarkedForDeletionAtIsNull(Collection<String> contentHashes);
+
+    List<PhotoLink> findAllByUrlExpiresAtBeforeAndMarkedForDeletionAtIsNull(LocalDateTime expiresBefore);
+
+    @Query("""
+        SELECT p FROM PhotoLink p
+        WHERE p.markedForDeletionAt IS NOT NULL
+        AND (p.nextDeletionAttemptAt IS NULL OR p.nextDeletionAttemptAt <= :now)
+        ORDER BY p.markedForDeletionAt
+        """)
+    List<PhotoLink> findDueForDeletion(LocalDateTime now, Pageable pageable);
+
+    long countByMarkedForDeletionAtNotNull();
+
+    /**
+     * Takes references of the photo in a single statement, so concurrent updates of its reference count are not lost.
+     * @return 0 if the photo is missing or already marked for deletion
+     * */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE PhotoLink p SET p.referenceCount = p.referenceCount + :count
+        WHERE p.blob = :blob
+        AND p.markedForDeletionAt IS NULL
+        """)
+    int addReferences(String blob, int count);
+
+    /**
+     * Releases references of the photo and marks it for deletion if they were the last ones, in a single statement, so
+     * the photo is never marked while another owner still references it.
+     * */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE PhotoLink p SET
+            p.markedForDeletionAt = CASE WHEN p.referenceCount <= :count THEN :markedAt ELSE p.markedForDeletionAt END,
+            p.nextDeletionAttemptAt = CASE WHEN p.referenceCount <= :count THEN :markedAt ELSE p.nextDeletionAttemptAt END,
+            p.contentHash = CASE WHEN p.referenceCount <= :count THEN NULL ELSE p.contentHash END,
+            p.referenceCount = CASE WHEN p.referenceCount <= :count THEN 0 ELSE p.referenceCount - :count END
+        WHERE p.blob = :blob
+        AND p.markedForDeletionAt IS NULL
+        """)
+    int releaseReferences(String blob, int count, LocalDateTime markedAt);
+
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE PhotoLink p SET
+            p.markedForDeletionAt = :markedAt,
+            p.nextDeletionAttemptAt = :markedAt,
+            p.contentHash = NULL
+        WHERE p.blob IN :blobs
+        AND p.referenceCount = 0
+        AND p.markedForDeletionAt IS NULL
+        """)
+    int markUnreferencedForDeletion(Collection<String> blobs, LocalDateTime markedAt);
 }
@@ -1,11 +1,15 @@
 package com.example.petbuddybackend.repository.rating;
 
 import com.example.petbuddybackend.entity.rating.Rating;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Optional;
+
 
 public interface RatingRepository extends JpaRepository<Rating, Long> {
 
@@ -36,5 +40,17 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
 
     Boolean existsByCareId(Long careId);
 
+    /**
+     * Finds the rating locked until the end of the transaction, so concurrent changes of the same rating apply their
+     * previous values to rating aggregates one after another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT r
+        FROM Rating r
+        WHERE r.careId = :careId
+        """)
+    Optional<Rating> findByIdForUpdate(Long careId);
+
 
 }
@@ -0,0 +1,7 @@
+package com.example.petbuddybackend.repository.rating;
+
+import com.example.petbuddybackend.entity.rating.RatingStatisticsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RatingStatisticsSnapshotRepository extends JpaRepository<RatingStatisticsSnapshot, Long> {
+}
@@ -1,7 +1,17 @@
 package com.example.petbuddybackend.repository.user;
 
+import com.example.petbuddybackend.dto.user.SimplifiedAccountDataDTO;
 import com.example.petbuddybackend.entity.user.AppUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface AppUserRepository extends JpaRepository<AppUser, String> {
+
+    @Query("""
+        SELECT new com.example.petbuddybackend.dto.user.SimplifiedAccountDataDTO(u.email, u.name, u.surname)
+        FROM AppUser u
+        """)
+    List<SimplifiedAccountDataDTO> findAllAccountData();
 }
@@ -1,5 +1,7 @@
 package com.example.petbuddybackend.repository.user;
 
+import com.example.petbuddybackend.dto.address.CaretakerLocationDTO;
+import com.example.petbuddybackend.dto.rating.CaretakerRatingAggregatesDTO;
 import com.example.petbuddybackend.entity.user.Caretaker;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -10,6 +12,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+
 
 public interface CaretakerRepository extends JpaRepository<Caretaker, String>, JpaSpecificationExecutor<Caretaker> {
 
@@ -19,11 +24,106 @@ public interface CaretakerRepository extends JpaRepository<Caretaker, String>, J
     @Modifying
     @Query("""
         UPDATE Caretaker c
-        SET c.ratingScore = (((c.avgRating * c.numberOfRatings) + (:confidence * :avgGlobalRating)) /
-                 (c.numberOfRatings + :confidence))
+        SET c.ratingScore = CASE WHEN c.numberOfRatings = 0 THEN NULL
+                 ELSE ((c.ratingSum + (:confidence * :avgGlobalRating)) / (c.numberOfRatings + :confidence)) END
         """)
     void updateRatingScore(Float avgGlobalRating, Integer confidence);
 
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE Caretaker c
+        SET c.ratingScore = CASE WHEN c.numberOfRatings = 0 THEN NULL
+                 ELSE ((c.ratingSum + (:confidence * :avgGlobalRating)) / (c.numberOfRatings + :confidence)) END
+        WHERE c.email IN :caretakerEmails
+        """)
+    void updateRatingScoreOfCaretakers(Collection<String> caretakerEmails, Float avgGlobalRating, Integer confidence);
+
+    @Query("""
+        SELECT new com.example.petbuddybackend.dto.rating.CaretakerRatingAggregatesDTO(
+            c.email, c.numberOfRatings, c.ratingSum
+        )
+        FROM Caretaker c
+        WHERE c.numberOfRatings > 0
+        """)
+    List<CaretakerRatingAggregatesDTO> findAllRatingAggregates();
+
+    /**
+     * Changes rating aggregates of the caretaker in place, so concurrent ratings of the caretaker are not lost.
+     * */
+    @Transactional
+    @Modifying
+    @Query("""
+        UPDATE Caretaker c
+        SET c.numberOfRatings = c.numberOfRatings + :numberOfRatingsChange,
+            c.ratingSum = c.ratingSum + :ratingSumChange
+        WHERE c.email = :caretakerEmail
+        """)
+    void updateRatingAggregates(String caretakerEmail, int numberOfRatingsChange, int ratingSumChange);
+
+    @Query("""
+        SELECT c.numberOfRatings
+        FROM Caretaker c
+        WHERE c.email = :caretakerEmail
+        """)
+    Integer findNumberOfRatings(String caretakerEmail);
+
+    /**
+     * Recounts rating aggregates of caretakers whose aggregates differ from their ratings.
+     *
+     * @return number of repaired caretakers
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        
+        UPDATE Caretaker c
+        SET number_of_ratings = (
+                SELECT COUNT(*)
+                FROM Rating r
+                JOIN Care ca ON r.care_id = ca.id
+                WHERE ca.caretaker_email = c.email
+            ),
+            rating_sum = (
+                SELECT COALESCE(SUM(r.rating), 0)
+                FROM Rating r
+                JOIN Care ca ON r.care_id = ca.id
+                WHERE ca.caretaker_email = c.email
+            )
+        WHERE c.number_of_ratings <> (
+                SELECT COUNT(*)
+                FROM Rating r
+                JOIN Care ca ON r.care_id = ca.id
+                WHERE ca.caretaker_email = c.email
+            )
+            OR c.rating_sum <> (
+                SELECT COALESCE(SUM(r.rating), 0)
+                FROM Rating r
+                JOIN Care ca ON r.care_id = ca.id
+                WHERE ca.caretaker_email = c.email
+            )
+        """, nativeQuery = true)
+    int reconcileRatingAggregates();
+
+    @Query("""
+        SELECT c.email
+        FROM Caretaker c
+        """)
+    List<String> findAllEmails();
+
+    /**
+     * Locks the caretakers until the end of the transaction, in order of their emails so transactions locking many
+     * caretakers do not deadlock.
+     * */
+    @Query(value = """
+        SELECT c.email
+        FROM Caretaker c
+        WHERE c.email IN (:caretakerEmails)
+        ORDER BY c.email
+        FOR UPDATE
+        """, nativeQuery = true)
+    List<String> lockAllByEmailIn(Collection<String> caretakerEmails);
+
     @Query("""
         
         SELECT CASE WHEN COUNT(c) > 0 THEN TRUE ELSE FALSE END
@@ -34,4 +134,36 @@ public interface CaretakerRepository extends JpaRepository<Caretaker, String>, J
         """)
     boolean isCaretakerFollowedByClient(String caretakerEmail, String clientEmail);
 
+    @Query("""
+        SELECT new com.example.petbuddybackend.dto.address.CaretakerLocationDTO(
+            c.email, a.voivodeship, a.latitude, a.longitude
+        )
+        FROM Caretaker c
+        JOIN c.address a
+        """)
+    List<CaretakerLocationDTO> findAllLocations();
+
+    @Query("""
+        SELECT c
+        FROM Caretaker c
+        JOIN FETCH c.accountData u
+        LEFT JOIN FETCH u.profilePicture
+        LEFT JOIN FETCH u.client
+        JOIN FETCH c.address
+        WHERE c.email IN :emails
+        """)
+    List<Caretaker> findAllWithAccountDataByEmailIn(Collection<String> emails);
+
+    /**
+     * Initializes offers with their animals of the caretakers already loaded in the persistence context.
+     * */
+    @Query("""
+        SELECT DISTINCT c
+        FROM Caretaker c
+        LEFT JOIN FETCH c.offers o
+        LEFT JOIN FETCH o.animal
+        WHERE c.email IN :emails
+        """)
+    List<Caretaker> findAllWithOffersByEmailIn(Collection<String> emails);
+
 }
@@ -1,6 +1,7 @@
 package com.example.petbuddybackend.scheduled;
 
 import com.example.petbuddybackend.service.care.CareService;
+import com.example.petbuddybackend.service.care.CareStatisticsService;
 import com.example.petbuddybackend.service.care.state.CareStateMachine;
 import com.example.petbuddybackend.service.notification.NotificationService;
 import lombok.RequiredArgsConstructor;
@@ -16,6 +17,7 @@ public class CareScheduled {
     private final CareStateMachine careStateMachine;
     private final NotificationService notificationService;
     private final CareService careService;
+    private final CareStatisticsService careStatisticsService;
 
     @Scheduled(cron = "0 1 0 * * *")
     public void terminateCares() {
@@ -28,4 +30,9 @@ public class CareScheduled {
         careService.sendNotificationForConfirmCares();
     }
 
+    @Scheduled(cron = "0 0 4 * * *")
+    public void rebuildCareStatistics() {
+        careStatisticsService.rebuild();
+    }
+
 }
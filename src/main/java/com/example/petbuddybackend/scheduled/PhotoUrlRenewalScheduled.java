@@ -0,0 +1,24 @@
+package com.example.petbuddybackend.scheduled;
+
+import com.example.petbuddybackend.service.photo.PhotoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoUrlRenewalScheduled {
+
+    private final PhotoService photoService;
+
+    /**
+     * Interval has to be shorter than the renewal threshold, so urls are re-signed before read paths see them expired
+     */
+    @Scheduled(fixedDelayString = "${firebase.photo.renewal.interval}", initialDelay = 0)
+    public void renewExpiringPhotoUrls() {
+        int renewedCount = photoService.renewExpiringPhotos();
+        log.debug("Renewed urls of {} photos", renewedCount);
+    }
+}
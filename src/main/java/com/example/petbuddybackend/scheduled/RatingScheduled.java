@@ -1,7 +1,8 @@
 package com.example.petbuddybackend.scheduled;
 
-import com.example.petbuddybackend.repository.rating.RatingRepository;
 import com.example.petbuddybackend.repository.user.CaretakerRepository;
+import com.example.petbuddybackend.service.rating.RatingScoreTracker;
+import com.example.petbuddybackend.service.user.CaretakerSearchCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
@@ -12,19 +13,62 @@ import org.springframework.scheduling.annotation.Scheduled;
 @Slf4j
 public class RatingScheduled {
 
-    private final RatingRepository ratingRepository;
     private final CaretakerRepository caretakerRepository;
+    private final CaretakerSearchCache caretakerSearchCache;
+    private final RatingScoreTracker ratingScoreTracker;
 
     /**
+     * Rescores caretakers whose ratings changed, or all of them once global statistics moved past their thresholds.
      * Refreshing every 20 seconds for testing purpose, need to be changed to every 30 minutes for production
      */
     @Scheduled(cron = "0/20 * * * * *")
     public void updateRatingScoreOfCaretaker() {
 
-        Float avgGlobalRating = ratingRepository.getAvgRating();
-        Integer confidence = ratingRepository.findPercentileOfNumberOfRatings(0.75f);
-        caretakerRepository.updateRatingScore(avgGlobalRating, confidence);
-        log.debug("Updated rating score of caretakers");
+        RatingScoreTracker.Rescore rescore = ratingScoreTracker.takeRescore();
+
+        if(rescore.isEmpty()) {
+            return;
+        }
+
+        if(rescore.full()) {
+            caretakerRepository.updateRatingScore(rescore.avgGlobalRating(), rescore.confidence());
+            log.debug("Updated rating score of all caretakers");
+        } else {
+            caretakerRepository.updateRatingScoreOfCaretakers(
+                    rescore.caretakerEmails(),
+                    rescore.avgGlobalRating(),
+                    rescore.confidence()
+            );
+            log.debug("Updated rating score of {} caretakers", rescore.caretakerEmails().size());
+        }
+
+        caretakerSearchCache.evictRatingSorted();
+
+    }
+
+    @Scheduled(cron = "0 */5 * * * *")
+    public void persistRatingStatistics() {
+
+        ratingScoreTracker.persist();
+        log.debug("Persisted rating statistics");
+
+    }
+
+    /**
+     * Repairs rating aggregates of caretakers that drifted from their ratings, e.g. after concurrent updates of the same
+     * rating or ratings removed together with their cares.
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    public void reconcileRatingAggregates() {
+
+        int repairedCaretakers = caretakerRepository.reconcileRatingAggregates();
+
+        if(repairedCaretakers > 0) {
+            ratingScoreTracker.rebuild();
+            ratingScoreTracker.persist();
+            ratingScoreTracker.requestFullRescore();
+            log.warn("Repaired rating aggregates of {} caretakers", repairedCaretakers);
+        }
 
     }
 
@@ -6,6 +6,8 @@ import com.example.petbuddybackend.dto.care.DetailedCareWithHistoryDTO;
 import com.example.petbuddybackend.dto.care.UpdateCareDTO;
 import com.example.petbuddybackend.dto.criteriaSearch.CareSearchCriteria;
 import com.example.petbuddybackend.dto.criteriaSearch.CareStatisticsSearchCriteria;
+import com.example.petbuddybackend.dto.statistic.CareRevenueDTO;
+import com.example.petbuddybackend.dto.statistic.CareStatisticsDTO;
 import com.example.petbuddybackend.dto.statistic.MonthlyRevenueDTO;
 import com.example.petbuddybackend.dto.user.SimplifiedAccountDataDTO;
 import com.example.petbuddybackend.entity.animal.AnimalAttribute;
@@ -82,7 +84,9 @@ public class CareService {
     private final BlockService blockService;
     private final CareStatusesHistoryService careStatusesHistoryService;
     private final RatingRepository ratingRepository;
+    private final CareStatisticsService careStatisticsService;
 
+    @Transactional
     public DetailedCareWithHistoryDTO makeReservation(CreateCareDTO createCare, String clientEmail, String caretakerEmail,
                                    ZoneId timeZone) {
         userService.assertHasRole(clientEmail, Role.CLIENT);
@@ -108,42 +112,48 @@ public class CareService {
         return careMapper.mapToDetailedCareWithHistoryDTO(care, timeZone, canCareBeRated(care));
     }
 
+    @Transactional
     public DetailedCareWithHistoryDTO updateCare(Long careId, UpdateCareDTO updateCare, String caretakerEmail, ZoneId timeZone) {
         Care care = getCareOfCaretaker(careId, caretakerEmail);
+        CareStatisticsDTO previousStatistics = CareStatisticsService.statisticsOf(care);
 
         careStateMachine.transitionToEditCare(care);
         careMapper.updateCareFromDTO(updateCare, care);
 
         Care savedCare = careRepository.save(care);
-        careStatusesHistoryService.addCareStatusesHistory(savedCare);
+        careStatusesHistoryService.addCareStatusesHistory(savedCare, previousStatistics);
         renewPhotosOfCareParticipants(savedCare);
         sendClientCareNotification(savedCare, UPDATE_RESERVATION_MESSAGE);
         return careMapper.mapToDetailedCareWithHistoryDTO(savedCare, timeZone, canCareBeRated(savedCare));
     }
 
+    @Transactional
     public DetailedCareWithHistoryDTO clientChangeCareStatus(Long careId, String clientEmail, ZoneId timeZone,
                                                   CareStatus newStatus) {
         userService.assertHasRole(clientEmail, Role.CLIENT);
         Care care = getCareOfClient(careId, clientEmail);
+        CareStatisticsDTO previousStatistics = CareStatisticsService.statisticsOf(care);
 
         careStateMachine.transition(Role.CLIENT, care, newStatus);
         care = careRepository.save(care);
 
-        careStatusesHistoryService.addCareStatusesHistory(care);
+        careStatusesHistoryService.addCareStatusesHistory(care, previousStatistics);
         renewPhotosOfCareParticipants(care);
         sendCaretakerCareNotification(care, getNotificationOnStatusChange(newStatus));
         return careMapper.mapToDetailedCareWithHistoryDTO(care, timeZone, canCareBeRated(care));
     }
 
+    @Transactional
     public DetailedCareWithHistoryDTO caretakerChangeCareStatus(Long careId, String caretakerEmail, ZoneId timeZone,
                                              CareStatus newStatus) {
         userService.assertHasRole(caretakerEmail, Role.CARETAKER);
         Care care = getCareOfCaretaker(careId, caretakerEmail);
+        CareStatisticsDTO previousStatistics = CareStatisticsService.statisticsOf(care);
 
         careStateMachine.transition(Role.CARETAKER, care, newStatus);
         care = careRepository.save(care);
 
-        careStatusesHistoryService.addCareStatusesHistory(care);
+        careStatusesHistoryService.addCareStatusesHistory(care, previousStatistics);
         renewPhotosOfCareParticipants(care);
         sendClientCareNotification(care, getNotificationOnStatusChange(newStatus));
         return careMapper.mapToDetailedCareWithHistoryDTO(care, timeZone, canCareBeRated(care));
@@ -181,11 +191,13 @@ public class CareService {
         return careMapper.mapToDetailedCareWithHistoryDTO(care, timezone, canCareBeRated(care));
     }
 
+    @Transactional
     public DetailedCareWithHistoryDTO markCareAsConfirmed(Long careId, String caretakerUsername, Role role, ZoneId timezone) {
         Care care = getCareOfCaretaker(careId, caretakerUsername);
+        CareStatisticsDTO previousStatistics = CareStatisticsService.statisticsOf(care);
         careStateMachine.transition(role, care, CareStatus.CONFIRMED);
         Care savedCare = careRepository.save(care);
-        careStatusesHistoryService.addCareStatusesHistory(savedCare);
+        careStatusesHistoryService.addCareStatusesHistory(savedCare, previousStatistics);
         renewPhotosOfCareParticipants(savedCare);
         return careMapper.mapToDetailedCareWithHistoryDTO(savedCare, timezone, canCareBeRated(savedCare));
     }
@@ -201,6 +213,10 @@ public class CareService {
     public MonthlyRevenueDTO getMonthlyRevenue(String caretakerEmail,
                                                CareStatisticsSearchCriteria filters,
                                                Set<String> emails) {
+        if(careStatisticsService.canAnswerMonthlyRevenue(filters, emails)) {
+            return careStatisticsService.getMonthlyRevenue(caretakerEmail, filters);
+        }
+
         Specification<Care> spec = CareSpecificationUtils.toSpecificationForCaretaker(
                 filters,
                 emails,
@@ -209,8 +225,7 @@ public class CareService {
                 caretakerEmail
         );
 
-        List<Care> cares = careRepository.findAll(spec);
-        return createMonthlyRevenue(cares);
+        return createMonthlyRevenue(careRepository.sumRevenue(spec));
     }
 
     private Care renewPhotosOfCareParticipants(Care care) {
@@ -332,17 +347,11 @@ public class CareService {
       
     }
 
-    private MonthlyRevenueDTO createMonthlyRevenue(List<Care> cares) {
-        Map<YearMonth, BigDecimal> monthlyRevenue = cares.stream()
+    private MonthlyRevenueDTO createMonthlyRevenue(List<CareRevenueDTO> careRevenues) {
+        Map<YearMonth, BigDecimal> monthlyRevenue = careRevenues.stream()
                 .collect(Collectors.groupingBy(
-                        care -> YearMonth.from(care.getCareStart()),
-                        Collectors.mapping(
-                                care -> {
-                                    long days = care.getCareEnd().toEpochDay() - care.getCareStart().toEpochDay() + 1;
-                                    return care.getDailyPrice().multiply(BigDecimal.valueOf(days));
-                                },
-                                Collectors.reducing(BigDecimal.ZERO, BigDecimal::add)
-                        )
+                        CareRevenueDTO::month,
+                        Collectors.reducing(BigDecimal.ZERO, CareRevenueDTO::revenue, BigDecimal::add)
                 ));
         return new MonthlyRevenueDTO(monthlyRevenue);
     }
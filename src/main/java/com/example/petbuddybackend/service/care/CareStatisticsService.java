@@ -0,0 +1,305 @@
+package com.example.petbuddybackend.service.care;
+
+import com.example.petbuddybackend.dto.criteriaSearch.CareStatisticsSearchCriteria;
+import com.example.petbuddybackend.dto.criteriaSearch.CaretakerStatisticsSearchCriteria;
+import com.example.petbuddybackend.dto.statistic.CareStatisticsDTO;
+import com.example.petbuddybackend.dto.statistic.CaretakerStatisticsDTO;
+import com.example.petbuddybackend.dto.statistic.MonthlyRevenueDTO;
+import com.example.petbuddybackend.entity.care.Care;
+import com.example.petbuddybackend.entity.care.CareStatus;
+import com.example.petbuddybackend.entity.care.CaretakerCareStatistics;
+import com.example.petbuddybackend.repository.care.CareRepository;
+import com.example.petbuddybackend.repository.care.CaretakerCareStatisticsRepository;
+import com.example.petbuddybackend.repository.user.CaretakerRepository;
+import com.example.petbuddybackend.utils.specification.CaretakerCareStatisticsSpecificationUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.common.util.CollectionUtil;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps cares counted per caretaker, month of care start, animal type and caretaker status. A care moves between rows
+ * whenever its statuses history is written or statuses of many cares are changed at once, so statistics of a caretaker
+ * are read from a number of rows bounded by months, animal types and statuses instead of all cares. Changes of the
+ * statistics lock the caretakers they belong to, so they are not interleaved with each other or with a rebuild.
+ * */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CareStatisticsService {
+
+    private static final Set<CareStatus> ACCEPTED_STATUSES = Set.of(CareStatus.READY_TO_PROCEED, CareStatus.CONFIRMED);
+
+    private final CaretakerCareStatisticsRepository caretakerCareStatisticsRepository;
+    private final CareRepository careRepository;
+    private final CaretakerRepository caretakerRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Builds statistics of a fresh database. Populated statistics are kept, as other instances may already be changing
+     * them, and are repaired by {@link #rebuild()} instead.
+     * */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if(caretakerCareStatisticsRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Recomputes statistics from all cares, repairing them e.g. after cares were written bypassing the services. Each
+     * caretaker is rebuilt in its own transaction holding the caretaker locked, so care changes made meanwhile wait
+     * for it instead of being lost or counted twice.
+     * */
+    public void rebuild() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<String> caretakerEmails = caretakerRepository.findAllEmails();
+
+        for(String caretakerEmail : caretakerEmails) {
+            transactionTemplate.executeWithoutResult(status -> rebuildCaretaker(caretakerEmail));
+        }
+
+        log.info("Rebuilt care statistics of {} caretakers", caretakerEmails.size());
+    }
+
+    /**
+     * @return statistics the care contributes with, to be captured before the care is changed
+     * */
+    public static CareStatisticsDTO statisticsOf(Care care) {
+        long days = care.getCareEnd().toEpochDay() - care.getCareStart().toEpochDay() + 1;
+
+        return CareStatisticsDTO.builder()
+                .caretakerEmail(care.getCaretaker().getEmail())
+                .month(YearMonth.from(care.getCareStart()))
+                .animalType(care.getAnimal().getAnimalType())
+                .caretakerStatus(care.getCaretakerStatus())
+                .numberOfCares(1L)
+                .dailyPriceSum(care.getDailyPrice())
+                .revenue(care.getDailyPrice().multiply(BigDecimal.valueOf(days)))
+                .build();
+    }
+
+    /**
+     * Moves the care from statistics it contributed with before the change to its current ones.
+     *
+     * @param previousStatistics statistics of the care before the change, null if the care was just created
+     * */
+    @Transactional
+    public void recordCareChange(CareStatisticsDTO previousStatistics, Care care) {
+        CareStatisticsDTO currentStatistics = statisticsOf(care);
+
+        if(currentStatistics.equals(previousStatistics)) {
+            return;
+        }
+
+        lockCaretakers(List.of(currentStatistics.caretakerEmail()));
+
+        if(previousStatistics != null) {
+            addToStatistics(previousStatistics, -1);
+        }
+
+        addToStatistics(currentStatistics, 1);
+    }
+
+    /**
+     * Moves cares matching the specification to the new caretaker status. Must be called right before their statuses
+     * are changed in bulk, within the same transaction.
+     * */
+    @Transactional
+    public void moveCares(Specification<Care> caresToMove, CareStatus newStatus) {
+        List<CareStatisticsDTO> statisticsToMove = careRepository.sumStatistics(caresToMove);
+        lockCaretakers(statisticsToMove.stream()
+                .map(CareStatisticsDTO::caretakerEmail)
+                .collect(Collectors.toSet()));
+
+        for(CareStatisticsDTO statistics : statisticsToMove) {
+            if(statistics.caretakerStatus() == newStatus) {
+                continue;
+            }
+
+            addToStatistics(statistics, -1);
+            addToStatistics(withCaretakerStatus(statistics, newStatus), 1);
+        }
+    }
+
+    public CaretakerStatisticsDTO getCaretakerStatistics(String caretakerEmail, CaretakerStatisticsSearchCriteria filters) {
+        List<CaretakerCareStatistics> statistics = caretakerCareStatisticsRepository.findAll(
+                        CaretakerCareStatisticsSpecificationUtils.toSpecificationForCaretaker(filters, caretakerEmail)
+                )
+                .stream()
+                .filter(row -> row.getNumberOfCares() > 0)
+                .toList();
+
+        long numberOfCares = sumNumberOfCares(statistics, row -> true);
+        long acceptedCares = sumNumberOfCares(statistics, row -> ACCEPTED_STATUSES.contains(row.getCaretakerStatus()));
+        long cancelledCares = sumNumberOfCares(statistics, row -> row.getCaretakerStatus() == CareStatus.CANCELLED);
+        BigDecimal dailyPriceSum = statistics.stream()
+                .map(CaretakerCareStatistics::getDailyPriceSum)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        return CaretakerStatisticsDTO.builder()
+                .monthlyNumberOfCares(createMonthlyNumberOfCares(statistics))
+                .monthlyRevenue(createMonthlyRevenue(statistics))
+                .numberOfCaresByAnimalType(statistics.stream()
+                        .collect(Collectors.groupingBy(
+                                CaretakerCareStatistics::getAnimalType,
+                                TreeMap::new,
+                                Collectors.summingLong(CaretakerCareStatistics::getNumberOfCares)
+                        )))
+                .numberOfCares(numberOfCares)
+                .acceptanceRate(numberOfCares == 0 ? null : (float) acceptedCares / numberOfCares)
+                .cancellationRate(numberOfCares == 0 ? null : (float) cancelledCares / numberOfCares)
+                .avgDailyPrice(numberOfCares == 0
+                        ? null
+                        : dailyPriceSum.divide(BigDecimal.valueOf(numberOfCares), 2, RoundingMode.HALF_UP))
+                .build();
+    }
+
+    /**
+     * @return true if statistics hold every dimension the filters narrow revenue by
+     * */
+    public boolean canAnswerMonthlyRevenue(CareStatisticsSearchCriteria filters, Set<String> clientEmails) {
+        return filters.minDailyPrice() == null &&
+                filters.maxDailyPrice() == null &&
+                CollectionUtil.isEmpty(clientEmails);
+    }
+
+    /**
+     * Revenue of confirmed cares of the caretaker. Confirmation sets statuses of both sides, so rows of confirmed
+     * caretaker status hold exactly the cares confirmed by both.
+     * */
+    public MonthlyRevenueDTO getMonthlyRevenue(String caretakerEmail, CareStatisticsSearchCriteria filters) {
+        CaretakerStatisticsSearchCriteria statisticsFilters = CaretakerStatisticsSearchCriteria.builder()
+                .animalTypes(filters.animalTypes())
+                .minCareStart(filters.minCareStart())
+                .maxCareStart(filters.maxCareStart())
+                .build();
+
+        List<CaretakerCareStatistics> statistics = caretakerCareStatisticsRepository.findAll(
+                CaretakerCareStatisticsSpecificationUtils.toSpecificationForCaretaker(
+                        statisticsFilters,
+                        caretakerEmail,
+                        CareStatus.CONFIRMED
+                )
+        );
+
+        return new MonthlyRevenueDTO(createMonthlyRevenue(statistics));
+    }
+
+    private void addToStatistics(CareStatisticsDTO statistics, int sign) {
+        long numberOfCares = sign * statistics.numberOfCares();
+        BigDecimal dailyPriceSum = statistics.dailyPriceSum().multiply(BigDecimal.valueOf(sign));
+        BigDecimal revenue = statistics.revenue().multiply(BigDecimal.valueOf(sign));
+
+        int updated = caretakerCareStatisticsRepository.addToStatistics(
+                statistics.caretakerEmail(),
+                statistics.month().atDay(1),
+                statistics.animalType(),
+                statistics.caretakerStatus(),
+                numberOfCares,
+                dailyPriceSum,
+                revenue
+        );
+
+        // The caretaker is locked, so no other transaction inserts the row meanwhile. A missing row to subtract from
+        // means statistics drifted, which the next rebuild repairs
+        if(updated == 0 && sign > 0) {
+            caretakerCareStatisticsRepository.save(mapToCaretakerCareStatistics(statistics));
+        }
+    }
+
+    private void rebuildCaretaker(String caretakerEmail) {
+        lockCaretakers(List.of(caretakerEmail));
+
+        List<CaretakerCareStatistics> statistics = careRepository.sumStatistics(
+                        (root, query, criteriaBuilder) ->
+                                criteriaBuilder.equal(root.get("caretaker").get("email"), caretakerEmail)
+                )
+                .stream()
+                .map(this::mapToCaretakerCareStatistics)
+                .toList();
+
+        caretakerCareStatisticsRepository.deleteAllByCaretakerEmail(caretakerEmail);
+        caretakerCareStatisticsRepository.saveAll(statistics);
+    }
+
+    private void lockCaretakers(Collection<String> caretakerEmails) {
+        if(!caretakerEmails.isEmpty()) {
+            caretakerRepository.lockAllByEmailIn(caretakerEmails);
+        }
+    }
+
+    private Map<YearMonth, Map<CareStatus, Long>> createMonthlyNumberOfCares(List<CaretakerCareStatistics> statistics) {
+        return statistics.stream()
+                .collect(Collectors.groupingBy(
+                        row -> YearMonth.from(row.getCareStartMonth()),
+                        TreeMap::new,
+                        Collectors.groupingBy(
+                                CaretakerCareStatistics::getCaretakerStatus,
+                                () -> new EnumMap<>(CareStatus.class),
+                                Collectors.summingLong(CaretakerCareStatistics::getNumberOfCares)
+                        )
+                ));
+    }
+
+    private Map<YearMonth, BigDecimal> createMonthlyRevenue(List<CaretakerCareStatistics> statistics) {
+        return statistics.stream()
+                .filter(row -> row.getCaretakerStatus() == CareStatus.CONFIRMED)
+                .filter(row -> row.getNumberOfCares() > 0)
+                .collect(Collectors.groupingBy(
+                        row -> YearMonth.from(row.getCareStartMonth()),
+                        TreeMap::new,
+                        Collectors.reducing(BigDecimal.ZERO, CaretakerCareStatistics::getRevenue, BigDecimal::add)
+                ));
+    }
+
+    private long sumNumberOfCares(List<CaretakerCareStatistics> statistics,
+                                  Predicate<CaretakerCareStatistics> filter) {
+        return statistics.stream()
+                .filter(filter)
+                .mapToLong(CaretakerCareStatistics::getNumberOfCares)
+                .sum();
+    }
+
+    private CareStatisticsDTO withCaretakerStatus(CareStatisticsDTO statistics, CareStatus caretakerStatus) {
+        return CareStatisticsDTO.builder()
+                .caretakerEmail(statistics.caretakerEmail())
+                .month(statistics.month())
+                .animalType(statistics.animalType())
+                .caretakerStatus(caretakerStatus)
+                .numberOfCares(statistics.numberOfCares())
+                .dailyPriceSum(statistics.dailyPriceSum())
+                .revenue(statistics.revenue())
+                .build();
+    }
+
+    private CaretakerCareStatistics mapToCaretakerCareStatistics(CareStatisticsDTO statistics) {
+        return CaretakerCareStatistics.builder()
+                .caretakerEmail(statistics.caretakerEmail())
+                .careStartMonth(statistics.month().atDay(1))
+                .animalType(statistics.animalType())
+                .caretakerStatus(statistics.caretakerStatus())
+                .numberOfCares(statistics.numberOfCares())
+                .dailyPriceSum(statistics.dailyPriceSum())
+                .revenue(statistics.revenue())
+                .build();
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.petbuddybackend.service.care;
 
+import com.example.petbuddybackend.dto.statistic.CareStatisticsDTO;
 import com.example.petbuddybackend.entity.care.Care;
 import com.example.petbuddybackend.entity.care.CareStatusesHistory;
 import com.example.petbuddybackend.repository.care.CareStatusesHistoryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZonedDateTime;
 
@@ -13,9 +15,25 @@ import java.time.ZonedDateTime;
 public class CareStatusesHistoryService {
 
     private final CareStatusesHistoryRepository careStatusesHistoryRepository;
+    private final CareStatisticsService careStatisticsService;
 
+    /**
+     * Adds statuses history of a newly created care
+     * */
+    @Transactional
     public void addCareStatusesHistory(Care care) {
+        addCareStatusesHistory(care, null);
+    }
+
+    /**
+     * Adds statuses history of the care and moves it in care statistics
+     *
+     * @param previousStatistics statistics of the care captured before it was changed
+     * */
+    @Transactional
+    public void addCareStatusesHistory(Care care, CareStatisticsDTO previousStatistics) {
         careStatusesHistoryRepository.save(createCareStatusesHistory(care));
+        careStatisticsService.recordCareChange(previousStatistics, care);
     }
 
     private CareStatusesHistory createCareStatusesHistory(Care care) {
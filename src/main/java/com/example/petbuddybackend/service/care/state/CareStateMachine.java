@@ -4,6 +4,8 @@ import com.example.petbuddybackend.entity.care.Care;
 import com.example.petbuddybackend.entity.care.CareStatus;
 import com.example.petbuddybackend.entity.user.Role;
 import com.example.petbuddybackend.repository.care.CareRepository;
+import com.example.petbuddybackend.service.care.CareStatisticsService;
+import com.example.petbuddybackend.utils.specification.CareSpecificationUtils;
 import com.example.petbuddybackend.utils.exception.throweable.general.StateTransitionException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -32,6 +35,7 @@ public class CareStateMachine {
 
     private final TransitionManager transitionManager = initTransitionManager();
     private final CareRepository careRepository;
+    private final CareStatisticsService careStatisticsService;
 
 
     /**
@@ -65,10 +69,17 @@ public class CareStateMachine {
 
     @Transactional
     public int outdateCaresIfStatePermitsAndSave() {
-        return careRepository.outdateCaresBetweenClientAndCaretaker(
-                statusesThatCanBeOutdatedBySystem,
-                LocalDate.now().minusDays(CONFIRM_CARE_TIME_WINDOW.toDays())
+        LocalDate threshold = LocalDate.now().minusDays(CONFIRM_CARE_TIME_WINDOW.toDays());
+
+        careStatisticsService.moveCares(
+                CareSpecificationUtils.toSpecificationOfCaresStartedBefore(
+                        Set.copyOf(statusesThatCanBeOutdatedBySystem),
+                        threshold
+                ),
+                CareStatus.OUTDATED
         );
+
+        return careRepository.outdateCaresBetweenClientAndCaretaker(statusesThatCanBeOutdatedBySystem, threshold);
     }
 
     public boolean canBeRated(Care care) {
@@ -148,6 +159,15 @@ public class CareStateMachine {
     }
 
     private void cancelCaresOfClientAndCaretakerAndSave(String clientEmail, String caretakerEmail) {
+        careStatisticsService.moveCares(
+                CareSpecificationUtils.toSpecificationOfCaresBetween(
+                        clientEmail,
+                        caretakerEmail,
+                        Set.copyOf(statusesThatCanBeCancelledBySystem)
+                ),
+                CareStatus.CANCELLED
+        );
+
         careRepository.cancelCaresBetweenClientAndCaretaker(
                 clientEmail,
                 caretakerEmail,
@@ -17,6 +17,7 @@ import com.example.petbuddybackend.service.block.BlockService;
 import com.example.petbuddybackend.service.mapper.ChatMapper;
 import com.example.petbuddybackend.service.user.CaretakerService;
 import com.example.petbuddybackend.service.user.ClientService;
+import com.example.petbuddybackend.service.user.UserSearchIndex;
 import com.example.petbuddybackend.service.user.UserService;
 import com.example.petbuddybackend.utils.exception.throweable.chat.ChatAlreadyExistsException;
 import com.example.petbuddybackend.utils.exception.throweable.chat.InvalidMessageReceiverException;
@@ -29,10 +30,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -52,6 +55,7 @@ public class ChatService {
     private final ChatRoomRepository chatRoomRepository;
     private final BlockService blockService;
     private final UserService userService;
+    private final UserSearchIndex userSearchIndex;
 
     public Page<ChatMessageDTO> getChatMessages(Long chatId,
                                                 String principalEmail,
@@ -71,10 +75,15 @@ public class ChatService {
                                           Pageable pageable,
                                           ZoneId timeZone) {
 
+        Set<String> chatterMatchingEmails = StringUtils.hasText(searchCriteria.chatterDataLike())
+                ? userSearchIndex.findMatchingEmails(searchCriteria.chatterDataLike()).orElse(null)
+                : null;
+
         Specification<ChatMessage> chatMessageSpec = ChatSpecificationUtils.filtersToSpecificationSorted(
                 searchCriteria,
                 principalEmail,
-                role
+                role,
+                chatterMatchingEmails
         );
 
         Page<ChatMessage> principalChatMessages = chatMessageRepository.findAll(chatMessageSpec, pageable);
@@ -14,6 +14,7 @@ public interface AddressMapper {
     AddressMapper INSTANCE = Mappers.getMapper(AddressMapper.class);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "gridCell", ignore = true)
     Address mapToAddress(AddressDTO addressDTO);
 
     AddressDTO mapToAddressDTO(Address address);
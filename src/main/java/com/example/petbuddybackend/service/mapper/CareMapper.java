@@ -30,8 +30,8 @@ public interface CareMapper {
 
     @Mapping(target = "selectedOptions", source = "care.animalAttributes", qualifiedByName = "mapSelectedOptions")
     @Mapping(target = "animalType", source = "care.animal.animalType")
-    @Mapping(target = "caretaker", source = "care.caretaker.accountData")
-    @Mapping(target = "client", source = "care.client.accountData")
+    @Mapping(target = "caretaker", source = "care.caretaker.accountData", qualifiedByName = "mapToListAccountDataDTO")
+    @Mapping(target = "client", source = "care.client.accountData", qualifiedByName = "mapToListAccountDataDTO")
     @Mapping(target = "submittedAt", source = "care.submittedAt", qualifiedByName = "mapToZonedDateTime")
     DetailedCareDTO mapToDetailedCareDTO(Care care, @Context ZoneId zoneId, Boolean canBeRated);
 
@@ -28,6 +28,7 @@ public interface CaretakerMapper {
     Caretaker mapToCaretaker(ModifyCaretakerDTO caretakerDTO, AppUser accountData, List<PhotoLink> offerPhotos);
 
     @Mapping(target = "animals", source = "caretaker.offers", qualifiedByName = "mapAnimalFromOffer")
+    @Mapping(target = "accountData", source = "caretaker.accountData", qualifiedByName = "mapToListAccountDataDTO")
     CaretakerDTO mapToCaretakerDTO(Caretaker caretaker);
 
     @Mapping(target = "animals", source = "caretaker.offers", qualifiedByName = "mapAnimalFromOffer")
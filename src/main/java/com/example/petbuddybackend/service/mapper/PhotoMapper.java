@@ -2,13 +2,50 @@ package com.example.petbuddybackend.service.mapper;
 
 import com.example.petbuddybackend.dto.photo.PhotoLinkDTO;
 import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
 import org.mapstruct.Mapper;
+import org.mapstruct.Named;
 import org.mapstruct.factory.Mappers;
 
+import java.util.Map;
+
 @Mapper
 public interface PhotoMapper {
 
     PhotoMapper INSTANCE = Mappers.getMapper(PhotoMapper.class);
 
-    PhotoLinkDTO mapToPhotoLinkDTO(PhotoLink photoLink);
+    /**
+     * Maps the photo with the urls it is served with, see {@link PhotoLink#getServedUrl()}.
+     * */
+    default PhotoLinkDTO mapToPhotoLinkDTO(PhotoLink photoLink) {
+        if(photoLink == null) {
+            return null;
+        }
+
+        return PhotoLinkDTO.builder()
+                .blob(photoLink.getBlob())
+                .url(photoLink.getServedUrl())
+                .variantUrls(Map.copyOf(photoLink.getServedVariantUrls()))
+                .build();
+    }
+
+    /**
+     * Maps the photo for list views, sending only the smallest variant. Falls back to the original when the photo has
+     * no variants.
+     * */
+    @Named("mapToThumbnailPhotoLinkDTO")
+    default PhotoLinkDTO mapToThumbnailPhotoLinkDTO(PhotoLink photoLink) {
+        if(photoLink == null) {
+            return null;
+        }
+
+        String thumbnailUrl = photoLink.getServedVariantUrls()
+                .getOrDefault(PhotoVariant.AVATAR, photoLink.getServedUrl());
+
+        return PhotoLinkDTO.builder()
+                .blob(photoLink.getBlob())
+                .url(thumbnailUrl)
+                .variantUrls(Map.of())
+                .build();
+    }
 }
@@ -5,6 +5,7 @@ import com.example.petbuddybackend.dto.user.UserProfilesData;
 import com.example.petbuddybackend.entity.user.AppUser;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 import org.mapstruct.factory.Mappers;
 
 @Mapper(uses = {PhotoMapper.class})
@@ -16,4 +17,8 @@ public interface UserMapper {
     UserProfilesData mapToProfileData(AppUser appUser, Boolean hasClientProfile, Boolean hasCaretakerProfile);
 
     AccountDataDTO mapToAccountDataDTO(AppUser appUser);
+
+    @Named("mapToListAccountDataDTO")
+    @Mapping(target = "profilePicture", source = "profilePicture", qualifiedByName = "mapToThumbnailPhotoLinkDTO")
+    AccountDataDTO mapToListAccountDataDTO(AppUser appUser);
 }
@@ -0,0 +1,371 @@
+package com.example.petbuddybackend.service.offer;
+
+import com.example.petbuddybackend.dto.address.CaretakerLocationDTO;
+import com.example.petbuddybackend.dto.availability.AvailabilityFilterDTO;
+import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
+import com.example.petbuddybackend.entity.address.Voivodeship;
+import com.example.petbuddybackend.entity.amenity.AnimalAmenity;
+import com.example.petbuddybackend.entity.animal.AnimalAttribute;
+import com.example.petbuddybackend.entity.offer.CaretakerSearchEntry;
+import com.example.petbuddybackend.entity.offer.Offer;
+import com.example.petbuddybackend.entity.offer.OfferConfiguration;
+import com.example.petbuddybackend.entity.offer.OfferOption;
+import com.example.petbuddybackend.repository.animal.AnimalAttributeRepository;
+import com.example.petbuddybackend.repository.offer.CaretakerSearchEntryRepository;
+import com.example.petbuddybackend.repository.offer.OfferConfigurationRepository;
+import com.example.petbuddybackend.repository.offer.OfferRepository;
+import com.example.petbuddybackend.repository.user.CaretakerRepository;
+import com.example.petbuddybackend.service.user.CaretakerSearchCache;
+import com.example.petbuddybackend.utils.search.AvailabilityIntervalIndex;
+import com.example.petbuddybackend.utils.search.CaretakerBitmapIndex;
+import com.example.petbuddybackend.utils.search.SearchTokens;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps {@link CaretakerSearchEntry} rows in line with offers. {@link OfferService} refreshes the rows of an offer in the
+ * same transaction as every change of it, so search never sees a half applied change.
+ * <p>
+ * The rows are mirrored in a {@link CaretakerBitmapIndex}, updated once the transaction commits, which resolves offer
+ * filters without querying the database. Availability ranges of offers are kept in an {@link AvailabilityIntervalIndex}
+ * the same way, so filters of availability are resolved in memory too. Every change of an offer evicts cached searches
+ * it may affect from the {@link CaretakerSearchCache}.
+ * */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CaretakerSearchIndexer {
+
+    // Caretakers matched in memory are passed to the database as a list, too many of them are matched in the database
+    private static final int MAX_MATCHING_CARETAKERS = 5000;
+
+    private final CaretakerSearchEntryRepository caretakerSearchEntryRepository;
+    private final OfferRepository offerRepository;
+    private final OfferConfigurationRepository offerConfigurationRepository;
+    private final AnimalAttributeRepository animalAttributeRepository;
+    private final CaretakerRepository caretakerRepository;
+    private final MeterRegistry meterRegistry;
+    private final CaretakerSearchCache caretakerSearchCache;
+
+    // Null until built at startup
+    private volatile CaretakerBitmapIndex bitmapIndex;
+    private volatile AvailabilityIntervalIndex availabilityIndex;
+
+    private Timer availabilityLookupTimer;
+
+    @PostConstruct
+    public void init() {
+        availabilityLookupTimer = meterRegistry.timer("caretaker.search.availability");
+    }
+
+    /**
+     * Builds the in memory indexes at startup. Rows are built from offers only when there are none yet, as offers
+     * created by data generation do not go through {@link OfferService}. Otherwise the rows are kept, since other
+     * instances may already be changing them, and the indexes are read from them.
+     * */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void index() {
+        if(caretakerSearchEntryRepository.count() == 0) {
+            rebuild();
+            return;
+        }
+
+        CaretakerBitmapIndex loaded = createCaretakerIndex();
+        AvailabilityIntervalIndex loadedAvailability = new AvailabilityIntervalIndex();
+
+        caretakerSearchEntryRepository.findAllWithTokens().stream()
+                .collect(Collectors.groupingBy(CaretakerSearchEntry::getOfferId))
+                .forEach((offerId, entries) -> loaded.putOffer(offerId, toBitmapEntries(entries)));
+
+        for(Offer offer : offerRepository.findAllWithAvailabilities()) {
+            loadedAvailability.putOffer(offer.getId(), toAvailabilityRanges(offer));
+        }
+
+        runAfterCommit(() -> {
+            bitmapIndex = loaded;
+            availabilityIndex = loadedAvailability;
+        });
+        log.info("Loaded caretaker search index. Bitmaps take {} KB", loaded.bitmapBytes() / 1024);
+    }
+
+    /**
+     * Replaces all rows with ones built from the offers in the database. Offers changed meanwhile may be indexed as
+     * they were before the change, so it is meant to repair the rows when offers are not being changed.
+     * */
+    @Transactional
+    public void rebuild() {
+        caretakerSearchEntryRepository.deleteAllInBatch();
+        Map<String, Map<String, Set<String>>> attributeCatalog = getAttributeCatalog();
+        List<Offer> offers = findAllOffersWithSearchedAssociations();
+        CaretakerBitmapIndex rebuilt = createCaretakerIndex();
+        AvailabilityIntervalIndex rebuiltAvailability = new AvailabilityIntervalIndex();
+
+        for(Offer offer : offers) {
+            List<CaretakerSearchEntry> entries = createEntries(offer, attributeCatalog);
+            caretakerSearchEntryRepository.saveAll(entries);
+            rebuilt.putOffer(offer.getId(), toBitmapEntries(entries));
+            rebuiltAvailability.putOffer(offer.getId(), toAvailabilityRanges(offer));
+        }
+
+        runAfterCommit(() -> {
+            bitmapIndex = rebuilt;
+            availabilityIndex = rebuiltAvailability;
+        });
+        log.info("Indexed {} offers for caretaker search. Bitmaps take {} KB", offers.size(), rebuilt.bitmapBytes() / 1024);
+    }
+
+    @Transactional
+    public void refreshOffer(Offer offer) {
+        List<CaretakerSearchEntry> entries = createEntries(offer, getAttributeCatalog());
+        caretakerSearchEntryRepository.deleteAllByOfferId(offer.getId());
+        caretakerSearchEntryRepository.saveAll(entries);
+
+        List<CaretakerBitmapIndex.Entry> bitmapEntries = toBitmapEntries(entries);
+        updateBitmapIndex(index -> index.putOffer(offer.getId(), bitmapEntries));
+        evictCachedSearches(offer);
+    }
+
+    /**
+     * Replaces availability ranges of the offer once the transaction commits.
+     * */
+    public void refreshAvailabilities(Offer offer) {
+        List<AvailabilityIntervalIndex.Range> ranges = toAvailabilityRanges(offer);
+        updateAvailabilityIndex(index -> index.putOffer(offer.getId(), ranges));
+        evictCachedSearches(offer);
+    }
+
+    @Transactional
+    public void removeOffer(Offer offer) {
+        Long offerId = offer.getId();
+        caretakerSearchEntryRepository.deleteAllByOfferId(offerId);
+        updateBitmapIndex(index -> index.removeOffer(offerId));
+        updateAvailabilityIndex(index -> index.removeOffer(offerId));
+        evictCachedSearches(offer);
+    }
+
+    public void updateCaretaker(String caretakerEmail, Voivodeship voivodeship) {
+        updateBitmapIndex(index -> index.putCaretaker(caretakerEmail, voivodeship));
+    }
+
+    /**
+     * Matches offer filters in memory, including availability of offers. Time of availability lookups is recorded by
+     * the caretaker.search.availability timer.
+     *
+     * @return emails of matching caretakers, empty if the index is not built yet or too many caretakers match
+     * */
+    public Optional<Set<String>> findCaretakersMatchingOffers(Voivodeship voivodeship, Set<OfferFilterDTO> offerFilters) {
+        CaretakerBitmapIndex index = bitmapIndex;
+        AvailabilityIntervalIndex availabilities = availabilityIndex;
+
+        if(index == null || availabilities == null || offerFilters.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Set<String> caretakers = index.findCaretakers(voivodeship, offerFilters);
+
+        for(OfferFilterDTO offerFilter : offerFilters) {
+            if(caretakers.isEmpty()) {
+                break;
+            }
+
+            if(!offerFilter.availabilities().isEmpty()) {
+                caretakers.retainAll(availabilityLookupTimer.record(
+                        () -> findAvailableCaretakers(availabilities, offerFilter)
+                ));
+            }
+        }
+
+        return caretakers.size() > MAX_MATCHING_CARETAKERS ? Optional.empty() : Optional.of(caretakers);
+    }
+
+    /**
+     * Any of the availability filters must be covered by a single availability range of the offer.
+     * */
+    private Set<String> findAvailableCaretakers(AvailabilityIntervalIndex availabilities, OfferFilterDTO offerFilter) {
+        Set<String> caretakers = new HashSet<>();
+
+        for(AvailabilityFilterDTO availabilityFilter : offerFilter.availabilities()) {
+            caretakers.addAll(availabilities.findAvailableCaretakers(
+                    offerFilter.animalType(),
+                    availabilityFilter.availableFrom(),
+                    availabilityFilter.availableTo()
+            ));
+        }
+
+        return caretakers;
+    }
+
+    /**
+     * Loads offers together with everything their rows are built from, with a query per association instead of a
+     * query per offer.
+     * */
+    private List<Offer> findAllOffersWithSearchedAssociations() {
+        List<Offer> offers = offerRepository.findAllWithAvailabilities();
+
+        if(!offers.isEmpty()) {
+            offerRepository.findAllWithAmenities();
+            offerConfigurationRepository.findAllWithOptions();
+            offerRepository.findAllWithConfigurations();
+        }
+
+        return offers;
+    }
+
+    private CaretakerBitmapIndex createCaretakerIndex() {
+        CaretakerBitmapIndex index = new CaretakerBitmapIndex();
+
+        for(CaretakerLocationDTO location : caretakerRepository.findAllLocations()) {
+            index.putCaretaker(location.caretakerEmail(), location.voivodeship());
+        }
+
+        return index;
+    }
+
+    private void evictCachedSearches(Offer offer) {
+        caretakerSearchCache.evictOffer(
+                offer.getAnimal().getAnimalType(),
+                offer.getCaretaker().getAddress().getVoivodeship()
+        );
+    }
+
+    private void updateBitmapIndex(Consumer<CaretakerBitmapIndex> update) {
+        runAfterCommit(() -> {
+            CaretakerBitmapIndex index = bitmapIndex;
+
+            if(index != null) {
+                update.accept(index);
+            }
+        });
+    }
+
+    private void updateAvailabilityIndex(Consumer<AvailabilityIntervalIndex> update) {
+        runAfterCommit(() -> {
+            AvailabilityIntervalIndex index = availabilityIndex;
+
+            if(index != null) {
+                update.accept(index);
+            }
+        });
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private List<CaretakerBitmapIndex.Entry> toBitmapEntries(List<CaretakerSearchEntry> entries) {
+        return entries.stream()
+                .map(entry -> new CaretakerBitmapIndex.Entry(
+                        entry.getCaretakerEmail(),
+                        entry.getAnimalType(),
+                        entry.getDailyPrice(),
+                        Set.copyOf(entry.getTokens())
+                ))
+                .toList();
+    }
+
+    private List<AvailabilityIntervalIndex.Range> toAvailabilityRanges(Offer offer) {
+        String caretakerEmail = offer.getCaretaker().getEmail();
+        String animalType = offer.getAnimal().getAnimalType();
+
+        return offer.getAvailabilities().stream()
+                .map(availability -> new AvailabilityIntervalIndex.Range(
+                        caretakerEmail,
+                        animalType,
+                        availability.getAvailableFrom(),
+                        availability.getAvailableTo()
+                ))
+                .toList();
+    }
+
+    private List<CaretakerSearchEntry> createEntries(Offer offer, Map<String, Map<String, Set<String>>> attributeCatalog) {
+        Set<String> amenityTokens = offer.getAnimalAmenities().stream()
+                .map(AnimalAmenity::getAmenity)
+                .map(amenity -> SearchTokens.amenityToken(amenity.getName()))
+                .collect(Collectors.toSet());
+
+        List<CaretakerSearchEntry> entries = new ArrayList<>();
+        entries.add(createEntry(offer, null, amenityTokens));
+
+        Map<String, Set<String>> animalAttributes =
+                attributeCatalog.getOrDefault(offer.getAnimal().getAnimalType(), Collections.emptyMap());
+
+        for(OfferConfiguration configuration : offer.getOfferConfigurations()) {
+            Set<String> tokens = new HashSet<>(amenityTokens);
+            tokens.addAll(getAcceptedAttributeTokens(configuration, animalAttributes));
+            entries.add(createEntry(offer, configuration, tokens));
+        }
+
+        return entries;
+    }
+
+    private CaretakerSearchEntry createEntry(Offer offer, OfferConfiguration configuration, Set<String> tokens) {
+        return CaretakerSearchEntry.builder()
+                .offerId(offer.getId())
+                .offerConfigurationId(configuration == null ? null : configuration.getId())
+                .caretakerEmail(offer.getCaretaker().getEmail())
+                .animalType(offer.getAnimal().getAnimalType())
+                .dailyPrice(configuration == null ? null : configuration.getDailyPrice())
+                .tokens(tokens)
+                .build();
+    }
+
+    private Set<String> getAcceptedAttributeTokens(OfferConfiguration configuration,
+                                                   Map<String, Set<String>> animalAttributes) {
+        Map<String, Set<String>> selectedValues = configuration.getOfferOptions().stream()
+                .map(OfferOption::getAnimalAttribute)
+                .collect(Collectors.groupingBy(
+                        AnimalAttribute::getAttributeName,
+                        Collectors.mapping(AnimalAttribute::getAttributeValue, Collectors.toSet())
+                ));
+
+        Set<String> tokens = new HashSet<>();
+
+        selectedValues.forEach((attributeName, attributeValues) -> attributeValues.forEach(attributeValue ->
+                tokens.add(SearchTokens.attributeToken(attributeName, attributeValue))));
+
+        // No option for an attribute name means all of its values are accepted
+        animalAttributes.forEach((attributeName, attributeValues) -> {
+            if(!selectedValues.containsKey(attributeName)) {
+                attributeValues.forEach(attributeValue ->
+                        tokens.add(SearchTokens.attributeToken(attributeName, attributeValue)));
+            }
+        });
+
+        return tokens;
+    }
+
+    private Map<String, Map<String, Set<String>>> getAttributeCatalog() {
+        return animalAttributeRepository.findAll().stream()
+                .collect(Collectors.groupingBy(
+                        animalAttribute -> animalAttribute.getAnimal().getAnimalType(),
+                        Collectors.groupingBy(
+                                AnimalAttribute::getAttributeName,
+                                Collectors.mapping(AnimalAttribute::getAttributeValue, Collectors.toSet())
+                        )
+                ));
+    }
+}
@@ -44,6 +44,7 @@ public class OfferService {
     private final OfferRepository offerRepository;
     private final OfferConfigurationRepository offerConfigurationRepository;
     private final AnimalService animalService;
+    private final CaretakerSearchIndexer caretakerSearchIndexer;
     private final OfferMapper offerMapper = OfferMapper.INSTANCE;
     private final OfferConfigurationMapper offerConfigurationMapper = OfferConfigurationMapper.INSTANCE;
 
@@ -61,7 +62,7 @@ public class OfferService {
         setOfferConfigurations(offer, modifiyngOffer);
         setOfferAnimalAmenities(offer, modifiyngOffer);
 
-        return offerMapper.mapToOfferDTO(offerRepository.save(modifiyngOffer));
+        return offerMapper.mapToOfferDTO(saveOffer(modifiyngOffer));
 
     }
 
@@ -70,6 +71,7 @@ public class OfferService {
         Offer offer = getOffer(offerId);
         assertOfferIsModifyingByOwnerCaretaker(offer, caretakerEmail);
         offerRepository.delete(offer);
+        caretakerSearchIndexer.removeOffer(offer);
         return offerMapper.mapToOfferDTO(offer);
     }
 
@@ -82,7 +84,7 @@ public class OfferService {
         List<OfferConfiguration> offerConfigurations = createAdditionalConfigurationsForOffer(configurations, offer);
 
         offer.getOfferConfigurations().addAll(offerConfigurations);
-        return offerMapper.mapToOfferDTO(offerRepository.save(offer));
+        return offerMapper.mapToOfferDTO(saveOffer(offer));
 
     }
 
@@ -97,7 +99,7 @@ public class OfferService {
         Set<AnimalAmenity> animalAmenitiesInOffer = offer.getAnimalAmenities();
         removeNotProvidedAnimalAmenities(animalAmenitiesInOffer, amenities);
         animalAmenitiesInOffer.addAll(newAnimalAmenities);
-        return offerMapper.mapToOfferDTO(offerRepository.save(offer));
+        return offerMapper.mapToOfferDTO(saveOffer(offer));
 
     }
 
@@ -108,7 +110,7 @@ public class OfferService {
         assertOfferIsModifyingByOwnerCaretaker(offerConfiguration.getOffer(), userEmail);
         Offer offer = offerConfiguration.getOffer();
         offer.getOfferConfigurations().remove(offerConfiguration);
-        return offerMapper.mapToOfferDTO(offerRepository.save(offer));
+        return offerMapper.mapToOfferDTO(saveOffer(offer));
 
     }
 
@@ -127,7 +129,9 @@ public class OfferService {
         offerConfiguration.setDailyPrice(configuration.dailyPrice());
         editConfigurationSelectedOptions(offerConfiguration, configuration);
         checkForDuplicateConfiguration(restOfferConfigurations, offerConfiguration);
-        return offerConfigurationMapper.mapToOfferConfigurationDTO(offerConfigurationRepository.save(offerConfiguration));
+        OfferConfiguration savedConfiguration = offerConfigurationRepository.save(offerConfiguration);
+        caretakerSearchIndexer.refreshOffer(offerConfiguration.getOffer());
+        return offerConfigurationMapper.mapToOfferConfigurationDTO(savedConfiguration);
     }
 
     @Transactional
@@ -139,7 +143,7 @@ public class OfferService {
         amenities.forEach(
                 amenity -> animalAmenities.removeIf(
                         animalAmenity -> animalAmenity.getAmenity().getName().equals(amenity)));
-        return offerMapper.mapToOfferDTO(offerRepository.save(offer));
+        return offerMapper.mapToOfferDTO(saveOffer(offer));
 
     }
 
@@ -153,12 +157,20 @@ public class OfferService {
                 .map(offerId -> setAvailabilityForOffer(offerId, createOffersAvailability.availabilityRanges(), caretakerEmail))
                 .toList();
 
-        return offerRepository.saveAll(modifiedOffers)
-                .stream()
+        List<Offer> savedOffers = offerRepository.saveAll(modifiedOffers);
+        savedOffers.forEach(caretakerSearchIndexer::refreshAvailabilities);
+
+        return savedOffers.stream()
                 .map(offerMapper::mapToOfferDTO)
                 .toList();
     }
 
+    private Offer saveOffer(Offer offer) {
+        Offer savedOffer = offerRepository.save(offer);
+        caretakerSearchIndexer.refreshOffer(savedOffer);
+        return savedOffer;
+    }
+
     private void removeNotProvidedAnimalAmenities(Set<AnimalAmenity> animalAmenitiesInOffer, Set<String> amenities) {
         animalAmenitiesInOffer.removeIf(animalAmenity -> !amenities.contains(animalAmenity.getAmenity().getName()));
     }
@@ -1,19 +1,23 @@
 package com.example.petbuddybackend.service.photo;
 
 import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
 import com.example.petbuddybackend.repository.photo.PhotoLinkRepository;
+import com.example.petbuddybackend.service.photo.PhotoLinkCache.CachedPhotoUrl;
 import com.example.petbuddybackend.utils.exception.throweable.general.NotFoundException;
 import com.example.petbuddybackend.utils.exception.throweable.photo.InvalidPhotoException;
 import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Bucket;
+import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageException;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.cloud.StorageClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -22,20 +26,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "photo.storage", havingValue = "firebase", matchIfMissing = true)
 public class FirebasePhotoService implements PhotoService {
 
     private final static String PHOTO = "Photo";
-    private static final Set<String> acceptedImageTypes = Set.of(
-            "image/jpeg",
-            "image/jpg",
-            "image/png",
-            "image/webp"
-    );
 
     @Value("${firebase.photo.directory}")
     private String PHOTO_DIRECTORY;
@@ -48,7 +50,11 @@ public class FirebasePhotoService implements PhotoService {
 
     private final FirebaseApp firebaseApp;
     private final PhotoLinkRepository photoRepository;
-    private final Tika tika;
+    private final PhotoDeduplicator photoDeduplicator;
+    private final PhotoLinkCache photoLinkCache;
+    private final Optional<V4PhotoUrlSigner> urlSigner;
+    private final ExecutorService photoUploadExecutor;
+    private final PhotoVariantGenerator photoVariantGenerator;
 
     @Override
     public Optional<PhotoLink> findPhotoLinkByNullableId(String blob) {
@@ -63,9 +69,7 @@ public class FirebasePhotoService implements PhotoService {
 
     @Override
     public PhotoLink uploadPhoto(MultipartFile multipartFile) {
-        validatePhoto(multipartFile);
-        PhotoLink photo = uploadFile(multipartFile, MAX_EXPIRATION_SECONDS);
-        return photoRepository.save(photo);
+        return uploadPhotos(List.of(multipartFile)).get(0);
     }
 
     @Override
@@ -75,123 +79,224 @@ public class FirebasePhotoService implements PhotoService {
             return Collections.emptyList();
         }
 
-        multipartFiles.forEach(this::validatePhoto);
-        List<PhotoLink> uploadedPhotos = new ArrayList<>(multipartFiles.size());
-
-        try {
-            for(MultipartFile file : multipartFiles) {
-                uploadedPhotos.add(uploadFile(file, MAX_EXPIRATION_SECONDS));
-            }
-        } catch(Exception e) {
-            // Rollback uploaded photos
-            log.error("Error occurred while uploading photos. Rolling back uploaded photos", e);
-            photoRepository.deleteAll(uploadedPhotos);
-            throw e;
-        }
-
-        return photoRepository.saveAll(uploadedPhotos);
+        List<PhotoLink> photos = photoDeduplicator.storeDeduplicated(multipartFiles, this::uploadFiles);
+        photos.forEach(this::updatePhotoExpiration);
+        return photos;
     }
 
     @Override
-    @Async
     public void schedulePhotoDeletion(PhotoLink photoLink) {
-        try {
-            removePhotoFromCloud(photoLink.getBlob());
-            photoRepository.delete(photoLink);
-        } catch(StorageException e) {
-            handleStorageException(e, photoLink);
-            throw e;
-        }
+        photoDeduplicator.releaseReference(photoLink);
     }
 
     @Override
     public void schedulePhotoDeletions(Collection<PhotoLink> photoLinksToDelete) {
-        photoLinksToDelete.forEach(this::schedulePhotoDeletion);
+        photoDeduplicator.releaseReferences(photoLinksToDelete);
+    }
+
+    @Override
+    public Set<String> removePhotosFromStorage(Collection<String> blobs) {
+        if(blobs.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        StorageClient storageClient = StorageClient.getInstance(firebaseApp);
+        Bucket bucket = storageClient.bucket();
+        Storage storage = bucket.getStorage();
+        Map<BlobId, String> originalBlobs = new LinkedHashMap<>();
+
+        for(String blob : blobs) {
+            PhotoVariant.blobsWithVariants(blob)
+                    .forEach(blobWithVariant -> originalBlobs.put(BlobId.of(bucket.getName(), blobWithVariant), blob));
+        }
+
+        List<BlobId> blobIds = List.copyOf(originalBlobs.keySet());
+        List<Boolean> deleted = storage.delete(blobIds);
+        List<BlobId> notDeleted = new ArrayList<>();
+
+        for(int i = 0; i < blobIds.size(); i++) {
+            if(!Boolean.TRUE.equals(deleted.get(i))) {
+                notDeleted.add(blobIds.get(i));
+            }
+        }
+
+        if(notDeleted.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // The batch reports blobs already missing (including variants never generated) and failures alike as false,
+        // so only blobs still present in the storage failed
+        List<Blob> remaining = storage.get(notDeleted);
+        Set<String> failedBlobs = new HashSet<>();
+
+        for(int i = 0; i < notDeleted.size(); i++) {
+            if(remaining.get(i) != null) {
+                failedBlobs.add(originalBlobs.get(notDeleted.get(i)));
+            }
+        }
+
+        return failedBlobs;
     }
 
     @Override
     public PhotoLink updatePhotoExpiration(PhotoLink photo) {
-        return photoRepository.save(applyPhotoRenewal(photo));
+        CachedPhotoUrl photoUrl = photoLinkCache.put(photo.getBlob(), CachedPhotoUrl.of(photo));
+
+        // The renewer did not catch up with the photo, so the client would get a dead link
+        if(!photoUrl.expiresAt().isAfter(LocalDateTime.now())) {
+            log.warn("Photo {} served with expired url. Renewing on request", photo.getBlob());
+            photoUrl = photoLinkCache.put(photo.getBlob(), signUrls(photo));
+        }
+
+        photo.serveWith(photoUrl.url(), photoUrl.variantUrls());
+        return photo;
     }
 
     @Override
     public List<PhotoLink> updatePhotoExpirations(List<PhotoLink> photos) {
-        List<PhotoLink> photosRenewed = photos.stream()
-                .map(this::applyPhotoRenewal)
-                .toList();
-
-        return photoRepository.saveAll(photosRenewed);
+        photos.forEach(this::updatePhotoExpiration);
+        return photos;
     }
 
-    private void handleStorageException(StorageException e, PhotoLink photoLink) {
-        log.warn("StorageException occurred while deleting photo: {}", e.getMessage());
+    @Override
+    @Transactional
+    public int renewExpiringPhotos() {
+        LocalDateTime renewBefore = LocalDateTime.now().plusSeconds(EXPIRATION_THRESHOLD_SECONDS);
+        List<PhotoLink> expiringPhotos = photoRepository.findAllByUrlExpiresAtBeforeAndMarkedForDeletionAtIsNull(renewBefore);
+        List<PhotoLink> renewedPhotos = new ArrayList<>(expiringPhotos.size());
+
+        for(PhotoLink photo : expiringPhotos) {
+            photoLinkCache.apply(photo);
+
+            if(!isWithinRenewalThreshold(photo)) {
+                renewedPhotos.add(photo);
+                continue;
+            }
 
-        if(e.getCode() == 404) {
-            log.warn("Photo {} not found in cloud storage. Deleting from database", photoLink.getBlob());
-            photoRepository.delete(photoLink);
-        } else {
-            log.error("Failed to delete photo {}. Status code: {}. Marking for deletion", e.getCode(), photoLink.getBlob());
-            photoLink.setMarkedForDeletionAt(LocalDateTime.now());
-            photoRepository.save(photoLink);
+            try {
+                renewAndCache(photo);
+                renewedPhotos.add(photo);
+            } catch(NotFoundException | StorageException e) {
+                log.warn("Failed to renew photo {}: {}", photo.getBlob(), e.getMessage());
+            }
         }
+
+        photoRepository.saveAll(renewedPhotos);
+        return renewedPhotos.size();
     }
 
-    private void removePhotoFromCloud(String blob) {
-        StorageClient storageClient = StorageClient.getInstance(firebaseApp);
-        Bucket bucket = storageClient.bucket();
-        Blob blobToDelete = bucket.get(blob);
+    /**
+     * Uploads files in parallel. If any upload fails, blobs of the successful ones are removed from the storage.
+     * @return uploaded photos without any reference, keyed by content hash
+     * */
+    private Map<String, PhotoLink> uploadFiles(Map<String, MultipartFile> filesByHash) {
+        Bucket bucket = StorageClient.getInstance(firebaseApp).bucket();
+        Map<String, CompletableFuture<PhotoLink>> uploads = new HashMap<>();
+
+        filesByHash.forEach((hash, file) -> uploads.put(hash, CompletableFuture.supplyAsync(
+                () -> uploadFile(bucket, file, hash, MAX_EXPIRATION_SECONDS),
+                photoUploadExecutor
+        )));
 
-        if(blobToDelete != null) {
-            blobToDelete.delete();
+        try {
+            CompletableFuture.allOf(uploads.values().toArray(CompletableFuture[]::new)).join();
+        } catch(CompletionException e) {
+            log.error("Error occurred while uploading photos. Rolling back uploaded photos", e.getCause());
+            rollbackUploads(uploads.values());
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
         }
+
+        Map<String, PhotoLink> uploadedPhotos = new HashMap<>();
+        uploads.forEach((hash, upload) -> uploadedPhotos.put(hash, upload.join()));
+        uploadedPhotos.values().forEach(photoLinkCache::put);
+        return uploadedPhotos;
     }
 
     /**
-     * Checks if the provided file is not empty and if its type matches the accepted types defined in the
-     * acceptedImageTypes set.
+     * Deletes blobs of the uploads that succeeded. Called after all uploads completed, so none is still being written.
      * */
-    private void validatePhoto(MultipartFile multipartFile) {
-        if (multipartFile == null || multipartFile.isEmpty()) {
-            throw InvalidPhotoException.ofEmptyPhoto();
-        }
+    private void rollbackUploads(Collection<CompletableFuture<PhotoLink>> uploads) {
+        List<String> uploadedBlobs = uploads.stream()
+                .filter(upload -> !upload.isCompletedExceptionally())
+                .map(upload -> upload.join().getBlob())
+                .toList();
 
-        try(InputStream inputStream = multipartFile.getInputStream()) {
-            String mimeType = tika.detect(inputStream);
+        try {
+            Set<String> failedBlobs = removePhotosFromStorage(uploadedBlobs);
 
-            if(!acceptedImageTypes.contains(mimeType)) {
-                throw InvalidPhotoException.ofPhotoWithInvalidExtension(
-                        multipartFile.getOriginalFilename(),
-                        mimeType,
-                        acceptedImageTypes
-                );
+            if(!failedBlobs.isEmpty()) {
+                log.error("Failed to roll back uploaded photos {}", failedBlobs);
             }
-
-        } catch (IOException e) {
-            throw InvalidPhotoException.ofInvalidPhoto(multipartFile.getOriginalFilename());
+        } catch(StorageException e) {
+            log.error("Failed to roll back uploaded photos {}", uploadedBlobs, e);
         }
     }
 
-    private PhotoLink uploadFile(MultipartFile file, int expirationSeconds) {
-        StorageClient storageClient = StorageClient.getInstance(firebaseApp);
-        Bucket bucket = storageClient.bucket();
+    /**
+     * Streams the file straight from the multipart input stream to the storage using a resumable upload, then uploads
+     * its downscaled variants.
+     * */
+    private PhotoLink uploadFile(Bucket bucket, MultipartFile file, String contentHash, int expirationSeconds) {
         String filename = UUID.randomUUID().toString();
         String blobPath = PHOTO_DIRECTORY + "/" + filename;
+        BlobInfo blobInfo = BlobInfo.newBuilder(bucket.getName(), blobPath)
+                .setContentType(file.getContentType())
+                .build();
 
-        try {
-            Blob blob = bucket.create(blobPath, file.getInputStream(), file.getContentType());
-            String url = blob.signUrl(expirationSeconds, TimeUnit.SECONDS).toString();
+        try(InputStream inputStream = file.getInputStream()) {
+            Blob blob = bucket.getStorage().createFrom(blobInfo, inputStream);
 
             return PhotoLink.builder()
-                    .url(url)
+                    .url(signUploadedBlob(blob, blobPath, expirationSeconds))
                     .blob(blobPath)
                     .urlExpiresAt(LocalDateTime.now().plusSeconds(expirationSeconds))
+                    .variantUrls(uploadVariants(bucket, file, blobPath, expirationSeconds))
+                    .contentHash(contentHash)
+                    .referenceCount(0)
                     .build();
         } catch(IOException e) {
             throw InvalidPhotoException.ofInvalidPhoto(file.getOriginalFilename());
         }
     }
 
+    private Map<PhotoVariant, String> uploadVariants(
+            Bucket bucket,
+            MultipartFile file,
+            String blobPath,
+            int expirationSeconds
+    ) throws IOException {
+        Map<PhotoVariant, byte[]> variants;
+
+        try(InputStream inputStream = file.getInputStream()) {
+            variants = photoVariantGenerator.generateVariants(inputStream);
+        }
+
+        Map<PhotoVariant, String> variantUrls = new HashMap<>();
+
+        for(Map.Entry<PhotoVariant, byte[]> variant : variants.entrySet()) {
+            String variantBlobPath = variant.getKey().blobOf(blobPath);
+            BlobInfo variantInfo = BlobInfo.newBuilder(bucket.getName(), variantBlobPath)
+                    .setContentType(PhotoVariantGenerator.VARIANT_CONTENT_TYPE)
+                    .build();
+
+            Blob variantBlob = bucket.getStorage().create(variantInfo, variant.getValue());
+            variantUrls.put(variant.getKey(), signUploadedBlob(variantBlob, variantBlobPath, expirationSeconds));
+        }
+
+        return variantUrls;
+    }
+
+    private String signUploadedBlob(Blob blob, String blobPath, int expirationSeconds) {
+        return urlSigner
+                .map(signer -> signer.signUrl(blobPath, expirationSeconds))
+                .orElseGet(() -> blob.signUrl(expirationSeconds, TimeUnit.SECONDS).toString());
+    }
+
     private String renewPhoto(String blobName, int expirationSeconds) {
+        if(urlSigner.isPresent()) {
+            return urlSigner.get().signUrl(blobName, expirationSeconds);
+        }
+
         StorageClient storageClient = StorageClient.getInstance(firebaseApp);
         Bucket bucket = storageClient.bucket();
         Blob blob = bucket.get(blobName);
@@ -203,19 +308,29 @@ public class FirebasePhotoService implements PhotoService {
         return blob.signUrl(expirationSeconds, TimeUnit.SECONDS).toString();
     }
 
-    private PhotoLink applyPhotoRenewal(PhotoLink photo) {
+    private boolean isWithinRenewalThreshold(PhotoLink photo) {
         LocalDateTime thresholdTime = photo
                 .getUrlExpiresAt()
                 .minusSeconds(EXPIRATION_THRESHOLD_SECONDS);
 
-        if(thresholdTime.isAfter(LocalDateTime.now())) {
-            return photo;
-        }
+        return !thresholdTime.isAfter(LocalDateTime.now());
+    }
 
-        String newUrl = renewPhoto(photo.getBlob(), MAX_EXPIRATION_SECONDS);
-        photo.setUrl(newUrl);
-        photo.setUrlExpiresAt(LocalDateTime.now().plusSeconds(MAX_EXPIRATION_SECONDS));
-        return photo;
+    private void renewAndCache(PhotoLink photo) {
+        CachedPhotoUrl photoUrl = signUrls(photo);
+        photo.setUrl(photoUrl.url());
+        photo.setUrlExpiresAt(photoUrl.expiresAt());
+        photo.getVariantUrls().putAll(photoUrl.variantUrls());
+        photoLinkCache.put(photo);
+    }
+
+    private CachedPhotoUrl signUrls(PhotoLink photo) {
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(MAX_EXPIRATION_SECONDS);
+        Map<PhotoVariant, String> variantUrls = new EnumMap<>(PhotoVariant.class);
+        photo.getVariantUrls().keySet().forEach(variant ->
+                variantUrls.put(variant, renewPhoto(variant.blobOf(photo.getBlob()), MAX_EXPIRATION_SECONDS)));
+
+        return new CachedPhotoUrl(renewPhoto(photo.getBlob(), MAX_EXPIRATION_SECONDS), expiresAt, variantUrls);
     }
 }
 
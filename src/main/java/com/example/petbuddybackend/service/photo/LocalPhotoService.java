@@ -0,0 +1,248 @@
+package com.example.petbuddybackend.service.photo;
+
+import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
+import com.example.petbuddybackend.repository.photo.PhotoLinkRepository;
+import com.example.petbuddybackend.utils.exception.throweable.general.NotFoundException;
+import com.example.petbuddybackend.utils.exception.throweable.photo.InvalidPhotoException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Stores photos in a directory of the local filesystem. Photos are served by
+ * {@link com.example.petbuddybackend.controller.PhotoController} under urls that never expire.
+ * */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "photo.storage", havingValue = "local")
+public class LocalPhotoService implements PhotoService {
+
+    private final static String PHOTO = "Photo";
+
+    // Only satisfies the not null column, urls of local photos are never renewed
+    private static final LocalDateTime NEVER_EXPIRES = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Value("${photo.local.directory}")
+    private String PHOTO_DIRECTORY;
+
+    @Value("${photo.local.base-url}")
+    private String BASE_URL;
+
+    private final PhotoLinkRepository photoRepository;
+    private final PhotoDeduplicator photoDeduplicator;
+    private final PhotoVariantGenerator photoVariantGenerator;
+    private final Tika tika;
+
+    private Path rootDirectory;
+
+    @PostConstruct
+    void createRootDirectory() throws IOException {
+        rootDirectory = Files.createDirectories(Path.of(PHOTO_DIRECTORY)).toAbsolutePath().normalize();
+        log.info("Photos are stored in {}", rootDirectory);
+    }
+
+    @Override
+    public Optional<PhotoLink> findPhotoLinkByNullableId(String blob) {
+        if(blob == null) {
+            return Optional.empty();
+        }
+
+        return photoRepository.findById(blob);
+    }
+
+    @Override
+    public PhotoLink uploadPhoto(MultipartFile multipartFile) {
+        return uploadPhotos(List.of(multipartFile)).get(0);
+    }
+
+    @Override
+    @Transactional
+    public List<PhotoLink> uploadPhotos(List<MultipartFile> multipartFiles) {
+        if(multipartFiles.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return photoDeduplicator.storeDeduplicated(multipartFiles, this::writeFiles);
+    }
+
+    @Override
+    public void schedulePhotoDeletion(PhotoLink photoLink) {
+        photoDeduplicator.releaseReference(photoLink);
+    }
+
+    @Override
+    public void schedulePhotoDeletions(Collection<PhotoLink> photoLinksToDelete) {
+        photoDeduplicator.releaseReferences(photoLinksToDelete);
+    }
+
+    @Override
+    public Set<String> removePhotosFromStorage(Collection<String> blobs) {
+        return blobs.stream()
+                .filter(blob -> PhotoVariant.blobsWithVariants(blob).stream().map(this::deleteFile).toList().contains(false))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public PhotoLink updatePhotoExpiration(PhotoLink photo) {
+        return photo;
+    }
+
+    @Override
+    public List<PhotoLink> updatePhotoExpirations(List<PhotoLink> photos) {
+        return photos;
+    }
+
+    @Override
+    public int renewExpiringPhotos() {
+        return 0;
+    }
+
+    /**
+     * @return file of the photo or of one of its variants
+     * @throws NotFoundException if there is no such file
+     * */
+    public PhotoFile getPhotoFile(String blob) {
+        Path path = resolve(blob);
+
+        if(!Files.isRegularFile(path)) {
+            throw NotFoundException.withFormattedMessage(PHOTO, blob);
+        }
+
+        try {
+            return new PhotoFile(
+                    path,
+                    MediaType.parseMediaType(tika.detect(path)),
+                    Files.size(path),
+                    Files.getLastModifiedTime(path).toInstant()
+            );
+        } catch(IOException e) {
+            throw new UncheckedIOException("Failed to read photo " + blob, e);
+        }
+    }
+
+    /**
+     * Writes the files one by one. If any write fails, files written so far are removed.
+     * */
+    private Map<String, PhotoLink> writeFiles(Map<String, MultipartFile> filesByHash) {
+        Map<String, PhotoLink> writtenPhotos = new HashMap<>();
+
+        try {
+            filesByHash.forEach((hash, file) -> writtenPhotos.put(hash, writeFile(file, hash)));
+        } catch(RuntimeException e) {
+            log.error("Error occurred while writing photos. Removing written photos", e);
+            removePhotosFromStorage(writtenPhotos.values().stream().map(PhotoLink::getBlob).toList());
+            throw e;
+        }
+
+        return writtenPhotos;
+    }
+
+    private PhotoLink writeFile(MultipartFile file, String contentHash) {
+        String blob = UUID.randomUUID().toString();
+
+        try {
+            Map<PhotoVariant, String> variantUrls = writeVariants(file, blob);
+
+            try(InputStream inputStream = file.getInputStream()) {
+                writeAtomically(inputStream, resolve(blob));
+            }
+
+            return PhotoLink.builder()
+                    .blob(blob)
+                    .url(urlOf(blob))
+                    .urlExpiresAt(NEVER_EXPIRES)
+                    .variantUrls(variantUrls)
+                    .contentHash(contentHash)
+                    .referenceCount(0)
+                    .build();
+        } catch(IOException e) {
+            removePhotosFromStorage(List.of(blob));
+            throw InvalidPhotoException.ofInvalidPhoto(file.getOriginalFilename());
+        }
+    }
+
+    private Map<PhotoVariant, String> writeVariants(MultipartFile file, String blob) throws IOException {
+        Map<PhotoVariant, byte[]> variants;
+
+        try(InputStream inputStream = file.getInputStream()) {
+            variants = photoVariantGenerator.generateVariants(inputStream);
+        }
+
+        Map<PhotoVariant, String> variantUrls = new HashMap<>();
+
+        for(Map.Entry<PhotoVariant, byte[]> variant : variants.entrySet()) {
+            String variantBlob = variant.getKey().blobOf(blob);
+            Files.write(resolve(variantBlob), variant.getValue());
+            variantUrls.put(variant.getKey(), urlOf(variantBlob));
+        }
+
+        return variantUrls;
+    }
+
+    /**
+     * Copies the content to a temporary file first, so a partially written photo is never served.
+     * */
+    private void writeAtomically(InputStream inputStream, Path target) throws IOException {
+        Path temporaryFile = Files.createTempFile(rootDirectory, "upload-", ".tmp");
+
+        try {
+            Files.copy(inputStream, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temporaryFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * @return false if the file exists but could not be deleted
+     * */
+    private boolean deleteFile(String blob) {
+        try {
+            Files.deleteIfExists(resolve(blob));
+            return true;
+        } catch(IOException e) {
+            log.warn("Failed to delete photo file {}: {}", blob, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Resolves the blob inside the root directory. Blobs pointing anywhere else are treated as not existing.
+     * */
+    private Path resolve(String blob) {
+        Path path = rootDirectory.resolve(blob).normalize();
+
+        if(!rootDirectory.equals(path.getParent())) {
+            throw NotFoundException.withFormattedMessage(PHOTO, blob);
+        }
+
+        return path;
+    }
+
+    private String urlOf(String blob) {
+        return BASE_URL + "/" + blob;
+    }
+
+    public record PhotoFile(Path path, MediaType contentType, long size, Instant lastModified) {
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.petbuddybackend.service.photo;
+
+import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.repository.photo.PhotoLinkRepository;
+import com.example.petbuddybackend.utils.exception.throweable.photo.InvalidPhotoException;
+import com.example.petbuddybackend.utils.exception.throweable.photo.PhotoTooLargeException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Storage independent part of {@link PhotoService} implementations. Validates uploads, reuses stored photos with
+ * identical content and keeps count of photo references.
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PhotoDeduplicator {
+
+    private static final Set<String> acceptedImageTypes = Set.of(
+            "image/jpeg",
+            "image/jpg",
+            "image/png",
+            "image/webp"
+    );
+
+    private static final int HEAD_SIZE = 8 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${photo.max-file-size}")
+    private DataSize MAX_FILE_SIZE;
+
+    private final PhotoLinkRepository photoRepository;
+    private final Tika tika;
+    private final PhotoLinkCache photoLinkCache;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectProvider<PhotoDeletionQueue> photoDeletionQueue;
+
+    /**
+     * Validates the files and writes only the ones whose content is not stored yet. Every file takes one reference of
+     * the photo holding its content, so the same photo is returned twice for identical files. References are taken by
+     * conditional updates in the database, so reference counts of the returned photos are not refreshed.
+     * @return photos in the order of the files
+     * */
+    public List<PhotoLink> storeDeduplicated(List<MultipartFile> multipartFiles, PhotoWriter photoWriter) {
+        multipartFiles.forEach(this::assertDeclaredSizeValid);
+        List<String> contentHashes = multipartFiles.stream()
+                .map(this::inspectPhoto)
+                .toList();
+
+        Map<String, Long> referencesByHash = contentHashes.stream()
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        // A photo marked for deletion since it was found is not reusable anymore, so its content is written again
+        Map<String, PhotoLink> photosByHash = findReusablePhotos(contentHashes);
+        photosByHash.values().removeIf(photo -> !addReferences(photo, referencesByHash.get(photo.getContentHash())));
+        Map<String, MultipartFile> filesToWrite = new LinkedHashMap<>();
+
+        for(int i = 0; i < multipartFiles.size(); i++) {
+            if(!photosByHash.containsKey(contentHashes.get(i))) {
+                filesToWrite.putIfAbsent(contentHashes.get(i), multipartFiles.get(i));
+            }
+        }
+
+        if(!filesToWrite.isEmpty()) {
+            Map<String, PhotoLink> writtenPhotos = photoWriter.write(filesToWrite);
+            releaseOnRollback(writtenPhotos.values());
+
+            insertWrittenPhotos(writtenPhotos).forEach((hash, photo) -> {
+                if(!addReferences(photo, referencesByHash.get(hash))) {
+                    throw new IllegalStateException("Photo " + photo.getBlob() + " was deleted before it was referenced");
+                }
+                photosByHash.put(hash, photo);
+            });
+        }
+
+        return contentHashes.stream()
+                .map(photosByHash::get)
+                .toList();
+    }
+
+    /**
+     * Releases one reference to the photo and marks it for deletion when it was the last one.
+     * */
+    public void releaseReference(PhotoLink photoLink) {
+        releaseReferences(List.of(photoLink));
+    }
+
+    public void releaseReferences(Collection<PhotoLink> photoLinks) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> releasesByBlob = photoLinks.stream()
+                .collect(Collectors.groupingBy(PhotoLink::getBlob, Collectors.counting()));
+
+        releasesByBlob.forEach((blob, count) -> {
+            photoRepository.releaseReferences(blob, count.intValue(), now);
+            // Whether the photo got marked is not known here, a photo still in use only has its url signed again
+            photoLinkCache.evict(blob);
+        });
+    }
+
+    private boolean addReferences(PhotoLink photo, long count) {
+        return photoRepository.addReferences(photo.getBlob(), (int) count) > 0;
+    }
+
+    private Map<String, PhotoLink> findReusablePhotos(Collection<String> contentHashes) {
+        return photoRepository.findAllByContentHashInAndMarkedForDeletionAtIsNull(new HashSet<>(contentHashes)).stream()
+                .collect(Collectors.toMap(
+                        PhotoLink::getContentHash,
+                        Function.identity(),
+                        (first, duplicate) -> first,
+                        HashMap::new
+                ));
+    }
+
+    /**
+     * Inserts written photos in their own transaction, so a photo of the same content stored concurrently by another
+     * upload violates the unique content hash without failing the caller's transaction.
+     * @return photos holding the written content, keyed by content hash
+     * */
+    private Map<String, PhotoLink> insertWrittenPhotos(Map<String, PhotoLink> writtenPhotos) {
+        try {
+            insertInNewTransaction(writtenPhotos.values());
+            return writtenPhotos;
+        } catch(DataIntegrityViolationException e) {
+            Map<String, PhotoLink> photosByHash = new HashMap<>();
+            writtenPhotos.forEach((hash, photo) -> photosByHash.put(hash, insertOrFindStored(photo)));
+            return photosByHash;
+        }
+    }
+
+    /**
+     * Inserts the photo, or re-reads the photo of the same content stored concurrently and schedules deletion of the
+     * written blob.
+     * */
+    private PhotoLink insertOrFindStored(PhotoLink photo) {
+        try {
+            insertInNewTransaction(List.of(photo));
+            return photo;
+        } catch(DataIntegrityViolationException e) {
+            log.info("Photo of content {} was stored concurrently. Reusing it", photo.getContentHash());
+        }
+
+        photoLinkCache.evict(photo.getBlob());
+        photoDeletionQueue.getObject().recordOrphanedBlobs(List.of(photo.getBlob()));
+
+        return photoRepository.findAllByContentHashInAndMarkedForDeletionAtIsNull(Set.of(photo.getContentHash()))
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "Photo of content " + photo.getContentHash() + " conflicts with no stored photo"
+                ));
+    }
+
+    private void insertInNewTransaction(Collection<PhotoLink> photos) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.executeWithoutResult(status -> photoRepository.saveAllAndFlush(photos));
+    }
+
+    /**
+     * Hands written blobs over to the deletion queue if the transaction taking references of their photos rolls back,
+     * e.g. when saving the photos or their owner fails, so they are not left in the storage unreferenced.
+     * */
+    private void releaseOnRollback(Collection<PhotoLink> writtenPhotos) {
+        List<String> blobs = writtenPhotos.stream()
+                .map(PhotoLink::getBlob)
+                .toList();
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if(status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+
+                log.warn("Saving uploaded photos rolled back. Scheduling deletion of {} blobs", blobs.size());
+                blobs.forEach(photoLinkCache::evict);
+                photoDeletionQueue.getObject().releaseRolledBackUploads(blobs);
+            }
+        });
+    }
+
+    /**
+     * Rejects empty photos and photos declaring a size over the limit before any content is read.
+     * */
+    private void assertDeclaredSizeValid(MultipartFile multipartFile) {
+        if (multipartFile == null || multipartFile.isEmpty()) {
+            throw InvalidPhotoException.ofEmptyPhoto();
+        }
+
+        assertWithinSizeLimit(multipartFile, multipartFile.getSize());
+    }
+
+    /**
+     * Validates and hashes the photo. The type is detected from the first few KB, so a photo of a not accepted type is
+     * rejected without reading the rest of it. The size limit is enforced on the bytes actually read, as the declared
+     * size is not trusted. The hash decides whether the photo is written at all, so a photo that is written is read
+     * again from the spooled part by the {@link PhotoWriter}.
+     * @return hex encoded SHA-256 of the content
+     * */
+    private String inspectPhoto(MultipartFile multipartFile) {
+        try(InputStream inputStream = multipartFile.getInputStream()) {
+            byte[] head = inputStream.readNBytes(HEAD_SIZE);
+            assertAcceptedType(multipartFile, head);
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(head);
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long size = head.length;
+            int read;
+
+            while((read = inputStream.read(buffer)) != -1) {
+                size += read;
+                assertWithinSizeLimit(multipartFile, size);
+                digest.update(buffer, 0, read);
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch(IOException e) {
+            throw InvalidPhotoException.ofInvalidPhoto(multipartFile.getOriginalFilename());
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Checks if the type detected from the head of the file matches the accepted types defined in the
+     * acceptedImageTypes set.
+     * */
+    private void assertAcceptedType(MultipartFile multipartFile, byte[] head) {
+        String mimeType = tika.detect(head);
+
+        if(!acceptedImageTypes.contains(mimeType)) {
+            throw InvalidPhotoException.ofPhotoWithInvalidExtension(
+                    multipartFile.getOriginalFilename(),
+                    mimeType,
+                    acceptedImageTypes
+            );
+        }
+    }
+
+    private void assertWithinSizeLimit(MultipartFile multipartFile, long size) {
+        if(size > MAX_FILE_SIZE.toBytes()) {
+            throw new PhotoTooLargeException(multipartFile.getOriginalFilename(), MAX_FILE_SIZE);
+        }
+    }
+
+    @FunctionalInterface
+    public interface PhotoWriter {
+
+        /**
+         * Writes the files to the storage.
+         * @return written photos without any reference, keyed by content hash
+         * */
+        Map<String, PhotoLink> write(Map<String, MultipartFile> filesByHash);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.petbuddybackend.service.photo;
+
+import com.example.petbuddybackend.entity.photo.OrphanedPhotoBlob;
+import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.repository.photo.OrphanedPhotoBlobRepository;
+import com.example.petbuddybackend.repository.photo.PhotoLinkRepository;
+import com.google.cloud.storage.StorageException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes photos marked for deletion from the storage in batches. Photos that failed to be deleted are retried with
+ * exponential backoff. Blobs of photo rows removed directly through JPA are persisted as {@link OrphanedPhotoBlob}
+ * tombstones and deleted the same way.
+ * */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PhotoDeletionQueue {
+
+    private static final String INSERT_ORPHANED_BLOB = "INSERT INTO " + OrphanedPhotoBlob.TABLE_NAME +
+            " (blob, orphaned_at, deletion_attempts) VALUES (?, ?, 0)";
+
+    @Value("${firebase.photo.deletion.batch-size}")
+    private Integer BATCH_SIZE;
+
+    @Value("${firebase.photo.deletion.backoff.initial-seconds}")
+    private Integer INITIAL_BACKOFF_SECONDS;
+
+    @Value("${firebase.photo.deletion.backoff.max-seconds}")
+    private Integer MAX_BACKOFF_SECONDS;
+
+    private final PhotoService photoService;
+    private final PhotoLinkRepository photoRepository;
+    private final OrphanedPhotoBlobRepository orphanedPhotoBlobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private Counter deletedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("photo.deletion.queue.depth", this, PhotoDeletionQueue::getDepth)
+                .description("Photos waiting for removal from the storage")
+                .register(meterRegistry);
+
+        deletedCounter = meterRegistry.counter("photo.deletion.deleted");
+        failedCounter = meterRegistry.counter("photo.deletion.failures");
+    }
+
+    /**
+     * Persists a tombstone of the blob within the current transaction. Called while the persistence context is being
+     * flushed, where the entity manager must not be used, so the row is inserted through the bound JDBC connection.
+     * */
+    public void recordOrphanedBlob(String blob) {
+        jdbcTemplate.update(INSERT_ORPHANED_BLOB, blob, LocalDateTime.now());
+    }
+
+    /**
+     * Persists tombstones of the blobs in a new transaction, e.g. of blobs uploaded by a transaction that rolled back.
+     * */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordOrphanedBlobs(Collection<String> blobs) {
+        LocalDateTime orphanedAt = LocalDateTime.now();
+
+        orphanedPhotoBlobRepository.saveAll(blobs.stream()
+                .map(blob -> OrphanedPhotoBlob.builder()
+                        .blob(blob)
+                        .orphanedAt(orphanedAt)
+                        .build())
+                .toList());
+    }
+
+    /**
+     * Schedules deletion of blobs uploaded by a transaction that rolled back. Photos already saved for them are marked
+     * for deletion unless another upload took a reference meanwhile. Blobs without a photo are recorded as orphaned.
+     * */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void releaseRolledBackUploads(Collection<String> blobs) {
+        Set<String> savedBlobs = photoRepository.findAllById(blobs).stream()
+                .map(PhotoLink::getBlob)
+                .collect(Collectors.toSet());
+
+        Set<String> orphanedBlobs = orphanedPhotoBlobRepository.findAllById(blobs).stream()
+                .map(OrphanedPhotoBlob::getBlob)
+                .collect(Collectors.toSet());
+
+        if(!savedBlobs.isEmpty()) {
+            photoRepository.markUnreferencedForDeletion(savedBlobs, LocalDateTime.now());
+        }
+
+        recordOrphanedBlobs(blobs.stream()
+                .filter(blob -> !savedBlobs.contains(blob) && !orphanedBlobs.contains(blob))
+                .toList());
+    }
+
+    public long getDepth() {
+        return photoRepository.countByMarkedForDeletionAtNotNull() + orphanedPhotoBlobRepository.count();
+    }
+
+    /**
+     * Removes from the storage all photos that are due for deletion.
+     * @return number of photos removed
+     * */
+    public int drain() {
+        int deletedCount = 0;
+        List<OrphanedPhotoBlob> orphanedBatch;
+        List<PhotoLink> batch;
+
+        do {
+            orphanedBatch = orphanedPhotoBlobRepository.findDueForDeletion(LocalDateTime.now(), PageRequest.of(0, BATCH_SIZE));
+            deletedCount += deleteOrphanedBatch(orphanedBatch);
+        } while(orphanedBatch.size() == BATCH_SIZE);
+
+        do {
+            batch = photoRepository.findDueForDeletion(LocalDateTime.now(), PageRequest.of(0, BATCH_SIZE));
+            deletedCount += deleteBatch(batch);
+        } while(batch.size() == BATCH_SIZE);
+
+        return deletedCount;
+    }
+
+    private int deleteBatch(List<PhotoLink> batch) {
+        if(batch.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> failedBlobs = removeFromStorage(batch.stream().map(PhotoLink::getBlob).toList());
+        Map<Boolean, List<PhotoLink>> photosByFailure = batch.stream()
+                .collect(Collectors.partitioningBy(photo -> failedBlobs.contains(photo.getBlob())));
+
+        List<PhotoLink> failedPhotos = photosByFailure.get(true);
+        failedPhotos.forEach(this::scheduleRetry);
+        photoRepository.saveAll(failedPhotos);
+
+        List<String> deletedBlobs = photosByFailure.get(false).stream()
+                .map(PhotoLink::getBlob)
+                .toList();
+
+        photoRepository.deleteAllByIdInBatch(deletedBlobs);
+        deletedCounter.increment(deletedBlobs.size());
+        return deletedBlobs.size();
+    }
+
+    private int deleteOrphanedBatch(List<OrphanedPhotoBlob> batch) {
+        if(batch.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> failedBlobs = removeFromStorage(batch.stream().map(OrphanedPhotoBlob::getBlob).toList());
+        Map<Boolean, List<OrphanedPhotoBlob>> blobsByFailure = batch.stream()
+                .collect(Collectors.partitioningBy(orphanedBlob -> failedBlobs.contains(orphanedBlob.getBlob())));
+
+        List<OrphanedPhotoBlob> failedOrphanedBlobs = blobsByFailure.get(true);
+        failedOrphanedBlobs.forEach(this::scheduleRetry);
+        orphanedPhotoBlobRepository.saveAll(failedOrphanedBlobs);
+
+        List<String> deletedBlobs = blobsByFailure.get(false).stream()
+                .map(OrphanedPhotoBlob::getBlob)
+                .toList();
+
+        orphanedPhotoBlobRepository.deleteAllByIdInBatch(deletedBlobs);
+        deletedCounter.increment(deletedBlobs.size());
+        return deletedBlobs.size();
+    }
+
+    /**
+     * @return blobs that failed to be deleted, all of them if the whole batch request failed
+     * */
+    private Set<String> removeFromStorage(List<String> blobs) {
+        Set<String> failedBlobs;
+
+        try {
+            failedBlobs = photoService.removePhotosFromStorage(blobs);
+        } catch(StorageException e) {
+            log.warn("Failed to delete batch of {} photos. Status code: {}", blobs.size(), e.getCode());
+            failedBlobs = Set.copyOf(blobs);
+        }
+
+        if(!failedBlobs.isEmpty()) {
+            log.warn("Failed to delete {} of {} photos. Retrying later", failedBlobs.size(), blobs.size());
+            failedCounter.increment(failedBlobs.size());
+        }
+
+        return failedBlobs;
+    }
+
+    private void scheduleRetry(PhotoLink photo) {
+        int attempts = photo.getDeletionAttempts() + 1;
+        photo.setDeletionAttempts(attempts);
+        photo.setNextDeletionAttemptAt(nextDeletionAttemptAt(attempts));
+    }
+
+    private void scheduleRetry(OrphanedPhotoBlob orphanedBlob) {
+        int attempts = orphanedBlob.getDeletionAttempts() + 1;
+        orphanedBlob.setDeletionAttempts(attempts);
+        orphanedBlob.setNextDeletionAttemptAt(nextDeletionAttemptAt(attempts));
+    }
+
+    private LocalDateTime nextDeletionAttemptAt(int attempts) {
+        long backoffSeconds = Math.min(
+                (long) INITIAL_BACKOFF_SECONDS << Math.min(attempts - 1, 20),
+                MAX_BACKOFF_SECONDS
+        );
+
+        return LocalDateTime.now().plusSeconds(backoffSeconds);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.petbuddybackend.service.photo;
+
+import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded, least-recently-used cache of signed photo urls keyed by blob. Lets read paths serve fresh urls from memory
+ * without writing renewed links back to the database.
+ * */
+@Component
+public class PhotoLinkCache {
+
+    @Value("${firebase.photo.cache.max-size}")
+    private Integer MAX_SIZE;
+
+    private final Map<String, CachedPhotoUrl> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPhotoUrl> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    public synchronized Optional<CachedPhotoUrl> get(String blob) {
+        return Optional.ofNullable(cache.get(blob));
+    }
+
+    public void put(PhotoLink photo) {
+        put(photo.getBlob(), CachedPhotoUrl.of(photo));
+    }
+
+    /**
+     * Caches the urls unless the cached ones live longer.
+     * @return urls cached for the blob afterwards
+     * */
+    public synchronized CachedPhotoUrl put(String blob, CachedPhotoUrl photoUrl) {
+        CachedPhotoUrl cached = cache.get(blob);
+
+        if(cached == null || photoUrl.expiresAt().isAfter(cached.expiresAt())) {
+            cache.put(blob, photoUrl);
+            return photoUrl;
+        }
+
+        return cached;
+    }
+
+    /**
+     * Copies the cached url onto the photo if the cached one lives longer, otherwise caches the url of the photo.
+     * */
+    public synchronized PhotoLink apply(PhotoLink photo) {
+        CachedPhotoUrl cached = cache.get(photo.getBlob());
+
+        if(cached != null && cached.expiresAt().isAfter(photo.getUrlExpiresAt())) {
+            photo.setUrl(cached.url());
+            photo.setUrlExpiresAt(cached.expiresAt());
+            photo.getVariantUrls().putAll(cached.variantUrls());
+        } else {
+            cache.put(photo.getBlob(), CachedPhotoUrl.of(photo));
+        }
+
+        return photo;
+    }
+
+    public synchronized void evict(String blob) {
+        cache.remove(blob);
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public record CachedPhotoUrl(String url, LocalDateTime expiresAt, Map<PhotoVariant, String> variantUrls) {
+
+        static CachedPhotoUrl of(PhotoLink photo) {
+            return new CachedPhotoUrl(photo.getUrl(), photo.getUrlExpiresAt(), Map.copyOf(photo.getVariantUrls()));
+        }
+    }
+}
@@ -1,30 +1,51 @@
 package com.example.petbuddybackend.service.photo;
 
 import com.example.petbuddybackend.entity.photo.PhotoLink;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface PhotoService {
 
     PhotoLink uploadPhoto(MultipartFile multipartFile);
 
+    /**
+     * Uploads photos, reusing already stored photos with identical content instead of writing new blobs. Each returned
+     * photo holds one reference per uploaded file, so the same photo is returned twice for identical files.
+     * */
     List<PhotoLink> uploadPhotos(List<MultipartFile> multipartFiles);
 
-    @Async
+    /**
+     * Releases one reference to the photo. When the last reference is released, the photo is marked for deletion and
+     * removed from the storage and the database by {@link PhotoDeletionQueue}.
+     * */
     void schedulePhotoDeletion(PhotoLink photoLink);
 
+    void schedulePhotoDeletions(Collection<PhotoLink> photoLinksToDelete);
+
     /**
-     * Schedules deletion of multiple photos asynchronously.
+     * Deletes blobs from the storage in a single batch request. Blobs already missing in the storage count as deleted.
+     * @return blobs that failed to be deleted, to be retried
      * */
-    void schedulePhotoDeletions(Collection<PhotoLink> photoLinksToDelete);
+    Set<String> removePhotosFromStorage(Collection<String> blobs);
 
+    /**
+     * Resolves urls the photo is served with from the in-memory cache, see {@link PhotoLink#serveWith}. Persistent state
+     * of the photo is left untouched, so nothing is written to the database by the caller's transaction. Signing the
+     * url on the request thread is only a fallback for a url that has already expired.
+     * */
     PhotoLink updatePhotoExpiration(PhotoLink photo);
 
     List<PhotoLink> updatePhotoExpirations(List<PhotoLink> photos);
 
+    /**
+     * Re-signs urls of all photos expiring within the renewal threshold and writes them back in one batch.
+     * @return number of renewed photos
+     * */
+    int renewExpiringPhotos();
+
     Optional<PhotoLink> findPhotoLinkByNullableId(String blob);
 }
@@ -0,0 +1,133 @@
+package com.example.petbuddybackend.service.photo;
+
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Generates downscaled JPEG variants of uploaded photos. Formats without an ImageIO reader (e.g. WebP) get no
+ * variants and are served in their original form.
+ * */
+@Component
+public class PhotoVariantGenerator {
+
+    public static final String VARIANT_CONTENT_TYPE = "image/jpeg";
+
+    @Value("${firebase.photo.variants.quality}")
+    private Float JPEG_QUALITY;
+
+    public Map<PhotoVariant, byte[]> generateVariants(InputStream inputStream) throws IOException {
+        BufferedImage original = readSubsampled(inputStream, largestVariantDimension());
+
+        if(original == null) {
+            return Map.of();
+        }
+
+        Map<PhotoVariant, byte[]> variants = new EnumMap<>(PhotoVariant.class);
+
+        for(PhotoVariant variant : PhotoVariant.values()) {
+            variants.put(variant, encodeJpeg(scaleToFit(original, variant.getMaxDimension())));
+        }
+
+        return variants;
+    }
+
+    /**
+     * Decodes the image skipping pixels that would be discarded by the largest variant anyway, so big uploads are
+     * never fully decoded into memory.
+     * */
+    private BufferedImage readSubsampled(InputStream inputStream, int targetDimension) throws IOException {
+        try(ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInputStream == null ?
+                    Collections.emptyIterator() :
+                    ImageIO.getImageReaders(imageInputStream);
+
+            if(!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(imageInputStream, true, true);
+                int longerSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longerSide / targetDimension);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scaleToFit(BufferedImage image, int maxDimension) {
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        // JPEG has no alpha channel, transparent areas are flattened onto white
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return scaled;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try(ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    private static int largestVariantDimension() {
+        int largest = 0;
+
+        for(PhotoVariant variant : PhotoVariant.values()) {
+            largest = Math.max(largest, variant.getMaxDimension());
+        }
+
+        return largest;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.petbuddybackend.service.photo;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Builds Google Cloud Storage V4 signed urls locally from the service account key, using only the blob path. Does not
+ * contact the storage, so the existence of the blob is not checked.
+ * */
+public class V4PhotoUrlSigner {
+
+    private static final String HOST = "storage.googleapis.com";
+    private static final String ALGORITHM = "GOOG4-RSA-SHA256";
+    private static final String SCOPE_SUFFIX = "auto/storage/goog4_request";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final long MAX_EXPIRATION_SECONDS = 604800;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final String clientEmail;
+    private final PrivateKey privateKey;
+    private final String bucket;
+    private final Clock clock;
+
+    public V4PhotoUrlSigner(String clientEmail, PrivateKey privateKey, String bucket, Clock clock) {
+        this.clientEmail = clientEmail;
+        this.privateKey = privateKey;
+        this.bucket = bucket;
+        this.clock = clock;
+    }
+
+    public String signUrl(String blobPath, long expirationSeconds) {
+        if(expirationSeconds <= 0 || expirationSeconds > MAX_EXPIRATION_SECONDS) {
+            throw new IllegalArgumentException("V4 signed url expiration must be between 1 and 604800 seconds");
+        }
+
+        ZonedDateTime now = ZonedDateTime.now(clock).withZoneSameInstant(ZoneOffset.UTC);
+        String dateTime = DATE_TIME_FORMAT.format(now);
+        String credentialScope = DATE_FORMAT.format(now) + "/" + SCOPE_SUFFIX;
+        String resourcePath = "/" + bucket + "/" + encodePath(blobPath);
+
+        Map<String, String> queryParams = new TreeMap<>();
+        queryParams.put("X-Goog-Algorithm", ALGORITHM);
+        queryParams.put("X-Goog-Credential", clientEmail + "/" + credentialScope);
+        queryParams.put("X-Goog-Date", dateTime);
+        queryParams.put("X-Goog-Expires", String.valueOf(expirationSeconds));
+        queryParams.put("X-Goog-SignedHeaders", "host");
+        String canonicalQuery = queryParams.entrySet().stream()
+                .map(param -> encode(param.getKey()) + "=" + encode(param.getValue()))
+                .collect(Collectors.joining("&"));
+
+        String canonicalRequest = String.join("\n",
+                "GET",
+                resourcePath,
+                canonicalQuery,
+                "host:" + HOST,
+                "",
+                "host",
+                UNSIGNED_PAYLOAD
+        );
+
+        String stringToSign = String.join("\n",
+                ALGORITHM,
+                dateTime,
+                credentialScope,
+                sha256Hex(canonicalRequest)
+        );
+
+        return "https://" + HOST + resourcePath + "?" + canonicalQuery + "&X-Goog-Signature=" + sign(stringToSign);
+    }
+
+    private String sign(String stringToSign) {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(privateKey);
+            signature.update(stringToSign.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(signature.sign());
+        } catch(GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign photo url", e);
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch(GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String encodePath(String path) {
+        return encode(path).replace("%2F", "/");
+    }
+
+    /**
+     * Percent-encodes everything except RFC 3986 unreserved characters
+     * */
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8)
+                .replace("+", "%20")
+                .replace("*", "%2A")
+                .replace("%7E", "~");
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.petbuddybackend.service.rating;
+
+import com.example.petbuddybackend.dto.rating.CaretakerRatingAggregatesDTO;
+import com.example.petbuddybackend.entity.rating.RatingStatisticsSnapshot;
+import com.example.petbuddybackend.repository.rating.RatingStatisticsSnapshotRepository;
+import com.example.petbuddybackend.repository.user.CaretakerRepository;
+import com.example.petbuddybackend.utils.rating.CountHistogram;
+import com.example.petbuddybackend.utils.rating.RunningRatingStatistics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Tracks which caretakers need their rating score recomputed. Rating changes are recorded as caretakers to rescore and
+ * applied to running global statistics, which are persisted periodically and restored at startup.
+ * <p>
+ * Scores are computed with the global average rating and confidence of the last full rescore. Only once either of them
+ * moves past its threshold are all caretakers rescored, otherwise just the caretakers whose ratings changed.
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RatingScoreTracker {
+
+    private static final double CONFIDENCE_PERCENTILE = 0.75;
+
+    @Value("${rating-score.rescore.avg-rating-threshold}")
+    private Float AVG_RATING_THRESHOLD;
+
+    @Value("${rating-score.rescore.confidence-threshold}")
+    private Float CONFIDENCE_THRESHOLD;
+
+    private final CaretakerRepository caretakerRepository;
+    private final RatingStatisticsSnapshotRepository snapshotRepository;
+
+    private RunningRatingStatistics statistics = new RunningRatingStatistics();
+    private final Set<String> caretakersToRescore = new HashSet<>();
+    private boolean fullRescoreRequested = true;
+    private Float scoredAvgRating;
+    private Integer scoredConfidence;
+
+    /**
+     * Restores statistics from the last snapshot. Without a snapshot, e.g. in a fresh database with ratings seeded
+     * directly into it, rating aggregates of caretakers are repaired first and statistics are rebuilt from them. Drift of
+     * aggregates otherwise is left to the nightly reconciliation.
+     * */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        Optional<RatingStatisticsSnapshot> snapshot = snapshotRepository.findById(RatingStatisticsSnapshot.SNAPSHOT_ID);
+
+        if(snapshot.isEmpty()) {
+            int repairedCaretakers = caretakerRepository.reconcileRatingAggregates();
+
+            if(repairedCaretakers > 0) {
+                log.info("Repaired rating aggregates of {} caretakers at startup", repairedCaretakers);
+            }
+
+            rebuild();
+            return;
+        }
+
+        RunningRatingStatistics restored = new RunningRatingStatistics(
+                new CountHistogram(snapshot.get().getCaretakersByNumberOfRatings()),
+                snapshot.get().getRatingSum()
+        );
+
+        synchronized(this) {
+            statistics = restored;
+        }
+
+        log.info("Restored rating statistics of {} rated caretakers taken at {}",
+                restored.getRatedCaretakers(), snapshot.get().getTakenAt());
+    }
+
+    /**
+     * Rebuilds statistics from rating aggregates of all caretakers.
+     * */
+    public void rebuild() {
+        CountHistogram histogram = new CountHistogram();
+        long ratingSum = 0;
+
+        for(CaretakerRatingAggregatesDTO aggregates : caretakerRepository.findAllRatingAggregates()) {
+            histogram.move(0, aggregates.numberOfRatings());
+            ratingSum += aggregates.ratingSum();
+        }
+
+        RunningRatingStatistics rebuilt = new RunningRatingStatistics(histogram, ratingSum);
+
+        synchronized(this) {
+            statistics = rebuilt;
+        }
+
+        log.info("Rebuilt rating statistics of {} rated caretakers", rebuilt.getRatedCaretakers());
+    }
+
+    /**
+     * Saves statistics, so they are restored after a restart. Changes made since the last snapshot are lost on a crash,
+     * until reconciliation rebuilds the statistics.
+     * */
+    public void persist() {
+        RatingStatisticsSnapshot snapshot;
+
+        synchronized(this) {
+            snapshot = RatingStatisticsSnapshot.builder()
+                    .id(RatingStatisticsSnapshot.SNAPSHOT_ID)
+                    .ratingSum(statistics.getRatingSum())
+                    .caretakersByNumberOfRatings(new HashMap<>(
+                            statistics.getNumberOfRatingsHistogram().getOccurrencesByCount()
+                    ))
+                    .takenAt(ZonedDateTime.now())
+                    .build();
+        }
+
+        snapshotRepository.save(snapshot);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void persistOnShutdown() {
+        try {
+            persist();
+        } catch(DataAccessException e) {
+            log.warn("Could not persist rating statistics on shutdown", e);
+        }
+    }
+
+    /**
+     * Records the change of ratings of the caretaker once the current transaction commits.
+     *
+     * @param previousNumberOfRatings number of ratings of the caretaker before the change
+     * @param numberOfRatings number of ratings of the caretaker after the change
+     * */
+    public void recordRatingChange(String caretakerEmail,
+                                   int previousNumberOfRatings,
+                                   int numberOfRatings,
+                                   int ratingSumChange) {
+
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyRatingChange(caretakerEmail, previousNumberOfRatings, numberOfRatings, ratingSumChange);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyRatingChange(caretakerEmail, previousNumberOfRatings, numberOfRatings, ratingSumChange);
+            }
+        });
+    }
+
+    /**
+     * Makes the next rescore include all caretakers, e.g. once aggregates of unknown caretakers were repaired.
+     * */
+    public synchronized void requestFullRescore() {
+        fullRescoreRequested = true;
+    }
+
+    /**
+     * Takes the caretakers to rescore since the previous call, together with parameters to score them with.
+     * */
+    public synchronized Rescore takeRescore() {
+        Float avgRating = statistics.getAvgRating();
+        Double percentile = statistics.getPercentileOfNumberOfRatings(CONFIDENCE_PERCENTILE);
+        Integer confidence = percentile == null ? null : percentile.intValue();
+
+        if(fullRescoreRequested || parametersMoved(avgRating, confidence)) {
+            fullRescoreRequested = false;
+            scoredAvgRating = avgRating;
+            scoredConfidence = confidence;
+            caretakersToRescore.clear();
+            return new Rescore(true, avgRating, confidence, Set.of());
+        }
+
+        Set<String> caretakerEmails = Set.copyOf(caretakersToRescore);
+        caretakersToRescore.clear();
+        return new Rescore(false, scoredAvgRating, scoredConfidence, caretakerEmails);
+    }
+
+    private synchronized void applyRatingChange(String caretakerEmail,
+                                                int previousNumberOfRatings,
+                                                int numberOfRatings,
+                                                int ratingSumChange) {
+        statistics.apply(previousNumberOfRatings, numberOfRatings, ratingSumChange);
+        caretakersToRescore.add(caretakerEmail);
+    }
+
+    private boolean parametersMoved(Float avgRating, Integer confidence) {
+        // Both are null only while there are no ratings
+        if(avgRating == null || scoredAvgRating == null) {
+            return avgRating != null || scoredAvgRating != null;
+        }
+
+        return Math.abs(avgRating - scoredAvgRating) > AVG_RATING_THRESHOLD ||
+                Math.abs(confidence - scoredConfidence) > CONFIDENCE_THRESHOLD * scoredConfidence;
+    }
+
+    /**
+     * @param full if all caretakers are to be rescored, otherwise only the listed ones
+     * */
+    public record Rescore(boolean full, Float avgGlobalRating, Integer confidence, Set<String> caretakerEmails) {
+
+        public boolean isEmpty() {
+            return !full && caretakerEmails.isEmpty();
+        }
+    }
+}
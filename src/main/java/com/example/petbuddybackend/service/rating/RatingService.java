@@ -5,6 +5,7 @@ import com.example.petbuddybackend.entity.care.Care;
 import com.example.petbuddybackend.entity.care.CareStatus;
 import com.example.petbuddybackend.entity.rating.Rating;
 import com.example.petbuddybackend.repository.rating.RatingRepository;
+import com.example.petbuddybackend.repository.user.CaretakerRepository;
 import com.example.petbuddybackend.service.care.CareService;
 import com.example.petbuddybackend.service.care.state.CareStateMachine;
 import com.example.petbuddybackend.service.mapper.RatingMapper;
@@ -27,6 +28,8 @@ public class RatingService {
     private static final String NOT_CLIENT_MESSAGE = "User %s is not a client of care %d";
 
     private final RatingRepository ratingRepository;
+    private final CaretakerRepository caretakerRepository;
+    private final RatingScoreTracker ratingScoreTracker;
     private final CareService careService;
     private final UserService userService;
     private final CareStateMachine careStateMachine;
@@ -44,14 +47,16 @@ public class RatingService {
         assertCareOfClient(care, clientEmail);
         assertStatePermitsRating(care);
 
-        Rating ratingEntity = createOrUpdateRating(clientEmail, careId, rating, comment);
+        Rating ratingEntity = createOrUpdateRating(care, rating, comment);
         refreshRatingPhotos(ratingEntity);
         return ratingMapper.mapToRatingResponse(ratingEntity);
     }
 
+    @Transactional
     public RatingResponse deleteRating(String clientEmail, Long careId) {
         Rating rating = getRatingOfClient(careId, clientEmail);
         ratingRepository.delete(rating);
+        updateRatingAggregates(rating.getCare().getCaretaker().getEmail(), rating.getRating(), null);
         refreshRatingPhotos(rating);
         return ratingMapper.mapToRatingResponse(rating);
     }
@@ -61,23 +66,42 @@ public class RatingService {
         return rating;
     }
 
-    private Rating createOrUpdateRating(String clientEmail, Long careId, int rating, String comment) {
-
-        Care care = careService.getCareById(careId);
-        assertCareOfClient(care, clientEmail);
-        assertStatePermitsRating(care);
-
-        Rating ratingEntity = ratingRepository.findById(careId).orElseGet(() ->
+    private Rating createOrUpdateRating(Care care, int rating, String comment) {
+        Rating ratingEntity = ratingRepository.findByIdForUpdate(care.getId()).orElseGet(() ->
                 Rating.builder()
                         .careId(care.getId())
                         .care(care)
                         .build()
         );
 
+        Integer previousRating = ratingEntity.getRating();
         ratingEntity.setRating(rating);
         ratingEntity.setComment(comment);
 
-        return ratingRepository.save(ratingEntity);
+        Rating savedRating = ratingRepository.save(ratingEntity);
+        updateRatingAggregates(care.getCaretaker().getEmail(), previousRating, rating);
+        return savedRating;
+    }
+
+    /**
+     * Applies the change of a rating to the rating aggregates of the caretaker.
+     *
+     * @param previousRating null if the care was not rated before
+     * @param newRating null if the rating is deleted
+     * */
+    private void updateRatingAggregates(String caretakerEmail, Integer previousRating, Integer newRating) {
+        int numberOfRatingsChange = (newRating == null ? 0 : 1) - (previousRating == null ? 0 : 1);
+        int ratingSumChange = (newRating == null ? 0 : newRating) - (previousRating == null ? 0 : previousRating);
+        caretakerRepository.updateRatingAggregates(caretakerEmail, numberOfRatingsChange, ratingSumChange);
+
+        // Read after the update, which locks the caretaker until commit, so concurrent changes are recorded in order
+        int numberOfRatings = caretakerRepository.findNumberOfRatings(caretakerEmail);
+        ratingScoreTracker.recordRatingChange(
+                caretakerEmail,
+                numberOfRatings - numberOfRatingsChange,
+                numberOfRatings,
+                ratingSumChange
+        );
     }
 
     private void assertCareOfClient(Care care, String clientEmail) {
@@ -101,7 +125,7 @@ public class RatingService {
     }
 
     private Rating getRating(Long careId) {
-        return ratingRepository.findById(careId).orElseThrow(
+        return ratingRepository.findByIdForUpdate(careId).orElseThrow(
                 () -> NotFoundException.withFormattedMessage(RATING, careId.toString())
         );
     }
@@ -0,0 +1,93 @@
+package com.example.petbuddybackend.service.user;
+
+import com.example.petbuddybackend.dto.address.CaretakerLocationDTO;
+import com.example.petbuddybackend.dto.user.CaretakerClusterDTO;
+import com.example.petbuddybackend.entity.address.Address;
+import com.example.petbuddybackend.repository.user.CaretakerRepository;
+import com.example.petbuddybackend.utils.geo.GeoUtils;
+import com.example.petbuddybackend.utils.geo.PointQuadtree;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * In memory quadtree of caretaker locations, used to cluster caretakers shown on a map without querying the database.
+ * Loaded at startup and updated by {@link CaretakerService} whenever it saves a caretaker address.
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CaretakerLocationIndex {
+
+    private static final int SAMPLE_SIZE = 5;
+
+    // Clusters cover about a quarter of a map tile of the zoom level
+    private static final int ZOOM_TO_DEPTH = 2;
+
+    private final CaretakerRepository caretakerRepository;
+
+    private volatile PointQuadtree quadtree = new PointQuadtree();
+
+    /**
+     * Builds a new tree from the database and swaps it with the current one, so clustering is never done on a partially
+     * loaded tree.
+     * */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        PointQuadtree rebuilt = new PointQuadtree();
+
+        for(CaretakerLocationDTO location : caretakerRepository.findAllLocations()) {
+            rebuilt.put(
+                    location.caretakerEmail(),
+                    location.latitude().doubleValue(),
+                    location.longitude().doubleValue()
+            );
+        }
+
+        quadtree = rebuilt;
+        log.info("Indexed locations of {} caretakers", rebuilt.size());
+    }
+
+    /**
+     * Updates the location once the current transaction commits, so a rolled back change never shows up on the map.
+     * */
+    public void updateLocation(String caretakerEmail, Address address) {
+        double latitude = address.getLatitude().doubleValue();
+        double longitude = address.getLongitude().doubleValue();
+
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            quadtree.put(caretakerEmail, latitude, longitude);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                quadtree.put(caretakerEmail, latitude, longitude);
+            }
+        });
+    }
+
+    public List<CaretakerClusterDTO> getClusters(GeoUtils.BoundingBox box, int zoom) {
+        return quadtree.cluster(box, zoom + ZOOM_TO_DEPTH, SAMPLE_SIZE).stream()
+                .map(this::mapToCaretakerClusterDTO)
+                .toList();
+    }
+
+    private CaretakerClusterDTO mapToCaretakerClusterDTO(PointQuadtree.Cluster cluster) {
+        return CaretakerClusterDTO.builder()
+                .count(cluster.count())
+                .latitude(BigDecimal.valueOf(cluster.latitude()).setScale(4, RoundingMode.HALF_UP))
+                .longitude(BigDecimal.valueOf(cluster.longitude()).setScale(4, RoundingMode.HALF_UP))
+                .sampleCaretakerEmails(cluster.sampleIds())
+                .build();
+    }
+}
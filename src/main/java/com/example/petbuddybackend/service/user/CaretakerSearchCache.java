@@ -0,0 +1,250 @@
+package com.example.petbuddybackend.service.user;
+
+import com.example.petbuddybackend.dto.criteriaSearch.CaretakerSearchCriteria;
+import com.example.petbuddybackend.dto.offer.OfferConfigurationFilterDTO;
+import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
+import com.example.petbuddybackend.entity.address.Voivodeship;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded, least-recently-used cache of caretaker search pages, holding emails of the caretakers of a page and the total
+ * number of results. Only searches without personal data and distance criteria are cached, as those are rarely repeated.
+ * <p>
+ * Entries are evicted by the changes that can alter their results: offer changes evict searches for the animal of the
+ * offer, address changes evict searches of the voivodeship, and rating refreshes evict searches sorted by rating.
+ * */
+@Component
+@RequiredArgsConstructor
+public class CaretakerSearchCache {
+
+    private static final Set<String> RATING_PROPERTIES = Set.of("ratingScore", "avgRating", "numberOfRatings");
+
+    @Value("${caretaker-search.cache.max-size}")
+    private Integer MAX_SIZE;
+
+    @Value("${caretaker-search.cache.ttl}")
+    private Duration TTL;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Key, CachedPage> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedPage> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Counter evictionCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        hitCounter = meterRegistry.counter("caretaker.search.cache.hits");
+        missCounter = meterRegistry.counter("caretaker.search.cache.misses");
+        evictionCounter = meterRegistry.counter("caretaker.search.cache.evictions");
+        meterRegistry.gauge("caretaker.search.cache.hit.ratio", this, CaretakerSearchCache::getHitRatio);
+        meterRegistry.gauge("caretaker.search.cache.size", this, CaretakerSearchCache::size);
+    }
+
+    /**
+     * @return emails of caretakers of the page, empty if the search is not cached or can not be cached
+     * */
+    public Optional<Page<String>> get(CaretakerSearchCriteria filters, Set<OfferFilterDTO> offerFilters, Pageable pageable) {
+        if(!isCacheable(filters)) {
+            return Optional.empty();
+        }
+
+        Optional<CachedPage> cached = getFromMemory(createKey(filters, offerFilters, pageable));
+
+        if(cached.isEmpty()) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+
+        hitCounter.increment();
+        return Optional.of(new PageImpl<>(cached.get().caretakerEmails(), pageable, cached.get().total()));
+    }
+
+    public void put(CaretakerSearchCriteria filters,
+                    Set<OfferFilterDTO> offerFilters,
+                    Pageable pageable,
+                    Page<String> caretakerEmails) {
+
+        if(!isCacheable(filters)) {
+            return;
+        }
+
+        CachedPage cachedPage = new CachedPage(
+                List.copyOf(caretakerEmails.getContent()),
+                caretakerEmails.getTotalElements(),
+                LocalDateTime.now().plus(TTL)
+        );
+
+        synchronized(this) {
+            cache.put(createKey(filters, offerFilters, pageable), cachedPage);
+        }
+    }
+
+    /**
+     * Evicts searches for the animal which may include the caretaker, once the current transaction commits.
+     *
+     * @param voivodeship voivodeship of the caretaker of the offer, null if unknown
+     * */
+    public void evictOffer(String animalType, Voivodeship voivodeship) {
+        evictAfterCommit(key -> key.animalTypes().contains(animalType) && key.mayInclude(voivodeship));
+    }
+
+    /**
+     * Evicts searches which may include the caretaker before or after the change of the address, once the current
+     * transaction commits.
+     *
+     * @param voivodeships voivodeships of the caretaker before and after the change
+     * */
+    public void evictCaretaker(Voivodeship... voivodeships) {
+        evictAfterCommit(key -> Arrays.stream(voivodeships).anyMatch(key::mayInclude));
+    }
+
+    /**
+     * Evicts searches sorted by rating, once the current transaction commits.
+     * */
+    public void evictRatingSorted() {
+        evictAfterCommit(key -> key.sort().stream().anyMatch(order -> RATING_PROPERTIES.contains(order.getProperty())));
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public double getHitRatio() {
+        double hits = hitCounter.count();
+        double lookups = hits + missCounter.count();
+        return lookups == 0 ? 0 : hits / lookups;
+    }
+
+    private boolean isCacheable(CaretakerSearchCriteria filters) {
+        return !StringUtils.hasText(filters.personalDataLike()) && !filters.searchesByDistance() && !filters.hasPoint();
+    }
+
+    private synchronized Optional<CachedPage> getFromMemory(Key key) {
+        CachedPage cached = cache.get(key);
+
+        if(cached != null && cached.isExpired()) {
+            cache.remove(key);
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(cached);
+    }
+
+    private void evictAfterCommit(Predicate<Key> affected) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(affected);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(affected);
+            }
+        });
+    }
+
+    private synchronized void evict(Predicate<Key> affected) {
+        int sizeBefore = cache.size();
+        cache.keySet().removeIf(affected);
+        evictionCounter.increment(sizeBefore - cache.size());
+    }
+
+    /**
+     * Builds the key from the criteria that affect results. City is lower cased and trimmed, as it is matched case
+     * insensitively, and prices of offer filters are stripped of trailing zeros, so equal searches share the entry.
+     * */
+    private static Key createKey(CaretakerSearchCriteria filters, Set<OfferFilterDTO> offerFilters, Pageable pageable) {
+        String cityLike = StringUtils.hasText(filters.cityLike()) ? filters.cityLike().trim().toLowerCase() : null;
+
+        return new Key(
+                cityLike,
+                filters.voivodeship(),
+                offerFilters.stream()
+                        .map(CaretakerSearchCache::normalizeOfferFilter)
+                        .collect(Collectors.toUnmodifiableSet()),
+                pageable.getSort(),
+                pageable.getPageNumber(),
+                pageable.getPageSize()
+        );
+    }
+
+    private static OfferFilterDTO normalizeOfferFilter(OfferFilterDTO offerFilter) {
+        return OfferFilterDTO.builder()
+                .animalType(offerFilter.animalType())
+                .offerConfigurations(offerFilter.offerConfigurations().stream()
+                        .map(configFilter -> OfferConfigurationFilterDTO.builder()
+                                .attributes(configFilter.attributes())
+                                .minPrice(normalizePrice(configFilter.minPrice()))
+                                .maxPrice(normalizePrice(configFilter.maxPrice()))
+                                .build())
+                        .collect(Collectors.toUnmodifiableSet()))
+                .amenities(Set.copyOf(offerFilter.amenities()))
+                .availabilities(Set.copyOf(offerFilter.availabilities()))
+                .build();
+    }
+
+    private static BigDecimal normalizePrice(BigDecimal price) {
+        return price.stripTrailingZeros();
+    }
+
+    private record Key(
+            String cityLike,
+            Voivodeship voivodeship,
+            Set<OfferFilterDTO> offerFilters,
+            Sort sort,
+            int page,
+            int size
+    ) {
+
+        Set<String> animalTypes() {
+            return offerFilters.stream()
+                    .map(OfferFilterDTO::animalType)
+                    .collect(Collectors.toSet());
+        }
+
+        /**
+         * @param caretakerVoivodeship null if unknown
+         * */
+        boolean mayInclude(Voivodeship caretakerVoivodeship) {
+            return voivodeship == null || caretakerVoivodeship == null || voivodeship == caretakerVoivodeship;
+        }
+    }
+
+    private record CachedPage(List<String> caretakerEmails, long total, LocalDateTime expiresAt) {
+
+        boolean isExpired() {
+            return !expiresAt.isAfter(LocalDateTime.now());
+        }
+    }
+}
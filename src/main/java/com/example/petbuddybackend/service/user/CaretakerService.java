@@ -1,10 +1,13 @@
 package com.example.petbuddybackend.service.user;
 
 import com.example.petbuddybackend.dto.criteriaSearch.CaretakerSearchCriteria;
+import com.example.petbuddybackend.dto.criteriaSearch.MapViewportCriteria;
 import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
+import com.example.petbuddybackend.dto.paging.CursorPagingParams;
 import com.example.petbuddybackend.dto.photo.PhotoLinkDTO;
 import com.example.petbuddybackend.dto.user.*;
 import com.example.petbuddybackend.entity.address.Address;
+import com.example.petbuddybackend.entity.address.Voivodeship;
 import com.example.petbuddybackend.entity.photo.PhotoLink;
 import com.example.petbuddybackend.entity.user.AppUser;
 import com.example.petbuddybackend.entity.user.Caretaker;
@@ -12,23 +15,29 @@ import com.example.petbuddybackend.repository.user.CaretakerRepository;
 import com.example.petbuddybackend.service.block.BlockService;
 import com.example.petbuddybackend.service.mapper.CaretakerMapper;
 import com.example.petbuddybackend.service.mapper.PhotoMapper;
+import com.example.petbuddybackend.service.offer.CaretakerSearchIndexer;
 import com.example.petbuddybackend.service.photo.PhotoService;
 import com.example.petbuddybackend.utils.exception.throweable.general.IllegalActionException;
 import com.example.petbuddybackend.utils.exception.throweable.general.NotFoundException;
 import com.example.petbuddybackend.utils.exception.throweable.photo.PhotoLimitException;
+import com.example.petbuddybackend.utils.geo.GeoUtils;
+import com.example.petbuddybackend.utils.paging.CaretakerCursor;
 import com.example.petbuddybackend.utils.provider.geolocation.GeolocationProvider;
 import com.example.petbuddybackend.utils.provider.geolocation.dto.Coordinates;
 import com.example.petbuddybackend.utils.specification.CaretakerSpecificationUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -37,6 +46,11 @@ public class CaretakerService {
     private static final String CARETAKER = "Caretaker";
     private static final String PHOTO_LIMIT_EXCEEDED_MESSAGE = "Photo limit exceeded for Caretaker. Provided: %d, expected %s";
     public static final String CARETAKER_EXISTS_MESSAGE = "Caretaker with email %s already exists";
+    public static final String DISTANCE_SEARCH_WITHOUT_POINT_MESSAGE =
+            "Latitude and longitude are required to search by distance";
+    public static final String INVALID_VIEWPORT_MESSAGE = "Minimal coordinates of the map view exceed maximal ones";
+    public static final String INVALID_CURSOR_MESSAGE = "Invalid cursor: %s";
+    public static final String SCROLL_BY_DISTANCE_MESSAGE = "Sorting by distance is not supported when scrolling";
 
     private final CaretakerRepository caretakerRepository;
     private final CaretakerMapper caretakerMapper = CaretakerMapper.INSTANCE;
@@ -46,24 +60,28 @@ public class CaretakerService {
     private final PhotoService photoService;
     private final GeolocationProvider geolocationProvider;
     private final BlockService blockService;
+    private final CaretakerLocationIndex caretakerLocationIndex;
+    private final CaretakerSearchIndexer caretakerSearchIndexer;
+    private final UserSearchIndex userSearchIndex;
+    private final CaretakerSearchCache caretakerSearchCache;
 
     @Transactional(readOnly = true)
     public SearchCaretakersResponseDTO getCaretakers(Pageable pageable,
                                                            CaretakerSearchCriteria filters,
                                                            Set<OfferFilterDTO> offerFilters) {
-        Specification<Caretaker> spec = CaretakerSpecificationUtils.toSpecification(filters, offerFilters);
+        assertDistanceSearchHasPoint(filters);
 
-        Page<CaretakerDTO> caretakers = caretakerRepository.findAll(spec, pageable)
-                .map(this::renewCaretakerPictures)
-                .map(caretakerMapper::mapToCaretakerDTO);
-
-        Coordinates coordinates;
-        try{
-            coordinates = geolocationProvider.getCoordinatesOfAddress("Poland", filters.cityLike());
-        } catch (NotFoundException e) {
-            coordinates = new Coordinates(null, null);
+        if(Boolean.TRUE.equals(filters.sortByDistance())) {
+            // Sorting of the pageable would replace the distance order applied by the specification
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
         }
 
+        Page<Caretaker> caretakerPage = findCaretakers(filters, offerFilters, pageable);
+        hydrateSearchResults(caretakerPage.getContent());
+        Page<CaretakerDTO> caretakers = caretakerPage.map(caretakerMapper::mapToCaretakerDTO);
+
+        Coordinates coordinates = findCityCoordinates(filters);
+
         return SearchCaretakersResponseDTO.builder()
                 .caretakers(caretakers)
                 .cityLatitude(coordinates.latitude())
@@ -71,6 +89,60 @@ public class CaretakerService {
                 .build();
     }
 
+    /**
+     * Returns caretakers ordered by rating score following the cursor. Unlike {@link #getCaretakers}, earlier pages
+     * are skipped by an index seek and results are not counted, so every page costs the same as the first one.
+     * */
+    @Transactional(readOnly = true)
+    public ScrollCaretakersResponseDTO scrollCaretakers(CursorPagingParams pagingParams,
+                                                        CaretakerSearchCriteria filters,
+                                                        Set<OfferFilterDTO> offerFilters) {
+        assertDistanceSearchHasPoint(filters);
+        assertNotScrollingByDistance(filters);
+        CaretakerCursor cursor = StringUtils.hasText(pagingParams.getCursor()) ?
+                decodeCursor(pagingParams.getCursor()) :
+                null;
+
+        Specification<Caretaker> spec = createSearchSpecification(filters, offerFilters)
+                .and(CaretakerSpecificationUtils.afterCursor(cursor))
+                .and(CaretakerSpecificationUtils.fetchSearchResultData());
+
+        // The caretaker after the page tells if there is a next page without counting the results
+        int size = pagingParams.getSize();
+        List<Caretaker> caretakers = caretakerRepository.findBy(spec, query -> query.limit(size + 1).all());
+        String nextCursor = null;
+
+        if(caretakers.size() > size) {
+            caretakers = caretakers.subList(0, size);
+            Caretaker last = caretakers.get(size - 1);
+            nextCursor = new CaretakerCursor(last.getRatingScore(), last.getEmail()).encode();
+        }
+
+        hydrateSearchResults(caretakers);
+        Coordinates coordinates = findCityCoordinates(filters);
+
+        return ScrollCaretakersResponseDTO.builder()
+                .caretakers(caretakers.stream()
+                        .map(caretakerMapper::mapToCaretakerDTO)
+                        .toList())
+                .nextCursor(nextCursor)
+                .cityLatitude(coordinates.latitude())
+                .cityLongitude(coordinates.longitude())
+                .build();
+    }
+
+    public List<CaretakerClusterDTO> getCaretakerClusters(MapViewportCriteria viewport) {
+        assertViewportValid(viewport);
+        GeoUtils.BoundingBox box = new GeoUtils.BoundingBox(
+                viewport.minLatitude().doubleValue(),
+                viewport.maxLatitude().doubleValue(),
+                viewport.minLongitude().doubleValue(),
+                viewport.maxLongitude().doubleValue()
+        );
+
+        return caretakerLocationIndex.getClusters(box, viewport.zoom());
+    }
+
     public CaretakerComplexPublicDTO getCaretaker(String caretakerEmail) {
         Caretaker caretaker = getCaretakerByEmail(caretakerEmail);
         renewCaretakerPictures(caretaker);
@@ -109,12 +181,17 @@ public class CaretakerService {
         assertCaretakerNotExists(email);
         assertOfferPhotoCountWithinLimit(newOfferPhotos);
         AppUser appUser = userService.getAppUser(email);
-        List<PhotoLink> uploadedOfferPhotos = photoService.uploadPhotos(newOfferPhotos);
-        Caretaker caretaker = caretakerMapper.mapToCaretaker(createCaretakerDTO, appUser, uploadedOfferPhotos);
+        List<PhotoLink> offerPhotos = new ArrayList<>();
+        addOfferPhotos(offerPhotos, photoService.uploadPhotos(newOfferPhotos));
+        Caretaker caretaker = caretakerMapper.mapToCaretaker(createCaretakerDTO, appUser, offerPhotos);
         updateCaretakerGeolocation(caretaker.getAddress());
 
         renewCaretakerPictures(caretaker);
-        return caretakerMapper.mapToCaretakerComplexDTO(caretakerRepository.save(caretaker));
+        Caretaker savedCaretaker = caretakerRepository.save(caretaker);
+        caretakerLocationIndex.updateLocation(savedCaretaker.getEmail(), savedCaretaker.getAddress());
+        caretakerSearchIndexer.updateCaretaker(savedCaretaker.getEmail(), savedCaretaker.getAddress().getVoivodeship());
+        caretakerSearchCache.evictCaretaker(savedCaretaker.getAddress().getVoivodeship());
+        return caretakerMapper.mapToCaretakerComplexDTO(savedCaretaker);
     }
 
     @Transactional
@@ -125,12 +202,17 @@ public class CaretakerService {
             List<MultipartFile> newOfferPhotos
     ) {
         Caretaker caretaker = getCaretakerByEmail(email);
+        Voivodeship previousVoivodeship = caretaker.getAddress().getVoivodeship();
         caretakerMapper.updateCaretakerFromDTO(caretaker, modifyCaretakerDTO);
         updateCaretakerGeolocation(caretaker.getAddress());
 
         applyOfferPhotosPatch(caretaker, offerBlobsToKeep, newOfferPhotos);
         renewCaretakerPictures(caretaker);
-        return caretakerMapper.mapToCaretakerComplexDTO(caretakerRepository.save(caretaker));
+        Caretaker savedCaretaker = caretakerRepository.save(caretaker);
+        caretakerLocationIndex.updateLocation(savedCaretaker.getEmail(), savedCaretaker.getAddress());
+        caretakerSearchIndexer.updateCaretaker(savedCaretaker.getEmail(), savedCaretaker.getAddress().getVoivodeship());
+        caretakerSearchCache.evictCaretaker(previousVoivodeship, savedCaretaker.getAddress().getVoivodeship());
+        return caretakerMapper.mapToCaretakerComplexDTO(savedCaretaker);
     }
 
     @Transactional
@@ -151,6 +233,7 @@ public class CaretakerService {
     private void updateCaretakerGeolocation(Address address) {
         Coordinates coordinates = geolocationProvider.getCoordinatesOfAddress(
                 "Poland",
+                address.getVoivodeship(),
                 address.getCity(),
                 address.getStreet()
         );
@@ -158,6 +241,101 @@ public class CaretakerService {
         address.setLongitude(coordinates.longitude());
     }
 
+    private void assertViewportValid(MapViewportCriteria viewport) {
+        if(viewport.minLatitude().compareTo(viewport.maxLatitude()) > 0 ||
+                viewport.minLongitude().compareTo(viewport.maxLongitude()) > 0) {
+            throw new IllegalActionException(INVALID_VIEWPORT_MESSAGE);
+        }
+    }
+
+    /**
+     * Takes caretakers of the page from {@link CaretakerSearchCache} if the search is cached and all of them still exist,
+     * otherwise searches the database and caches the page.
+     * */
+    private Page<Caretaker> findCaretakers(CaretakerSearchCriteria filters,
+                                           Set<OfferFilterDTO> offerFilters,
+                                           Pageable pageable) {
+        return caretakerSearchCache.get(filters, offerFilters, pageable)
+                .flatMap(this::loadCaretakers)
+                .orElseGet(() -> {
+                    Page<Caretaker> caretakers = caretakerRepository.findAll(
+                            createSearchSpecification(filters, offerFilters)
+                                    .and(CaretakerSpecificationUtils.fetchSearchResultData()),
+                            pageable
+                    );
+                    caretakerSearchCache.put(filters, offerFilters, pageable, caretakers.map(Caretaker::getEmail));
+                    return caretakers;
+                });
+    }
+
+    private Optional<Page<Caretaker>> loadCaretakers(Page<String> caretakerEmails) {
+        Map<String, Caretaker> caretakers = caretakerRepository
+                .findAllWithAccountDataByEmailIn(caretakerEmails.getContent()).stream()
+                .collect(Collectors.toMap(Caretaker::getEmail, Function.identity()));
+
+        if(caretakers.size() != caretakerEmails.getNumberOfElements()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(caretakerEmails.map(caretakers::get));
+    }
+
+    /**
+     * Loads offers of all caretakers of the page in a single query and renews their profile pictures at once. Account
+     * data and addresses are fetched with the page itself, so the page is mapped without further queries or writes.
+     * <p>
+     * Offers are initialized on the caretakers managed by the current persistence context, so it has to be called
+     * within the transaction that loaded them.
+     * */
+    private void hydrateSearchResults(List<Caretaker> caretakers) {
+        if(caretakers.isEmpty()) {
+            return;
+        }
+
+        caretakerRepository.findAllWithOffersByEmailIn(caretakers.stream().map(Caretaker::getEmail).toList());
+        userService.renewProfilePictureOfUsers(caretakers.stream().map(Caretaker::getAccountData).toList());
+    }
+
+    private Specification<Caretaker> createSearchSpecification(CaretakerSearchCriteria filters,
+                                                               Set<OfferFilterDTO> offerFilters) {
+        Set<String> offerMatchingCaretakers = caretakerSearchIndexer
+                .findCaretakersMatchingOffers(filters.voivodeship(), offerFilters)
+                .orElse(null);
+        Set<String> personalDataMatchingEmails = StringUtils.hasText(filters.personalDataLike())
+                ? userSearchIndex.findMatchingEmails(filters.personalDataLike()).orElse(null)
+                : null;
+
+        return CaretakerSpecificationUtils.toSpecification(
+                filters,
+                offerFilters,
+                offerMatchingCaretakers,
+                personalDataMatchingEmails
+        );
+    }
+
+    private Coordinates findCityCoordinates(CaretakerSearchCriteria filters) {
+        // Search does not wait for the geocoding api, city coordinates are returned once they are cached
+        return geolocationProvider.findCoordinatesOfAddress("Poland", filters.voivodeship(), filters.cityLike())
+                .orElse(new Coordinates(null, null));
+    }
+
+    private CaretakerCursor decodeCursor(String cursor) {
+        return CaretakerCursor.decode(cursor)
+                .orElseThrow(() -> new IllegalActionException(String.format(INVALID_CURSOR_MESSAGE, cursor)));
+    }
+
+    private void assertNotScrollingByDistance(CaretakerSearchCriteria filters) {
+        if(Boolean.TRUE.equals(filters.sortByDistance())) {
+            throw new IllegalActionException(SCROLL_BY_DISTANCE_MESSAGE);
+        }
+    }
+
+    private void assertDistanceSearchHasPoint(CaretakerSearchCriteria filters) {
+        if(filters.searchesByDistance() && !filters.hasPoint()) {
+            throw new IllegalActionException(DISTANCE_SEARCH_WITHOUT_POINT_MESSAGE);
+        }
+    }
+
     private void applyOfferPhotosPatch(Caretaker caretaker, Set<String> blobsToKeep, List<MultipartFile> newPhotos) {
         List<PhotoLink> currentPhotos = caretaker.getOfferPhotos();
 
@@ -167,15 +345,32 @@ public class CaretakerService {
 
         caretaker.getOfferPhotos().removeAll(photosToRemove);
         assertOfferPhotoCountWithinLimit(caretaker.getOfferPhotos().size() + newPhotos.size());
-        caretaker.getOfferPhotos().addAll(photoService.uploadPhotos(newPhotos));
+        addOfferPhotos(caretaker.getOfferPhotos(), photoService.uploadPhotos(newPhotos));
         photoService.schedulePhotoDeletions(photosToRemove);
     }
 
-    private Caretaker renewCaretakerPictures(Caretaker caretaker) {
-        AppUser appUser = caretaker.getAccountData();
+    /**
+     * Adds uploaded photos to the gallery skipping ones already in it. Identical uploads resolve to the same photo, so
+     * references taken by the skipped duplicates are released.
+     * */
+    private void addOfferPhotos(List<PhotoLink> offerPhotos, List<PhotoLink> uploadedPhotos) {
+        List<PhotoLink> duplicatePhotos = new ArrayList<>();
+
+        for(PhotoLink photo : uploadedPhotos) {
+            if(offerPhotos.contains(photo)) {
+                duplicatePhotos.add(photo);
+            } else {
+                offerPhotos.add(photo);
+            }
+        }
+
+        if(!duplicatePhotos.isEmpty()) {
+            photoService.schedulePhotoDeletions(duplicatePhotos);
+        }
+    }
 
-        userService.renewAllPhotosOfUser(appUser);
-        return caretakerRepository.save(caretaker);
+    private void renewCaretakerPictures(Caretaker caretaker) {
+        userService.renewAllPhotosOfUser(caretaker.getAccountData());
     }
 
     private void assertCaretakerNotExists(String caretakerEmail) {
@@ -0,0 +1,85 @@
+package com.example.petbuddybackend.service.user;
+
+import com.example.petbuddybackend.dto.user.SimplifiedAccountDataDTO;
+import com.example.petbuddybackend.repository.user.AppUserRepository;
+import com.example.petbuddybackend.utils.search.TrigramIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In memory trigram index of names, surnames and emails of users, resolving searches by personal data without matching
+ * LIKE patterns against every user. Loaded at startup and updated by {@link UserService} whenever it creates a user.
+ * */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSearchIndex {
+
+    // Users matched in memory are passed to the database as a list, too many of them are matched in the database
+    private static final int MAX_MATCHING_USERS = 5000;
+
+    private final AppUserRepository appUserRepository;
+
+    // Null until built at startup
+    private volatile TrigramIndex trigramIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TrigramIndex rebuilt = new TrigramIndex();
+
+        for(SimplifiedAccountDataDTO accountData : appUserRepository.findAllAccountData()) {
+            rebuilt.put(accountData.email(), accountData.name(), accountData.surname(), accountData.email());
+        }
+
+        trigramIndex = rebuilt;
+        log.info("Indexed personal data of {} users", rebuilt.size());
+    }
+
+    /**
+     * Updates personal data of the user once the current transaction commits.
+     * */
+    public void updateUser(String email, String name, String surname) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            putUser(email, name, surname);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                putUser(email, name, surname);
+            }
+        });
+    }
+
+    /**
+     * @param personalDataLike keywords every one of which must be contained in the name, surname or email of a user
+     * @return emails of matching users, empty if the index is not built yet or too many users match
+     * */
+    public Optional<Set<String>> findMatchingEmails(String personalDataLike) {
+        TrigramIndex index = trigramIndex;
+
+        if(index == null) {
+            return Optional.empty();
+        }
+
+        Set<String> emails = index.find(personalDataLike);
+        return emails.size() > MAX_MATCHING_USERS ? Optional.empty() : Optional.of(emails);
+    }
+
+    private void putUser(String email, String name, String surname) {
+        TrigramIndex index = trigramIndex;
+
+        if(index != null) {
+            index.put(email, name, surname, email);
+        }
+    }
+}
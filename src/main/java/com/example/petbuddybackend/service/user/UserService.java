@@ -38,6 +38,7 @@ public class UserService {
     private final ClientRepository clientRepository;
     private final CaretakerRepository caretakerRepository;
     private final PhotoService photoService;
+    private final UserSearchIndex userSearchIndex;
     private final UserMapper userMapper = UserMapper.INSTANCE;
 
     @Transactional
@@ -60,7 +61,9 @@ public class UserService {
                 .name((String) token.getTokenAttributes().get("given_name"))
                 .surname((String) token.getTokenAttributes().get("family_name"))
                 .build();
-        return userRepository.save(user);
+        AppUser savedUser = userRepository.save(user);
+        userSearchIndex.updateUser(user.getEmail(), user.getName(), user.getSurname());
+        return savedUser;
     }
 
     public AppUser getAppUser(String email) {
@@ -87,13 +90,13 @@ public class UserService {
         AppUser user = getAppUser(username);
         PhotoLink oldPhoto = user.getProfilePicture();
 
+        // Uploading before releasing the old photo lets a re-uploaded identical picture reuse its blob
+        PhotoLink newPhoto = photoService.uploadPhoto(profilePicture);
+
         if (oldPhoto != null) {
-            user.setProfilePicture(null);
-            userRepository.save(user);
             photoService.schedulePhotoDeletion(oldPhoto);
         }
 
-        PhotoLink newPhoto = photoService.uploadPhoto(profilePicture);
         user.setProfilePicture(newPhoto);
         return userMapper.mapToAccountDataDTO(userRepository.save(user));
     }
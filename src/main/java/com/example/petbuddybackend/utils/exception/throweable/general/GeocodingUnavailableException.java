@@ -0,0 +1,14 @@
+package com.example.petbuddybackend.utils.exception.throweable.general;
+
+import com.example.petbuddybackend.utils.exception.throweable.HttpException;
+import org.springframework.http.HttpStatus;
+
+public class GeocodingUnavailableException extends HttpException {
+
+    private static final String GEOCODING_UNAVAILABLE_MESSAGE =
+            "Too many addresses are being geocoded, address %s could not be geocoded. Try again later";
+
+    public GeocodingUnavailableException(String address) {
+        super(String.format(GEOCODING_UNAVAILABLE_MESSAGE, address), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
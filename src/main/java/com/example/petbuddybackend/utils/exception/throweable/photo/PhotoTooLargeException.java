@@ -0,0 +1,14 @@
+package com.example.petbuddybackend.utils.exception.throweable.photo;
+
+import com.example.petbuddybackend.utils.exception.throweable.HttpException;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+
+public class PhotoTooLargeException extends HttpException {
+
+    private static final String PHOTO_TOO_LARGE_MESSAGE = "Photo %s exceeds the maximum allowed size of %s";
+
+    public PhotoTooLargeException(String filename, DataSize maxSize) {
+        super(String.format(PHOTO_TOO_LARGE_MESSAGE, filename, maxSize), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.petbuddybackend.utils.geo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Geometry on the surface of the earth. Coordinates are in degrees, distances in kilometers.
+ * <p>
+ * The earth is divided into a grid of cells of {@link #CELL_SIZE_DEGREES}, numbered row by row from the south-west
+ * corner. A cell number indexes all locations within about 11 km, so nearby locations can be looked up by a few
+ * cell numbers instead of a range scan over coordinates.
+ * */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double CELL_SIZE_DEGREES = 0.1;
+
+    private static final int GRID_COLUMNS = (int) Math.round(360 / CELL_SIZE_DEGREES);
+    private static final int GRID_ROWS = (int) Math.round(180 / CELL_SIZE_DEGREES);
+
+    private GeoUtils() {}
+
+    public static int gridCellOf(BigDecimal latitude, BigDecimal longitude) {
+        return gridCellOf(latitude.doubleValue(), longitude.doubleValue());
+    }
+
+    public static int gridCellOf(double latitude, double longitude) {
+        return rowOf(latitude) * GRID_COLUMNS + columnOf(longitude);
+    }
+
+    /**
+     * Great circle distance computed with the haversine formula.
+     * */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double latitudeDelta = Math.toRadians(latitude2 - latitude1);
+        double longitudeDelta = Math.toRadians(longitude2 - longitude1);
+
+        double a = Math.pow(Math.sin(latitudeDelta / 2), 2) +
+                Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) *
+                Math.pow(Math.sin(longitudeDelta / 2), 2);
+
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int rowOf(double latitude) {
+        return clamp((int) Math.floor((latitude + 90) / CELL_SIZE_DEGREES), GRID_ROWS);
+    }
+
+    private static int columnOf(double longitude) {
+        return clamp((int) Math.floor((longitude + 180) / CELL_SIZE_DEGREES), GRID_COLUMNS);
+    }
+
+    private static int clamp(int index, int size) {
+        return Math.max(0, Math.min(size - 1, index));
+    }
+
+    public record BoundingBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+
+        /**
+         * Smallest box containing the circle. Near the poles and across the antimeridian the box spans all longitudes.
+         * */
+        public static BoundingBox around(double latitude, double longitude, double radiusKm) {
+            double latitudeDelta = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+            double minLatitude = latitude - latitudeDelta;
+            double maxLatitude = latitude + latitudeDelta;
+
+            if(minLatitude <= -90 || maxLatitude >= 90) {
+                return new BoundingBox(Math.max(minLatitude, -90), Math.min(maxLatitude, 90), -180, 180);
+            }
+
+            double longitudeDelta = Math.toDegrees(
+                    Math.asin(Math.min(1, Math.sin(radiusKm / EARTH_RADIUS_KM) / Math.cos(Math.toRadians(latitude))))
+            );
+            double minLongitude = longitude - longitudeDelta;
+            double maxLongitude = longitude + longitudeDelta;
+
+            if(minLongitude < -180 || maxLongitude > 180) {
+                return new BoundingBox(minLatitude, maxLatitude, -180, 180);
+            }
+
+            return new BoundingBox(minLatitude, maxLatitude, minLongitude, maxLongitude);
+        }
+
+        /**
+         * @return numbers of all grid cells overlapping the box, or empty if there are more than maxCells of them
+         * */
+        public List<Integer> gridCells(int maxCells) {
+            int minRow = rowOf(minLatitude);
+            int maxRow = rowOf(maxLatitude);
+            int minColumn = columnOf(minLongitude);
+            int maxColumn = columnOf(maxLongitude);
+
+            long cellCount = (long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+
+            if(cellCount > maxCells) {
+                return Collections.emptyList();
+            }
+
+            List<Integer> cells = new ArrayList<>((int) cellCount);
+
+            for(int row = minRow; row <= maxRow; row++) {
+                for(int column = minColumn; column <= maxColumn; column++) {
+                    cells.add(row * GRID_COLUMNS + column);
+                }
+            }
+
+            return cells;
+        }
+
+        public boolean contains(double latitude, double longitude) {
+            return latitude >= minLatitude && latitude <= maxLatitude &&
+                    longitude >= minLongitude && longitude <= maxLongitude;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.petbuddybackend.utils.geo;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Region quadtree of identified points. Every node covers a quarter of its parent and keeps the number of points below
+ * it together with the sums of their coordinates, so a cluster of a whole node is known without visiting its points.
+ * <p>
+ * Clusters at depth d group points lying in the same cell of a grid with 2^d rows and 2^d columns over the globe.
+ * */
+public class PointQuadtree {
+
+    public static final int MAX_DEPTH = 24;
+
+    private static final int LEAF_CAPACITY = 16;
+
+    private final Node root = new Node(-90, 90, -180, 180, 0);
+    private final Map<String, Point> points = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Inserts the point or moves it if a point with the same id exists.
+     * */
+    public void put(String id, double latitude, double longitude) {
+        Point point = new Point(id, latitude, longitude);
+
+        lock.writeLock().lock();
+        try {
+            Point previous = points.put(id, point);
+
+            if(previous != null) {
+                root.remove(previous);
+            }
+
+            root.insert(point);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Point previous = points.remove(id);
+
+            if(previous != null) {
+                root.remove(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return root.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param depth depth of the grid grouping the points, at most {@link #MAX_DEPTH}
+     * @param sampleSize maximum number of ids of points returned with every cluster
+     * @return clusters of points inside the box
+     * */
+    public List<Cluster> cluster(GeoUtils.BoundingBox box, int depth, int sampleSize) {
+        List<Cluster> clusters = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            root.cluster(box, Math.min(depth, MAX_DEPTH), sampleSize, clusters);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return clusters;
+    }
+
+    public record Point(String id, double latitude, double longitude) {
+    }
+
+    public record Cluster(int count, double latitude, double longitude, List<String> sampleIds) {
+
+        static Cluster of(List<Point> points, int sampleSize) {
+            double latitudeSum = 0;
+            double longitudeSum = 0;
+
+            for(Point point : points) {
+                latitudeSum += point.latitude();
+                longitudeSum += point.longitude();
+            }
+
+            return new Cluster(
+                    points.size(),
+                    latitudeSum / points.size(),
+                    longitudeSum / points.size(),
+                    points.stream().limit(sampleSize).map(Point::id).toList()
+            );
+        }
+    }
+
+    private static final class Node {
+
+        private final double minLatitude;
+        private final double maxLatitude;
+        private final double minLongitude;
+        private final double maxLongitude;
+        private final int depth;
+
+        private int count;
+        private double latitudeSum;
+        private double longitudeSum;
+
+        // Points of a leaf, null once the node is split into children
+        private List<Point> points = new ArrayList<>();
+        private Node[] children;
+
+        private Node(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude, int depth) {
+            this.minLatitude = minLatitude;
+            this.maxLatitude = maxLatitude;
+            this.minLongitude = minLongitude;
+            this.maxLongitude = maxLongitude;
+            this.depth = depth;
+        }
+
+        private void insert(Point point) {
+            count++;
+            latitudeSum += point.latitude();
+            longitudeSum += point.longitude();
+
+            if(children != null) {
+                childFor(point).insert(point);
+                return;
+            }
+
+            points.add(point);
+
+            if(points.size() > LEAF_CAPACITY && depth < MAX_DEPTH) {
+                split();
+            }
+        }
+
+        private boolean remove(Point point) {
+            boolean removed = children == null ? points.remove(point) : childFor(point).remove(point);
+
+            if(!removed) {
+                return false;
+            }
+
+            count--;
+            latitudeSum -= point.latitude();
+            longitudeSum -= point.longitude();
+
+            if(children != null && count <= LEAF_CAPACITY) {
+                merge();
+            }
+
+            return true;
+        }
+
+        private void split() {
+            double midLatitude = (minLatitude + maxLatitude) / 2;
+            double midLongitude = (minLongitude + maxLongitude) / 2;
+
+            children = new Node[] {
+                    new Node(minLatitude, midLatitude, minLongitude, midLongitude, depth + 1),
+                    new Node(minLatitude, midLatitude, midLongitude, maxLongitude, depth + 1),
+                    new Node(midLatitude, maxLatitude, minLongitude, midLongitude, depth + 1),
+                    new Node(midLatitude, maxLatitude, midLongitude, maxLongitude, depth + 1)
+            };
+
+            for(Point point : points) {
+                childFor(point).insert(point);
+            }
+
+            points = null;
+        }
+
+        private void merge() {
+            List<Point> merged = new ArrayList<>(count);
+            collect(point -> true, merged);
+            children = null;
+            points = merged;
+        }
+
+        private Node childFor(Point point) {
+            int index = (point.latitude() >= (minLatitude + maxLatitude) / 2 ? 2 : 0) +
+                    (point.longitude() >= (minLongitude + maxLongitude) / 2 ? 1 : 0);
+
+            return children[index];
+        }
+
+        private void cluster(GeoUtils.BoundingBox box, int clusterDepth, int sampleSize, List<Cluster> clusters) {
+            if(count == 0 || !intersects(box)) {
+                return;
+            }
+
+            if(depth >= clusterDepth) {
+                if(isInside(box)) {
+                    clusters.add(toCluster(sampleSize));
+                } else {
+                    List<Point> inside = new ArrayList<>();
+                    collect(point -> box.contains(point.latitude(), point.longitude()), inside);
+
+                    if(!inside.isEmpty()) {
+                        clusters.add(Cluster.of(inside, sampleSize));
+                    }
+                }
+                return;
+            }
+
+            if(children == null) {
+                // Leaf above the cluster depth, its points may belong to different cells of the grid
+                Map<Long, List<Point>> pointsByCell = new LinkedHashMap<>();
+
+                for(Point point : points) {
+                    if(box.contains(point.latitude(), point.longitude())) {
+                        pointsByCell.computeIfAbsent(cellOf(point, clusterDepth), cell -> new ArrayList<>()).add(point);
+                    }
+                }
+
+                pointsByCell.values().forEach(cellPoints -> clusters.add(Cluster.of(cellPoints, sampleSize)));
+                return;
+            }
+
+            for(Node child : children) {
+                child.cluster(box, clusterDepth, sampleSize, clusters);
+            }
+        }
+
+        private Cluster toCluster(int sampleSize) {
+            List<Point> sample = new ArrayList<>(sampleSize);
+            sample(sampleSize, sample);
+
+            return new Cluster(
+                    count,
+                    latitudeSum / count,
+                    longitudeSum / count,
+                    sample.stream().map(Point::id).toList()
+            );
+        }
+
+        private void sample(int sampleSize, List<Point> sample) {
+            if(children == null) {
+                for(int i = 0; i < points.size() && sample.size() < sampleSize; i++) {
+                    sample.add(points.get(i));
+                }
+                return;
+            }
+
+            for(Node child : children) {
+                if(sample.size() >= sampleSize) {
+                    return;
+                }
+                child.sample(sampleSize, sample);
+            }
+        }
+
+        private void collect(Predicate<Point> filter, List<Point> collected) {
+            if(children == null) {
+                points.stream().filter(filter).forEach(collected::add);
+                return;
+            }
+
+            for(Node child : children) {
+                child.collect(filter, collected);
+            }
+        }
+
+        private boolean intersects(GeoUtils.BoundingBox box) {
+            return minLatitude <= box.maxLatitude() && maxLatitude >= box.minLatitude() &&
+                    minLongitude <= box.maxLongitude() && maxLongitude >= box.minLongitude();
+        }
+
+        private boolean isInside(GeoUtils.BoundingBox box) {
+            return minLatitude >= box.minLatitude() && maxLatitude <= box.maxLatitude() &&
+                    minLongitude >= box.minLongitude() && maxLongitude <= box.maxLongitude();
+        }
+
+        private static long cellOf(Point point, int depth) {
+            long cells = 1L << depth;
+            long row = Math.min(cells - 1, (long) Math.floor((point.latitude() + 90) / 180 * cells));
+            long column = Math.min(cells - 1, (long) Math.floor((point.longitude() + 180) / 360 * cells));
+            return row * cells + column;
+        }
+    }
+}
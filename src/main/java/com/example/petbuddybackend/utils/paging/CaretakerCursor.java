@@ -0,0 +1,41 @@
+package com.example.petbuddybackend.utils.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Position of the last caretaker of a page in the (ratingScore, email) order, passed to clients as an opaque token.
+ *
+ * @param ratingScore rating score of the caretaker, null if not rated yet
+ * */
+public record CaretakerCursor(Float ratingScore, String email) {
+
+    private static final String SEPARATOR = ":";
+
+    public String encode() {
+        String score = ratingScore == null ? "" : ratingScore.toString();
+        String position = score + SEPARATOR + email;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return decoded cursor, empty if the token was not created by {@link #encode()}
+     * */
+    public static Optional<CaretakerCursor> decode(String token) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = position.indexOf(SEPARATOR);
+
+            if(separatorIndex < 0 || separatorIndex == position.length() - 1) {
+                return Optional.empty();
+            }
+
+            String score = position.substring(0, separatorIndex);
+            String email = position.substring(separatorIndex + 1);
+            return Optional.of(new CaretakerCursor(score.isEmpty() ? null : Float.valueOf(score), email));
+        } catch(IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
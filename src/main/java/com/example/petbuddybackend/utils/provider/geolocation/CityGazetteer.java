@@ -0,0 +1,169 @@
+package com.example.petbuddybackend.utils.provider.geolocation;
+
+import com.example.petbuddybackend.entity.address.Voivodeship;
+import com.example.petbuddybackend.utils.provider.geolocation.dto.Coordinates;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Coordinates of Polish cities, loaded at startup from a bundled gazetteer. Resolves city level lookups locally, without
+ * requesting the geocoding api.
+ * <p>
+ * Entries are kept in parallel arrays sorted by folded name, so lookups are a binary search. Entries sharing a name keep
+ * the order of the gazetteer, which lists bigger cities first.
+ * */
+@Slf4j
+@Component
+public class CityGazetteer {
+
+    public static final String COUNTRY = "Poland";
+
+    private static final String SEPARATOR = ";";
+    private static final int COORDINATE_SCALE = 4;
+
+    @Value("${geocoding.gazetteer.location}")
+    private Resource GAZETTEER;
+
+    private String[] names;
+    private Voivodeship[] voivodeships;
+    private int[] latitudes;
+    private int[] longitudes;
+
+    @PostConstruct
+    void loadGazetteer() throws IOException {
+        List<Entry> entries = readEntries();
+        entries.sort(Comparator.comparing(Entry::name));
+
+        int size = entries.size();
+        names = new String[size];
+        voivodeships = new Voivodeship[size];
+        latitudes = new int[size];
+        longitudes = new int[size];
+
+        for(int i = 0; i < size; i++) {
+            Entry entry = entries.get(i);
+            names[i] = entry.name();
+            voivodeships[i] = entry.voivodeship();
+            latitudes[i] = entry.latitude();
+            longitudes[i] = entry.longitude();
+        }
+
+        log.info("Loaded {} cities from gazetteer {}", size, GAZETTEER.getFilename());
+    }
+
+    /**
+     * @return coordinates of the biggest city of that name
+     * */
+    public Optional<Coordinates> find(String city) {
+        return find(city, null);
+    }
+
+    /**
+     * @param voivodeship voivodeship of the city, null if unknown
+     * */
+    public Optional<Coordinates> find(String city, Voivodeship voivodeship) {
+        if(city == null) {
+            return Optional.empty();
+        }
+
+        String name = fold(city);
+        int index = Arrays.binarySearch(names, name);
+
+        if(index < 0) {
+            return Optional.empty();
+        }
+
+        while(index > 0 && names[index - 1].equals(name)) {
+            index--;
+        }
+
+        for(; index < names.length && names[index].equals(name); index++) {
+            if(voivodeship == null || voivodeships[index] == voivodeship) {
+                return Optional.of(coordinatesAt(index));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Folds the name to lower case letters without diacritics, so names typed without Polish characters match too.
+     * Hyphens and runs of whitespace are folded to a single space.
+     * */
+    static String fold(String name) {
+        String withoutDiacritics = Normalizer.normalize(name, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .replace('ł', 'l')
+                .replace('Ł', 'L');
+
+        return withoutDiacritics
+                .replaceAll("[\\s-]+", " ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private Coordinates coordinatesAt(int index) {
+        return Coordinates.builder()
+                .latitude(BigDecimal.valueOf(latitudes[index], COORDINATE_SCALE))
+                .longitude(BigDecimal.valueOf(longitudes[index], COORDINATE_SCALE))
+                .build();
+    }
+
+    private List<Entry> readEntries() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(GAZETTEER.getInputStream()),
+                StandardCharsets.UTF_8
+        ))) {
+            // Header
+            reader.readLine();
+            String line;
+
+            while((line = reader.readLine()) != null) {
+                if(!line.isBlank()) {
+                    entries.add(parseEntry(line));
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    private Entry parseEntry(String line) {
+        String[] columns = line.split(SEPARATOR);
+
+        return new Entry(
+                fold(columns[0]),
+                Voivodeship.valueOf(columns[1]),
+                toFixedPoint(columns[2]),
+                toFixedPoint(columns[3])
+        );
+    }
+
+    private static int toFixedPoint(String coordinate) {
+        return new BigDecimal(coordinate.trim())
+                .setScale(COORDINATE_SCALE)
+                .unscaledValue()
+                .intValueExact();
+    }
+
+    private record Entry(String name, Voivodeship voivodeship, int latitude, int longitude) {
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.petbuddybackend.utils.provider.geolocation;
+
+import com.example.petbuddybackend.entity.address.GeocodedAddress;
+import com.example.petbuddybackend.repository.address.GeocodedAddressRepository;
+import com.example.petbuddybackend.utils.provider.geolocation.dto.Coordinates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Two level cache of geocoding results: a bounded, least-recently-used map in front of a database table. Addresses that
+ * could not be geocoded are cached too, with a shorter time to live.
+ * */
+@Component
+@RequiredArgsConstructor
+public class GeocodeCache {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Value("${geocoding.cache.max-size}")
+    private Integer MAX_SIZE;
+
+    @Value("${geocoding.cache.ttl}")
+    private Duration TTL;
+
+    @Value("${geocoding.cache.negative-ttl}")
+    private Duration NEGATIVE_TTL;
+
+    private final GeocodedAddressRepository geocodedAddressRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CachedGeocode> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedGeocode> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private Counter memoryHitCounter;
+    private Counter databaseHitCounter;
+    private Counter missCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        memoryHitCounter = meterRegistry.counter("geocoding.cache.hits", "level", "memory");
+        databaseHitCounter = meterRegistry.counter("geocoding.cache.hits", "level", "database");
+        missCounter = meterRegistry.counter("geocoding.cache.misses");
+    }
+
+    /**
+     * @return empty if the address is not cached or the cached result expired
+     * */
+    public Optional<CachedGeocode> get(String country, String city, String streetName) {
+        String key = normalizeKey(country, city, streetName);
+        Optional<CachedGeocode> cached = getFromMemory(key);
+
+        if(cached.isPresent()) {
+            memoryHitCounter.increment();
+            return cached;
+        }
+
+        cached = geocodedAddressRepository.findById(key)
+                .map(CachedGeocode::of)
+                .filter(geocode -> !geocode.isExpired());
+
+        if(cached.isPresent()) {
+            databaseHitCounter.increment();
+            putInMemory(key, cached.get());
+            return cached;
+        }
+
+        missCounter.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Stores the result in a separate transaction, so a conflicting insert of the same address does not roll back the
+     * transaction of the caller.
+     * */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void putCoordinates(String country, String city, String streetName, Coordinates coordinates) {
+        put(normalizeKey(country, city, streetName), new CachedGeocode(coordinates, LocalDateTime.now().plus(TTL)));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void putNotFound(String country, String city, String streetName) {
+        put(normalizeKey(country, city, streetName), new CachedGeocode(null, LocalDateTime.now().plus(NEGATIVE_TTL)));
+    }
+
+    /**
+     * Clears the in memory level only, results stored in the database are kept.
+     * */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Builds the key from trimmed, lower-cased and whitespace-collapsed parts, so different spellings of the same
+     * address share the cached result.
+     * */
+    static String normalizeKey(String country, String city, String streetName) {
+        return Stream.of(country, city, streetName)
+                .map(GeocodeCache::normalizePart)
+                .collect(Collectors.joining("|"));
+    }
+
+    private static String normalizePart(String part) {
+        if(part == null) {
+            return "";
+        }
+
+        return Normalizer.normalize(part, Normalizer.Form.NFC)
+                .trim()
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private void put(String key, CachedGeocode geocode) {
+        putInMemory(key, geocode);
+
+        // Keys of unusually long user input are kept in memory only
+        if(key.length() > MAX_KEY_LENGTH) {
+            return;
+        }
+
+        geocodedAddressRepository.save(GeocodedAddress.builder()
+                .addressKey(key)
+                .latitude(geocode.isNotFound() ? null : geocode.coordinates().latitude())
+                .longitude(geocode.isNotFound() ? null : geocode.coordinates().longitude())
+                .expiresAt(geocode.expiresAt())
+                .build());
+    }
+
+    private synchronized Optional<CachedGeocode> getFromMemory(String key) {
+        CachedGeocode cached = cache.get(key);
+
+        if(cached != null && cached.isExpired()) {
+            cache.remove(key);
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(cached);
+    }
+
+    private synchronized void putInMemory(String key, CachedGeocode geocode) {
+        cache.put(key, geocode);
+    }
+
+    /**
+     * @param coordinates null if the address could not be geocoded
+     * */
+    public record CachedGeocode(Coordinates coordinates, LocalDateTime expiresAt) {
+
+        public boolean isNotFound() {
+            return coordinates == null;
+        }
+
+        boolean isExpired() {
+            return !expiresAt.isAfter(LocalDateTime.now());
+        }
+
+        static CachedGeocode of(GeocodedAddress geocodedAddress) {
+            Coordinates coordinates = geocodedAddress.getLatitude() == null ? null : Coordinates.builder()
+                    .latitude(geocodedAddress.getLatitude())
+                    .longitude(geocodedAddress.getLongitude())
+                    .build();
+
+            return new CachedGeocode(coordinates, geocodedAddress.getExpiresAt());
+        }
+    }
+}
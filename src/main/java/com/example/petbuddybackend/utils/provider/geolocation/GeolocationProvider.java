@@ -1,17 +1,35 @@
 package com.example.petbuddybackend.utils.provider.geolocation;
 
+import com.example.petbuddybackend.entity.address.Voivodeship;
+import com.example.petbuddybackend.utils.exception.throweable.general.GeocodingUnavailableException;
 import com.example.petbuddybackend.utils.exception.throweable.general.NotFoundException;
 import com.example.petbuddybackend.utils.provider.geolocation.dto.Coordinates;
 import com.opencagedata.jopencage.JOpenCageGeocoder;
 import com.opencagedata.jopencage.model.JOpenCageForwardRequest;
 import com.opencagedata.jopencage.model.JOpenCageResponse;
 import com.opencagedata.jopencage.model.JOpenCageResult;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class GeolocationProvider {
@@ -20,21 +38,189 @@ public class GeolocationProvider {
     private static final String GEOLOCATION = "Geolocation";
 
     private final JOpenCageGeocoder jOpenCageGeocoder;
+    private final GeocodeCache geocodeCache;
+    private final CityGazetteer cityGazetteer;
+    private final TokenBucket geocodingRateLimiter;
+
+    // Not a bean, as a ScheduledExecutorService bean would replace the scheduler of @Scheduled tasks
+    private final ScheduledExecutorService geocodingScheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("geocoding-"));
+
+    private final Map<String, CompletableFuture<Coordinates>> inFlightRequests = new ConcurrentHashMap<>();
 
-    private static Long lastRequestTime = 1_577_833_200_000L;
+    @PreDestroy
+    void shutdownScheduler() {
+        geocodingScheduler.shutdownNow();
+    }
 
     public Coordinates getCoordinatesOfAddress(String country, String city) {
-        return getCoordinatesOfAddress(country, city, null);
+        return getCoordinatesOfAddress(country, null, city, null);
+    }
+
+    /**
+     * Waits for the coordinates of the address. Use only where the coordinates are required to proceed.
+     * @throws NotFoundException if the address could not be geocoded
+     * */
+    public Coordinates getCoordinatesOfAddress(String country, Voivodeship voivodeship, String city, String streetName) {
+        try {
+            return getCoordinatesOfAddressAsync(country, voivodeship, city, streetName).join();
+        } catch(CompletionException e) {
+            if(e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
-    public Coordinates getCoordinatesOfAddress(String country, String city, String streetName) {
+    /**
+     * Never waits for the geocoding api. If the coordinates are not cached yet, they are requested in the background,
+     * so a later call finds them.
+     * @return coordinates if known right away, empty otherwise
+     * */
+    public Optional<Coordinates> findCoordinatesOfAddress(String country, Voivodeship voivodeship, String city) {
+        CompletableFuture<Coordinates> coordinates = getCoordinatesOfAddressAsync(country, voivodeship, city, null);
+
+        if(!coordinates.isDone() || coordinates.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(coordinates.join());
+    }
+
+    /**
+     * Returns coordinates of Polish cities from the gazetteer, unless a street is given. A city of the name is searched in
+     * the voivodeship if given, otherwise the biggest one is taken. Other addresses are looked up in
+     * the cache in memory and in the database. If not cached, the geocoding api is requested on the geocoding thread once
+     * the rate limiter allows it, so request threads never sleep waiting for their turn. Concurrent lookups of the same
+     * address share a single request. If the rate limiter has too many requests queued, an address with a street gets
+     * coordinates of its city from the gazetteer and other addresses fail with {@link GeocodingUnavailableException}.
+     * @param voivodeship voivodeship of the address, null if unknown
+     * @return future completed with {@link NotFoundException} if the address could not be geocoded
+     * */
+    public CompletableFuture<Coordinates> getCoordinatesOfAddressAsync(String country,
+                                                                       Voivodeship voivodeship,
+                                                                       String city,
+                                                                       String streetName) {
+        Optional<Coordinates> cityCoordinates = findInGazetteer(country, voivodeship, city, streetName);
+
+        if(cityCoordinates.isPresent()) {
+            return CompletableFuture.completedFuture(cityCoordinates.get());
+        }
+
         String formattedAddress = formatAddress(country, city, streetName);
+        Optional<GeocodeCache.CachedGeocode> cached = geocodeCache.get(country, city, streetName);
+
+        if(cached.isPresent()) {
+            return cached.get().isNotFound() ?
+                    CompletableFuture.failedFuture(NotFoundException.withFormattedMessage(GEOLOCATION, formattedAddress)) :
+                    CompletableFuture.completedFuture(cached.get().coordinates());
+        }
+
+        CompletableFuture<Coordinates> request = inFlightRequests.computeIfAbsent(
+                GeocodeCache.normalizeKey(country, city, streetName),
+                key -> scheduleRequest(key, country, city, streetName, formattedAddress)
+        );
+
+        return request != null ? request : rejectRequest(country, voivodeship, city, formattedAddress);
+    }
+
+    /**
+     * Cities missing from the gazetteer fall back to the geocoding api.
+     * */
+    private Optional<Coordinates> findInGazetteer(String country,
+                                                  Voivodeship voivodeship,
+                                                  String city,
+                                                  String streetName) {
+        if(StringUtils.hasText(streetName) || country == null || !CityGazetteer.COUNTRY.equalsIgnoreCase(country.trim())) {
+            return Optional.empty();
+        }
+
+        return cityGazetteer.find(city, voivodeship);
+    }
+
+    /**
+     * @return future of the scheduled request, null if the rate limiter rejected it
+     * */
+    private CompletableFuture<Coordinates> scheduleRequest(String key,
+                                                           String country,
+                                                           String city,
+                                                           String streetName,
+                                                           String formattedAddress) {
+        OptionalLong delay = geocodingRateLimiter.tryReserve();
+
+        if(delay.isEmpty()) {
+            return null;
+        }
+
+        CompletableFuture<Coordinates> result = new CompletableFuture<>();
+
+        geocodingScheduler.schedule(
+                () -> requestCoordinates(key, country, city, streetName, formattedAddress, result),
+                delay.getAsLong(),
+                TimeUnit.NANOSECONDS
+        );
+
+        return result;
+    }
+
+    /**
+     * The city level result is not cached, so the address is geocoded with its street once the api catches up.
+     * */
+    private CompletableFuture<Coordinates> rejectRequest(String country,
+                                                         Voivodeship voivodeship,
+                                                         String city,
+                                                         String formattedAddress) {
+        log.warn("Too many geocoding requests queued. Address {} is not requested", formattedAddress);
+
+        return findInGazetteer(country, voivodeship, city, null)
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> CompletableFuture.failedFuture(new GeocodingUnavailableException(formattedAddress)));
+    }
+
+    /**
+     * Caches the result before the request stops being in flight, so lookups of the same address made in between do not
+     * send another request.
+     * */
+    private void requestCoordinates(String key,
+                                    String country,
+                                    String city,
+                                    String streetName,
+                                    String formattedAddress,
+                                    CompletableFuture<Coordinates> result) {
+        try {
+            Coordinates coordinates = fetchCoordinates(formattedAddress);
+            cacheResult(() -> geocodeCache.putCoordinates(country, city, streetName, coordinates));
+            inFlightRequests.remove(key, result);
+            result.complete(coordinates);
+        } catch(NotFoundException e) {
+            cacheResult(() -> geocodeCache.putNotFound(country, city, streetName));
+            inFlightRequests.remove(key, result);
+            result.completeExceptionally(e);
+        } catch(RuntimeException e) {
+            log.warn("Geocoding of address {} failed: {}", formattedAddress, e.getMessage());
+            inFlightRequests.remove(key, result);
+            result.completeExceptionally(e);
+        }
+    }
+
+    private Coordinates fetchCoordinates(String formattedAddress) {
         JOpenCageForwardRequest request = buildRequest(formattedAddress);
-        JOpenCageResponse response = sendRequest(request);
+        JOpenCageResponse response = jOpenCageGeocoder.forward(request);
         assertResultExists(response, formattedAddress);
         return unpackResultToCoordinates(response);
     }
 
+    /**
+     * Failing to cache the result must not fail the lookup, the address is requested again next time.
+     * */
+    private void cacheResult(Runnable put) {
+        try {
+            put.run();
+        } catch(DataAccessException | TransactionException e) {
+            log.warn("Failed to cache geocoding result: {}", e.getMessage());
+        }
+    }
+
     private JOpenCageForwardRequest buildRequest(String formattedAddress) {
         JOpenCageForwardRequest request = new JOpenCageForwardRequest(formattedAddress);
         request.setLanguage("pl");
@@ -47,24 +233,6 @@ public class GeolocationProvider {
         return String.format(ADDRESS_FORMAT, streetName, city, country);
     }
 
-    private JOpenCageResponse sendRequest(JOpenCageForwardRequest request) {
-        waitToRequestIfNeeded();
-        lastRequestTime = System.currentTimeMillis();
-        return jOpenCageGeocoder.forward(request);
-    }
-
-    private void waitToRequestIfNeeded() {
-        long currentTime = System.currentTimeMillis();
-        if(currentTime - lastRequestTime < 1000) {
-            try {
-                Thread.sleep(1000 - (currentTime - lastRequestTime));
-            }
-            catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
-    }
-
     private Coordinates unpackResultToCoordinates(JOpenCageResponse response) {
         JOpenCageResult result = response.getResults().get(0);
         return Coordinates.builder()
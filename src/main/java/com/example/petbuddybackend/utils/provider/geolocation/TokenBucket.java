@@ -0,0 +1,61 @@
+package com.example.petbuddybackend.utils.provider.geolocation;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket rate limiter working on reservations. Instead of blocking until a token is available, callers reserve
+ * one and get the time to wait before using it, so the waiting can be scheduled without parking a thread. A token is
+ * not reserved if it would have to be waited for longer than the max wait, which bounds the reservations queued ahead
+ * to max wait / refill interval.
+ * */
+public class TokenBucket {
+
+    private final long capacity;
+    private final long refillNanos;
+    private final long maxWaitNanos;
+    private final LongSupplier nanoClock;
+
+    private long nextTokenAt;
+
+    public TokenBucket(int capacity, Duration refillInterval, Duration maxWait) {
+        this(capacity, refillInterval, maxWait, System::nanoTime);
+    }
+
+    TokenBucket(int capacity, Duration refillInterval, Duration maxWait, LongSupplier nanoClock) {
+        if(capacity < 1 || refillInterval.isNegative() || refillInterval.isZero()) {
+            throw new IllegalArgumentException("Capacity and refill interval must be positive");
+        }
+
+        if(maxWait.isNegative()) {
+            throw new IllegalArgumentException("Max wait must not be negative");
+        }
+
+        this.capacity = capacity;
+        this.refillNanos = refillInterval.toNanos();
+        this.maxWaitNanos = maxWait.toNanos();
+        this.nanoClock = nanoClock;
+        this.nextTokenAt = nanoClock.getAsLong() - (capacity - 1) * refillNanos;
+    }
+
+    /**
+     * Takes the next token, possibly one that will be refilled only in the future, unless it is due later than the max
+     * wait.
+     * @return nanoseconds to wait before the token may be used, 0 if it is available right away, empty if no token was
+     * taken
+     * */
+    public synchronized OptionalLong tryReserve() {
+        long now = nanoClock.getAsLong();
+        // A full bucket does not store more than capacity tokens
+        long tokenAt = Math.max(nextTokenAt, now - (capacity - 1) * refillNanos);
+        long wait = Math.max(0, tokenAt - now);
+
+        if(wait > maxWaitNanos) {
+            return OptionalLong.empty();
+        }
+
+        nextTokenAt = tokenAt + refillNanos;
+        return OptionalLong.of(wait);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.petbuddybackend.utils.rating;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Histogram of positive counts, holding how many times every count occurs. Counts such as numbers of ratings of
+ * caretakers have few distinct values, so the histogram is smaller than a quantile sketch while answering percentiles
+ * exactly.
+ * Not thread safe.
+ * */
+public class CountHistogram {
+
+    private final NavigableMap<Integer, Integer> occurrencesByCount = new TreeMap<>();
+    private int size;
+
+    public CountHistogram() {
+    }
+
+    /**
+     * @param occurrencesByCount number of occurrences of every count
+     * */
+    public CountHistogram(Map<Integer, Integer> occurrencesByCount) {
+        occurrencesByCount.forEach(this::addOccurrences);
+    }
+
+    /**
+     * Moves an occurrence from the previous count to the current one. Zero stands for no occurrence, so counts can be
+     * added and removed as well.
+     * */
+    public void move(int previousCount, int currentCount) {
+        if(previousCount == currentCount) {
+            return;
+        }
+
+        if(previousCount > 0) {
+            addOccurrences(previousCount, -1);
+        }
+
+        if(currentCount > 0) {
+            addOccurrences(currentCount, 1);
+        }
+    }
+
+    /**
+     * Continuous percentile of the counts, interpolating between the closest ranks the same as PERCENTILE_CONT of the
+     * database.
+     *
+     * @param percentile between 0 and 1
+     * @return null if the histogram is empty
+     * */
+    public Double percentile(double percentile) {
+        if(size == 0) {
+            return null;
+        }
+
+        double position = percentile * (size - 1);
+        int lowerRank = (int) Math.floor(position);
+        int upperRank = (int) Math.ceil(position);
+
+        double lower = countAtRank(lowerRank);
+        double upper = upperRank == lowerRank ? lower : countAtRank(upperRank);
+        return lower + (position - lowerRank) * (upper - lower);
+    }
+
+    /**
+     * @return number of occurrences of all counts
+     * */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return sum of all occurrences of counts
+     * */
+    public long sum() {
+        long sum = 0;
+
+        for(Map.Entry<Integer, Integer> bucket : occurrencesByCount.entrySet()) {
+            sum += (long) bucket.getKey() * bucket.getValue();
+        }
+
+        return sum;
+    }
+
+    public Map<Integer, Integer> getOccurrencesByCount() {
+        return Collections.unmodifiableMap(occurrencesByCount);
+    }
+
+    private int countAtRank(int rank) {
+        int passed = 0;
+
+        for(Map.Entry<Integer, Integer> bucket : occurrencesByCount.entrySet()) {
+            passed += bucket.getValue();
+
+            if(rank < passed) {
+                return bucket.getKey();
+            }
+        }
+
+        throw new IllegalArgumentException("Rank " + rank + " is out of bounds");
+    }
+
+    private void addOccurrences(int count, int occurrences) {
+        occurrencesByCount.merge(count, occurrences, (current, added) -> current + added == 0 ? null : current + added);
+        size += occurrences;
+    }
+}
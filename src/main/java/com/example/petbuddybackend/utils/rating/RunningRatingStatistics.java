@@ -0,0 +1,69 @@
+package com.example.petbuddybackend.utils.rating;
+
+/**
+ * Running aggregates of ratings of all caretakers, answering the global average rating and percentiles of the number
+ * of ratings per caretaker without scanning ratings.
+ * <p>
+ * Besides the totals, a histogram of how many rated caretakers have a given number of ratings is kept. A change of
+ * ratings of a caretaker moves it between two buckets of the histogram, so nothing is kept per caretaker.
+ * Not thread safe.
+ * */
+public class RunningRatingStatistics {
+
+    private final CountHistogram numberOfRatingsHistogram;
+    private long numberOfRatings;
+    private long ratingSum;
+
+    public RunningRatingStatistics() {
+        this(new CountHistogram(), 0);
+    }
+
+    public RunningRatingStatistics(CountHistogram numberOfRatingsHistogram, long ratingSum) {
+        this.numberOfRatingsHistogram = numberOfRatingsHistogram;
+        this.numberOfRatings = numberOfRatingsHistogram.sum();
+        this.ratingSum = ratingSum;
+    }
+
+    /**
+     * Applies the change of ratings of a caretaker.
+     *
+     * @param previousNumberOfRatings number of ratings of the caretaker before the change
+     * @param currentNumberOfRatings number of ratings of the caretaker after the change
+     * */
+    public void apply(int previousNumberOfRatings, int currentNumberOfRatings, int ratingSumChange) {
+        // Aggregates which drifted below zero count as no ratings until they are reconciled
+        int previous = Math.max(previousNumberOfRatings, 0);
+        int current = Math.max(currentNumberOfRatings, 0);
+
+        numberOfRatingsHistogram.move(previous, current);
+        numberOfRatings += current - previous;
+        ratingSum += ratingSumChange;
+    }
+
+    /**
+     * @return average of all ratings, null if there are no ratings
+     * */
+    public Float getAvgRating() {
+        return numberOfRatings == 0 ? null : (float) ((double) ratingSum / numberOfRatings);
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return continuous percentile of the number of ratings of rated caretakers, null if no caretaker is rated
+     * */
+    public Double getPercentileOfNumberOfRatings(double percentile) {
+        return numberOfRatingsHistogram.percentile(percentile);
+    }
+
+    public int getRatedCaretakers() {
+        return numberOfRatingsHistogram.size();
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public CountHistogram getNumberOfRatingsHistogram() {
+        return numberOfRatingsHistogram;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.petbuddybackend.utils.search;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Availability ranges of offers, answering which caretakers are available for the whole of a given range of dates.
+ * <p>
+ * Ranges of every animal type are sorted by their last day. A range covers the requested one only if it ends on or after
+ * its last day, so a lookup visits just the ranges ending from that day on and checks their first day. Ranges that have
+ * already passed, which pile up over time, are never visited by lookups of future dates.
+ * */
+public class AvailabilityIntervalIndex {
+
+    private final Map<String, NavigableMap<LocalDate, List<Range>>> rangesByAnimalType = new HashMap<>();
+    private final Map<Long, List<Range>> rangesByOffer = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces all ranges of the offer.
+     * */
+    public void putOffer(Long offerId, List<Range> ranges) {
+        lock.writeLock().lock();
+        try {
+            removeRanges(offerId);
+
+            for(Range range : ranges) {
+                rangesByAnimalType.computeIfAbsent(range.animalType(), key -> new TreeMap<>())
+                        .computeIfAbsent(range.availableTo(), key -> new ArrayList<>())
+                        .add(range);
+            }
+
+            rangesByOffer.put(offerId, List.copyOf(ranges));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeOffer(Long offerId) {
+        lock.writeLock().lock();
+        try {
+            removeRanges(offerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return emails of caretakers with an offer for the animal available on every day from availableFrom to availableTo
+     * */
+    public Set<String> findAvailableCaretakers(String animalType, LocalDate availableFrom, LocalDate availableTo) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<LocalDate, List<Range>> ranges = rangesByAnimalType.get(animalType);
+
+            if(ranges == null) {
+                return Collections.emptySet();
+            }
+
+            Set<String> caretakers = new HashSet<>();
+
+            for(List<Range> endingRanges : ranges.tailMap(availableTo, true).values()) {
+                for(Range range : endingRanges) {
+                    if(!range.availableFrom().isAfter(availableFrom)) {
+                        caretakers.add(range.caretakerEmail());
+                    }
+                }
+            }
+
+            return caretakers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeRanges(Long offerId) {
+        List<Range> ranges = rangesByOffer.remove(offerId);
+
+        if(ranges == null) {
+            return;
+        }
+
+        for(Range range : ranges) {
+            NavigableMap<LocalDate, List<Range>> animalRanges = rangesByAnimalType.get(range.animalType());
+            List<Range> endingRanges = animalRanges.get(range.availableTo());
+            endingRanges.remove(range);
+
+            if(endingRanges.isEmpty()) {
+                animalRanges.remove(range.availableTo());
+            }
+        }
+    }
+
+    public record Range(String caretakerEmail, String animalType, LocalDate availableFrom, LocalDate availableTo) {
+    }
+}
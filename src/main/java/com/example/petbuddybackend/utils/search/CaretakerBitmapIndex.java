@@ -0,0 +1,291 @@
+package com.example.petbuddybackend.utils.search;
+
+import com.example.petbuddybackend.dto.offer.OfferConfigurationFilterDTO;
+import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
+import com.example.petbuddybackend.entity.address.Voivodeship;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In memory copy of caretaker search entries, matching offer filters with bitmap operations instead of queries.
+ * <p>
+ * Every search entry is a row with a number, and caretakers are numbered as well. Rows are indexed by animal type and by
+ * token, caretakers by voivodeship. An offer filter is matched by intersecting the bitmaps of its animal type and required
+ * tokens and checking the price of the remaining rows. Numbers of removed rows are reused, so the bitmaps stay dense.
+ * <p>
+ * Bitmaps are plain {@link BitSet}s rather than compressed ones, as no compressed bitmap library is a dependency. Every
+ * bitmap spans up to the highest number set in it, so memory is bounded by
+ * {@code (animal types + tokens + 1) * peak rows / 8} bytes for rows and {@code voivodeships * caretakers / 8} bytes
+ * for caretakers, up to twice that while a {@link BitSet} grows. With 100 000 rows and 200 tokens that is about 2.5 MB.
+ * See {@link #bitmapBytes()}.
+ * */
+public class CaretakerBitmapIndex {
+
+    private final Map<String, Integer> caretakerNumbers = new HashMap<>();
+    private final List<String> caretakerEmails = new ArrayList<>();
+    private final Map<Voivodeship, BitSet> caretakersByVoivodeship = new EnumMap<>(Voivodeship.class);
+
+    private final Map<Long, List<Integer>> rowsByOffer = new HashMap<>();
+    private final List<Row> rows = new ArrayList<>();
+    private final Deque<Integer> freeRows = new ArrayDeque<>();
+    private final BitSet offerRows = new BitSet();
+    private final Map<String, BitSet> rowsByAnimalType = new HashMap<>();
+    private final Map<String, BitSet> rowsByToken = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Sets the voivodeship of the caretaker, moving the caretaker out of the previous one.
+     * */
+    public void putCaretaker(String caretakerEmail, Voivodeship voivodeship) {
+        lock.writeLock().lock();
+        try {
+            int caretaker = caretakerNumber(caretakerEmail);
+            caretakersByVoivodeship.values().forEach(caretakers -> caretakers.clear(caretaker));
+
+            if(voivodeship != null) {
+                caretakersByVoivodeship.computeIfAbsent(voivodeship, key -> new BitSet()).set(caretaker);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces all rows of the offer.
+     * */
+    public void putOffer(Long offerId, List<Entry> entries) {
+        lock.writeLock().lock();
+        try {
+            removeRows(offerId);
+            List<Integer> offerRowNumbers = new ArrayList<>(entries.size());
+
+            for(Entry entry : entries) {
+                offerRowNumbers.add(addRow(entry));
+            }
+
+            rowsByOffer.put(offerId, offerRowNumbers);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeOffer(Long offerId) {
+        lock.writeLock().lock();
+        try {
+            removeRows(offerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Availability of offers is not indexed, filters of availability are ignored.
+     *
+     * @param voivodeship voivodeship of caretakers, null for any
+     * @param offerFilters filters all of which must be matched by offers of a caretaker, at least one
+     * @return emails of the matching caretakers
+     * */
+    public Set<String> findCaretakers(Voivodeship voivodeship, Set<OfferFilterDTO> offerFilters) {
+        lock.readLock().lock();
+        try {
+            BitSet caretakers = null;
+
+            if(voivodeship != null) {
+                caretakers = copyOf(caretakersByVoivodeship.get(voivodeship));
+            }
+
+            for(OfferFilterDTO offerFilter : offerFilters) {
+                caretakers = intersect(caretakers, findOfferCaretakers(offerFilter));
+
+                if(caretakers.isEmpty()) {
+                    return Collections.emptySet();
+                }
+            }
+
+            return toEmails(caretakers);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int rowCount() {
+        lock.readLock().lock();
+        try {
+            return rows.size() - freeRows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return bytes taken by words of all bitmaps
+     * */
+    public long bitmapBytes() {
+        lock.readLock().lock();
+        try {
+            long bits = offerRows.size();
+            bits += sumSizes(rowsByAnimalType.values());
+            bits += sumSizes(rowsByToken.values());
+            bits += sumSizes(caretakersByVoivodeship.values());
+            return bits / Byte.SIZE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet findOfferCaretakers(OfferFilterDTO offerFilter) {
+        BitSet animalRows = rowsByAnimalType.get(offerFilter.animalType());
+
+        if(animalRows == null) {
+            return new BitSet();
+        }
+
+        if(offerFilter.offerConfigurations().isEmpty()) {
+            BitSet matchingRows = copyOf(animalRows);
+            matchingRows.and(offerRows);
+            retainTokens(matchingRows, SearchTokens.requiredTokens(offerFilter, null));
+            return toCaretakers(matchingRows, null);
+        }
+
+        BitSet caretakers = null;
+
+        // Every configuration filter must be matched by a configuration of the offer. The offer of an animal is unique
+        // per caretaker, so matching the caretaker matches the offer.
+        for(OfferConfigurationFilterDTO configFilter : offerFilter.offerConfigurations()) {
+            BitSet matchingRows = copyOf(animalRows);
+            matchingRows.andNot(offerRows);
+            retainTokens(matchingRows, SearchTokens.requiredTokens(offerFilter, configFilter));
+            caretakers = intersect(caretakers, toCaretakers(matchingRows, configFilter));
+        }
+
+        return caretakers;
+    }
+
+    private void retainTokens(BitSet matchingRows, Set<String> tokens) {
+        for(String token : tokens) {
+            BitSet tokenRows = rowsByToken.get(token);
+
+            if(tokenRows == null) {
+                matchingRows.clear();
+                return;
+            }
+
+            matchingRows.and(tokenRows);
+        }
+    }
+
+    /**
+     * @param configFilter filter with the price range of the rows, null to take all rows
+     * */
+    private BitSet toCaretakers(BitSet matchingRows, OfferConfigurationFilterDTO configFilter) {
+        BitSet caretakers = new BitSet();
+
+        for(int row = matchingRows.nextSetBit(0); row >= 0; row = matchingRows.nextSetBit(row + 1)) {
+            Row matchingRow = rows.get(row);
+
+            if(configFilter == null || isPriceInRange(matchingRow.dailyPrice(), configFilter)) {
+                caretakers.set(matchingRow.caretaker());
+            }
+        }
+
+        return caretakers;
+    }
+
+    private boolean isPriceInRange(BigDecimal dailyPrice, OfferConfigurationFilterDTO configFilter) {
+        return dailyPrice.compareTo(configFilter.minPrice()) >= 0 && dailyPrice.compareTo(configFilter.maxPrice()) <= 0;
+    }
+
+    private Set<String> toEmails(BitSet caretakers) {
+        Set<String> emails = new HashSet<>(caretakers.cardinality());
+
+        for(int caretaker = caretakers.nextSetBit(0); caretaker >= 0; caretaker = caretakers.nextSetBit(caretaker + 1)) {
+            emails.add(caretakerEmails.get(caretaker));
+        }
+
+        return emails;
+    }
+
+    private int addRow(Entry entry) {
+        Row row = new Row(caretakerNumber(entry.caretakerEmail()), entry.animalType(), entry.dailyPrice(), entry.tokens());
+        int number;
+
+        if(freeRows.isEmpty()) {
+            number = rows.size();
+            rows.add(row);
+        } else {
+            number = freeRows.pop();
+            rows.set(number, row);
+        }
+
+        offerRows.set(number, entry.dailyPrice() == null);
+        rowsByAnimalType.computeIfAbsent(entry.animalType(), key -> new BitSet()).set(number);
+        entry.tokens().forEach(token -> rowsByToken.computeIfAbsent(token, key -> new BitSet()).set(number));
+
+        return number;
+    }
+
+    private void removeRows(Long offerId) {
+        List<Integer> offerRowNumbers = rowsByOffer.remove(offerId);
+
+        if(offerRowNumbers == null) {
+            return;
+        }
+
+        for(int number : offerRowNumbers) {
+            Row row = rows.get(number);
+            offerRows.clear(number);
+            clearBit(rowsByAnimalType, row.animalType(), number);
+            row.tokens().forEach(token -> clearBit(rowsByToken, token, number));
+            rows.set(number, null);
+            freeRows.push(number);
+        }
+    }
+
+    private int caretakerNumber(String caretakerEmail) {
+        return caretakerNumbers.computeIfAbsent(caretakerEmail, email -> {
+            caretakerEmails.add(email);
+            return caretakerEmails.size() - 1;
+        });
+    }
+
+    private static void clearBit(Map<String, BitSet> bitmaps, String key, int number) {
+        BitSet bitmap = bitmaps.get(key);
+        bitmap.clear(number);
+
+        if(bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+
+    private static BitSet intersect(BitSet bitmap, BitSet other) {
+        if(bitmap == null) {
+            return other;
+        }
+
+        bitmap.and(other);
+        return bitmap;
+    }
+
+    private static long sumSizes(Collection<BitSet> bitmaps) {
+        return bitmaps.stream()
+                .mapToLong(BitSet::size)
+                .sum();
+    }
+
+    private static BitSet copyOf(BitSet bitmap) {
+        return bitmap == null ? new BitSet() : (BitSet) bitmap.clone();
+    }
+
+    /**
+     * @param dailyPrice price of the configuration, null for the entry of the offer itself
+     * */
+    public record Entry(String caretakerEmail, String animalType, BigDecimal dailyPrice, Set<String> tokens) {
+    }
+
+    private record Row(int caretaker, String animalType, BigDecimal dailyPrice, Set<String> tokens) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.petbuddybackend.utils.search;
+
+import com.example.petbuddybackend.dto.offer.OfferConfigurationFilterDTO;
+import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tokens of attribute values and amenities indexed for caretaker search. A search entry matches a filter if it holds all
+ * tokens required by the filter.
+ * */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SearchTokens {
+
+    private static final String ATTRIBUTE_TOKEN_FORMAT = "attribute:%s=%s";
+    private static final String AMENITY_TOKEN_FORMAT = "amenity:%s";
+
+    public static String attributeToken(String attributeName, String attributeValue) {
+        return String.format(ATTRIBUTE_TOKEN_FORMAT, attributeName, attributeValue);
+    }
+
+    public static String amenityToken(String amenity) {
+        return String.format(AMENITY_TOKEN_FORMAT, amenity);
+    }
+
+    /**
+     * @param configFilter filter of a configuration, null to get tokens required from the offer only
+     * */
+    public static Set<String> requiredTokens(OfferFilterDTO offerFilter, OfferConfigurationFilterDTO configFilter) {
+        Set<String> tokens = new HashSet<>();
+
+        for(String amenity : offerFilter.amenities()) {
+            tokens.add(amenityToken(amenity));
+        }
+
+        if(configFilter != null && configFilter.attributes() != null) {
+            configFilter.attributes().forEach((attributeName, attributeValues) -> attributeValues.forEach(
+                    attributeValue -> tokens.add(attributeToken(attributeName, attributeValue))
+            ));
+        }
+
+        return tokens;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.petbuddybackend.utils.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In memory trigram index of text fields of documents, matching keywords contained anywhere in a field.
+ * <p>
+ * Every document is numbered, and for every trigram of its lower cased fields there is a bitmap of documents holding it.
+ * A keyword of at least three characters can only be contained in documents holding all of its trigrams, so their
+ * intersection narrows the documents that are checked. Shorter keywords have no trigrams and are checked against all
+ * documents.
+ * */
+public class TrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Integer> documentNumbers = new HashMap<>();
+    private final List<String> documentIds = new ArrayList<>();
+    private final List<List<String>> documentFields = new ArrayList<>();
+    private final BitSet documents = new BitSet();
+    private final Map<String, BitSet> documentsByGram = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces the fields of the document.
+     * */
+    public void put(String id, String... fields) {
+        List<String> lowerCaseFields = Arrays.stream(fields)
+                .filter(Objects::nonNull)
+                .map(String::toLowerCase)
+                .toList();
+
+        lock.writeLock().lock();
+        try {
+            int document = documentNumber(id);
+            removeGrams(document);
+            documentFields.set(document, lowerCaseFields);
+            documents.set(document);
+
+            for(String field : lowerCaseFields) {
+                grams(field).forEach(gram -> documentsByGram.computeIfAbsent(gram, key -> new BitSet()).set(document));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer document = documentNumbers.get(id);
+
+            if(document != null) {
+                removeGrams(document);
+                documentFields.set(document, Collections.emptyList());
+                documents.clear(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param query keywords separated by whitespace
+     * @return ids of documents having every keyword contained in at least one of their fields, case insensitive
+     * */
+    public Set<String> find(String query) {
+        String[] keywords = query.toLowerCase().trim().split("\\s+");
+
+        lock.readLock().lock();
+        try {
+            BitSet matching = (BitSet) documents.clone();
+
+            for(String keyword : keywords) {
+                retainCandidates(matching, keyword);
+                retainContaining(matching, keyword);
+
+                if(matching.isEmpty()) {
+                    return Collections.emptySet();
+                }
+            }
+
+            return toIds(matching);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void retainCandidates(BitSet matching, String keyword) {
+        for(String gram : grams(keyword)) {
+            BitSet gramDocuments = documentsByGram.get(gram);
+
+            if(gramDocuments == null) {
+                matching.clear();
+                return;
+            }
+
+            matching.and(gramDocuments);
+        }
+    }
+
+    private void retainContaining(BitSet matching, String keyword) {
+        for(int document = matching.nextSetBit(0); document >= 0; document = matching.nextSetBit(document + 1)) {
+            if(documentFields.get(document).stream().noneMatch(field -> field.contains(keyword))) {
+                matching.clear(document);
+            }
+        }
+    }
+
+    private Set<String> toIds(BitSet matching) {
+        Set<String> ids = new HashSet<>(matching.cardinality());
+
+        for(int document = matching.nextSetBit(0); document >= 0; document = matching.nextSetBit(document + 1)) {
+            ids.add(documentIds.get(document));
+        }
+
+        return ids;
+    }
+
+    private void removeGrams(int document) {
+        for(String field : documentFields.get(document)) {
+            for(String gram : grams(field)) {
+                BitSet gramDocuments = documentsByGram.get(gram);
+
+                if(gramDocuments != null) {
+                    gramDocuments.clear(document);
+
+                    if(gramDocuments.isEmpty()) {
+                        documentsByGram.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private int documentNumber(String id) {
+        return documentNumbers.computeIfAbsent(id, key -> {
+            documentIds.add(key);
+            documentFields.add(Collections.emptyList());
+            return documentIds.size() - 1;
+        });
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+
+        for(int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+
+        return grams;
+    }
+}
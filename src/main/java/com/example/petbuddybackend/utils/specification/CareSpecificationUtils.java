@@ -163,6 +163,26 @@ public final class CareSpecificationUtils {
 
     }
 
+    public static Specification<Care> toSpecificationOfCaresBetween(String clientEmail,
+                                                                    String caretakerEmail,
+                                                                    Set<CareStatus> statuses) {
+
+        return Specification.where(caretakerStatusesIn(statuses))
+                .and(clientStatusesIn(statuses))
+                .and(addClientEmailFilter(clientEmail))
+                .and(addCaretakerEmailFilter(caretakerEmail));
+
+    }
+
+    public static Specification<Care> toSpecificationOfCaresStartedBefore(Set<CareStatus> statuses,
+                                                                          LocalDate threshold) {
+
+        return Specification.where(caretakerStatusesIn(statuses))
+                .and(clientStatusesIn(statuses))
+                .and(careStartBefore(threshold));
+
+    }
+
     private static Specification<Care> animalTypesIn(Set<String> animalTypes) {
         return (root, query, criteriaBuilder) -> {
             Join<Care, Animal> animalJoin = root.join(ANIMAL);
@@ -200,6 +220,11 @@ public final class CareSpecificationUtils {
                 criteriaBuilder.lessThanOrEqualTo(root.get(CARE_START), maxCareStart);
     }
 
+    private static Specification<Care> careStartBefore(LocalDate threshold) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.lessThan(root.get(CARE_START), threshold);
+    }
+
     private static Specification<Care> minYearMonthCareStart(YearMonth minCareStart) {
         return (root, query, criteriaBuilder) -> {
             LocalDate formattedMinCareStart = minCareStart.atDay(1);
@@ -0,0 +1,70 @@
+package com.example.petbuddybackend.utils.specification;
+
+import com.example.petbuddybackend.dto.criteriaSearch.CaretakerStatisticsSearchCriteria;
+import com.example.petbuddybackend.entity.care.CareStatus;
+import com.example.petbuddybackend.entity.care.CaretakerCareStatistics;
+import lombok.NoArgsConstructor;
+import org.keycloak.common.util.CollectionUtil;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.YearMonth;
+import java.util.Set;
+
+import static com.example.petbuddybackend.utils.specification.SpecificationCommons.*;
+
+@NoArgsConstructor(access = lombok.AccessLevel.PRIVATE)
+public final class CaretakerCareStatisticsSpecificationUtils {
+
+    public static Specification<CaretakerCareStatistics> toSpecificationForCaretaker(CaretakerStatisticsSearchCriteria filters,
+                                                                                     String caretakerEmail) {
+
+        Specification<CaretakerCareStatistics> spec = Specification.where(caretakerEmailEqual(caretakerEmail));
+
+        if(CollectionUtil.isNotEmpty(filters.animalTypes())) {
+            spec = spec.and(animalTypesIn(filters.animalTypes()));
+        }
+
+        if(filters.minCareStart() != null) {
+            spec = spec.and(minCareStartMonth(filters.minCareStart()));
+        }
+
+        if(filters.maxCareStart() != null) {
+            spec = spec.and(maxCareStartMonth(filters.maxCareStart()));
+        }
+
+        return spec;
+
+    }
+
+    public static Specification<CaretakerCareStatistics> toSpecificationForCaretaker(CaretakerStatisticsSearchCriteria filters,
+                                                                                     String caretakerEmail,
+                                                                                     CareStatus caretakerStatus) {
+
+        return toSpecificationForCaretaker(filters, caretakerEmail).and(caretakerStatusEqual(caretakerStatus));
+    }
+
+    private static Specification<CaretakerCareStatistics> caretakerEmailEqual(String caretakerEmail) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(root.get(CARETAKER_EMAIL), caretakerEmail);
+    }
+
+    private static Specification<CaretakerCareStatistics> caretakerStatusEqual(CareStatus caretakerStatus) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(root.get(CARETAKER_STATUS), caretakerStatus);
+    }
+
+    private static Specification<CaretakerCareStatistics> animalTypesIn(Set<String> animalTypes) {
+        return (root, query, criteriaBuilder) ->
+                root.get(ANIMAL_TYPE).in(animalTypes);
+    }
+
+    private static Specification<CaretakerCareStatistics> minCareStartMonth(YearMonth minCareStart) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.greaterThanOrEqualTo(root.get(CARE_START_MONTH), minCareStart.atDay(1));
+    }
+
+    private static Specification<CaretakerCareStatistics> maxCareStartMonth(YearMonth maxCareStart) {
+        return (root, query, criteriaBuilder) ->
+                criteriaBuilder.lessThanOrEqualTo(root.get(CARE_START_MONTH), maxCareStart.atDay(1));
+    }
+}
@@ -4,23 +4,26 @@ import com.example.petbuddybackend.dto.availability.AvailabilityFilterDTO;
 import com.example.petbuddybackend.dto.criteriaSearch.CaretakerSearchCriteria;
 import com.example.petbuddybackend.dto.offer.OfferConfigurationFilterDTO;
 import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
+import com.example.petbuddybackend.entity.address.Address;
 import com.example.petbuddybackend.entity.address.Voivodeship;
-import com.example.petbuddybackend.entity.amenity.Amenity;
-import com.example.petbuddybackend.entity.amenity.AnimalAmenity;
 import com.example.petbuddybackend.entity.availability.Availability;
+import com.example.petbuddybackend.entity.offer.CaretakerSearchEntry;
 import com.example.petbuddybackend.entity.offer.Offer;
-import com.example.petbuddybackend.entity.offer.OfferConfiguration;
-import com.example.petbuddybackend.entity.offer.OfferOption;
+import com.example.petbuddybackend.entity.user.AppUser;
 import com.example.petbuddybackend.entity.user.Caretaker;
+import com.example.petbuddybackend.utils.geo.GeoUtils;
+import com.example.petbuddybackend.utils.paging.CaretakerCursor;
+import com.example.petbuddybackend.utils.search.SearchTokens;
 import jakarta.persistence.criteria.*;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import static com.example.petbuddybackend.utils.specification.SpecificationCommons.*;
@@ -28,14 +31,29 @@ import static com.example.petbuddybackend.utils.specification.SpecificationCommo
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class CaretakerSpecificationUtils {
 
+    private static final int MAX_GRID_CELLS = 64;
+
     public static Specification<Caretaker> toSpecification(CaretakerSearchCriteria filters,
                                                            Set<OfferFilterDTO> offerFilters) {
+        return toSpecification(filters, offerFilters, null, null);
+    }
+
+    /**
+     * @param offerMatchingCaretakers emails of caretakers whose offers match the offer filters, resolved in memory. If
+     *                                null, offers are matched in the database.
+     * @param personalDataMatchingEmails emails of users matching the personal data filter, resolved in memory. If null,
+     *                                   personal data is matched in the database.
+     * */
+    public static Specification<Caretaker> toSpecification(CaretakerSearchCriteria filters,
+                                                           Set<OfferFilterDTO> offerFilters,
+                                                           Set<String> offerMatchingCaretakers,
+                                                           Set<String> personalDataMatchingEmails) {
         Specification<Caretaker> spec = Specification.where(
                 (root, query, criteriaBuilder) -> criteriaBuilder.conjunction()
         );
 
         if(StringUtils.hasText(filters.personalDataLike())) {
-            spec = spec.and(personalDataLike(filters.personalDataLike()));
+            spec = spec.and(personalDataLike(filters.personalDataLike(), personalDataMatchingEmails));
         }
 
         if(StringUtils.hasText(filters.cityLike())) {
@@ -46,15 +64,82 @@ public final class CaretakerSpecificationUtils {
             spec = spec.and(voivodeshipEquals(filters.voivodeship()));
         }
 
-        if(!offerFilters.isEmpty()) {
+        if(filters.radiusKm() != null && filters.hasPoint()) {
+            spec = spec.and(withinRadius(
+                    filters.latitude().doubleValue(),
+                    filters.longitude().doubleValue(),
+                    filters.radiusKm()
+            ));
+        }
+
+        if(Boolean.TRUE.equals(filters.sortByDistance()) && filters.hasPoint()) {
+            spec = spec.and(orderByDistance(filters.latitude().doubleValue(), filters.longitude().doubleValue()));
+        }
+
+        if(!offerFilters.isEmpty() && offerMatchingCaretakers != null) {
+            spec = spec.and(emailIn(offerMatchingCaretakers));
+        } else if(!offerFilters.isEmpty()) {
             spec = spec.and(offersMatch(offerFilters));
         }
 
         return spec;
     }
 
-    private static Specification<Caretaker> personalDataLike(String personalDataLike) {
-        return SpecificationCommons.personalDataLike(personalDataLike, root -> root);
+    /**
+     * Orders caretakers by rating score descending and email, and keeps only those after the cursor. Not rated caretakers
+     * come first, the same as in a descending index of the database, so the (ratingScore DESC, email) index serves both
+     * the order and the seek.
+     *
+     * @param cursor position of the last caretaker of the previous page, null for the first page
+     * */
+    public static Specification<Caretaker> afterCursor(CaretakerCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Float> ratingScore = root.get(RATING_SCORE);
+            Path<String> email = root.get(EMAIL);
+            query.orderBy(((HibernateCriteriaBuilder) cb).desc(ratingScore, true), cb.asc(email));
+
+            if(cursor == null) {
+                return cb.conjunction();
+            }
+
+            if(cursor.ratingScore() == null) {
+                return cb.or(
+                        cb.and(cb.isNull(ratingScore), cb.greaterThan(email, cursor.email())),
+                        cb.isNotNull(ratingScore)
+                );
+            }
+
+            // The redundant bound is sargable, so the index range starts at the cursor instead of the first row
+            return cb.and(
+                    cb.lessThanOrEqualTo(ratingScore, cursor.ratingScore()),
+                    cb.or(
+                            cb.lessThan(ratingScore, cursor.ratingScore()),
+                            cb.and(cb.equal(ratingScore, cursor.ratingScore()), cb.greaterThan(email, cursor.email()))
+                    )
+            );
+        };
+    }
+
+    /**
+     * Fetches account data with the profile picture and the address together with caretakers, so mapping a page of
+     * results does not load them row by row. The client profile is fetched as well, since account data loads it
+     * eagerly. Offers are not fetched, as fetching a collection would page results in memory.
+     * */
+    public static Specification<Caretaker> fetchSearchResultData() {
+        return (root, query, cb) -> {
+            if(!Long.class.equals(query.getResultType())) {
+                Fetch<Caretaker, AppUser> accountData = root.fetch(ACCOUNT_DATA);
+                accountData.fetch(PROFILE_PICTURE, JoinType.LEFT);
+                accountData.fetch(CLIENT, JoinType.LEFT);
+                root.fetch(ADDRESS);
+            }
+            return cb.conjunction();
+        };
+    }
+
+    private static Specification<Caretaker> personalDataLike(String personalDataLike,
+                                                             Set<String> personalDataMatchingEmails) {
+        return SpecificationCommons.personalDataLike(personalDataLike, personalDataMatchingEmails, root -> root);
     }
 
     private static Specification<Caretaker> cityLike(String cityLike) {
@@ -69,6 +154,90 @@ public final class CaretakerSpecificationUtils {
                 criteriaBuilder.equal(root.get(ADDRESS).get(VOIVODESHIP), voivodeship);
     }
 
+    /**
+     * Narrows the search to the grid cells overlapping the bounding box of the circle, which is an indexed lookup, then
+     * to the bounding box itself and finally checks the exact distance of the remaining caretakers.
+     * */
+    private static Specification<Caretaker> withinRadius(double latitude, double longitude, double radiusKm) {
+        return (root, query, cb) -> {
+            Path<Address> address = root.get(ADDRESS);
+            GeoUtils.BoundingBox box = GeoUtils.BoundingBox.around(latitude, longitude, radiusKm);
+            List<Predicate> predicates = new ArrayList<>();
+
+            // Large areas span too many cells to list, the bounding box alone limits them then
+            List<Integer> gridCells = box.gridCells(MAX_GRID_CELLS);
+            if(!gridCells.isEmpty()) {
+                predicates.add(address.get(GRID_CELL).in(gridCells));
+            }
+
+            predicates.add(cb.between(
+                    address.get(LATITUDE),
+                    BigDecimal.valueOf(box.minLatitude()),
+                    BigDecimal.valueOf(box.maxLatitude())
+            ));
+            predicates.add(cb.between(
+                    address.get(LONGITUDE),
+                    BigDecimal.valueOf(box.minLongitude()),
+                    BigDecimal.valueOf(box.maxLongitude())
+            ));
+            predicates.add(cb.le(distanceKm(cb, address, latitude, longitude), radiusKm));
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static Specification<Caretaker> orderByDistance(double latitude, double longitude) {
+        return (root, query, cb) -> {
+            if(!Long.class.equals(query.getResultType())) {
+                query.orderBy(
+                        cb.asc(distanceKm(cb, root.get(ADDRESS), latitude, longitude)),
+                        cb.asc(root.get(EMAIL))
+                );
+            }
+            return cb.conjunction();
+        };
+    }
+
+    /**
+     * Haversine distance between the address and the point, the same as {@link GeoUtils#distanceKm}.
+     * */
+    private static Expression<Double> distanceKm(CriteriaBuilder cb,
+                                                 Path<Address> address,
+                                                 double latitude,
+                                                 double longitude) {
+        Expression<Double> addressLatitude = toRadians(cb, address.get(LATITUDE).as(Double.class));
+        Expression<Double> addressLongitude = toRadians(cb, address.get(LONGITUDE).as(Double.class));
+
+        Expression<Double> latitudeSine = sine(cb, halfDifference(cb, addressLatitude, Math.toRadians(latitude)));
+        Expression<Double> longitudeSine = sine(cb, halfDifference(cb, addressLongitude, Math.toRadians(longitude)));
+
+        Expression<Double> haversine = cb.sum(
+                cb.prod(latitudeSine, latitudeSine),
+                cb.prod(
+                        cb.prod(cb.function("cos", Double.class, addressLatitude), Math.cos(Math.toRadians(latitude))),
+                        cb.prod(longitudeSine, longitudeSine)
+                )
+        );
+
+        return cb.prod(cb.function("asin", Double.class, cb.sqrt(haversine)), 2 * GeoUtils.EARTH_RADIUS_KM);
+    }
+
+    private static Expression<Double> toRadians(CriteriaBuilder cb, Expression<Double> degrees) {
+        return cb.prod(degrees, Math.PI / 180);
+    }
+
+    private static Expression<Double> halfDifference(CriteriaBuilder cb, Expression<Double> x, double y) {
+        return cb.prod(cb.diff(x, y), 0.5);
+    }
+
+    private static Expression<Double> sine(CriteriaBuilder cb, Expression<Double> x) {
+        return cb.function("sin", Double.class, x);
+    }
+
+    private static Specification<Caretaker> emailIn(Set<String> emails) {
+        return (root, query, cb) -> emails.isEmpty() ? cb.disjunction() : root.get(EMAIL).in(emails);
+    }
+
     private static Specification<Caretaker> offersMatch(Set<OfferFilterDTO> offerFilters) {
         return (root, query, cb) -> {
 
@@ -92,30 +261,24 @@ public final class CaretakerSpecificationUtils {
                                         CriteriaQuery<?> query,
                                         CriteriaBuilder cb,
                                         OfferFilterDTO offerFilter) {
-        Subquery<Long> offerSubquery = query.subquery(Long.class);
-        Root<Offer> offerRoot = offerSubquery.from(Offer.class);
-        offerSubquery.select(offerRoot.get(ID));
+        List<Predicate> offerPredicates = new ArrayList<>();
 
-        Predicate caretakerMatch = cb.equal(offerRoot.get(CARETAKER), root);
-        Predicate animalTypeMatch = cb.equal(offerRoot.get(ANIMAL).get(ANIMAL_TYPE), offerFilter.animalType());
+        if(offerFilter.offerConfigurations().isEmpty()) {
+            Set<String> tokens = SearchTokens.requiredTokens(offerFilter, null);
 
-        List<Predicate> offerPredicates = new ArrayList<>();
-        offerPredicates.add(caretakerMatch);
-        offerPredicates.add(animalTypeMatch);
-
-        if(!offerFilter.offerConfigurations().isEmpty()) {
-            Predicate configurationsMatch = configurationsMatch(
-                    offerSubquery,
-                    cb,
-                    offerRoot,
-                    offerFilter.offerConfigurations()
-            );
-            offerPredicates.add(configurationsMatch);
+            offerPredicates.add(root.get(EMAIL).in(
+                    matchingEntryCaretakers(query, cb, offerFilter.animalType(), null, tokens)
+            ));
         }
 
-        if(!offerFilter.amenities().isEmpty()) {
-            Predicate amenitiesMatch = amenitiesMatch(offerSubquery, cb, offerRoot, offerFilter.amenities());
-            offerPredicates.add(amenitiesMatch);
+        // Every configuration filter must be matched by a configuration of the offer. The offer of an animal is unique
+        // per caretaker, so matching the caretaker matches the offer.
+        for(OfferConfigurationFilterDTO configFilter : offerFilter.offerConfigurations()) {
+            Set<String> tokens = SearchTokens.requiredTokens(offerFilter, configFilter);
+
+            offerPredicates.add(root.get(EMAIL).in(
+                    matchingEntryCaretakers(query, cb, offerFilter.animalType(), configFilter, tokens)
+            ));
         }
 
         if(!offerFilter.availabilities().isEmpty()) {
@@ -123,176 +286,43 @@ public final class CaretakerSpecificationUtils {
             offerPredicates.add(availabilityMatch);
         }
 
-        offerSubquery.where(offerPredicates.toArray(new Predicate[0]));
-
         // The caretaker must have an offer for this animal that meets all the criteria
-        return cb.exists(offerSubquery);
-    }
-
-    private static Predicate configurationsMatch(Subquery<Long> offerSubquery,
-                                                 CriteriaBuilder cb,
-                                                 Root<Offer> offerRoot,
-                                                 Set<OfferConfigurationFilterDTO> configFilters) {
-        List<Predicate> configExistsPredicates = new ArrayList<>();
-
-        for(OfferConfigurationFilterDTO configFilter : configFilters) {
-            Predicate configExists = configurationExists(offerSubquery, cb, offerRoot, configFilter);
-            configExistsPredicates.add(configExists);
-        }
-
-        // All configurations specified in the filter must have matching configurations in the offer
-        return cb.and(configExistsPredicates.toArray(new Predicate[0]));
-    }
-
-    private static Predicate configurationExists(Subquery<Long> offerSubquery,
-                                                 CriteriaBuilder cb,
-                                                 Root<Offer> offerRoot,
-                                                 OfferConfigurationFilterDTO configFilter) {
-        Subquery<Long> configSubquery = offerSubquery.subquery(Long.class);
-        Root<OfferConfiguration> configRoot = configSubquery.from(OfferConfiguration.class);
-        configSubquery.select(configRoot.get(ID));
-
-        Predicate offerMatch = cb.equal(configRoot.get(OFFER), offerRoot);
-        Predicate pricePredicate = cb.between(configRoot.get(PRICE), configFilter.minPrice(), configFilter.maxPrice());
-
-        List<Predicate> configPredicates = new ArrayList<>();
-        configPredicates.add(offerMatch);
-        configPredicates.add(pricePredicate);
-
-        if(configFilter.attributes() != null && !configFilter.attributes().isEmpty()) {
-            Predicate attributesMatch = attributesMatch(configSubquery, cb, configRoot, configFilter.attributes());
-            configPredicates.add(attributesMatch);
-        }
-
-        configSubquery.where(configPredicates.toArray(new Predicate[0]));
-
-        // For each configuration filter, there must exist a configuration matching all criteria
-        return cb.exists(configSubquery);
-    }
-
-    private static Predicate attributesMatch(Subquery<Long> configSubquery,
-                                             CriteriaBuilder cb,
-                                             Root<OfferConfiguration> configRoot,
-                                             Map<String, Set<String>> attributes) {
-        List<Predicate> attributeGroupPredicates = new ArrayList<>();
-
-        for(Map.Entry<String, Set<String>> entry : attributes.entrySet()) {
-            String attributeName = entry.getKey();
-            Set<String> attributeValues = entry.getValue();
-
-            Predicate attributeGroupPredicate = attributeGroupMatches(
-                    configSubquery,
-                    cb,
-                    configRoot,
-                    attributeName,
-                    attributeValues
-            );
-            attributeGroupPredicates.add(attributeGroupPredicate);
-        }
-
-        return cb.and(attributeGroupPredicates.toArray(new Predicate[0]));
+        return cb.and(offerPredicates.toArray(new Predicate[0]));
     }
 
-    private static Predicate attributeGroupMatches(Subquery<Long> configSubquery,
-                                                   CriteriaBuilder cb,
-                                                   Root<OfferConfiguration> configRoot,
-                                                   String attributeName,
-                                                   Set<String> attributeValues) {
-        // First, check if the offer configuration has any OfferOption with this attributeName
-        Subquery<Long> attributeNameSubquery = configSubquery.subquery(Long.class);
-        Root<OfferOption> attributeNameOptionRoot = attributeNameSubquery.from(OfferOption.class);
-        attributeNameSubquery.select(attributeNameOptionRoot.get(ID));
-
-        Predicate configOptionMatch = cb.equal(attributeNameOptionRoot.get(OFFER_CONFIGURATION), configRoot);
-        Predicate attributeNameMatch = cb.equal(
-                attributeNameOptionRoot.get(ANIMAL_ATTRIBUTE).get(ATTRIBUTE_NAME),
-                attributeName
-        );
-
-        attributeNameSubquery.where(cb.and(configOptionMatch, attributeNameMatch));
-
-        // Check if OfferOptions with this attributeName exist
-        Predicate hasAttributeNameOptions = cb.exists(attributeNameSubquery);
-
-        // Create predicates to ensure all required attributeValues are present
-        List<Predicate> attributeValuePredicates = new ArrayList<>();
-
-        for(String attributeValue : attributeValues) {
-            Predicate attributeValueExists = attributeValueExists(
-                    configSubquery,
-                    cb,
-                    configRoot,
-                    attributeName,
-                    attributeValue
-            );
-            attributeValuePredicates.add(attributeValueExists);
+    /**
+     * Selects caretakers having a search entry of the animal type that holds all the tokens. Entries are narrowed by the
+     * index on animal type and price and the index on tokens, then grouped to check that every token was found.
+     *
+     * @param configFilter filter of the configuration, null to match the offer regardless of its configurations
+     * */
+    private static Subquery<String> matchingEntryCaretakers(CriteriaQuery<?> query,
+                                                            CriteriaBuilder cb,
+                                                            String animalType,
+                                                            OfferConfigurationFilterDTO configFilter,
+                                                            Set<String> tokens) {
+        Subquery<String> entrySubquery = query.subquery(String.class);
+        Root<CaretakerSearchEntry> entryRoot = entrySubquery.from(CaretakerSearchEntry.class);
+        entrySubquery.select(entryRoot.get(CARETAKER_EMAIL));
+
+        List<Predicate> entryPredicates = new ArrayList<>();
+        entryPredicates.add(cb.equal(entryRoot.get(ANIMAL_TYPE), animalType));
+
+        if(configFilter == null) {
+            entryPredicates.add(cb.isNull(entryRoot.get(OFFER_CONFIGURATION_ID)));
+        } else {
+            entryPredicates.add(cb.between(entryRoot.get(PRICE), configFilter.minPrice(), configFilter.maxPrice()));
         }
 
-        // Combine the attribute value predicates
-        Predicate allAttributeValuesMatch = cb.and(attributeValuePredicates.toArray(new Predicate[0]));
-
-        // Final predicate for this attributeName
-        // If no OfferOption with this attributeName exists, consider it matching (i.e., can handle all values)
-        return cb.or(cb.not(hasAttributeNameOptions), allAttributeValuesMatch);
-    }
-
-    private static Predicate attributeValueExists(Subquery<Long> configSubquery,
-                                                  CriteriaBuilder cb,
-                                                  Root<OfferConfiguration> configRoot,
-                                                  String attributeName,
-                                                  String attributeValue) {
-        Subquery<Long> optionSubquery = configSubquery.subquery(Long.class);
-        Root<OfferOption> optionRoot = optionSubquery.from(OfferOption.class);
-        optionSubquery.select(optionRoot.get(ID));
-
-        Predicate optionConfigMatch = cb.equal(optionRoot.get(OFFER_CONFIGURATION), configRoot);
-        Predicate optionAttributeNameMatch = cb.equal(
-                optionRoot.get(ANIMAL_ATTRIBUTE).get(ATTRIBUTE_NAME),
-                attributeName
-        );
-        Predicate optionAttributeValueMatch = cb.equal(
-                optionRoot.get(ANIMAL_ATTRIBUTE).get(ATTRIBUTE_VALUE),
-                attributeValue
-        );
-
-        optionSubquery.where(cb.and(optionConfigMatch, optionAttributeNameMatch, optionAttributeValueMatch));
-
-        // Ensure that an OfferOption with this attributeValue exists
-        return cb.exists(optionSubquery);
-    }
-
-    private static Predicate amenitiesMatch(Subquery<Long> offerSubquery,
-                                            CriteriaBuilder cb,
-                                            Root<Offer> offerRoot,
-                                            Set<String> amenities) {
-        List<Predicate> amenityExistsPredicates = new ArrayList<>();
-
-        for(String amenity : amenities) {
-            Predicate amenityExists = amenityExists(offerSubquery, cb, offerRoot, amenity);
-            amenityExistsPredicates.add(amenityExists);
+        if(!tokens.isEmpty()) {
+            Join<CaretakerSearchEntry, String> tokenJoin = entryRoot.join(TOKENS);
+            entryPredicates.add(tokenJoin.in(tokens));
+            entrySubquery.groupBy(entryRoot.get(ID), entryRoot.get(CARETAKER_EMAIL));
+            entrySubquery.having(cb.equal(cb.count(tokenJoin), (long) tokens.size()));
         }
 
-        // All amenities specified in the filter must have matching amenities in the offer
-        return cb.and(amenityExistsPredicates.toArray(new Predicate[0]));
-
-    }
-
-    private static Predicate amenityExists(Subquery<Long> offerSubquery,
-                                           CriteriaBuilder cb,
-                                           Root<Offer> offerRoot,
-                                           String amenity) {
-
-        Subquery<Long> amenitySubquery = offerSubquery.subquery(Long.class);
-        Root<Offer> correlatedOfferRoot = amenitySubquery.correlate(offerRoot);
-        Join<Offer, AnimalAmenity> animalAmenityJoin = correlatedOfferRoot.join(ANIMAL_AMENITIES);
-        Join<AnimalAmenity, Amenity> amenityJoin = animalAmenityJoin.join(AMENITY, JoinType.INNER);
-        amenitySubquery.select(animalAmenityJoin.get(ID));
-
-        Predicate amenityMatch = cb.equal(amenityJoin.get(NAME), amenity);
-
-        amenitySubquery.where(amenityMatch);
-        return cb.exists(amenitySubquery);
-
+        entrySubquery.where(entryPredicates.toArray(new Predicate[0]));
+        return entrySubquery;
     }
 
     private static Predicate availabilityMatchForOffer(Root<Caretaker> root,
@@ -14,6 +14,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 
 import java.time.ZonedDateTime;
+import java.util.Set;
 
 import static com.example.petbuddybackend.utils.specification.SpecificationCommons.*;
 
@@ -32,12 +33,23 @@ public final class ChatSpecificationUtils {
     public static Specification<ChatMessage> filtersToSpecificationSorted(ChatRoomSearchCriteria filters,
                                                                           String principalEmail,
                                                                           Role principalRole) {
+        return filtersToSpecificationSorted(filters, principalEmail, principalRole, null);
+    }
+
+    /**
+     * @param chatterMatchingEmails emails of users matching the chatter data filter, resolved in memory. If null, chatter
+     *                              data is matched in the database.
+     * */
+    public static Specification<ChatMessage> filtersToSpecificationSorted(ChatRoomSearchCriteria filters,
+                                                                          String principalEmail,
+                                                                          Role principalRole,
+                                                                          Set<String> chatterMatchingEmails) {
         Specification<ChatMessage> spec = Specification.where(
                 (root, query, criteriaBuilder) -> criteriaBuilder.conjunction()
         );
 
         if(StringUtils.hasText(filters.chatterDataLike())) {
-            spec = spec.and(personalDataLike(filters.chatterDataLike(), principalRole));
+            spec = spec.and(personalDataLike(filters.chatterDataLike(), chatterMatchingEmails, principalRole));
         }
 
         return spec.and(chatRoomOfUser(principalEmail, principalRole))
@@ -45,9 +57,12 @@ public final class ChatSpecificationUtils {
                 .and(orderByCreatedAtDesc());
     }
 
-    private static Specification<ChatMessage> personalDataLike(String personalDataLike, Role principalRole) {
+    private static Specification<ChatMessage> personalDataLike(String personalDataLike,
+                                                               Set<String> chatterMatchingEmails,
+                                                               Role principalRole) {
         return SpecificationCommons.personalDataLike(
                 personalDataLike,
+                chatterMatchingEmails,
                 root -> {
                     Join<?, ?> chatRoomJoin = root.join(CHAT_ROOM);
                     return principalRole == Role.CLIENT
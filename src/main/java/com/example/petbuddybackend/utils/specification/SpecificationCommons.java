@@ -7,6 +7,7 @@ import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -28,6 +29,9 @@ final class SpecificationCommons {
     public static final String VOIVODESHIP = "voivodeship";
     public static final String ADDRESS = "address";
     public static final String CITY = "city";
+    public static final String LATITUDE = "latitude";
+    public static final String LONGITUDE = "longitude";
+    public static final String GRID_CELL = "gridCell";
     public static final String ACCOUNT_DATA = "accountData";
     public static final String NAME = "name";
     public static final String SURNAME = "surname";
@@ -43,6 +47,28 @@ final class SpecificationCommons {
     public static final String AVAILABILITIES = "availabilities";
     public static final String AVAILABLE_FROM = "availableFrom";
     public static final String AVAILABLE_TO = "availableTo";
+    public static final String CARETAKER_EMAIL = "caretakerEmail";
+    public static final String OFFER_CONFIGURATION_ID = "offerConfigurationId";
+    public static final String TOKENS = "tokens";
+    public static final String RATING_SCORE = "ratingScore";
+    public static final String PROFILE_PICTURE = "profilePicture";
+    public static final String CARE_START_MONTH = "careStartMonth";
+
+    /**
+     * @param matchingEmails emails of users matching the personal data, resolved in memory. If null, personal data is
+     *                       matched in the database.
+     * */
+    public static <T> Specification<T> personalDataLike(String personalDataLike,
+                                                        Set<String> matchingEmails,
+                                                        Function<Root<T>, From<?, ?>> joinProvider) {
+        if(matchingEmails == null) {
+            return personalDataLike(personalDataLike, joinProvider);
+        }
+
+        return (root, query, criteriaBuilder) -> matchingEmails.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : joinProvider.apply(root).get(EMAIL).in(matchingEmails);
+    }
 
     public static <T> Specification<T> personalDataLike(String personalDataLike,
                                                         Function<Root<T>, From<?, ?>> joinProvider) {
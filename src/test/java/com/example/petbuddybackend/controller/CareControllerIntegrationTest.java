@@ -617,5 +617,17 @@ public class CareControllerIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @WithMockUser(username = CARETAKER_EMAIL)
+    void getCaretakerStatistics_ShouldReturnProperAnswer() throws Exception {
+        mockMvc.perform(get("/api/care/statistics")
+                        .param("animalTypes", "DOG")
+                        .param("minCareStart", "2024-01")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(ROLE_HEADER_NAME, Role.CARETAKER))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.numberOfCares").exists());
+    }
+
 
 }
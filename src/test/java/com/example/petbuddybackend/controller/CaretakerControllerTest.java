@@ -29,6 +29,7 @@ import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -283,8 +284,8 @@ public class CaretakerControllerTest {
         Set<String> currentOfferBlobs = Collections.emptySet();
         MockMultipartFile newOfferPhotosMultipart = getMockMultipartPhotoFile();
 
-        PhotoLinkDTO firstPhoto = new PhotoLinkDTO(blob1, url1);
-        PhotoLinkDTO secondPhoto = new PhotoLinkDTO(blob2, url2);
+        PhotoLinkDTO firstPhoto = new PhotoLinkDTO(blob1, url1, Map.of());
+        PhotoLinkDTO secondPhoto = new PhotoLinkDTO(blob2, url2, Map.of());
         List<PhotoLinkDTO> expectedOutput = List.of(firstPhoto, secondPhoto);
 
         when(caretakerService.putOfferPhotos(eq(CARETAKER_EMAIL), eq(currentOfferBlobs), any()))
@@ -0,0 +1,99 @@
+package com.example.petbuddybackend.controller;
+
+import com.example.petbuddybackend.service.photo.LocalPhotoService;
+import com.example.petbuddybackend.utils.exception.throweable.general.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "photo.storage=local")
+@AutoConfigureMockMvc
+public class PhotoControllerTest {
+
+    private static final String BLOB = "photo-blob";
+    private static final byte[] CONTENT = {1, 2, 3, 4, 5, 6, 7, 8};
+
+    @TempDir
+    private Path photoDirectory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LocalPhotoService photoService;
+
+    private LocalPhotoService.PhotoFile photoFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path path = Files.write(photoDirectory.resolve(BLOB), CONTENT);
+        photoFile = new LocalPhotoService.PhotoFile(
+                path,
+                MediaType.IMAGE_PNG,
+                CONTENT.length,
+                Instant.now().truncatedTo(ChronoUnit.SECONDS)
+        );
+
+        when(photoService.getPhotoFile(BLOB)).thenReturn(photoFile);
+    }
+
+    @Test
+    void getPhoto_shouldReturnContentWithCacheHeaders() throws Exception {
+        mockMvc.perform(get("/api/photo/{blob}", BLOB))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(CONTENT))
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + BLOB + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"));
+    }
+
+    @Test
+    void getPhoto_matchingETag_shouldReturnNotModified() throws Exception {
+        mockMvc.perform(get("/api/photo/{blob}", BLOB)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + BLOB + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getPhoto_notModifiedSince_shouldReturnNotModified() throws Exception {
+        mockMvc.perform(get("/api/photo/{blob}", BLOB)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, photoFile.lastModified().toEpochMilli()))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getPhoto_rangeRequested_shouldReturnPartialContent() throws Exception {
+        mockMvc.perform(get("/api/photo/{blob}", BLOB)
+                        .header(HttpHeaders.RANGE, "bytes=2-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-4/" + CONTENT.length))
+                .andExpect(content().bytes(new byte[]{3, 4, 5}));
+    }
+
+    @Test
+    void getPhoto_photoNotExists_shouldReturnNotFound() throws Exception {
+        when(photoService.getPhotoFile("missing")).thenThrow(new NotFoundException());
+
+        mockMvc.perform(get("/api/photo/{blob}", "missing"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -18,6 +18,8 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Map;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -83,7 +85,7 @@ public class UserControllerTest {
         String blob = "someBlob";
         MockMultipartFile mockFile = new MockMultipartFile("profilePicture", "profile.jpg", "image/jpeg", "test image".getBytes());
 
-        PhotoLinkDTO photoLinkDTO = new PhotoLinkDTO(blob, url);
+        PhotoLinkDTO photoLinkDTO = new PhotoLinkDTO(blob, url, Map.of());
         AccountDataDTO accountDataDTO = new AccountDataDTO(USERNAME, "name", "surname", photoLinkDTO);
 
         // when
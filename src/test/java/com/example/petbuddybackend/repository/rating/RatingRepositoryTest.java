@@ -1,5 +1,6 @@
 package com.example.petbuddybackend.repository.rating;
 
+import com.example.petbuddybackend.entity.animal.Animal;
 import com.example.petbuddybackend.entity.care.Care;
 import com.example.petbuddybackend.entity.rating.Rating;
 import com.example.petbuddybackend.entity.user.Caretaker;
@@ -13,6 +14,7 @@ import com.example.petbuddybackend.testconfig.TestDataConfiguration;
 import com.example.petbuddybackend.testutils.PersistenceUtils;
 import com.example.petbuddybackend.testutils.ValidationUtils;
 import com.example.petbuddybackend.testutils.mock.MockRatingProvider;
+import com.example.petbuddybackend.utils.rating.RunningRatingStatistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,7 +24,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.util.Random;
+
 import static com.example.petbuddybackend.testutils.mock.MockCareProvider.createMockCare;
+import static com.example.petbuddybackend.testutils.mock.MockUserProvider.createMockCaretaker;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
@@ -75,4 +81,38 @@ public class RatingRepositoryTest {
 
         assertTrue(ValidationUtils.fieldsNotNullRecursive(rating));
     }
+
+    @Test
+    void findPercentileOfNumberOfRatings_shouldMatchRunningStatisticsOnGeneratedRatings() {
+        Random random = new Random(42);
+        Animal dog = animalRepository.findById("DOG").orElseThrow();
+        RunningRatingStatistics statistics = new RunningRatingStatistics();
+
+        for(int i = 0; i < 15; i++) {
+            Caretaker ratedCaretaker = PersistenceUtils.addCaretaker(
+                    caretakerRepository,
+                    appUserRepository,
+                    createMockCaretaker("rated" + i + "@mail")
+            );
+            int numberOfRatings = 1 + random.nextInt(6);
+            int ratingSum = 0;
+
+            for(int j = 0; j < numberOfRatings; j++) {
+                Care ratedCare = PersistenceUtils.addCare(careRepository, createMockCare(ratedCaretaker, client, dog));
+                int rating = 1 + random.nextInt(5);
+                ratingRepository.saveAndFlush(MockRatingProvider.createMockRating(ratedCare, rating, "comment"));
+                ratingSum += rating;
+            }
+
+            statistics.apply(0, numberOfRatings, ratingSum);
+        }
+
+        for(float percentile : new float[] {0.25f, 0.5f, 0.75f, 0.9f}) {
+            assertEquals(
+                    ratingRepository.findPercentileOfNumberOfRatings(percentile),
+                    statistics.getPercentileOfNumberOfRatings(percentile).intValue()
+            );
+        }
+        assertEquals(ratingRepository.getAvgRating(), statistics.getAvgRating(), 0.0001f);
+    }
 }
@@ -1,8 +1,15 @@
 package com.example.petbuddybackend.scheduled;
 
+import com.example.petbuddybackend.entity.photo.OrphanedPhotoBlob;
 import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.repository.photo.OrphanedPhotoBlobRepository;
 import com.example.petbuddybackend.repository.photo.PhotoLinkRepository;
+import com.example.petbuddybackend.service.photo.PhotoDeletionQueue;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Bucket;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.cloud.StorageClient;
 import org.junit.jupiter.api.AfterEach;
@@ -15,10 +22,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
-import static org.mockito.Mockito.mockStatic;
-import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 public class PhotoDeletionScheduledIntegrationTest {
@@ -26,9 +35,15 @@ public class PhotoDeletionScheduledIntegrationTest {
     @Autowired
     private PhotoDeletionScheduled photoDeletionScheduled;
 
+    @Autowired
+    private PhotoDeletionQueue photoDeletionQueue;
+
     @Autowired
     private PhotoLinkRepository photoRepository;
 
+    @Autowired
+    private OrphanedPhotoBlobRepository orphanedPhotoBlobRepository;
+
     @MockBean
     private FirebaseApp firebaseApp;
 
@@ -38,6 +53,9 @@ public class PhotoDeletionScheduledIntegrationTest {
     @Mock
     private Bucket mockBucket;
 
+    @Mock
+    private Storage mockStorage;
+
     private MockedStatic<StorageClient> storageClientMock;
 
     @BeforeEach
@@ -45,22 +63,123 @@ public class PhotoDeletionScheduledIntegrationTest {
         storageClientMock = mockStatic(StorageClient.class);
         when(StorageClient.getInstance(firebaseApp)).thenReturn(mockStorageClient);
         when(mockStorageClient.bucket()).thenReturn(mockBucket);
+        when(mockBucket.getName()).thenReturn("bucket");
+        when(mockBucket.getStorage()).thenReturn(mockStorage);
+        when(mockStorage.delete(anyIterable())).thenAnswer(invocation -> deleteResults(invocation.getArgument(0)));
+
+        // Flush blobs left in the queue by other tests
+        photoDeletionQueue.drain();
+        clearInvocations(mockStorage);
     }
 
     @AfterEach
     void tearDown() {
+        photoRepository.deleteAll();
+        orphanedPhotoBlobRepository.deleteAll();
         storageClientMock.close();
     }
 
     @Test
     void testRemovePhotosMarkedForDeletion_shouldSucceed() {
-        List<PhotoLink> photosToDelete = List.of(
-                new PhotoLink("1", "photo1", LocalDateTime.now(), null),
-                new PhotoLink("2", "photo2", LocalDateTime.now(), LocalDateTime.now().minusDays(10)),
-                new PhotoLink("1", "photo1", LocalDateTime.now(), LocalDateTime.now().plusDays(10)),
-                new PhotoLink("2", "photo2", LocalDateTime.now(), LocalDateTime.now())
-        );
-        photoRepository.saveAll(photosToDelete);
+        photoRepository.saveAll(List.of(
+                createPhoto("1", null),
+                createPhoto("2", LocalDateTime.now().minusDays(10)),
+                createPhoto("3", LocalDateTime.now().minusDays(1)),
+                createPhoto("4", LocalDateTime.now()),
+                createPhoto("5", LocalDateTime.now())
+        ));
+
+        photoDeletionScheduled.terminatePhotos();
+
+        // batch size in tests is 2, so four marked photos are deleted in two storage calls
+        verify(mockStorage, times(2)).delete(anyIterable());
+        assertEquals(List.of("1"), photoRepository.findAll().stream().map(PhotoLink::getBlob).toList());
+        assertEquals(0, photoDeletionQueue.getDepth());
+    }
+
+    @Test
+    void testRemovePhotosMarkedForDeletion_storageFails_shouldBackOff() {
+        photoRepository.save(createPhoto("1", LocalDateTime.now()));
+        doThrow(new StorageException(503, "Service unavailable")).when(mockStorage).delete(anyIterable());
+
+        photoDeletionScheduled.terminatePhotos();
         photoDeletionScheduled.terminatePhotos();
+
+        PhotoLink photo = photoRepository.findById("1").orElseThrow();
+        verify(mockStorage, times(1)).delete(anyIterable());
+        assertEquals(1, photo.getDeletionAttempts());
+        assertTrue(photo.getNextDeletionAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(1, photoDeletionQueue.getDepth());
+    }
+
+    @Test
+    void testRemovePhotosMarkedForDeletion_someBlobsNotDeleted_shouldBackOffOnlyFailedPhotos() {
+        photoRepository.saveAll(List.of(
+                createPhoto("1", LocalDateTime.now()),
+                createPhoto("2", LocalDateTime.now())
+        ));
+
+        // The batch reports every blob as not deleted, but only the original of "2" is still stored
+        doAnswer(invocation -> {
+            List<Boolean> results = new ArrayList<>();
+            invocation.<Iterable<BlobId>>getArgument(0).forEach(blobId -> results.add(false));
+            return results;
+        }).when(mockStorage).delete(anyIterable());
+        when(mockStorage.get(anyIterable())).thenAnswer(invocation -> {
+            List<Blob> remaining = new ArrayList<>();
+            invocation.<Iterable<BlobId>>getArgument(0).forEach(blobId ->
+                    remaining.add(blobId.getName().equals("2") ? mock(Blob.class) : null));
+            return remaining;
+        });
+
+        photoDeletionScheduled.terminatePhotos();
+
+        assertFalse(photoRepository.existsById("1"));
+        PhotoLink photo = photoRepository.findById("2").orElseThrow();
+        assertEquals(1, photo.getDeletionAttempts());
+        assertTrue(photo.getNextDeletionAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(1, photoDeletionQueue.getDepth());
+    }
+
+    @Test
+    void testRemovePhotoRow_shouldDeleteBlobOnNextDrain() {
+        photoRepository.save(createPhoto("1", null));
+        photoRepository.deleteById("1");
+
+        assertTrue(orphanedPhotoBlobRepository.existsById("1"));
+        assertEquals(1, photoDeletionQueue.getDepth());
+        photoDeletionScheduled.terminatePhotos();
+
+        verify(mockStorage, times(1)).delete(anyIterable());
+        assertFalse(orphanedPhotoBlobRepository.existsById("1"));
+        assertEquals(0, photoDeletionQueue.getDepth());
+    }
+
+    @Test
+    void testRemovePhotoRow_storageFails_shouldKeepTombstoneAndBackOff() {
+        photoRepository.save(createPhoto("1", null));
+        photoRepository.deleteById("1");
+        doThrow(new StorageException(503, "Service unavailable")).when(mockStorage).delete(anyIterable());
+
+        photoDeletionScheduled.terminatePhotos();
+
+        OrphanedPhotoBlob orphanedBlob = orphanedPhotoBlobRepository.findById("1").orElseThrow();
+        assertEquals(1, orphanedBlob.getDeletionAttempts());
+        assertTrue(orphanedBlob.getNextDeletionAttemptAt().isAfter(LocalDateTime.now()));
+    }
+
+    private PhotoLink createPhoto(String blob, LocalDateTime markedForDeletionAt) {
+        return PhotoLink.builder()
+                .blob(blob)
+                .url("photo" + blob)
+                .urlExpiresAt(LocalDateTime.now())
+                .markedForDeletionAt(markedForDeletionAt)
+                .build();
+    }
+
+    private static List<Boolean> deleteResults(Iterable<BlobId> blobIds) {
+        List<Boolean> results = new ArrayList<>();
+        blobIds.forEach(blobId -> results.add(true));
+        return results;
     }
 }
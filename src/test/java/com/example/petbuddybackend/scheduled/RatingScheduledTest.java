@@ -1,18 +1,19 @@
 package com.example.petbuddybackend.scheduled;
 
-import com.example.petbuddybackend.entity.user.Caretaker;
-import com.example.petbuddybackend.repository.rating.RatingRepository;
+import com.example.petbuddybackend.dto.rating.CaretakerRatingAggregatesDTO;
 import com.example.petbuddybackend.repository.user.CaretakerRepository;
+import com.example.petbuddybackend.service.rating.RatingScoreTracker;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
 import java.util.List;
+import java.util.Set;
 
-import static com.example.petbuddybackend.testutils.mock.MockUserProvider.createMockCaretaker;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 public class RatingScheduledTest {
@@ -20,40 +21,77 @@ public class RatingScheduledTest {
     @MockBean
     private CaretakerRepository caretakerRepository;
 
-    @MockBean
-    private RatingRepository ratingRepository;
-
     @Autowired
     private RatingScheduled ratingScheduled;
 
+    @Autowired
+    private RatingScoreTracker ratingScoreTracker;
+
+    private final float expectedM = 4.5f;
+    private final int expectedC = 8;
+
+    @BeforeEach
+    void setUp() {
+        when(caretakerRepository.findAllRatingAggregates()).thenReturn(getRatingAggregates());
+        ratingScoreTracker.rebuild();
+        ratingScoreTracker.requestFullRescore();
+    }
+
     @Test
     void testUpdateRatingScoreOfCaretaker() {
 
-        List<Caretaker> caretakers = getCaretakers();
+        ratingScheduled.updateRatingScoreOfCaretaker();
 
-        float expectedM = 4.5f;
-        int expectedC = 8;
-        when(ratingRepository.findPercentileOfNumberOfRatings(0.75f)).thenReturn(expectedC);
-        when(ratingRepository.getAvgRating()).thenReturn(expectedM);
+        verify(caretakerRepository).updateRatingScore(expectedM, expectedC);
+
+    }
 
+    @Test
+    void updateRatingScoreOfCaretaker_withoutRatingChanges_shouldNotRescore() {
+
+        ratingScheduled.updateRatingScoreOfCaretaker();
         ratingScheduled.updateRatingScoreOfCaretaker();
 
-        verify(caretakerRepository).updateRatingScore(expectedM, expectedC);
+        verify(caretakerRepository, times(1)).updateRatingScore(any(), any());
+        verify(caretakerRepository, never()).updateRatingScoreOfCaretakers(any(), any(), any());
 
     }
 
-    private List<Caretaker> getCaretakers() {
+    @Test
+    void updateRatingScoreOfCaretaker_smallRatingChange_shouldRescoreOnlyChangedCaretaker() {
+
+        ratingScheduled.updateRatingScoreOfCaretaker();
+        ratingScoreTracker.recordRatingChange("caretaker4", 4, 5, 5);
+        ratingScheduled.updateRatingScoreOfCaretaker();
+
+        verify(caretakerRepository, times(1)).updateRatingScore(any(), any());
+        verify(caretakerRepository).updateRatingScoreOfCaretakers(Set.of("caretaker4"), expectedM, expectedC);
+
+    }
 
-        Caretaker caretaker1 = createMockCaretaker("caretaker1");
-        caretaker1.setNumberOfRatings(10);
-        Caretaker caretaker2 = createMockCaretaker("caretaker2");
-        caretaker2.setNumberOfRatings(8);
-        Caretaker caretaker3 = createMockCaretaker("caretaker3");
-        caretaker3.setNumberOfRatings(6);
-        Caretaker caretaker4 = createMockCaretaker("caretaker4");
-        caretaker4.setNumberOfRatings(4);
+    @Test
+    void updateRatingScoreOfCaretaker_globalAverageMoved_shouldRescoreAllCaretakers() {
+
+        ratingScheduled.updateRatingScoreOfCaretaker();
+        ratingScoreTracker.recordRatingChange("caretaker5", 0, 20, 20);
+        ratingScheduled.updateRatingScoreOfCaretaker();
+
+        verify(caretakerRepository, times(2)).updateRatingScore(any(), any());
+        verify(caretakerRepository, never()).updateRatingScoreOfCaretakers(any(), any(), any());
+
+    }
 
-        return List.of(caretaker1, caretaker2, caretaker3, caretaker4);
+    /**
+     * 28 ratings summing to 126 give the average of 4.5, and the 75th percentile of 4, 6, 8, 10 ratings is 8.5
+     */
+    private List<CaretakerRatingAggregatesDTO> getRatingAggregates() {
+
+        return List.of(
+                new CaretakerRatingAggregatesDTO("caretaker1", 10, 45),
+                new CaretakerRatingAggregatesDTO("caretaker2", 8, 36),
+                new CaretakerRatingAggregatesDTO("caretaker3", 6, 27),
+                new CaretakerRatingAggregatesDTO("caretaker4", 4, 18)
+        );
 
     }
 
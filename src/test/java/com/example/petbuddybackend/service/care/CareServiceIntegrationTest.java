@@ -93,6 +93,9 @@ public class CareServiceIntegrationTest {
     @Autowired
     private TransactionTemplate transactionTemplate;
 
+    @Autowired
+    private CareStatisticsService careStatisticsService;
+
     @SpyBean
     private NotificationService notificationService;
 
@@ -1019,6 +1022,8 @@ public class CareServiceIntegrationTest {
                 CareStatus.CONFIRMED
         );
 
+        careStatisticsService.rebuild();
+
         //When
         MonthlyRevenueDTO result = careService.getMonthlyRevenue(
                 caretaker.getEmail(),
@@ -1031,6 +1036,70 @@ public class CareServiceIntegrationTest {
 
     }
 
+    @Test
+    void getMonthlyRevenue_filteredByClients_shouldSumRevenueInDatabase() {
+
+        //Given
+        PersistenceUtils.addCare(
+                careRepository,
+                caretaker,
+                client,
+                animalRepository.findById("DOG").orElseThrow(),
+                ZonedDateTime.of(2024, 5, 10, 12, 0, 0, 0, ZoneId.systemDefault()),
+                LocalDate.of(2024, 5, 15),
+                LocalDate.of(2024, 5, 20),
+                new BigDecimal("10.01"),
+                CareStatus.CONFIRMED,
+                CareStatus.CONFIRMED
+        );
+
+        //When
+        MonthlyRevenueDTO result = careService.getMonthlyRevenue(
+                caretaker.getEmail(),
+                CareStatisticsSearchCriteria.builder().build(),
+                Set.of(client.getEmail())
+        );
+
+        //Then
+        assertEquals(1, result.monthlyRevenue().size());
+        assertEquals(0, new BigDecimal("60.06").compareTo(result.monthlyRevenue().get(YearMonth.of(2024, 5))));
+
+    }
+
+    @Test
+    void markCareAsConfirmed_shouldAddRevenueOfCareToStatistics() {
+
+        //Given
+        Care care = PersistenceUtils.addCare(
+                careRepository,
+                caretaker,
+                client,
+                animalRepository.findById("DOG").orElseThrow(),
+                ZonedDateTime.now(),
+                LocalDate.now(),
+                LocalDate.now().plusDays(2),
+                new BigDecimal("10.00"),
+                CareStatus.READY_TO_PROCEED,
+                CareStatus.READY_TO_PROCEED
+        );
+
+        careStatisticsService.rebuild();
+
+        //When
+        careService.markCareAsConfirmed(care.getId(), caretaker.getEmail(), Role.CARETAKER, ZoneId.systemDefault());
+
+        //Then
+        MonthlyRevenueDTO result = careService.getMonthlyRevenue(
+                caretaker.getEmail(),
+                CareStatisticsSearchCriteria.builder().build(),
+                Set.of()
+        );
+
+        assertEquals(1, result.monthlyRevenue().size());
+        assertEquals(0, new BigDecimal("30.00").compareTo(result.monthlyRevenue().get(YearMonth.now())));
+
+    }
+
     private static Stream<Arguments> parameterProviderForGetMonthlyRevenue() {
         return Stream.of(
                 Arguments.of(
@@ -1050,6 +1119,12 @@ public class CareServiceIntegrationTest {
                                 .animalTypes(Set.of("CAT"))
                                 .build(),
                         BigDecimal.valueOf(240.06)
+                ),
+                Arguments.of(
+                        CareStatisticsSearchCriteria.builder()
+                                .minDailyPrice(new BigDecimal("20.00"))
+                                .build(),
+                        BigDecimal.valueOf(240.06)
                 )
         );
     }
@@ -0,0 +1,288 @@
+package com.example.petbuddybackend.service.care;
+
+import com.example.petbuddybackend.dto.care.CreateCareDTO;
+import com.example.petbuddybackend.dto.care.DetailedCareWithHistoryDTO;
+import com.example.petbuddybackend.dto.criteriaSearch.CaretakerStatisticsSearchCriteria;
+import com.example.petbuddybackend.dto.statistic.CaretakerStatisticsDTO;
+import com.example.petbuddybackend.entity.care.Care;
+import com.example.petbuddybackend.entity.care.CareStatus;
+import com.example.petbuddybackend.entity.user.Caretaker;
+import com.example.petbuddybackend.entity.user.Client;
+import com.example.petbuddybackend.repository.animal.AnimalRepository;
+import com.example.petbuddybackend.repository.care.CareRepository;
+import com.example.petbuddybackend.repository.care.CareStatusesHistoryRepository;
+import com.example.petbuddybackend.repository.notification.CaretakerNotificationRepository;
+import com.example.petbuddybackend.repository.notification.ClientNotificationRepository;
+import com.example.petbuddybackend.repository.user.AppUserRepository;
+import com.example.petbuddybackend.repository.user.CaretakerRepository;
+import com.example.petbuddybackend.repository.user.ClientRepository;
+import com.example.petbuddybackend.service.care.state.CareStateMachine;
+import com.example.petbuddybackend.testconfig.TestDataConfiguration;
+import com.example.petbuddybackend.testutils.PersistenceUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ContextConfiguration(classes = TestDataConfiguration.class)
+public class CareStatisticsServiceIntegrationTest {
+
+    @Autowired
+    private CareStatisticsService careStatisticsService;
+
+    @Autowired
+    private CareService careService;
+
+    @Autowired
+    private CareStateMachine careStateMachine;
+
+    @Autowired
+    private CareRepository careRepository;
+
+    @Autowired
+    private CareStatusesHistoryRepository careStatusesHistoryRepository;
+
+    @Autowired
+    private CaretakerRepository caretakerRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private AppUserRepository appUserRepository;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private CaretakerNotificationRepository caretakerNotificationRepository;
+
+    @Autowired
+    private ClientNotificationRepository clientNotificationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Caretaker caretaker;
+    private Client client;
+
+    @BeforeEach
+    void setUp() {
+        caretaker = PersistenceUtils.addCaretaker(caretakerRepository, appUserRepository);
+        client = PersistenceUtils.addClient(appUserRepository, clientRepository);
+        careStatisticsService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        caretakerNotificationRepository.deleteAll();
+        clientNotificationRepository.deleteAll();
+        careStatusesHistoryRepository.deleteAll();
+        careRepository.deleteAll();
+        appUserRepository.deleteAll();
+    }
+
+    @Test
+    void getCaretakerStatistics_shouldAggregateCaresOfCaretaker() {
+
+        //Given
+        addCare("DOG", LocalDate.of(2024, 5, 15), new BigDecimal("10.01"), CareStatus.CONFIRMED);
+        addCare("DOG", LocalDate.of(2024, 5, 1), new BigDecimal("20.00"), CareStatus.PENDING);
+        addCare("CAT", LocalDate.of(2024, 1, 15), new BigDecimal("40.01"), CareStatus.CANCELLED);
+        careStatisticsService.rebuild();
+
+        //When
+        CaretakerStatisticsDTO result = careStatisticsService.getCaretakerStatistics(
+                caretaker.getEmail(),
+                CaretakerStatisticsSearchCriteria.builder().build()
+        );
+
+        //Then
+        assertEquals(3, result.numberOfCares());
+        assertEquals(Map.of(CareStatus.CONFIRMED, 1L, CareStatus.PENDING, 1L),
+                result.monthlyNumberOfCares().get(YearMonth.of(2024, 5)));
+        assertEquals(Map.of(CareStatus.CANCELLED, 1L), result.monthlyNumberOfCares().get(YearMonth.of(2024, 1)));
+        assertEquals(Map.of("DOG", 2L, "CAT", 1L), result.numberOfCaresByAnimalType());
+        assertEquals(1, result.monthlyRevenue().size());
+        assertEquals(0, new BigDecimal("60.06").compareTo(result.monthlyRevenue().get(YearMonth.of(2024, 5))));
+        assertEquals(1f / 3, result.acceptanceRate(), 0.001f);
+        assertEquals(1f / 3, result.cancellationRate(), 0.001f);
+        assertEquals(new BigDecimal("23.34"), result.avgDailyPrice());
+
+    }
+
+    @Test
+    void getCaretakerStatistics_withFilters_shouldAggregateMatchingRows() {
+
+        //Given
+        addCare("DOG", LocalDate.of(2024, 5, 15), new BigDecimal("10.01"), CareStatus.CONFIRMED);
+        addCare("CAT", LocalDate.of(2024, 1, 15), new BigDecimal("40.01"), CareStatus.CANCELLED);
+        addCare("CAT", LocalDate.of(2024, 5, 15), new BigDecimal("30.00"), CareStatus.CONFIRMED);
+        careStatisticsService.rebuild();
+
+        //When
+        CaretakerStatisticsDTO result = careStatisticsService.getCaretakerStatistics(
+                caretaker.getEmail(),
+                CaretakerStatisticsSearchCriteria.builder()
+                        .animalTypes(Set.of("CAT"))
+                        .minCareStart(YearMonth.of(2024, 5))
+                        .build()
+        );
+
+        //Then
+        assertEquals(1, result.numberOfCares());
+        assertEquals(1f, result.acceptanceRate());
+        assertEquals(0f, result.cancellationRate());
+        assertEquals(new BigDecimal("30.00"), result.avgDailyPrice());
+
+    }
+
+    @Test
+    void getCaretakerStatistics_withoutCares_shouldReturnEmptyStatistics() {
+
+        //When
+        CaretakerStatisticsDTO result = careStatisticsService.getCaretakerStatistics(
+                caretaker.getEmail(),
+                CaretakerStatisticsSearchCriteria.builder().build()
+        );
+
+        //Then
+        assertEquals(0, result.numberOfCares());
+        assertTrue(result.monthlyNumberOfCares().isEmpty());
+        assertNull(result.acceptanceRate());
+        assertNull(result.avgDailyPrice());
+
+    }
+
+    @Test
+    void careStatusTransitions_shouldMoveCareBetweenStatistics() {
+
+        //Given
+        CreateCareDTO createCareDTO = CreateCareDTO.builder()
+                .careStart(LocalDate.now().plusDays(1))
+                .careEnd(LocalDate.now().plusDays(5))
+                .description("Description")
+                .dailyPrice(new BigDecimal("10.00"))
+                .animalType("DOG")
+                .build();
+
+        DetailedCareWithHistoryDTO care = transactionTemplate.execute(status ->
+                careService.makeReservation(createCareDTO, client.getEmail(), caretaker.getEmail(), ZoneId.systemDefault()));
+
+        //When
+        transactionTemplate.execute(status -> careService.caretakerChangeCareStatus(
+                care.id(), caretaker.getEmail(), ZoneId.systemDefault(), CareStatus.ACCEPTED));
+
+        //Then
+        CaretakerStatisticsDTO result = getStatisticsOfCaretaker();
+        YearMonth careStartMonth = YearMonth.from(createCareDTO.careStart());
+
+        assertEquals(1, result.numberOfCares());
+        assertEquals(Map.of(CareStatus.READY_TO_PROCEED, 1L), result.monthlyNumberOfCares().get(careStartMonth));
+        assertEquals(1f, result.acceptanceRate());
+
+        careStatisticsService.rebuild();
+        assertEquals(result.monthlyNumberOfCares(), getStatisticsOfCaretaker().monthlyNumberOfCares());
+
+    }
+
+    @Test
+    void cancelCaresIfStatePermitsAndSave_shouldMoveCancelledCares() {
+
+        //Given
+        addCare("DOG", LocalDate.of(2024, 5, 15), new BigDecimal("10.01"), CareStatus.PENDING);
+        addCare("DOG", LocalDate.of(2024, 5, 20), new BigDecimal("10.01"), CareStatus.CONFIRMED);
+        careStatisticsService.rebuild();
+
+        //When
+        careStateMachine.cancelCaresIfStatePermitsAndSave(client.getEmail(), caretaker.getEmail());
+
+        //Then
+        CaretakerStatisticsDTO result = getStatisticsOfCaretaker();
+
+        assertEquals(Map.of(CareStatus.CANCELLED, 1L, CareStatus.CONFIRMED, 1L),
+                result.monthlyNumberOfCares().get(YearMonth.of(2024, 5)));
+
+        careStatisticsService.rebuild();
+        assertEquals(result.monthlyNumberOfCares(), getStatisticsOfCaretaker().monthlyNumberOfCares());
+
+    }
+
+    @Test
+    void recordCareChange_firstCaresConcurrently_shouldCountEveryCare() throws Exception {
+
+        //Given
+        int numberOfCares = 10;
+        List<Care> cares = IntStream.range(0, numberOfCares)
+                .mapToObj(i -> addCare("DOG", LocalDate.of(2024, 5, 15), new BigDecimal("10.00"), CareStatus.PENDING))
+                .toList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfCares);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //When
+        try {
+            List<Future<?>> futures = cares.stream()
+                    .map(care -> executor.submit(() -> {
+                        start.await();
+                        transactionTemplate.executeWithoutResult(status ->
+                                careStatisticsService.recordCareChange(null, care));
+                        return null;
+                    }))
+                    .toList();
+
+            start.countDown();
+
+            for(Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //Then
+        assertEquals(Map.of(CareStatus.PENDING, (long) numberOfCares),
+                getStatisticsOfCaretaker().monthlyNumberOfCares().get(YearMonth.of(2024, 5)));
+
+    }
+
+    private CaretakerStatisticsDTO getStatisticsOfCaretaker() {
+        return careStatisticsService.getCaretakerStatistics(
+                caretaker.getEmail(),
+                CaretakerStatisticsSearchCriteria.builder().build()
+        );
+    }
+
+    private Care addCare(String animalType, LocalDate careStart, BigDecimal dailyPrice, CareStatus status) {
+        return PersistenceUtils.addCare(
+                careRepository,
+                caretaker,
+                client,
+                animalRepository.findById(animalType).orElseThrow(),
+                ZonedDateTime.now(),
+                careStart,
+                careStart.plusDays(5),
+                dailyPrice,
+                status,
+                status
+        );
+    }
+
+}
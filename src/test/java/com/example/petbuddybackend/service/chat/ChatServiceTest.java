@@ -15,6 +15,7 @@ import com.example.petbuddybackend.repository.chat.ChatRoomRepository;
 import com.example.petbuddybackend.repository.user.AppUserRepository;
 import com.example.petbuddybackend.repository.user.CaretakerRepository;
 import com.example.petbuddybackend.repository.user.ClientRepository;
+import com.example.petbuddybackend.service.user.UserSearchIndex;
 import com.example.petbuddybackend.testutils.PersistenceUtils;
 import com.example.petbuddybackend.testutils.mock.MockChatProvider;
 import com.example.petbuddybackend.testutils.mock.MockUserProvider;
@@ -78,6 +79,9 @@ public class ChatServiceTest {
     @Autowired
     private TransactionTemplate transactionTemplate;
 
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
     private ChatRoom chatRoom;
 
     @BeforeEach
@@ -119,6 +123,8 @@ public class ChatServiceTest {
                 appUserRepository,
                 MockUserProvider.createMockCaretaker("newClientEmail")
         );
+
+        userSearchIndex.rebuild();
     }
 
     @AfterEach
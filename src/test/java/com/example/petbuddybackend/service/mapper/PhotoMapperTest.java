@@ -1,10 +1,16 @@
 package com.example.petbuddybackend.service.mapper;
 
+import com.example.petbuddybackend.dto.photo.PhotoLinkDTO;
 import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
 import com.example.petbuddybackend.testutils.ValidationUtils;
 import com.example.petbuddybackend.testutils.mock.MockUserProvider;
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class PhotoMapperTest {
@@ -17,4 +23,34 @@ public class PhotoMapperTest {
 
         assertTrue(ValidationUtils.fieldsNotNullRecursive(mapper.mapToPhotoLinkDTO(photoLink)));
     }
+
+    @Test
+    void mapToPhotoLinkDTO_photoServedWithRenewedUrls_shouldMapServedUrls() {
+        PhotoLink photoLink = MockUserProvider.createMockPhotoLink();
+        photoLink.serveWith("http://example.com/renewed", Map.of(PhotoVariant.CARD, "http://example.com/card"));
+
+        PhotoLinkDTO result = mapper.mapToPhotoLinkDTO(photoLink);
+
+        assertEquals("http://example.com/renewed", result.url());
+        assertEquals(Map.of(PhotoVariant.CARD, "http://example.com/card"), result.variantUrls());
+        assertNotEquals("http://example.com/renewed", photoLink.getUrl());
+    }
+
+    @Test
+    void mapToThumbnailPhotoLinkDTO_shouldUseAvatarVariant() {
+        PhotoLink photoLink = MockUserProvider.createMockPhotoLink();
+        photoLink.getVariantUrls().put(PhotoVariant.AVATAR, "http://example.com/avatar");
+
+        PhotoLinkDTO result = mapper.mapToThumbnailPhotoLinkDTO(photoLink);
+
+        assertEquals("http://example.com/avatar", result.url());
+        assertTrue(result.variantUrls().isEmpty());
+    }
+
+    @Test
+    void mapToThumbnailPhotoLinkDTO_noVariants_shouldFallBackToOriginal() {
+        PhotoLink photoLink = MockUserProvider.createMockPhotoLink();
+
+        assertEquals(photoLink.getUrl(), mapper.mapToThumbnailPhotoLinkDTO(photoLink).url());
+    }
 }
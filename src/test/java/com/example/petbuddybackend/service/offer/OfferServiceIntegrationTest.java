@@ -2,16 +2,19 @@ package com.example.petbuddybackend.service.offer;
 
 
 import com.example.petbuddybackend.dto.animal.AnimalDTO;
+import com.example.petbuddybackend.dto.availability.AvailabilityFilterDTO;
 import com.example.petbuddybackend.dto.availability.AvailabilityRangeDTO;
 import com.example.petbuddybackend.dto.availability.CreateOffersAvailabilityDTO;
 import com.example.petbuddybackend.dto.offer.ModifyConfigurationDTO;
 import com.example.petbuddybackend.dto.offer.ModifyOfferDTO;
 import com.example.petbuddybackend.dto.offer.OfferConfigurationDTO;
 import com.example.petbuddybackend.dto.offer.OfferDTO;
+import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
 import com.example.petbuddybackend.entity.amenity.AnimalAmenity;
 import com.example.petbuddybackend.entity.animal.Animal;
 import com.example.petbuddybackend.entity.animal.AnimalAttribute;
 import com.example.petbuddybackend.entity.availability.Availability;
+import com.example.petbuddybackend.entity.offer.CaretakerSearchEntry;
 import com.example.petbuddybackend.entity.offer.Offer;
 import com.example.petbuddybackend.entity.offer.OfferConfiguration;
 import com.example.petbuddybackend.entity.user.Caretaker;
@@ -19,6 +22,7 @@ import com.example.petbuddybackend.repository.amenity.AnimalAmenityRepository;
 import com.example.petbuddybackend.repository.animal.AnimalAttributeRepository;
 import com.example.petbuddybackend.repository.animal.AnimalRepository;
 import com.example.petbuddybackend.repository.availability.AvailabilityRepository;
+import com.example.petbuddybackend.repository.offer.CaretakerSearchEntryRepository;
 import com.example.petbuddybackend.repository.offer.OfferConfigurationRepository;
 import com.example.petbuddybackend.repository.offer.OfferRepository;
 import com.example.petbuddybackend.repository.user.AppUserRepository;
@@ -29,6 +33,7 @@ import com.example.petbuddybackend.utils.exception.throweable.general.NotFoundEx
 import com.example.petbuddybackend.utils.exception.throweable.general.UnauthorizedException;
 import com.example.petbuddybackend.utils.exception.throweable.offer.AvailabilityDatesOverlappingException;
 import com.example.petbuddybackend.utils.exception.throweable.offer.OfferConfigurationDuplicatedException;
+import com.example.petbuddybackend.utils.search.SearchTokens;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -83,6 +88,12 @@ public class OfferServiceIntegrationTest {
     @Autowired
     private TransactionTemplate transactionTemplate;
 
+    @Autowired
+    private CaretakerSearchEntryRepository caretakerSearchEntryRepository;
+
+    @Autowired
+    private CaretakerSearchIndexer caretakerSearchIndexer;
+
     private Caretaker caretakerWithComplexOffer;
     private Animal animalInComplexOffer;
     private List<AnimalAttribute> animalAttributesInComplexOffer;
@@ -211,6 +222,62 @@ public class OfferServiceIntegrationTest {
         );
     }
 
+    @Test
+    void addOrEditOffer_shouldRefreshSearchEntriesOfOffer() {
+
+        // Given
+        ModifyOfferDTO offerToSave = ModifyOfferDTO.builder()
+                .animal(AnimalDTO.builder().animalType("DOG").build())
+                .offerConfigurations(new ArrayList<>(List.of(
+                        ModifyConfigurationDTO.builder()
+                                .description("Small dogs")
+                                .dailyPrice(BigDecimal.valueOf(30.0))
+                                .selectedOptions(new HashMap<>(Map.of("SIZE", new ArrayList<>(List.of("SMALL")))))
+                                .build()
+                )))
+                .animalAmenities(new HashSet<>(List.of("secured garden")))
+                .build();
+
+        // When
+        OfferDTO resultOfferDTO = offerService.addOrEditOffer(offerToSave, caretakerWithComplexOffer.getEmail());
+
+        // Then
+        List<CaretakerSearchEntry> entries = caretakerSearchEntryRepository.findAllByCaretakerEmail(
+                caretakerWithComplexOffer.getEmail());
+        assertEquals(3, entries.size());
+        assertTrue(entries.stream().allMatch(entry -> entry.getOfferId().equals(resultOfferDTO.id())));
+
+        CaretakerSearchEntry smallDogsEntry = entries.stream()
+                .filter(entry -> BigDecimal.valueOf(30.0).compareTo(
+                        Optional.ofNullable(entry.getDailyPrice()).orElse(BigDecimal.ZERO)) == 0)
+                .findFirst()
+                .orElseThrow();
+        Set<String> tokens = transactionTemplate.execute(status ->
+                new HashSet<>(caretakerSearchEntryRepository.findById(smallDogsEntry.getId()).orElseThrow().getTokens()));
+
+        assertTrue(tokens.contains(SearchTokens.attributeToken("SIZE", "SMALL")));
+        assertFalse(tokens.contains(SearchTokens.attributeToken("SIZE", "BIG")));
+        // The configuration has no option for SEX, so it accepts all of them
+        assertTrue(tokens.contains(SearchTokens.attributeToken("SEX", "MALE")));
+        assertTrue(tokens.contains(SearchTokens.amenityToken("toys")));
+        assertTrue(tokens.contains(SearchTokens.amenityToken("secured garden")));
+    }
+
+    @Test
+    void deleteOffer_shouldRemoveSearchEntriesOfOffer() {
+
+        // Given
+        Long offerId = existingOffer.getId();
+        offerService.setAmenitiesForOffer(offerId, Set.of("toys"), caretakerWithComplexOffer.getEmail());
+        assertFalse(caretakerSearchEntryRepository.findAllByCaretakerEmail(caretakerWithComplexOffer.getEmail()).isEmpty());
+
+        // When
+        offerService.deleteOffer(offerId, caretakerWithComplexOffer.getEmail());
+
+        // Then
+        assertTrue(caretakerSearchEntryRepository.findAllByCaretakerEmail(caretakerWithComplexOffer.getEmail()).isEmpty());
+    }
+
     @Test
     void deleteOffer_ShouldDeleteOffer() {
 
@@ -617,6 +684,38 @@ public class OfferServiceIntegrationTest {
 
     }
 
+    @Test
+    void setAvailabilityForOffers_shouldRefreshAvailabilityIndex() {
+
+        // Given
+        caretakerSearchIndexer.rebuild();
+        CreateOffersAvailabilityDTO createOffersAvailabilityDTO = CreateOffersAvailabilityDTO.builder()
+                .offerIds(List.of(existingOffer.getId()))
+                .availabilityRanges(Set.of(
+                        AvailabilityRangeDTO.builder()
+                                .availableFrom(LocalDate.now().plusDays(1))
+                                .availableTo(LocalDate.now().plusDays(10))
+                                .build()
+                ))
+                .build();
+
+        // When
+        offerService.setAvailabilityForOffers(createOffersAvailabilityDTO, caretakerWithComplexOffer.getEmail());
+
+        // Then
+        Set<String> availableCaretakers = caretakerSearchIndexer.findCaretakersMatchingOffers(
+                null,
+                Set.of(createAvailabilityFilter(LocalDate.now().plusDays(2), LocalDate.now().plusDays(9)))
+        ).orElseThrow();
+        Set<String> unavailableCaretakers = caretakerSearchIndexer.findCaretakersMatchingOffers(
+                null,
+                Set.of(createAvailabilityFilter(LocalDate.now().plusDays(5), LocalDate.now().plusDays(15)))
+        ).orElseThrow();
+
+        assertTrue(availableCaretakers.contains(caretakerWithComplexOffer.getEmail()));
+        assertFalse(unavailableCaretakers.contains(caretakerWithComplexOffer.getEmail()));
+    }
+
     @Test
     @Transactional
     void setAvailabilityForOffers_whenSettingForMultipleOffers_ShouldSetAvailabilityForOffer() {
@@ -908,4 +1007,13 @@ public class OfferServiceIntegrationTest {
 
     }
 
+    private static OfferFilterDTO createAvailabilityFilter(LocalDate availableFrom, LocalDate availableTo) {
+        return OfferFilterDTO.builder()
+                .animalType("DOG")
+                .availabilities(Set.of(AvailabilityFilterDTO.builder()
+                        .availableFrom(availableFrom)
+                        .availableTo(availableTo)
+                        .build()))
+                .build();
+    }
 }
@@ -38,6 +38,9 @@ public class OfferServiceUnitTest {
     @Mock
     private CaretakerService caretakerService;
 
+    @Mock
+    private CaretakerSearchIndexer caretakerSearchIndexer;
+
     @InjectMocks
     private OfferService offerService;
 
@@ -0,0 +1,102 @@
+package com.example.petbuddybackend.service.photo;
+
+import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
+import com.example.petbuddybackend.repository.photo.PhotoLinkRepository;
+import com.example.petbuddybackend.utils.exception.throweable.general.NotFoundException;
+import org.apache.tika.Tika;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "photo.storage=local")
+public class LocalPhotoServiceTest {
+
+    @Value("${photo.local.directory}")
+    private String PHOTO_DIRECTORY;
+
+    @Value("${photo.local.base-url}")
+    private String BASE_URL;
+
+    @Autowired
+    private LocalPhotoService localPhotoService;
+
+    @MockBean
+    private PhotoLinkRepository photoRepository;
+
+    @MockBean
+    private Tika tika;
+
+    private MockMultipartFile photo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        BufferedImage image = new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", outputStream);
+        photo = new MockMultipartFile("file", "photo.png", "image/png", outputStream.toByteArray());
+
+        when(tika.detect(any(byte[].class))).thenReturn("image/png");
+        when(tika.detect(any(Path.class))).thenReturn("image/png");
+        when(photoRepository.addReferences(anyString(), anyInt())).thenReturn(1);
+    }
+
+    @Test
+    void uploadPhoto_shouldWriteOriginalAndVariants() throws IOException {
+        PhotoLink result = localPhotoService.uploadPhoto(photo);
+
+        assertEquals(BASE_URL + "/" + result.getBlob(), result.getUrl());
+        assertArrayEquals(photo.getBytes(), Files.readAllBytes(Path.of(PHOTO_DIRECTORY, result.getBlob())));
+
+        for(PhotoVariant variant : PhotoVariant.values()) {
+            assertTrue(Files.exists(Path.of(PHOTO_DIRECTORY, variant.blobOf(result.getBlob()))));
+            assertEquals(BASE_URL + "/" + variant.blobOf(result.getBlob()), result.getVariantUrls().get(variant));
+        }
+    }
+
+    @Test
+    void removePhotosFromStorage_shouldDeleteOriginalAndVariants() {
+        PhotoLink uploadedPhoto = localPhotoService.uploadPhoto(photo);
+
+        localPhotoService.removePhotosFromStorage(List.of(uploadedPhoto.getBlob()));
+
+        for(String blob : PhotoVariant.blobsWithVariants(uploadedPhoto.getBlob())) {
+            assertFalse(Files.exists(Path.of(PHOTO_DIRECTORY, blob)));
+        }
+    }
+
+    @Test
+    void getPhotoFile_shouldDescribeStoredFile() throws IOException {
+        PhotoLink uploadedPhoto = localPhotoService.uploadPhoto(photo);
+
+        LocalPhotoService.PhotoFile photoFile = localPhotoService.getPhotoFile(uploadedPhoto.getBlob());
+
+        assertEquals(MediaType.IMAGE_PNG, photoFile.contentType());
+        assertEquals(photo.getSize(), photoFile.size());
+    }
+
+    @Test
+    void getPhotoFile_blobOutsideDirectory_shouldThrowNotFound() {
+        assertThrows(NotFoundException.class, () -> localPhotoService.getPhotoFile("../application.yml"));
+        assertThrows(NotFoundException.class, () -> localPhotoService.getPhotoFile("missing"));
+    }
+}
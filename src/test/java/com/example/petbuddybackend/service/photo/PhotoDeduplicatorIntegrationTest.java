@@ -0,0 +1,111 @@
+package com.example.petbuddybackend.service.photo;
+
+import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.repository.photo.OrphanedPhotoBlobRepository;
+import com.example.petbuddybackend.repository.photo.PhotoLinkRepository;
+import com.google.firebase.FirebaseApp;
+import org.apache.tika.Tika;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+public class PhotoDeduplicatorIntegrationTest {
+
+    private static final String BLOB = "shared/blob";
+    private static final int CONCURRENT_REFERENCES = 20;
+
+    @Autowired
+    private PhotoDeduplicator photoDeduplicator;
+
+    @Autowired
+    private PhotoLinkRepository photoRepository;
+
+    @Autowired
+    private OrphanedPhotoBlobRepository orphanedPhotoBlobRepository;
+
+    @MockBean
+    private FirebaseApp firebaseApp;
+
+    @MockBean
+    private Tika tika;
+
+    private final MockMultipartFile photo = new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[]{0, 1, 2});
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(tika.detect(any(byte[].class))).thenReturn("image/jpeg");
+        executor = Executors.newFixedThreadPool(8);
+
+        photoRepository.save(PhotoLink.builder()
+                .blob(BLOB)
+                .url("http://signedurl.com")
+                .urlExpiresAt(LocalDateTime.now().plusDays(10))
+                .contentHash(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(photo.getBytes())))
+                .referenceCount(1)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        photoRepository.deleteAll();
+        orphanedPhotoBlobRepository.deleteAll();
+    }
+
+    @Test
+    void storeDeduplicatedAndReleaseReferences_concurrently_shouldNotLoseUpdates() throws Exception {
+        runConcurrently(() -> photoDeduplicator.storeDeduplicated(List.of(photo), files -> {
+            throw new IllegalStateException("Stored photo should be reused");
+        }));
+
+        assertEquals(1 + CONCURRENT_REFERENCES, photoRepository.findById(BLOB).orElseThrow().getReferenceCount());
+
+        PhotoLink storedPhoto = photoRepository.findById(BLOB).orElseThrow();
+        runConcurrently(() -> photoDeduplicator.releaseReference(storedPhoto));
+
+        PhotoLink stillReferenced = photoRepository.findById(BLOB).orElseThrow();
+        assertEquals(1, stillReferenced.getReferenceCount());
+        assertNull(stillReferenced.getMarkedForDeletionAt());
+
+        photoDeduplicator.releaseReference(storedPhoto);
+
+        PhotoLink released = photoRepository.findById(BLOB).orElseThrow();
+        assertEquals(0, released.getReferenceCount());
+        assertNotNull(released.getMarkedForDeletionAt());
+        assertNull(released.getContentHash());
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = IntStream.range(0, CONCURRENT_REFERENCES)
+                .mapToObj(i -> executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }))
+                .toList();
+
+        start.countDown();
+
+        for(Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -1,24 +1,33 @@
 package com.example.petbuddybackend.service.photo;
 
+import com.example.petbuddybackend.entity.photo.OrphanedPhotoBlob;
 import com.example.petbuddybackend.entity.photo.PhotoLink;
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
+import com.example.petbuddybackend.repository.photo.OrphanedPhotoBlobRepository;
 import com.example.petbuddybackend.repository.photo.PhotoLinkRepository;
 import com.example.petbuddybackend.utils.exception.throweable.photo.InvalidPhotoException;
+import com.example.petbuddybackend.utils.exception.throweable.photo.PhotoTooLargeException;
 import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Bucket;
-import com.google.cloud.storage.StorageException;
+import com.google.cloud.storage.Storage;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.cloud.StorageClient;
 import org.apache.tika.Tika;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
@@ -26,10 +35,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -48,6 +62,12 @@ public class PhotoServiceTest {
     @Autowired
     private FirebasePhotoService firebasePhotoService;
 
+    @Autowired
+    private PhotoLinkCache photoLinkCache;
+
+    @Autowired
+    private OrphanedPhotoBlobRepository orphanedPhotoBlobRepository;
+
     @MockBean
     private FirebaseApp firebaseApp;
 
@@ -66,6 +86,9 @@ public class PhotoServiceTest {
     @Mock
     private Bucket mockBucket;
 
+    @Mock
+    private Storage mockStorage;
+
     private MockedStatic<StorageClient> storageClientMock;
     private MockMultipartFile validPhoto;
 
@@ -82,11 +105,17 @@ public class PhotoServiceTest {
 
         when(StorageClient.getInstance(firebaseApp)).thenReturn(mockStorageClient);
         when(mockStorageClient.bucket()).thenReturn(mockBucket);
+        when(mockBucket.getName()).thenReturn("bucket");
+        when(mockBucket.getStorage()).thenReturn(mockStorage);
+        when(photoRepository.addReferences(anyString(), anyInt())).thenReturn(1);
+        when(mockStorage.delete(anyIterable())).thenAnswer(invocation -> deleteResults(invocation.getArgument(0), true));
     }
 
     @AfterEach
     public void tearDown() {
         storageClientMock.close();
+        photoLinkCache.clear();
+        orphanedPhotoBlobRepository.deleteAll();
     }
 
     @Test
@@ -99,7 +128,7 @@ public class PhotoServiceTest {
 
     @Test
     void findPhotoLinkByNullableId_blobNotNull_shouldReturnPhotoLink() {
-        PhotoLink photo = new PhotoLink(BLOB_PATH, PHOTO_URL, LocalDateTime.now().plusDays(10), null);
+        PhotoLink photo = createPhotoLink(BLOB_PATH, PHOTO_URL, LocalDateTime.now().plusDays(10));
         when(photoRepository.findById(BLOB_PATH)).thenReturn(Optional.of(photo));
 
         Optional<PhotoLink> result = firebasePhotoService.findPhotoLinkByNullableId(BLOB_PATH);
@@ -111,90 +140,231 @@ public class PhotoServiceTest {
 
     @Test
     void testUploadPhoto_validFile_shouldUploadSuccessfully() throws IOException {
-        when(mockBucket.create(any(String.class), any(ByteArrayInputStream.class), any(String.class))).thenReturn(mockBlob);
+        when(mockStorage.createFrom(any(BlobInfo.class), any(InputStream.class))).thenReturn(mockBlob);
         when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://signedurl.com"));
-        when(tika.detect(any(InputStream.class))).thenReturn("image/jpeg");
-        when(photoRepository.save(any(PhotoLink.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(tika.detect(any(byte[].class))).thenReturn("image/jpeg");
 
         PhotoLink result = firebasePhotoService.uploadPhoto(validPhoto);
 
         assertNotNull(result);
         assertNotEquals(PHOTO_DIRECTORY + "/" + FILE_NAME, result.getBlob());
         assertTrue(result.getBlob().startsWith(PHOTO_DIRECTORY));
-        verify(photoRepository, times(1)).save(result);
+        assertNotNull(result.getContentHash());
+        verify(photoRepository, times(1)).saveAllAndFlush(List.of(result));
+        verify(photoRepository, times(1)).addReferences(result.getBlob(), 1);
     }
 
     @Test
     void testUploadPhoto_invalidFile_shouldThrowInvalidPhotoException() throws IOException {
         MockMultipartFile invalidPhoto = new MockMultipartFile("file", "", "text/plain", new byte[]{0});
-        when(tika.detect(any(InputStream.class))).thenReturn("text/plain");
+        when(tika.detect(any(byte[].class))).thenReturn("text/plain");
 
         assertThrows(InvalidPhotoException.class,
                 () -> firebasePhotoService.uploadPhoto(invalidPhoto)
         );
     }
 
+    @Test
+    void testUploadPhoto_declaredSizeOverLimit_shouldRejectWithoutReadingContent() throws IOException {
+        MultipartFile largePhoto = mock(MultipartFile.class);
+        when(largePhoto.getSize()).thenReturn(DataSize.ofMegabytes(31).toBytes());
+
+        assertThrows(PhotoTooLargeException.class,
+                () -> firebasePhotoService.uploadPhoto(largePhoto)
+        );
+        verify(largePhoto, never()).getInputStream();
+    }
+
+    @Test
+    void testUploadPhoto_contentOverLimit_shouldStopReadingAtLimit() throws IOException {
+        MultipartFile largePhoto = mock(MultipartFile.class);
+        ByteArrayInputStream content = new ByteArrayInputStream(new byte[(int) DataSize.ofMegabytes(31).toBytes()]);
+        when(largePhoto.getSize()).thenReturn(1L);
+        when(largePhoto.getInputStream()).thenReturn(content);
+        when(tika.detect(any(byte[].class))).thenReturn("image/jpeg");
+
+        assertThrows(PhotoTooLargeException.class,
+                () -> firebasePhotoService.uploadPhoto(largePhoto)
+        );
+        assertTrue(content.available() > 0);
+    }
+
+    @Test
+    void testUploadPhoto_invalidType_shouldRejectAfterReadingHead() throws IOException {
+        MultipartFile textFile = mock(MultipartFile.class);
+        ByteArrayInputStream content = new ByteArrayInputStream(new byte[1024 * 1024]);
+        when(textFile.getSize()).thenReturn(1024L * 1024);
+        when(textFile.getInputStream()).thenReturn(content);
+        when(tika.detect(any(byte[].class))).thenReturn("text/plain");
+
+        assertThrows(InvalidPhotoException.class,
+                () -> firebasePhotoService.uploadPhoto(textFile)
+        );
+        assertTrue(content.available() >= 1024 * 1024 - 8 * 1024);
+        verify(mockStorage, never()).createFrom(any(BlobInfo.class), any(InputStream.class));
+    }
+
     @Test
     void uploadPhotos_emptyListPassed_shouldReturnEmptyList() {
         List<PhotoLink> returnedList = firebasePhotoService.uploadPhotos(Collections.emptyList());
 
         assertTrue(returnedList.isEmpty());
-        verify(photoRepository, never()).saveAll(anyList());
+        verify(photoRepository, never()).addReferences(anyString(), anyInt());
     }
 
     @Test
     void uploadPhotos_allPhotosUploadedSuccessfully() throws IOException {
+        MockMultipartFile otherPhoto = new MockMultipartFile("file", FILE_NAME, "image/jpeg", new byte[]{3, 4, 5});
+        List<MultipartFile> inputList = List.of(validPhoto, otherPhoto);
+
+        when(mockStorage.createFrom(any(BlobInfo.class), any(InputStream.class))).thenReturn(mockBlob);
+        when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://signedurl.com"));
+        when(tika.detect(any(byte[].class))).thenReturn("image/jpeg");
+
+        List<PhotoLink> result = firebasePhotoService.uploadPhotos(inputList);
+
+        assertEquals(2, result.size());
+        assertNotEquals(result.get(0).getBlob(), result.get(1).getBlob());
+        verify(mockStorage, times(2)).createFrom(any(BlobInfo.class), any(InputStream.class));
+        verify(photoRepository, times(2)).addReferences(anyString(), eq(1));
+    }
+
+    @Test
+    void uploadPhotos_identicalPhotos_shouldUploadOnceAndReferenceTwice() throws IOException {
         List<MultipartFile> inputList = List.of(validPhoto, validPhoto);
 
-        when(mockBucket.create(any(String.class), any(ByteArrayInputStream.class), any(String.class))).thenReturn(mockBlob);
+        when(mockStorage.createFrom(any(BlobInfo.class), any(InputStream.class))).thenReturn(mockBlob);
         when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://signedurl.com"));
-        when(tika.detect(any(InputStream.class))).thenReturn("image/jpeg");
-        when(photoRepository.save(any(PhotoLink.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(tika.detect(any(byte[].class))).thenReturn("image/jpeg");
 
-        firebasePhotoService.uploadPhotos(inputList);
+        List<PhotoLink> result = firebasePhotoService.uploadPhotos(inputList);
 
-        verify(photoRepository, times(1)).saveAll(anyList());
+        assertEquals(2, result.size());
+        assertSame(result.get(0), result.get(1));
+        verify(photoRepository, times(1)).addReferences(result.get(0).getBlob(), 2);
+        verify(mockStorage, times(1)).createFrom(any(BlobInfo.class), any(InputStream.class));
     }
 
     @Test
-    void uploadPhotos_secondPhotoUploadFails_shouldRollback() throws IOException {
+    void uploadPhotos_photoAlreadyStored_shouldReuseItWithoutUpload() throws IOException, NoSuchAlgorithmException {
+        PhotoLink storedPhoto = createPhotoLink(BLOB_PATH, PHOTO_URL, LocalDateTime.now().plusDays(10));
+        storedPhoto.setContentHash(sha256Hex(validPhoto.getBytes()));
+
+        when(tika.detect(any(byte[].class))).thenReturn("image/jpeg");
+        when(photoRepository.findAllByContentHashInAndMarkedForDeletionAtIsNull(Set.of(storedPhoto.getContentHash())))
+                .thenReturn(List.of(storedPhoto));
+
+        List<PhotoLink> result = firebasePhotoService.uploadPhotos(List.of(validPhoto));
+
+        assertEquals(List.of(storedPhoto), result);
+        verify(photoRepository, times(1)).addReferences(BLOB_PATH, 1);
+        verify(mockStorage, never()).createFrom(any(BlobInfo.class), any(InputStream.class));
+        verify(mockStorage, never()).create(any(BlobInfo.class), any(byte[].class));
+    }
+
+    @Test
+    void uploadPhotos_secondPhotoUploadFails_shouldRollbackUploadedBlobs() throws IOException {
         MultipartFile invalidPhoto = mock(MultipartFile.class);
         List<MultipartFile> inputList = List.of(validPhoto, invalidPhoto);
 
-        // Return valid on first invoke
-        when(mockBucket.create(any(String.class), any(InputStream.class), eq(validPhoto.getContentType()))).thenReturn(mockBlob);
+        when(mockStorage.createFrom(any(BlobInfo.class), any(InputStream.class))).thenAnswer(invocation -> {
+            BlobInfo blobInfo = invocation.getArgument(0);
 
-        // Throw on second
-        when(mockBucket.create(any(String.class), any(InputStream.class), any(String.class))).thenThrow(RuntimeException.class);
+            if(!validPhoto.getContentType().equals(blobInfo.getContentType())) {
+                throw new RuntimeException("Upload failed");
+            }
+            return mockBlob;
+        });
 
         when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://signedurl.com"));
         when(invalidPhoto.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{0}));
-        when(tika.detect(any(InputStream.class))).thenReturn("image/jpeg");
-        when(photoRepository.save(any(PhotoLink.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(invalidPhoto.getContentType()).thenReturn("image/png");
+        when(tika.detect(any(byte[].class))).thenReturn("image/jpeg");
         when(invalidPhoto.getOriginalFilename()).thenReturn("invalid.jpg");
 
         assertThrows(RuntimeException.class,
                 () -> firebasePhotoService.uploadPhotos(inputList));
 
-        verify(photoRepository, never()).saveAll(anyList());
-        verify(photoRepository, times(1)).deleteAll(anyList());
+        ArgumentCaptor<List<BlobId>> deletedBlobs = ArgumentCaptor.forClass(List.class);
+        verify(photoRepository, never()).saveAllAndFlush(anyList());
+        verify(mockStorage, times(1)).delete(deletedBlobs.capture());
+        assertEquals(PhotoVariant.values().length + 1, deletedBlobs.getValue().size());
+        assertTrue(deletedBlobs.getValue().get(0).getName().startsWith(PHOTO_DIRECTORY));
     }
 
     @Test
-    void testSchedulePhotoDeletion_validPhotoLink_shouldDeleteSuccessfully() {
-        PhotoLink photo = new PhotoLink(BLOB_PATH, PHOTO_URL, LocalDateTime.now().plusDays(10), null);
-        when(photoRepository.findById(BLOB_PATH)).thenReturn(Optional.of(photo));
-        when(mockBucket.get(BLOB_PATH)).thenReturn(mockBlob);
+    void uploadPhotos_sameContentStoredConcurrently_shouldReuseStoredPhotoAndScheduleDeletionOfUpload()
+            throws IOException, NoSuchAlgorithmException {
+        PhotoLink storedPhoto = createPhotoLink(BLOB_PATH, PHOTO_URL, LocalDateTime.now().plusDays(10));
+        storedPhoto.setContentHash(sha256Hex(validPhoto.getBytes()));
+
+        when(mockStorage.createFrom(any(BlobInfo.class), any(InputStream.class))).thenReturn(mockBlob);
+        when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://signedurl.com"));
+        when(tika.detect(any(byte[].class))).thenReturn("image/jpeg");
+        when(photoRepository.findAllByContentHashInAndMarkedForDeletionAtIsNull(Set.of(storedPhoto.getContentHash())))
+                .thenReturn(List.of())
+                .thenReturn(List.of(storedPhoto));
+        when(photoRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("Duplicate"));
+
+        List<PhotoLink> result = firebasePhotoService.uploadPhotos(List.of(validPhoto));
+
+        assertEquals(List.of(storedPhoto), result);
+        verify(photoRepository, times(1)).addReferences(BLOB_PATH, 1);
+
+        List<OrphanedPhotoBlob> orphanedBlobs = orphanedPhotoBlobRepository.findAll();
+        assertEquals(1, orphanedBlobs.size());
+        assertTrue(orphanedBlobs.get(0).getBlob().startsWith(PHOTO_DIRECTORY));
+    }
+
+    @Test
+    void uploadPhotos_savingPhotosFails_shouldScheduleDeletionOfUploadedBlobs() throws IOException {
+        when(mockStorage.createFrom(any(BlobInfo.class), any(InputStream.class))).thenReturn(mockBlob);
+        when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://signedurl.com"));
+        when(tika.detect(any(byte[].class))).thenReturn("image/jpeg");
+        when(photoRepository.addReferences(anyString(), anyInt()))
+                .thenThrow(new DataIntegrityViolationException("Save failed"));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> firebasePhotoService.uploadPhotos(List.of(validPhoto)));
+
+        List<OrphanedPhotoBlob> orphanedBlobs = orphanedPhotoBlobRepository.findAll();
+        assertEquals(1, orphanedBlobs.size());
+        assertTrue(orphanedBlobs.get(0).getBlob().startsWith(PHOTO_DIRECTORY));
+        verify(mockStorage, never()).delete(anyList());
+    }
+
+    @Test
+    void testSchedulePhotoDeletion_validPhotoLink_shouldReleaseReferenceWithoutStorageCall() {
+        PhotoLink photo = PhotoLink.builder()
+                .blob(BLOB_PATH)
+                .url(PHOTO_URL)
+                .urlExpiresAt(LocalDateTime.now().plusDays(10))
+                .build();
 
         firebasePhotoService.schedulePhotoDeletion(photo);
 
-        verify(mockBlob, times(1)).delete();
-        verify(photoRepository, times(1)).delete(photo);
+        verify(photoRepository, times(1)).releaseReferences(eq(BLOB_PATH), eq(1), any(LocalDateTime.class));
+        verify(photoRepository, never()).save(any());
+        verify(photoRepository, never()).delete(any());
+        verify(mockBucket, never()).get(any(String.class));
+    }
+
+    @Test
+    void testSchedulePhotoDeletions_samePhotoTwice_shouldReleaseBothReferencesAtOnce() {
+        PhotoLink photo = createPhotoLink(BLOB_PATH, PHOTO_URL, LocalDateTime.now().plusDays(10));
+
+        firebasePhotoService.schedulePhotoDeletions(List.of(photo, photo));
+
+        verify(photoRepository, times(1)).releaseReferences(eq(BLOB_PATH), eq(2), any(LocalDateTime.class));
     }
 
     @Test
     void testSchedulePhotoDeletion_nonExistentPhotoLink_shouldNotThrowException() {
-        PhotoLink nonExistentPhoto = new PhotoLink("non/existent/blob", "http://nonexistent.com", LocalDateTime.now(), null);
+        PhotoLink nonExistentPhoto = PhotoLink.builder()
+                .blob("non/existent/blob")
+                .url("http://nonexistent.com")
+                .urlExpiresAt(LocalDateTime.now())
+                .build();
 
         when(photoRepository.findById(nonExistentPhoto.getBlob())).thenReturn(Optional.empty());
 
@@ -202,81 +372,192 @@ public class PhotoServiceTest {
     }
 
     @Test
-    void testSchedulePhotoDeletion_notFound_shouldDeleteFromDatabase() {
-        PhotoLink photoLink = new PhotoLink("valid/blob/path", "http://signedurl.com", LocalDateTime.now(), null);
-        StorageException exception = mock(StorageException.class);
+    void testDeletePhotos_shouldReleaseReferenceOfEveryPhoto() {
+        List<PhotoLink> photos = List.of(
+                createPhotoLink("first/blob/path", "http://signedurl.com", LocalDateTime.now()),
+                createPhotoLink("second/blob/path", "http://signedurl.com", LocalDateTime.now())
+        );
 
-        when(exception.getCode()).thenReturn(404);
-        when(photoRepository.findById(BLOB_PATH)).thenReturn(Optional.of(photoLink));
-        when(mockBucket.get(BLOB_PATH)).thenReturn(mockBlob);
-        when(mockBlob.delete()).thenThrow(exception);
+        firebasePhotoService.schedulePhotoDeletions(photos);
 
-        assertThrows(StorageException.class, () -> firebasePhotoService.schedulePhotoDeletion(photoLink));
-        verify(photoRepository, times(1)).delete(photoLink);
+        verify(photoRepository, times(1)).releaseReferences(eq("first/blob/path"), eq(1), any(LocalDateTime.class));
+        verify(photoRepository, times(1)).releaseReferences(eq("second/blob/path"), eq(1), any(LocalDateTime.class));
     }
 
     @Test
-    void testSchedulePhotoDeletion_otherCode_shouldMarkForDeletion() {
-        PhotoLink photoLink = new PhotoLink("valid/blob/path", "http://signedurl.com", LocalDateTime.now(), null);
-        StorageException exception = mock(StorageException.class);
+    void testRemovePhotosFromStorage_shouldDeleteInOneBatch() {
+        firebasePhotoService.removePhotosFromStorage(List.of("first/blob/path", "second/blob/path"));
 
-        when(exception.getCode()).thenReturn(500);
-        when(photoRepository.findById(BLOB_PATH)).thenReturn(Optional.of(photoLink));
-        when(mockBucket.get(BLOB_PATH)).thenReturn(mockBlob);
-        when(mockBlob.delete()).thenThrow(exception);
+        ArgumentCaptor<List<BlobId>> deletedBlobs = ArgumentCaptor.forClass(List.class);
+        verify(mockStorage, times(1)).delete(deletedBlobs.capture());
 
-        assertThrows(StorageException.class, () -> firebasePhotoService.schedulePhotoDeletion(photoLink));
-        verify(photoRepository, times(1)).save(photoLink);
-        assertNotNull(photoLink.getMarkedForDeletionAt());
+        List<String> deletedNames = deletedBlobs.getValue().stream().map(BlobId::getName).toList();
+        assertEquals(2 * (PhotoVariant.values().length + 1), deletedNames.size());
+        assertTrue(deletedNames.contains("first/blob/path"));
+        assertTrue(deletedNames.contains(PhotoVariant.AVATAR.blobOf("second/blob/path")));
     }
 
-
     @Test
-    void testDeletePhotos_shouldRemoveAllPhotos() {
-        List<PhotoLink> photos = List.of(
-                new PhotoLink("valid/blob/path", "http://signedurl.com", LocalDateTime.now(), null),
-                new PhotoLink("valid/blob/path", "http://signedurl.com", LocalDateTime.now(), null)
+    void testRemovePhotosFromStorage_someBlobsNotDeleted_shouldReturnOnlyBlobsStillStored() {
+        doAnswer(invocation -> deleteResults(invocation.getArgument(0), false)).when(mockStorage).delete(anyIterable());
+        when(mockStorage.get(anyIterable())).thenAnswer(invocation -> {
+            List<Blob> remaining = new ArrayList<>();
+            // Only the original of the second photo is still stored, variants were never generated
+            invocation.<Iterable<BlobId>>getArgument(0).forEach(blobId ->
+                    remaining.add(blobId.getName().equals("second/blob/path") ? mockBlob : null));
+            return remaining;
+        });
+
+        Set<String> failedBlobs = firebasePhotoService.removePhotosFromStorage(
+                List.of("first/blob/path", "second/blob/path")
         );
 
-        firebasePhotoService.schedulePhotoDeletions(photos);
-        verify(photoRepository, times(2)).delete(any());
+        assertEquals(Set.of("second/blob/path"), failedBlobs);
+    }
+
+    @Test
+    void testRemovePhotosFromStorage_allBlobsDeleted_shouldNotCheckRemainingBlobs() {
+        Set<String> failedBlobs = firebasePhotoService.removePhotosFromStorage(List.of("first/blob/path"));
+
+        assertTrue(failedBlobs.isEmpty());
+        verify(mockStorage, never()).get(anyIterable());
+    }
+
+    @Test
+    void testRemovePhotosFromStorage_emptyList_shouldNotCallStorage() {
+        firebasePhotoService.removePhotosFromStorage(Collections.emptyList());
+
+        verify(mockBucket, never()).getStorage();
     }
 
     @Test
     void testUpdatePhotoExpiration_withinThreshold_shouldNotRenew() {
         LocalDateTime expiresAt = LocalDateTime.now().plusDays(20);
-        PhotoLink photo = new PhotoLink("valid/blob/path", "http://signedurl.com", expiresAt, null);
+        PhotoLink photo = createPhotoLink("valid/blob/path", "http://signedurl.com", expiresAt);
 
         firebasePhotoService.updatePhotoExpiration(photo);
-        verify(photoRepository).save(any());
+
+        verify(photoRepository, never()).save(any());
+        verify(mockBucket, never()).get(any(String.class));
+        assertEquals(expiresAt, photo.getUrlExpiresAt());
     }
 
     @Test
-    void testUpdatePhotoExpiration_expired_shouldRenew() throws MalformedURLException {
+    void testUpdatePhotoExpiration_expired_shouldServeRenewedUrlWithoutChangingPhoto() throws MalformedURLException {
         LocalDateTime expiresAt = LocalDateTime.now().minusSeconds(1);
-        PhotoLink photo = new PhotoLink("valid/blob/path", "http://signedurl.com", expiresAt, null);
+        PhotoLink photo = createPhotoLink("valid/blob/path", "http://signedurl.com", expiresAt);
         when(mockBucket.get(photo.getBlob())).thenReturn(mockBlob);
         when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://new-signedurl.com"));
 
         firebasePhotoService.updatePhotoExpiration(photo);
 
-        verify(photoRepository, times(1)).save(photo);
+        assertEquals("http://new-signedurl.com", photo.getServedUrl());
+        assertEquals("http://signedurl.com", photo.getUrl());
+        assertEquals(expiresAt, photo.getUrlExpiresAt());
+        assertTrue(photoLinkCache.get(photo.getBlob()).orElseThrow().expiresAt().isAfter(expiresAt));
+        verify(photoRepository, never()).save(any());
+    }
+
+    @Test
+    void testUpdatePhotoExpiration_newerUrlCached_shouldUseCachedUrl() {
+        LocalDateTime cachedExpiresAt = LocalDateTime.now().plusHours(5);
+        photoLinkCache.put(createPhotoLink("valid/blob/path", "http://cached-signedurl.com", cachedExpiresAt));
+        PhotoLink photo = createPhotoLink("valid/blob/path", "http://signedurl.com", LocalDateTime.now().minusSeconds(1));
+
+        firebasePhotoService.updatePhotoExpiration(photo);
+
+        assertEquals("http://cached-signedurl.com", photo.getServedUrl());
+        assertEquals("http://signedurl.com", photo.getUrl());
+        verify(mockBucket, never()).get(any(String.class));
+        verify(photoRepository, never()).save(any());
+    }
+
+    @Test
+    void testUpdatePhotoExpiration_expiredWithVariants_shouldRenewVariants() throws MalformedURLException {
+        PhotoLink photo = createPhotoLink("valid/blob/path", "http://signedurl.com", LocalDateTime.now().minusSeconds(1));
+        photo.getVariantUrls().put(PhotoVariant.AVATAR, "http://avatar-signedurl.com");
+        when(mockBucket.get(any(String.class))).thenReturn(mockBlob);
+        when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://new-signedurl.com"));
+
+        firebasePhotoService.updatePhotoExpiration(photo);
+
+        verify(mockBucket, times(1)).get(PhotoVariant.AVATAR.blobOf("valid/blob/path"));
+        assertEquals("http://new-signedurl.com", photo.getServedVariantUrls().get(PhotoVariant.AVATAR));
+        assertEquals("http://avatar-signedurl.com", photo.getVariantUrls().get(PhotoVariant.AVATAR));
     }
 
     @Test
     void testUpdatePhotoExpirations_shouldRenewAllExpiredPhotos() throws MalformedURLException {
         LocalDateTime expiredDate = LocalDateTime.now().minusSeconds(1);
         LocalDateTime validDate = LocalDateTime.now().plusDays(10);
-        PhotoLink expiredPhoto = new PhotoLink("valid/blob/path", "http://signedurl.com", expiredDate, null);
-        PhotoLink validPhoto = new PhotoLink("valid/blob/path", "http://signedurl.com", validDate, null);
+        PhotoLink expiredPhoto = createPhotoLink("expired/blob/path", "http://signedurl.com", expiredDate);
+        PhotoLink validPhoto = createPhotoLink("valid/blob/path", "http://signedurl.com", validDate);
         when(mockBucket.get(expiredPhoto.getBlob())).thenReturn(mockBlob);
         when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://new-signedurl.com"));
 
         List<PhotoLink> photos = List.of(expiredPhoto, validPhoto);
         firebasePhotoService.updatePhotoExpirations(photos);
 
+        verify(photoRepository, never()).saveAll(anyList());
+        assertEquals("http://new-signedurl.com", expiredPhoto.getServedUrl());
+        assertEquals("http://signedurl.com", validPhoto.getServedUrl());
+        verify(mockBucket, never()).get(validPhoto.getBlob());
+    }
+
+    @Test
+    void testRenewExpiringPhotos_shouldRenewAndSaveInOneBatch() throws MalformedURLException {
+        LocalDateTime expiringDate = LocalDateTime.now().plusMinutes(1);
+        PhotoLink firstPhoto = createPhotoLink("first/blob/path", "http://signedurl.com", expiringDate);
+        PhotoLink secondPhoto = createPhotoLink("second/blob/path", "http://signedurl.com", expiringDate);
+        List<PhotoLink> photos = List.of(firstPhoto, secondPhoto);
+
+        when(photoRepository.findAllByUrlExpiresAtBeforeAndMarkedForDeletionAtIsNull(any())).thenReturn(photos);
+        when(mockBucket.get(any(String.class))).thenReturn(mockBlob);
+        when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://new-signedurl.com"));
+
+        int renewedCount = firebasePhotoService.renewExpiringPhotos();
+
+        assertEquals(2, renewedCount);
         verify(photoRepository, times(1)).saveAll(photos);
-        assertNotEquals(expiredDate, expiredPhoto.getUrlExpiresAt());
-        assertEquals(validDate, validPhoto.getUrlExpiresAt());
+        assertEquals("http://new-signedurl.com", firstPhoto.getUrl());
+        assertTrue(secondPhoto.getUrlExpiresAt().isAfter(expiringDate));
+        assertEquals("http://new-signedurl.com", photoLinkCache.get("first/blob/path").orElseThrow().url());
+    }
+
+    @Test
+    void testRenewExpiringPhotos_photoMissingInStorage_shouldSkipIt() throws MalformedURLException {
+        LocalDateTime expiringDate = LocalDateTime.now().plusMinutes(1);
+        PhotoLink existingPhoto = createPhotoLink("existing/blob/path", "http://signedurl.com", expiringDate);
+        PhotoLink missingPhoto = createPhotoLink("missing/blob/path", "http://signedurl.com", expiringDate);
+
+        when(photoRepository.findAllByUrlExpiresAtBeforeAndMarkedForDeletionAtIsNull(any()))
+                .thenReturn(List.of(existingPhoto, missingPhoto));
+        when(mockBucket.get(existingPhoto.getBlob())).thenReturn(mockBlob);
+        when(mockBucket.get(missingPhoto.getBlob())).thenReturn(null);
+        when(mockBlob.signUrl(anyLong(), any())).thenReturn(new URL("http://new-signedurl.com"));
+
+        int renewedCount = firebasePhotoService.renewExpiringPhotos();
+
+        assertEquals(1, renewedCount);
+        verify(photoRepository, times(1)).saveAll(List.of(existingPhoto));
+        assertEquals(expiringDate, missingPhoto.getUrlExpiresAt());
+    }
+
+    private static PhotoLink createPhotoLink(String blob, String url, LocalDateTime urlExpiresAt) {
+        return PhotoLink.builder()
+                .blob(blob)
+                .url(url)
+                .urlExpiresAt(urlExpiresAt)
+                .build();
+    }
+
+    private static String sha256Hex(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private static List<Boolean> deleteResults(Iterable<BlobId> blobIds, boolean result) {
+        List<Boolean> results = new ArrayList<>();
+        blobIds.forEach(blobId -> results.add(result));
+        return results;
     }
 }
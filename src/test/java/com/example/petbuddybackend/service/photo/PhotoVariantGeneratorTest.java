@@ -0,0 +1,68 @@
+package com.example.petbuddybackend.service.photo;
+
+import com.example.petbuddybackend.entity.photo.PhotoVariant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhotoVariantGeneratorTest {
+
+    private PhotoVariantGenerator photoVariantGenerator;
+
+    @BeforeEach
+    void setUp() {
+        photoVariantGenerator = new PhotoVariantGenerator();
+        ReflectionTestUtils.setField(photoVariantGenerator, "JPEG_QUALITY", 0.8f);
+    }
+
+    @Test
+    void testGenerateVariants_largeImage_shouldScaleEveryVariantKeepingAspectRatio() throws IOException {
+        byte[] original = createImage(4000, 2000, "png");
+
+        Map<PhotoVariant, byte[]> variants = photoVariantGenerator.generateVariants(new ByteArrayInputStream(original));
+
+        assertEquals(PhotoVariant.values().length, variants.size());
+        for(PhotoVariant variant : PhotoVariant.values()) {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(variants.get(variant)));
+            assertEquals(variant.getMaxDimension(), image.getWidth());
+            assertEquals(variant.getMaxDimension() / 2, image.getHeight());
+        }
+    }
+
+    @Test
+    void testGenerateVariants_smallImage_shouldNotUpscale() throws IOException {
+        byte[] original = createImage(100, 50, "jpeg");
+
+        Map<PhotoVariant, byte[]> variants = photoVariantGenerator.generateVariants(new ByteArrayInputStream(original));
+
+        BufferedImage detail = ImageIO.read(new ByteArrayInputStream(variants.get(PhotoVariant.DETAIL)));
+        BufferedImage avatar = ImageIO.read(new ByteArrayInputStream(variants.get(PhotoVariant.AVATAR)));
+        assertEquals(100, detail.getWidth());
+        assertEquals(64, avatar.getWidth());
+    }
+
+    @Test
+    void testGenerateVariants_unreadableFormat_shouldReturnNoVariants() throws IOException {
+        Map<PhotoVariant, byte[]> variants = photoVariantGenerator.generateVariants(
+                new ByteArrayInputStream(new byte[]{0, 1, 2})
+        );
+
+        assertTrue(variants.isEmpty());
+    }
+
+    private byte[] createImage(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, format, outputStream);
+        return outputStream.toByteArray();
+    }
+}
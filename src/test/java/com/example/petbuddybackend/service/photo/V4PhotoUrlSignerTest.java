@@ -0,0 +1,94 @@
+package com.example.petbuddybackend.service.photo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class V4PhotoUrlSignerTest {
+
+    private static final String CLIENT_EMAIL = "photo-signer@petbuddy-test.iam.gserviceaccount.com";
+    private static final String BUCKET = "petbuddy-test.appspot.com";
+    private static final String BLOB_PATH = "photos/3f2a9c1e-7b4d-4e0a-9c55-1d2e3f4a5b6c";
+    private static final Instant NOW = Instant.parse("2024-01-15T10:30:00Z");
+
+    private static final String PRIVATE_KEY = String.join("",
+            "MIIEvQIBADANBgkqhkiG9w0BAQEFAASCBKcwggSjAgEAAoIBAQDDRf8dapxHrYiu",
+            "RMLFZ1xOAB+3BrCEdCSekHf8QGlXc3QN7KPNkJPP7MQlbZkZGQpgaXoUp8KCxHtD",
+            "VabGoen9xd6Bmlk46hN5gtm/rI/G1QJmsGOBA6Ho6MRHrAYNbTJbK0GPsHFRGYm6",
+            "ZMwrf4mrsCwWR/JsP7eaSMgruCrciXOmP+GB93CBfZ7KPBU7pqGnnIL+QZPACgkT",
+            "Eplktg94qn6O641uF/sfWFjBcmgtvFMXKAoaVHjn3wKZrU3FMMuR2e5OyUqbCaC+",
+            "ddIzY05RBs5FPOL/2bGNfeq/dpKk+pvKToXQBnwnBQ1+uFsGgWe6+XsxZbM0fSLp",
+            "h+37c2QfAgMBAAECggEAMJaTIwuq9T7dupcLa7kLQ7FOMulsNJj9n6LM6CxSydrF",
+            "bs2J+JVX4i3EpJd/t7n+Vf0IzmjrwkQHc7q1M8mIAogglFkGiF3eGKcRbVsPr2bD",
+            "ITAUoj54JA7+/+Jy4xZfqEW8G3fIymgzV/jKwKwMYncEkUq3rG2yTqZ7gD1kFNmC",
+            "vxzQ8h2rdPTaTpxnvZkxFqBNe/OQArh7Gn/aMO/9KELfzBtSTvQ7oHSkRD2IdonR",
+            "nAm8ieNSerijKta+Wc86rBiQ7rgODYxL6ZS9ppQN0Y4nspkXhkKh3HaMEehfx8A1",
+            "bX9j2uy/o1shylbNGoASqDRbO8QNxOKjj0eZ2kJJQQKBgQD6PRfXjLxdfHpGwlKP",
+            "aOjKF5hg1p5akwIncedSE25pphek2EJDpZZdv61FimEAdjTCRpnaQy3NrgZR4HT9",
+            "RViAiI/yoCRHzPYoEDxWaqK5IHExTjZTp0XZtkuNhcnHVLU1JJ+2ZRGhI1p4q3jp",
+            "uXN4pN3XelMHzdJvch0TAc2XPwKBgQDHxPA2jynP9dPV0WUVExOD5BO0cqFC9625",
+            "3WfthhZ2RFufCCLWXImMmLqnEWzrATMSkTyfZuAk6BHV7BHZdmqhK55VDQadJVsU",
+            "/sfKEal7z50M5q++Z8mD7dv/LrXTbYim2BgwytnQOkUyQsdC8BFaklEGMRBKZjSD",
+            "fgYpTHDbIQKBgBZYNjTNIFTItLJ0z6J2n7LMAJNFFsbHsb2L8jfl/En6xsm1ddVM",
+            "h+y/HN3EyXydEYD3hO10ajaff3j4LfofoxN3HkNwAU1YA/L34CtnQjh9qR3Z+gfm",
+            "O9qA6KYueCIQck3Yg1pqE/TrjzyPMzDLmn//WL/Q8HEV8+B3tBjqZE1JAoGALOGu",
+            "JlPbzQEp6qv0zdtPUx523t+yI12KBmwb4V1yxndtLjmhug9oR9I4fTiJA/NtCgrf",
+            "V+DBEwmgmDNFf1n/ct5d4DXg+oVeBUWIlXmKXmqymidp7JlcyOsztg1EhI/jV7jN",
+            "Fok8jm/JBBXEtuFAxNyCn6V+R3jW64Pw1m56HIECgYEA6UJHH7B39QH9s6JayJ4k",
+            "oet2m5njX2U7MjRzvMN/dBwagUawJ1HD41YxxRbISmbIU4HZgoWA8ODw2LS6IK2K",
+            "mtpG6+sRb86pF7br8ctNvSHR0wq1O0XMj4fKVaCdR2gDZnW4qYvWxPQCZwVH+TeC",
+            "9JEZhZiUJFPc+TiuV9m+tzE="
+    );
+
+    private static final String EXPECTED_URL = "https://storage.googleapis.com/petbuddy-test.appspot.com/photos/3f2a9c1e-7b4d-4e0a-9c55-1d2e3f4a5b6c?X-Goog-Algorithm=GOOG4-RSA-SHA256&X-Goog-Credential=photo-signer%40petbuddy-test.iam.gserviceaccount.com%2F20240115%2Fauto%2Fstorage%2Fgoog4_request&X-Goog-Date=20240115T103000Z&X-Goog-Expires=21600&X-Goog-SignedHeaders=host";
+
+    private static final String EXPECTED_SIGNATURE =
+            "34d163205091e62c2e9c878783abd7069c3af53b18826cce45e27acd065a856e46c7a754baef114959d98d2746b84b9e" +
+            "669af5f7fae1da29133a19618b74607d3722437fd567c910bf0fd79ac64f45cdf051539047af899ba34dd545e092b1cc" +
+            "ae9f97bcfaf2419ab5eed07ba773ad27b2fb3f5d420b3ae76e5006201353c79cb49dd6b98aff5d901f890db3765e5aec" +
+            "d5818f6629a6e92c35461c01737e66bdd5de8bc9d5e43e9fe99e46fc01e653ff76efed23047701523396955619ec0dbf" +
+            "8c187969e2210ff77bf563bf03fa0a0762e5cdc07c557d43d6db4a866fa751ab11ae0212b660a8fa78446e432c5f3582" +
+            "3bb8edd273e4d4fd1451765fca101e78";
+
+    private V4PhotoUrlSigner signer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        PrivateKey privateKey = KeyFactory.getInstance("RSA")
+                .generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(PRIVATE_KEY)));
+
+        signer = new V4PhotoUrlSigner(
+                CLIENT_EMAIL,
+                privateKey,
+                BUCKET,
+                Clock.fixed(NOW, ZoneId.of("Europe/Warsaw"))
+        );
+    }
+
+    @Test
+    void testSignUrl_fixedKeyAndClock_shouldMatchExpectedSignature() {
+        String signedUrl = signer.signUrl(BLOB_PATH, 21600);
+
+        assertEquals(EXPECTED_URL + "&X-Goog-Signature=" + EXPECTED_SIGNATURE, signedUrl);
+    }
+
+    @Test
+    void testSignUrl_expirationAboveSevenDays_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> signer.signUrl(BLOB_PATH, 604801));
+    }
+
+    @Test
+    void testSignUrl_nonPositiveExpiration_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> signer.signUrl(BLOB_PATH, 0));
+    }
+}
@@ -159,6 +159,38 @@ public class RatingServiceTest {
         });
     }
 
+    @Test
+    void rateCaretaker_createUpdateAndDelete_shouldMaintainRatingAggregates() {
+        ratingService.rateCaretaker(client.getEmail(), confirmedCare.getId(), 3, "comment");
+        assertRatingAggregates(1, 3);
+
+        ratingService.rateCaretaker(client.getEmail(), confirmedCare.getId(), 5, "new comment");
+        assertRatingAggregates(1, 5);
+
+        ratingService.deleteRating(client.getEmail(), confirmedCare.getId());
+        assertRatingAggregates(0, 0);
+    }
+
+    @Test
+    void reconcileRatingAggregates_shouldRepairAggregatesOfRatingsAddedBypassingService() {
+        transactionTemplate.execute(status ->
+                PersistenceUtils.addRatingToCaretaker(ratingRepository, createMockRating(confirmedCare))
+        );
+        assertRatingAggregates(0, 0);
+
+        assertEquals(1, caretakerRepository.reconcileRatingAggregates());
+        assertEquals(0, caretakerRepository.reconcileRatingAggregates());
+
+        Rating rating = ratingRepository.findById(confirmedCare.getId()).orElseThrow();
+        assertRatingAggregates(1, rating.getRating());
+    }
+
+    private void assertRatingAggregates(int expectedNumberOfRatings, int expectedRatingSum) {
+        Caretaker ratedCaretaker = caretakerRepository.findById(caretaker.getEmail()).orElseThrow();
+        assertEquals(expectedNumberOfRatings, ratedCaretaker.getNumberOfRatings());
+        assertEquals(expectedRatingSum, ratedCaretaker.getRatingSum());
+    }
+
     @ParameterizedTest
     @MethodSource("provideRatingParams")
     void rateCaretaker_invalidRating_(int rating, boolean shouldSucceed) {
@@ -3,9 +3,12 @@ package com.example.petbuddybackend.service.user;
 import com.example.petbuddybackend.dto.address.AddressDTO;
 import com.example.petbuddybackend.dto.availability.AvailabilityFilterDTO;
 import com.example.petbuddybackend.dto.criteriaSearch.CaretakerSearchCriteria;
+import com.example.petbuddybackend.dto.criteriaSearch.MapViewportCriteria;
 import com.example.petbuddybackend.dto.offer.OfferConfigurationFilterDTO;
 import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
+import com.example.petbuddybackend.dto.paging.CursorPagingParams;
 import com.example.petbuddybackend.dto.user.*;
+import com.example.petbuddybackend.entity.address.Address;
 import com.example.petbuddybackend.entity.address.Voivodeship;
 import com.example.petbuddybackend.entity.availability.Availability;
 import com.example.petbuddybackend.entity.care.Care;
@@ -23,12 +26,17 @@ import com.example.petbuddybackend.repository.rating.RatingRepository;
 import com.example.petbuddybackend.repository.user.AppUserRepository;
 import com.example.petbuddybackend.repository.user.CaretakerRepository;
 import com.example.petbuddybackend.repository.user.ClientRepository;
+import com.example.petbuddybackend.service.offer.CaretakerSearchIndexer;
 import com.example.petbuddybackend.testconfig.TestDataConfiguration;
 import com.example.petbuddybackend.testutils.PersistenceUtils;
 import com.example.petbuddybackend.testutils.ReflectionUtils;
 import com.example.petbuddybackend.testutils.mock.MockRatingProvider;
+import com.example.petbuddybackend.utils.exception.throweable.general.IllegalActionException;
 import com.example.petbuddybackend.utils.exception.throweable.general.NotFoundException;
 import com.example.petbuddybackend.utils.provider.geolocation.GeolocationProvider;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -47,6 +55,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.example.petbuddybackend.testutils.ReflectionUtils.getPrimitiveNames;
@@ -91,6 +100,21 @@ public class CaretakerServiceIntegrationTest {
     @Autowired
     private CareRepository careRepository;
 
+    @Autowired
+    private CaretakerLocationIndex caretakerLocationIndex;
+
+    @Autowired
+    private CaretakerSearchIndexer caretakerSearchIndexer;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private CaretakerSearchCache caretakerSearchCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @MockBean
     private GeolocationProvider geolocationProvider;
 
@@ -103,9 +127,11 @@ public class CaretakerServiceIntegrationTest {
     void init() {
         initCaretakers();
         initClients(this.caretaker);
-        when(geolocationProvider.getCoordinatesOfAddress(anyString(), any()))
-                .thenReturn(createMockCoordinates());
-        when(geolocationProvider.getCoordinatesOfAddress(anyString(), anyString(), anyString()))
+        userSearchIndex.rebuild();
+        caretakerSearchCache.clear();
+        when(geolocationProvider.findCoordinatesOfAddress(anyString(), any(), any()))
+                .thenReturn(Optional.of(createMockCoordinates()));
+        when(geolocationProvider.getCoordinatesOfAddress(anyString(), any(), anyString(), anyString()))
                 .thenReturn(createMockCoordinates());
     }
 
@@ -378,6 +404,8 @@ public class CaretakerServiceIntegrationTest {
 
         appUserRepository.deleteAll();
         createCaretakersWithComplexOffers();
+        caretakerSearchIndexer.rebuild();
+        userSearchIndex.rebuild();
         SearchCaretakersResponseDTO result = caretakerService.getCaretakers(Pageable.ofSize(10), filters, offerFilters);
         assertEquals(expectedSize, result.caretakers().getContent().size());
 
@@ -1038,6 +1066,8 @@ public class CaretakerServiceIntegrationTest {
         Rating rating2 = MockRatingProvider.createMockRating(care2, 4, "commentSecond");
         PersistenceUtils.addRatingToCaretaker(ratingRepository, rating1);
         PersistenceUtils.addRatingToCaretaker(ratingRepository, rating2);
+        // Ratings added bypassing the service are counted by reconciliation
+        caretakerRepository.reconcileRatingAggregates();
 
         // When
         SearchCaretakersResponseDTO result = caretakerService.getCaretakers(
@@ -1053,6 +1083,215 @@ public class CaretakerServiceIntegrationTest {
 
     }
 
+    @Test
+    void getCaretakers_withinRadius_shouldReturnOnlyNearbyCaretakers() {
+        createCaretakersInDifferentCities();
+
+        SearchCaretakersResponseDTO result = caretakerService.getCaretakers(
+                Pageable.ofSize(10),
+                CaretakerSearchCriteria.builder()
+                        .latitude(BigDecimal.valueOf(52.2297))
+                        .longitude(BigDecimal.valueOf(21.0122))
+                        .radiusKm(20.0)
+                        .build(),
+                Collections.emptySet()
+        );
+
+        Set<String> emails = result.caretakers().getContent().stream()
+                .map(caretakerDTO -> caretakerDTO.accountData().email())
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("warszawa@mail", "pruszkow@mail"), emails);
+    }
+
+    @Test
+    void getCaretakers_sortByDistance_shouldReturnNearestFirstIgnoringPageableSort() {
+        createCaretakersInDifferentCities();
+
+        SearchCaretakersResponseDTO result = caretakerService.getCaretakers(
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "email")),
+                CaretakerSearchCriteria.builder()
+                        .latitude(BigDecimal.valueOf(50.0647))
+                        .longitude(BigDecimal.valueOf(19.9450))
+                        .sortByDistance(true)
+                        .build(),
+                Collections.emptySet()
+        );
+
+        List<String> emails = result.caretakers().getContent().stream()
+                .map(caretakerDTO -> caretakerDTO.accountData().email())
+                .toList();
+        assertEquals(List.of("krakow@mail", "pruszkow@mail", "warszawa@mail"), emails);
+    }
+
+    @Test
+    void getCaretakers_distanceSearchWithoutPoint_shouldThrow() {
+        CaretakerSearchCriteria filters = CaretakerSearchCriteria.builder()
+                .radiusKm(10.0)
+                .build();
+
+        assertThrows(IllegalActionException.class,
+                () -> caretakerService.getCaretakers(Pageable.ofSize(10), filters, Collections.emptySet()));
+    }
+
+    @Test
+    void getCaretakers_repeatedSearch_shouldBeServedFromCacheUntilVoivodeshipEvicted() {
+        createCaretakersInDifferentCities();
+        CaretakerSearchCriteria filters = CaretakerSearchCriteria.builder()
+                .voivodeship(Voivodeship.MAZOWIECKIE)
+                .build();
+
+        assertEquals(2, getTotalCaretakers(filters));
+
+        // Added bypassing the service, so only explicit eviction refreshes the cached search
+        addCaretakerAt("radom@mail", Voivodeship.MAZOWIECKIE, "Radom", 51.4027, 21.1471);
+        caretakerSearchCache.evictCaretaker(Voivodeship.MALOPOLSKIE);
+        assertEquals(2, getTotalCaretakers(filters));
+        assertTrue(caretakerSearchCache.getHitRatio() > 0);
+
+        caretakerSearchCache.evictCaretaker(Voivodeship.MAZOWIECKIE);
+        assertEquals(3, getTotalCaretakers(filters));
+    }
+
+    private long getTotalCaretakers(CaretakerSearchCriteria filters) {
+        return caretakerService.getCaretakers(Pageable.ofSize(10), filters, Collections.emptySet())
+                .caretakers()
+                .getTotalElements();
+    }
+
+    @Test
+    void getCaretakers_shouldLoadPageInSameNumberOfQueriesRegardlessOfPageSize() {
+        createCaretakersInDifferentCities();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        long singleCaretakerPageQueries = countQueriesOfSearch(statistics, 1);
+        long twoCaretakersPageQueries = countQueriesOfSearch(statistics, 2);
+        statistics.setStatisticsEnabled(false);
+
+        assertEquals(singleCaretakerPageQueries, twoCaretakersPageQueries);
+    }
+
+    private long countQueriesOfSearch(Statistics statistics, int pageSize) {
+        statistics.clear();
+        caretakerService.getCaretakers(
+                Pageable.ofSize(pageSize),
+                CaretakerSearchCriteria.builder().build(),
+                Collections.emptySet()
+        );
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void scrollCaretakers_shouldReturnAllCaretakersInRatingOrderAcrossPages() {
+        createCaretakersInDifferentCities();
+        setRatingScore("warszawa@mail", 4.5f);
+        setRatingScore("krakow@mail", 4.5f);
+
+        List<String> emails = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            ScrollCaretakersResponseDTO result = caretakerService.scrollCaretakers(
+                    new CursorPagingParams(cursor, 1),
+                    CaretakerSearchCriteria.builder().build(),
+                    Collections.emptySet()
+            );
+
+            assertTrue(result.caretakers().size() <= 1);
+            result.caretakers().forEach(caretakerDTO -> emails.add(caretakerDTO.accountData().email()));
+            cursor = result.nextCursor();
+        } while(cursor != null);
+
+        assertEquals(List.of("pruszkow@mail", "krakow@mail", "warszawa@mail"), emails);
+    }
+
+    @Test
+    void scrollCaretakers_invalidCursor_shouldThrow() {
+        CursorPagingParams pagingParams = new CursorPagingParams("not a cursor", 10);
+        CaretakerSearchCriteria filters = CaretakerSearchCriteria.builder().build();
+
+        assertThrows(IllegalActionException.class,
+                () -> caretakerService.scrollCaretakers(pagingParams, filters, Collections.emptySet()));
+    }
+
+    @Test
+    void getCaretakerClusters_shouldGroupNearbyCaretakersAtLowZoom() {
+        createCaretakersInDifferentCities();
+        caretakerLocationIndex.rebuild();
+
+        List<CaretakerClusterDTO> clusters = caretakerService.getCaretakerClusters(createPolandViewport(5));
+
+        List<Integer> counts = clusters.stream()
+                .map(CaretakerClusterDTO::count)
+                .sorted()
+                .toList();
+        assertEquals(List.of(1, 2), counts);
+
+        CaretakerClusterDTO warszawaCluster = clusters.stream()
+                .filter(cluster -> cluster.count() == 2)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(Set.of("warszawa@mail", "pruszkow@mail"), Set.copyOf(warszawaCluster.sampleCaretakerEmails()));
+    }
+
+    @Test
+    void getCaretakerClusters_shouldSeparateCaretakersAtHighZoom() {
+        createCaretakersInDifferentCities();
+        caretakerLocationIndex.rebuild();
+
+        List<CaretakerClusterDTO> clusters = caretakerService.getCaretakerClusters(createPolandViewport(12));
+
+        assertEquals(3, clusters.size());
+        assertTrue(clusters.stream().allMatch(cluster -> cluster.count() == 1));
+    }
+
+    @Test
+    void getCaretakerClusters_invertedViewport_shouldThrow() {
+        MapViewportCriteria viewport = MapViewportCriteria.builder()
+                .minLatitude(BigDecimal.valueOf(55))
+                .maxLatitude(BigDecimal.valueOf(49))
+                .minLongitude(BigDecimal.valueOf(14))
+                .maxLongitude(BigDecimal.valueOf(24.5))
+                .zoom(5)
+                .build();
+
+        assertThrows(IllegalActionException.class, () -> caretakerService.getCaretakerClusters(viewport));
+    }
+
+    private MapViewportCriteria createPolandViewport(int zoom) {
+        return MapViewportCriteria.builder()
+                .minLatitude(BigDecimal.valueOf(49))
+                .maxLatitude(BigDecimal.valueOf(55))
+                .minLongitude(BigDecimal.valueOf(14))
+                .maxLongitude(BigDecimal.valueOf(24.5))
+                .zoom(zoom)
+                .build();
+    }
+
+    private void createCaretakersInDifferentCities() {
+        appUserRepository.deleteAll();
+        addCaretakerAt("warszawa@mail", Voivodeship.MAZOWIECKIE, "Warszawa", 52.2297, 21.0122);
+        addCaretakerAt("pruszkow@mail", Voivodeship.MAZOWIECKIE, "Pruszków", 52.1709, 20.8120);
+        addCaretakerAt("krakow@mail", Voivodeship.MALOPOLSKIE, "Kraków", 50.0647, 19.9450);
+    }
+
+    private void setRatingScore(String email, float ratingScore) {
+        Caretaker ratedCaretaker = caretakerRepository.findById(email).orElseThrow();
+        ratedCaretaker.setRatingScore(ratingScore);
+        caretakerRepository.save(ratedCaretaker);
+    }
+
+    private void addCaretakerAt(String email, Voivodeship voivodeship, String city, double latitude, double longitude) {
+        Address address = createMockAddress(voivodeship, city);
+        address.setLatitude(BigDecimal.valueOf(latitude));
+        address.setLongitude(BigDecimal.valueOf(longitude));
+        PersistenceUtils.addCaretaker(
+                caretakerRepository,
+                appUserRepository,
+                createMockCaretaker("name", "surname", email, address)
+        );
+    }
+
     @Test
     void testGetCaretakers_sortingParamsShouldAlignWithDTO() {
         List<String> fieldNames = ReflectionUtils.getPrimitiveNames(CaretakerDTO.class);
@@ -1158,7 +1397,7 @@ public class CaretakerServiceIntegrationTest {
                 .build();
 
 
-        when(geolocationProvider.getCoordinatesOfAddress(anyString(), anyString(), anyString())).thenThrow(NotFoundException.class);
+        when(geolocationProvider.getCoordinatesOfAddress(anyString(), any(), anyString(), anyString())).thenThrow(NotFoundException.class);
 
         //When Then
         assertThrows(NotFoundException.class,
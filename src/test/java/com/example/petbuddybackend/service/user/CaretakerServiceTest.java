@@ -118,7 +118,7 @@ public class CaretakerServiceTest {
 
         when(caretakerRepository.findById(eq(caretaker.getEmail())))
                 .thenReturn(Optional.of(caretaker));
-        when(geolocationProvider.getCoordinatesOfAddress(anyString(), anyString(), anyString()))
+        when(geolocationProvider.getCoordinatesOfAddress(anyString(), any(), anyString(), anyString()))
                 .thenReturn(createMockCoordinates());
 
         assertThrows(PhotoLimitException.class,
@@ -41,12 +41,11 @@ public class UserServiceTest {
             new byte[]{1, 2, 3}
     );
 
-    private static final PhotoLink photoLink = new PhotoLink(
-            "testBlob",
-            "testURL",
-            LocalDateTime.now()
-            , null
-    );
+    private static final PhotoLink photoLink = PhotoLink.builder()
+            .blob("testBlob")
+            .url("testURL")
+            .urlExpiresAt(LocalDateTime.now())
+            .build();
 
     @Mock
     private AppUserRepository userRepository;
@@ -63,6 +62,9 @@ public class UserServiceTest {
     @Mock
     private BlockRepository blockRepository;
 
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
     @InjectMocks
     private UserService userService;
 
@@ -98,6 +100,7 @@ public class UserServiceTest {
         assertEquals(EMAIL, user.getEmail());
         assertEquals(NAME, user.getName());
         assertEquals(SURNAME, user.getSurname());
+        verify(userSearchIndex).updateUser(EMAIL, NAME, SURNAME);
     }
 
     @Test
@@ -119,7 +122,11 @@ public class UserServiceTest {
     @Test
     void getProfileData_shouldSucceed() {
         // Given
-        PhotoLink existingProfilePicture = new PhotoLink("oldBlob", "oldURL", LocalDateTime.now(), null);
+        PhotoLink existingProfilePicture = PhotoLink.builder()
+                .blob("oldBlob")
+                .url("oldURL")
+                .urlExpiresAt(LocalDateTime.now())
+                .build();
         AppUser userWithPicture = AppUser.builder()
                 .email(EMAIL)
                 .profilePicture(existingProfilePicture)
@@ -206,7 +213,7 @@ public class UserServiceTest {
         userService.uploadProfilePicture(USERNAME, profilePicture);
 
         // Then
-        verify(userRepository, times(2)).save(userCaptor.capture());
+        verify(userRepository).save(userCaptor.capture());
         verify(photoService).schedulePhotoDeletion(photoLink);
         AppUser savedUser = userCaptor.getValue();
         assertEquals(newPhoto, savedUser.getProfilePicture());
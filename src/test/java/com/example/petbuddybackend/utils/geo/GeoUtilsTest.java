@@ -0,0 +1,84 @@
+package com.example.petbuddybackend.utils.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeoUtilsTest {
+
+    private static final double WARSZAWA_LATITUDE = 52.2297;
+    private static final double WARSZAWA_LONGITUDE = 21.0122;
+
+    @Test
+    void distanceKm_warszawaToKrakow_shouldBeAbout252Km() {
+        double distance = GeoUtils.distanceKm(WARSZAWA_LATITUDE, WARSZAWA_LONGITUDE, 50.0647, 19.9450);
+
+        assertEquals(252, distance, 2);
+    }
+
+    @Test
+    void distanceKm_samePoint_shouldBeZero() {
+        assertEquals(0, GeoUtils.distanceKm(WARSZAWA_LATITUDE, WARSZAWA_LONGITUDE, WARSZAWA_LATITUDE, WARSZAWA_LONGITUDE));
+    }
+
+    @Test
+    void gridCellOf_pointsCloseTogether_shouldShareCell() {
+        assertEquals(GeoUtils.gridCellOf(52.21, 21.01), GeoUtils.gridCellOf(52.29, 21.09));
+        assertNotEquals(GeoUtils.gridCellOf(52.21, 21.01), GeoUtils.gridCellOf(52.31, 21.01));
+    }
+
+    @Test
+    void boundingBox_shouldContainWholeCircle() {
+        GeoUtils.BoundingBox box = GeoUtils.BoundingBox.around(WARSZAWA_LATITUDE, WARSZAWA_LONGITUDE, 10);
+
+        for(int bearing = 0; bearing < 360; bearing += 15) {
+            double[] point = destination(WARSZAWA_LATITUDE, WARSZAWA_LONGITUDE, bearing, 9.99);
+            assertTrue(box.contains(point[0], point[1]), "Bearing " + bearing);
+        }
+    }
+
+    @Test
+    void gridCells_smallBox_shouldContainCellsOfPointsInside() {
+        GeoUtils.BoundingBox box = GeoUtils.BoundingBox.around(WARSZAWA_LATITUDE, WARSZAWA_LONGITUDE, 10);
+        List<Integer> cells = box.gridCells(64);
+
+        assertFalse(cells.isEmpty());
+        assertTrue(cells.contains(GeoUtils.gridCellOf(WARSZAWA_LATITUDE, WARSZAWA_LONGITUDE)));
+        assertTrue(cells.contains(GeoUtils.gridCellOf(box.minLatitude(), box.minLongitude())));
+        assertTrue(cells.contains(GeoUtils.gridCellOf(box.maxLatitude(), box.maxLongitude())));
+    }
+
+    @Test
+    void gridCells_boxLargerThanLimit_shouldReturnEmpty() {
+        GeoUtils.BoundingBox box = GeoUtils.BoundingBox.around(WARSZAWA_LATITUDE, WARSZAWA_LONGITUDE, 300);
+
+        assertTrue(box.gridCells(64).isEmpty());
+    }
+
+    @Test
+    void boundingBox_nearPole_shouldSpanAllLongitudes() {
+        GeoUtils.BoundingBox box = GeoUtils.BoundingBox.around(89.95, 0, 20);
+
+        assertEquals(-180, box.minLongitude());
+        assertEquals(180, box.maxLongitude());
+    }
+
+    private static double[] destination(double latitude, double longitude, double bearingDegrees, double distanceKm) {
+        double angularDistance = distanceKm / GeoUtils.EARTH_RADIUS_KM;
+        double bearing = Math.toRadians(bearingDegrees);
+        double latitudeRadians = Math.toRadians(latitude);
+
+        double destinationLatitude = Math.asin(
+                Math.sin(latitudeRadians) * Math.cos(angularDistance) +
+                Math.cos(latitudeRadians) * Math.sin(angularDistance) * Math.cos(bearing)
+        );
+        double destinationLongitude = Math.toRadians(longitude) + Math.atan2(
+                Math.sin(bearing) * Math.sin(angularDistance) * Math.cos(latitudeRadians),
+                Math.cos(angularDistance) - Math.sin(latitudeRadians) * Math.sin(destinationLatitude)
+        );
+
+        return new double[] {Math.toDegrees(destinationLatitude), Math.toDegrees(destinationLongitude)};
+    }
+}
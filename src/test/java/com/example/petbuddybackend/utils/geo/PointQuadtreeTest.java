@@ -0,0 +1,112 @@
+package com.example.petbuddybackend.utils.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PointQuadtreeTest {
+
+    private static final GeoUtils.BoundingBox POLAND = new GeoUtils.BoundingBox(49, 55, 14, 24.5);
+    private static final GeoUtils.BoundingBox WORLD = new GeoUtils.BoundingBox(-90, 90, -180, 180);
+
+    private PointQuadtree quadtree;
+
+    @BeforeEach
+    void setUp() {
+        quadtree = new PointQuadtree();
+    }
+
+    @Test
+    void cluster_lowDepth_shouldGroupNearbyPoints() {
+        addPointsAround("warszawa", 52.2297, 21.0122, 40);
+        addPointsAround("krakow", 50.0647, 19.9450, 30);
+
+        List<PointQuadtree.Cluster> clusters = quadtree.cluster(POLAND, 7, 5);
+
+        assertEquals(2, clusters.size());
+        assertEquals(70, clusters.stream().mapToInt(PointQuadtree.Cluster::count).sum());
+
+        PointQuadtree.Cluster warszawa = clusterWithCount(clusters, 40);
+        assertEquals(52.2297, warszawa.latitude(), 0.01);
+        assertEquals(21.0122, warszawa.longitude(), 0.01);
+    }
+
+    @Test
+    void cluster_maxDepth_shouldSeparateDistinctPoints() {
+        addPointsAround("warszawa", 52.2297, 21.0122, 40);
+
+        List<PointQuadtree.Cluster> clusters = quadtree.cluster(POLAND, PointQuadtree.MAX_DEPTH, 5);
+
+        assertEquals(40, clusters.size());
+        assertTrue(clusters.stream().allMatch(cluster -> cluster.count() == 1));
+    }
+
+    @Test
+    void cluster_shouldLimitSampleSize() {
+        addPointsAround("warszawa", 52.2297, 21.0122, 40);
+
+        List<PointQuadtree.Cluster> clusters = quadtree.cluster(WORLD, 0, 3);
+
+        assertEquals(1, clusters.size());
+        assertEquals(40, clusters.get(0).count());
+        assertEquals(3, clusters.get(0).sampleIds().size());
+    }
+
+    @Test
+    void cluster_shouldSkipPointsOutsideBox() {
+        addPointsAround("warszawa", 52.2297, 21.0122, 20);
+        quadtree.put("berlin", 52.5200, 13.4050);
+
+        List<PointQuadtree.Cluster> clusters = quadtree.cluster(POLAND, 0, 5);
+
+        assertEquals(1, clusters.size());
+        assertEquals(20, clusters.get(0).count());
+        assertFalse(clusters.get(0).sampleIds().contains("berlin"));
+    }
+
+    @Test
+    void put_existingId_shouldMovePoint() {
+        quadtree.put("caretaker", 52.2297, 21.0122);
+        quadtree.put("caretaker", 50.0647, 19.9450);
+
+        List<PointQuadtree.Cluster> clusters = quadtree.cluster(WORLD, 0, 5);
+
+        assertEquals(1, quadtree.size());
+        assertEquals(1, clusters.size());
+        assertEquals(50.0647, clusters.get(0).latitude(), 1e-9);
+        assertEquals(19.9450, clusters.get(0).longitude(), 1e-9);
+    }
+
+    @Test
+    void remove_shouldDropPointFromClusters() {
+        addPointsAround("warszawa", 52.2297, 21.0122, 40);
+
+        for(int i = 0; i < 30; i++) {
+            quadtree.remove("warszawa" + i);
+        }
+        quadtree.remove("unknown");
+
+        List<PointQuadtree.Cluster> clusters = quadtree.cluster(POLAND, 7, 20);
+
+        assertEquals(10, quadtree.size());
+        assertEquals(1, clusters.size());
+        assertEquals(10, clusters.get(0).count());
+        assertFalse(clusters.get(0).sampleIds().contains("warszawa0"));
+    }
+
+    private void addPointsAround(String prefix, double latitude, double longitude, int count) {
+        for(int i = 0; i < count; i++) {
+            quadtree.put(prefix + i, latitude + (i % 7) * 0.001, longitude + (i / 7) * 0.001);
+        }
+    }
+
+    private PointQuadtree.Cluster clusterWithCount(List<PointQuadtree.Cluster> clusters, int count) {
+        return clusters.stream()
+                .filter(cluster -> cluster.count() == count)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.petbuddybackend.utils.paging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CaretakerCursorTest {
+
+    @Test
+    void decode_encodedCursor_shouldReturnSameCursor() {
+        CaretakerCursor cursor = new CaretakerCursor(4.3125f, "caretaker:with@colon.mail");
+
+        assertEquals(cursor, CaretakerCursor.decode(cursor.encode()).orElseThrow());
+    }
+
+    @Test
+    void decode_encodedCursorWithoutRatingScore_shouldReturnSameCursor() {
+        CaretakerCursor cursor = new CaretakerCursor(null, "caretaker@mail");
+
+        assertEquals(cursor, CaretakerCursor.decode(cursor.encode()).orElseThrow());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not a cursor", "YWJj", "NC41Og", "eDpjYXJldGFrZXJAbWFpbA"})
+    void decode_invalidToken_shouldReturnEmpty(String token) {
+        assertTrue(CaretakerCursor.decode(token).isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.petbuddybackend.utils.provider.geolocation;
+
+import com.example.petbuddybackend.entity.address.Voivodeship;
+import com.example.petbuddybackend.utils.provider.geolocation.dto.Coordinates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CityGazetteerTest {
+
+    private CityGazetteer cityGazetteer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cityGazetteer = new CityGazetteer();
+        ReflectionTestUtils.setField(cityGazetteer, "GAZETTEER", new ClassPathResource("geocoding/pl-cities.csv.gz"));
+        cityGazetteer.loadGazetteer();
+    }
+
+    @Test
+    void loadGazetteer_shouldLoadAllEntries() {
+        assertTrue(cityGazetteer.size() > 200);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Łódź", "lodz", "LODZ", "  Łódź "})
+    void find_differentSpellings_shouldFindCity(String city) {
+        Optional<Coordinates> coordinates = cityGazetteer.find(city);
+
+        assertTrue(coordinates.isPresent());
+        assertEquals(new BigDecimal("51.7592"), coordinates.get().latitude());
+        assertEquals(new BigDecimal("19.4560"), coordinates.get().longitude());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Bielsko-Biała", "bielsko biala", "Bielsko - Biala"})
+    void find_hyphenatedName_shouldIgnoreHyphens(String city) {
+        assertTrue(cityGazetteer.find(city).isPresent());
+    }
+
+    @Test
+    void find_nameInMultipleVoivodeships_shouldDisambiguateByVoivodeship() {
+        Coordinates mazowieckie = cityGazetteer.find("Józefów", Voivodeship.MAZOWIECKIE).orElseThrow();
+        Coordinates lubelskie = cityGazetteer.find("Józefów", Voivodeship.LUBELSKIE).orElseThrow();
+
+        assertNotEquals(mazowieckie, lubelskie);
+        assertEquals(mazowieckie, cityGazetteer.find("Józefów").orElseThrow());
+    }
+
+    @Test
+    void find_wrongVoivodeship_shouldReturnEmpty() {
+        assertTrue(cityGazetteer.find("Kraków", Voivodeship.POMORSKIE).isEmpty());
+    }
+
+    @Test
+    void find_unknownCity_shouldReturnEmpty() {
+        assertTrue(cityGazetteer.find("Atlantis").isEmpty());
+        assertTrue(cityGazetteer.find(null).isEmpty());
+    }
+}
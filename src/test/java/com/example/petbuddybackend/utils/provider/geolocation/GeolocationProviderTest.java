@@ -0,0 +1,217 @@
+package com.example.petbuddybackend.utils.provider.geolocation;
+
+import com.example.petbuddybackend.entity.address.Voivodeship;
+import com.example.petbuddybackend.repository.address.GeocodedAddressRepository;
+import com.example.petbuddybackend.utils.exception.throweable.general.GeocodingUnavailableException;
+import com.example.petbuddybackend.utils.exception.throweable.general.NotFoundException;
+import com.example.petbuddybackend.utils.provider.geolocation.dto.Coordinates;
+import com.google.firebase.FirebaseApp;
+import com.opencagedata.jopencage.JOpenCageGeocoder;
+import com.opencagedata.jopencage.model.JOpenCageForwardRequest;
+import com.opencagedata.jopencage.model.JOpenCageGeometry;
+import com.opencagedata.jopencage.model.JOpenCageResponse;
+import com.opencagedata.jopencage.model.JOpenCageResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class GeolocationProviderTest {
+
+    @Autowired
+    private GeolocationProvider geolocationProvider;
+
+    @Autowired
+    private GeocodeCache geocodeCache;
+
+    @Autowired
+    private GeocodedAddressRepository geocodedAddressRepository;
+
+    @MockBean
+    private JOpenCageGeocoder jOpenCageGeocoder;
+
+    @MockBean
+    private FirebaseApp firebaseApp;
+
+    @SpyBean
+    private TokenBucket geocodingRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        geocodeCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        geocodedAddressRepository.deleteAll();
+        geocodeCache.clear();
+    }
+
+    @Test
+    void getCoordinatesOfAddress_sameAddressInDifferentSpelling_shouldRequestGeocoderOnce() {
+        when(jOpenCageGeocoder.forward(any(JOpenCageForwardRequest.class)))
+                .thenReturn(createResponse(50.06143, 19.93658));
+
+        Coordinates first = geolocationProvider.getCoordinatesOfAddress("Poland", null, "Kraków", "Floriańska");
+        Coordinates second = geolocationProvider.getCoordinatesOfAddress(" POLAND ", null, "kraków", "floriańska  ");
+
+        assertEquals(first, second);
+        assertEquals(new BigDecimal("50.0614"), first.latitude());
+        assertEquals(new BigDecimal("19.9366"), first.longitude());
+        verify(jOpenCageGeocoder, times(1)).forward(any(JOpenCageForwardRequest.class));
+    }
+
+    @Test
+    void getCoordinatesOfAddress_memoryCleared_shouldReadFromDatabase() {
+        when(jOpenCageGeocoder.forward(any(JOpenCageForwardRequest.class)))
+                .thenReturn(createResponse(52.22977, 21.01178));
+
+        Coordinates first = geolocationProvider.getCoordinatesOfAddress("Poland", "Ustka");
+        geocodeCache.clear();
+        Coordinates second = geolocationProvider.getCoordinatesOfAddress("Poland", "Ustka");
+
+        assertEquals(first, second);
+        assertEquals(1, geocodedAddressRepository.count());
+        verify(jOpenCageGeocoder, times(1)).forward(any(JOpenCageForwardRequest.class));
+    }
+
+    @Test
+    void getCoordinatesOfAddress_addressNotFound_shouldCacheNotFound() {
+        JOpenCageResponse emptyResponse = mock(JOpenCageResponse.class);
+        when(emptyResponse.getResults()).thenReturn(Collections.emptyList());
+        when(jOpenCageGeocoder.forward(any(JOpenCageForwardRequest.class))).thenReturn(emptyResponse);
+
+        assertThrows(NotFoundException.class,
+                () -> geolocationProvider.getCoordinatesOfAddress("Poland", "Nowhere"));
+        geocodeCache.clear();
+        assertThrows(NotFoundException.class,
+                () -> geolocationProvider.getCoordinatesOfAddress("Poland", "Nowhere"));
+
+        verify(jOpenCageGeocoder, times(1)).forward(any(JOpenCageForwardRequest.class));
+    }
+
+    @Test
+    void getCoordinatesOfAddressAsync_concurrentLookupsOfSameAddress_shouldShareSingleRequest() throws Exception {
+        CountDownLatch requestStarted = new CountDownLatch(1);
+        CountDownLatch releaseRequest = new CountDownLatch(1);
+        JOpenCageResponse response = createResponse(51.10788, 17.03854);
+
+        when(jOpenCageGeocoder.forward(any(JOpenCageForwardRequest.class))).thenAnswer(invocation -> {
+            requestStarted.countDown();
+            releaseRequest.await(5, TimeUnit.SECONDS);
+            return response;
+        });
+
+        CompletableFuture<Coordinates> first =
+                geolocationProvider.getCoordinatesOfAddressAsync("Poland", null, "Kazimierz Dolny", null);
+        assertTrue(requestStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Coordinates> second =
+                geolocationProvider.getCoordinatesOfAddressAsync("Poland", null, "kazimierz dolny", null);
+        releaseRequest.countDown();
+
+        assertSame(first, second);
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        verify(jOpenCageGeocoder, times(1)).forward(any(JOpenCageForwardRequest.class));
+    }
+
+    @Test
+    void findCoordinatesOfAddress_notCached_shouldReturnEmptyAndRequestInBackground() {
+        CountDownLatch releaseRequest = new CountDownLatch(1);
+        JOpenCageResponse response = createResponse(54.35202, 18.64664);
+
+        when(jOpenCageGeocoder.forward(any(JOpenCageForwardRequest.class))).thenAnswer(invocation -> {
+            releaseRequest.await(5, TimeUnit.SECONDS);
+            return response;
+        });
+
+        assertTrue(geolocationProvider.findCoordinatesOfAddress("Poland", null, "Hel").isEmpty());
+        releaseRequest.countDown();
+
+        Coordinates coordinates = geolocationProvider.getCoordinatesOfAddressAsync("Poland", null, "Hel", null)
+                .orTimeout(5, TimeUnit.SECONDS)
+                .join();
+
+        assertEquals(Optional.of(coordinates), geolocationProvider.findCoordinatesOfAddress("Poland", null, "Hel"));
+        verify(jOpenCageGeocoder, times(1)).forward(any(JOpenCageForwardRequest.class));
+    }
+
+    @Test
+    void getCoordinatesOfAddress_cityInGazetteer_shouldNotRequestGeocoder() {
+        Coordinates coordinates = geolocationProvider.getCoordinatesOfAddress("Poland", "Krakow");
+
+        assertEquals(new BigDecimal("50.0647"), coordinates.latitude());
+        assertEquals(new BigDecimal("19.9450"), coordinates.longitude());
+        verifyNoInteractions(jOpenCageGeocoder);
+    }
+
+    @Test
+    void getCoordinatesOfAddress_cityNameInManyVoivodeships_shouldReturnCityOfVoivodeship() {
+        Coordinates coordinates = geolocationProvider.getCoordinatesOfAddress(
+                "Poland",
+                Voivodeship.LUBELSKIE,
+                "Józefów",
+                null
+        );
+
+        assertEquals(new BigDecimal("50.4811"), coordinates.latitude());
+        assertEquals(new BigDecimal("23.0554"), coordinates.longitude());
+        verifyNoInteractions(jOpenCageGeocoder);
+    }
+
+    @Test
+    void getCoordinatesOfAddress_rateLimiterFullAndCityInGazetteer_shouldReturnCityCoordinates() {
+        doReturn(OptionalLong.empty()).when(geocodingRateLimiter).tryReserve();
+
+        Coordinates coordinates = geolocationProvider.getCoordinatesOfAddress(
+                "Poland",
+                null,
+                "Krakow",
+                "Floriańska"
+        );
+
+        assertEquals(new BigDecimal("50.0647"), coordinates.latitude());
+        assertEquals(new BigDecimal("19.9450"), coordinates.longitude());
+        assertTrue(geocodeCache.get("Poland", "Krakow", "Floriańska").isEmpty());
+        verifyNoInteractions(jOpenCageGeocoder);
+    }
+
+    @Test
+    void getCoordinatesOfAddress_rateLimiterFull_shouldFailFast() {
+        doReturn(OptionalLong.empty()).when(geocodingRateLimiter).tryReserve();
+
+        assertThrows(GeocodingUnavailableException.class,
+                () -> geolocationProvider.getCoordinatesOfAddress("Poland", "Nowhere"));
+        assertTrue(geolocationProvider.findCoordinatesOfAddress("Poland", null, "Nowhere").isEmpty());
+        verifyNoInteractions(jOpenCageGeocoder);
+    }
+
+    private JOpenCageResponse createResponse(double latitude, double longitude) {
+        JOpenCageGeometry geometry = mock(JOpenCageGeometry.class);
+        when(geometry.getLat()).thenReturn(latitude);
+        when(geometry.getLng()).thenReturn(longitude);
+
+        JOpenCageResult result = mock(JOpenCageResult.class);
+        when(result.getGeometry()).thenReturn(geometry);
+
+        JOpenCageResponse response = mock(JOpenCageResponse.class);
+        when(response.getResults()).thenReturn(List.of(result));
+        return response;
+    }
+}
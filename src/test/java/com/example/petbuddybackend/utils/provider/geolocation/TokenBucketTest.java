@@ -0,0 +1,74 @@
+package com.example.petbuddybackend.utils.provider.geolocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+    private static final Duration MAX_WAIT = Duration.ofMinutes(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void tryReserve_emptyBucket_shouldSpaceReservationsByRefillInterval() {
+        TokenBucket tokenBucket = new TokenBucket(1, Duration.ofSeconds(1), MAX_WAIT, clock::get);
+
+        assertEquals(0, tokenBucket.tryReserve().getAsLong());
+        assertEquals(SECOND, tokenBucket.tryReserve().getAsLong());
+        assertEquals(2 * SECOND, tokenBucket.tryReserve().getAsLong());
+    }
+
+    @Test
+    void tryReserve_fullBucket_shouldAllowBurstUpToCapacity() {
+        TokenBucket tokenBucket = new TokenBucket(3, Duration.ofSeconds(1), MAX_WAIT, clock::get);
+
+        assertEquals(0, tokenBucket.tryReserve().getAsLong());
+        assertEquals(0, tokenBucket.tryReserve().getAsLong());
+        assertEquals(0, tokenBucket.tryReserve().getAsLong());
+        assertEquals(SECOND, tokenBucket.tryReserve().getAsLong());
+    }
+
+    @Test
+    void tryReserve_afterLongIdle_shouldNotStoreMoreThanCapacity() {
+        TokenBucket tokenBucket = new TokenBucket(2, Duration.ofSeconds(1), MAX_WAIT, clock::get);
+        tokenBucket.tryReserve().getAsLong();
+        clock.addAndGet(100 * SECOND);
+
+        assertEquals(0, tokenBucket.tryReserve().getAsLong());
+        assertEquals(0, tokenBucket.tryReserve().getAsLong());
+        assertEquals(SECOND, tokenBucket.tryReserve().getAsLong());
+    }
+
+    @Test
+    void tryReserve_partiallyRefilled_shouldWaitForRemainingTime() {
+        TokenBucket tokenBucket = new TokenBucket(1, Duration.ofSeconds(1), MAX_WAIT, clock::get);
+        tokenBucket.tryReserve().getAsLong();
+        clock.addAndGet(SECOND / 4);
+
+        assertEquals(3 * SECOND / 4, tokenBucket.tryReserve().getAsLong());
+    }
+
+    @Test
+    void tryReserve_waitLongerThanMaxWait_shouldRejectWithoutTakingToken() {
+        TokenBucket tokenBucket = new TokenBucket(1, Duration.ofSeconds(1), Duration.ofSeconds(1), clock::get);
+        tokenBucket.tryReserve();
+        tokenBucket.tryReserve();
+
+        assertTrue(tokenBucket.tryReserve().isEmpty());
+
+        clock.addAndGet(SECOND);
+        assertEquals(SECOND, tokenBucket.tryReserve().getAsLong());
+    }
+
+    @Test
+    void constructor_nonPositiveCapacity_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, Duration.ofSeconds(1), MAX_WAIT));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.petbuddybackend.utils.rating;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunningRatingStatisticsTest {
+
+    private RunningRatingStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new RunningRatingStatistics();
+        statistics.apply(0, 10, 45);
+        statistics.apply(0, 8, 36);
+        statistics.apply(0, 6, 27);
+        statistics.apply(0, 4, 18);
+    }
+
+    @Test
+    void getAvgRating_shouldReturnAverageOfAllRatings() {
+        assertEquals(4.5f, statistics.getAvgRating());
+    }
+
+    @Test
+    void getPercentileOfNumberOfRatings_shouldInterpolateBetweenClosestRanks() {
+        assertEquals(4.0, statistics.getPercentileOfNumberOfRatings(0));
+        assertEquals(7.0, statistics.getPercentileOfNumberOfRatings(0.5));
+        assertEquals(8.5, statistics.getPercentileOfNumberOfRatings(0.75));
+        assertEquals(10.0, statistics.getPercentileOfNumberOfRatings(1));
+    }
+
+    @Test
+    void apply_ratingChanges_shouldMoveCaretakersBetweenBuckets() {
+        statistics.apply(4, 10, 30);
+        statistics.apply(6, 0, -27);
+
+        assertEquals(3, statistics.getRatedCaretakers());
+        assertEquals(10.0, statistics.getPercentileOfNumberOfRatings(0.5));
+        assertEquals(10.0, statistics.getPercentileOfNumberOfRatings(1));
+        assertEquals(129f / 28, statistics.getAvgRating(), 0.001f);
+    }
+
+    @Test
+    void restoredFromHistogram_shouldAnswerSameStatistics() {
+        RunningRatingStatistics restored = new RunningRatingStatistics(
+                new CountHistogram(statistics.getNumberOfRatingsHistogram().getOccurrencesByCount()),
+                statistics.getRatingSum()
+        );
+
+        assertEquals(statistics.getAvgRating(), restored.getAvgRating());
+        assertEquals(statistics.getPercentileOfNumberOfRatings(0.75), restored.getPercentileOfNumberOfRatings(0.75));
+        assertEquals(statistics.getRatedCaretakers(), restored.getRatedCaretakers());
+    }
+
+    @Test
+    void getStatistics_withoutRatings_shouldReturnNull() {
+        RunningRatingStatistics empty = new RunningRatingStatistics();
+
+        assertNull(empty.getAvgRating());
+        assertNull(empty.getPercentileOfNumberOfRatings(0.75));
+    }
+}
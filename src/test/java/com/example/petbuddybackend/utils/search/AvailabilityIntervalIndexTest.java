@@ -0,0 +1,74 @@
+package com.example.petbuddybackend.utils.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvailabilityIntervalIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2030, 1, 1);
+
+    private AvailabilityIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new AvailabilityIntervalIndex();
+
+        // john: DOG on days 0-10 and 20-30
+        index.putOffer(1L, List.of(range("john", "DOG", 0, 10), range("john", "DOG", 20, 30)));
+        // jane: DOG on days 5-25
+        index.putOffer(2L, List.of(range("jane", "DOG", 5, 25)));
+        // bob: CAT on days 0-30
+        index.putOffer(3L, List.of(range("bob", "CAT", 0, 30)));
+    }
+
+    @Test
+    void findAvailableCaretakers_shouldReturnCaretakersWithRangeCoveringWholeRange() {
+        assertEquals(Set.of("john"), find("DOG", 1, 4));
+        assertEquals(Set.of("john", "jane"), find("DOG", 5, 10));
+        assertEquals(Set.of("jane"), find("DOG", 8, 22));
+        assertEquals(Set.of("john", "jane"), find("DOG", 20, 25));
+        assertEquals(Set.of("bob"), find("CAT", 8, 22));
+    }
+
+    @Test
+    void findAvailableCaretakers_whenRangeNotCovered_shouldReturnEmpty() {
+        assertTrue(find("DOG", 9, 27).isEmpty());
+        assertTrue(find("DOG", 31, 35).isEmpty());
+        assertTrue(find("FISH", 1, 2).isEmpty());
+    }
+
+    @Test
+    void putOffer_existingOffer_shouldReplaceRanges() {
+        index.putOffer(1L, List.of(range("john", "DOG", 40, 50)));
+
+        assertEquals(Set.of("jane"), find("DOG", 5, 10));
+        assertEquals(Set.of("john"), find("DOG", 41, 45));
+    }
+
+    @Test
+    void removeOffer_shouldRemoveCaretakerFromResults() {
+        index.removeOffer(2L);
+
+        assertEquals(Set.of("john"), find("DOG", 5, 10));
+        assertTrue(find("DOG", 8, 22).isEmpty());
+    }
+
+    private Set<String> find(String animalType, int fromDay, int toDay) {
+        return index.findAvailableCaretakers(animalType, START.plusDays(fromDay), START.plusDays(toDay));
+    }
+
+    private static AvailabilityIntervalIndex.Range range(String caretakerEmail, String animalType, int fromDay, int toDay) {
+        return new AvailabilityIntervalIndex.Range(
+                caretakerEmail,
+                animalType,
+                START.plusDays(fromDay),
+                START.plusDays(toDay)
+        );
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.petbuddybackend.utils.search;
+
+import com.example.petbuddybackend.dto.offer.OfferConfigurationFilterDTO;
+import com.example.petbuddybackend.dto.offer.OfferFilterDTO;
+import com.example.petbuddybackend.entity.address.Voivodeship;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CaretakerBitmapIndexTest {
+
+    private static final String BIG = SearchTokens.attributeToken("SIZE", "BIG");
+    private static final String SMALL = SearchTokens.attributeToken("SIZE", "SMALL");
+    private static final String TOYS = SearchTokens.amenityToken("toys");
+
+    private CaretakerBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CaretakerBitmapIndex();
+        index.putCaretaker("john", Voivodeship.MAZOWIECKIE);
+        index.putCaretaker("jane", Voivodeship.MALOPOLSKIE);
+        index.putCaretaker("bob", Voivodeship.MAZOWIECKIE);
+
+        // john: DOG, big dogs for 10, toys
+        index.putOffer(1L, List.of(
+                offerEntry("john", "DOG", Set.of(TOYS)),
+                configurationEntry("john", "DOG", 10, Set.of(BIG, TOYS))
+        ));
+        // jane: DOG, small dogs for 20, big dogs for 40
+        index.putOffer(2L, List.of(
+                offerEntry("jane", "DOG", Set.of()),
+                configurationEntry("jane", "DOG", 20, Set.of(SMALL)),
+                configurationEntry("jane", "DOG", 40, Set.of(BIG))
+        ));
+        // bob: CAT without configurations
+        index.putOffer(3L, List.of(offerEntry("bob", "CAT", Set.of())));
+    }
+
+    @Test
+    void findCaretakers_byAnimalType_shouldReturnCaretakersWithOffer() {
+        assertEquals(Set.of("john", "jane"), index.findCaretakers(null, Set.of(offerFilter("DOG", Set.of()))));
+        assertEquals(Set.of("bob"), index.findCaretakers(null, Set.of(offerFilter("CAT", Set.of()))));
+        assertTrue(index.findCaretakers(null, Set.of(offerFilter("FISH", Set.of()))).isEmpty());
+    }
+
+    @Test
+    void findCaretakers_byAmenity_shouldReturnCaretakersHavingAllAmenities() {
+        OfferFilterDTO filter = OfferFilterDTO.builder()
+                .animalType("DOG")
+                .amenities(Set.of("toys"))
+                .build();
+
+        assertEquals(Set.of("john"), index.findCaretakers(null, Set.of(filter)));
+    }
+
+    @Test
+    void findCaretakers_byConfiguration_shouldMatchAttributesAndPriceOfSameConfiguration() {
+        OfferConfigurationFilterDTO bigUpTo30 = configurationFilter(Map.of("SIZE", Set.of("BIG")), null, 30);
+        OfferConfigurationFilterDTO bigFrom30 = configurationFilter(Map.of("SIZE", Set.of("BIG")), 30, null);
+        OfferConfigurationFilterDTO small = configurationFilter(Map.of("SIZE", Set.of("SMALL")), null, null);
+
+        assertEquals(Set.of("john"), index.findCaretakers(null, Set.of(offerFilter("DOG", Set.of(bigUpTo30)))));
+        assertEquals(Set.of("jane"), index.findCaretakers(null, Set.of(offerFilter("DOG", Set.of(bigFrom30)))));
+        assertEquals(Set.of("jane"), index.findCaretakers(null, Set.of(offerFilter("DOG", Set.of(bigFrom30, small)))));
+        assertTrue(index.findCaretakers(null, Set.of(offerFilter("DOG", Set.of(bigUpTo30, small)))).isEmpty());
+    }
+
+    @Test
+    void findCaretakers_withVoivodeshipAndManyAnimals_shouldIntersectCaretakers() {
+        assertEquals(Set.of("john"), index.findCaretakers(
+                Voivodeship.MAZOWIECKIE,
+                Set.of(offerFilter("DOG", Set.of()))
+        ));
+        assertTrue(index.findCaretakers(
+                null,
+                Set.of(offerFilter("DOG", Set.of()), offerFilter("CAT", Set.of()))
+        ).isEmpty());
+    }
+
+    @Test
+    void putOffer_existingOffer_shouldReplaceRowsAndReuseNumbers() {
+        int rowCount = index.rowCount();
+
+        index.putOffer(1L, List.of(
+                offerEntry("john", "DOG", Set.of()),
+                configurationEntry("john", "DOG", 15, Set.of(SMALL))
+        ));
+
+        OfferConfigurationFilterDTO small = configurationFilter(Map.of("SIZE", Set.of("SMALL")), null, null);
+        assertEquals(Set.of("john", "jane"), index.findCaretakers(null, Set.of(offerFilter("DOG", Set.of(small)))));
+        assertTrue(index.findCaretakers(null, Set.of(OfferFilterDTO.builder()
+                .animalType("DOG")
+                .amenities(Set.of("toys"))
+                .build())).isEmpty());
+        assertEquals(rowCount, index.rowCount());
+    }
+
+    @Test
+    void removeOffer_shouldRemoveCaretakerFromResults() {
+        index.removeOffer(2L);
+
+        assertEquals(Set.of("john"), index.findCaretakers(null, Set.of(offerFilter("DOG", Set.of()))));
+        assertEquals(3, index.rowCount());
+    }
+
+    @Test
+    void putOffer_repeatedly_shouldReuseRowsWithoutGrowingBitmaps() {
+        long bitmapBytes = index.bitmapBytes();
+
+        for(int i = 0; i < 1000; i++) {
+            index.putOffer(2L, List.of(
+                    offerEntry("jane", "DOG", Set.of()),
+                    configurationEntry("jane", "DOG", 20, Set.of(SMALL)),
+                    configurationEntry("jane", "DOG", 40, Set.of(BIG))
+            ));
+        }
+
+        assertEquals(bitmapBytes, index.bitmapBytes());
+        assertEquals(6, index.rowCount());
+    }
+
+    @Test
+    void putCaretaker_shouldMoveCaretakerToNewVoivodeship() {
+        index.putCaretaker("jane", Voivodeship.MAZOWIECKIE);
+
+        assertEquals(Set.of("john", "jane"), index.findCaretakers(
+                Voivodeship.MAZOWIECKIE,
+                Set.of(offerFilter("DOG", Set.of()))
+        ));
+        assertTrue(index.findCaretakers(Voivodeship.MALOPOLSKIE, Set.of(offerFilter("DOG", Set.of()))).isEmpty());
+    }
+
+    private static CaretakerBitmapIndex.Entry offerEntry(String caretakerEmail, String animalType, Set<String> tokens) {
+        return new CaretakerBitmapIndex.Entry(caretakerEmail, animalType, null, tokens);
+    }
+
+    private static CaretakerBitmapIndex.Entry configurationEntry(String caretakerEmail,
+                                                                 String animalType,
+                                                                 int dailyPrice,
+                                                                 Set<String> tokens) {
+        return new CaretakerBitmapIndex.Entry(caretakerEmail, animalType, BigDecimal.valueOf(dailyPrice), tokens);
+    }
+
+    private static OfferFilterDTO offerFilter(String animalType, Set<OfferConfigurationFilterDTO> configurations) {
+        return OfferFilterDTO.builder()
+                .animalType(animalType)
+                .offerConfigurations(configurations)
+                .build();
+    }
+
+    private static OfferConfigurationFilterDTO configurationFilter(Map<String, Set<String>> attributes,
+                                                                   Integer minPrice,
+                                                                   Integer maxPrice) {
+        return OfferConfigurationFilterDTO.builder()
+                .attributes(attributes)
+                .minPrice(minPrice == null ? null : BigDecimal.valueOf(minPrice))
+                .maxPrice(maxPrice == null ? null : BigDecimal.valueOf(maxPrice))
+                .build();
+    }
+}
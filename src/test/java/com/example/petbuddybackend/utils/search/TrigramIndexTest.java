@@ -0,0 +1,64 @@
+package com.example.petbuddybackend.utils.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.put("john@mail", "John", "Doe", "john@mail");
+        index.put("jane@mail", "Jane", "Smith", "jane@mail");
+        index.put("bob@other", "Bob", "Johnson", "bob@other");
+    }
+
+    @Test
+    void find_shouldMatchKeywordContainedInAnyField() {
+        assertEquals(Set.of("john@mail", "bob@other"), index.find("john"));
+        assertEquals(Set.of("jane@mail"), index.find("MITH"));
+        assertEquals(Set.of("bob@other"), index.find("other"));
+    }
+
+    @Test
+    void find_manyKeywords_shouldMatchAllOfThem() {
+        assertEquals(Set.of("john@mail"), index.find("John  Doe"));
+        assertTrue(index.find("jane doe").isEmpty());
+    }
+
+    @Test
+    void find_shortKeyword_shouldMatchWithoutTrigrams() {
+        assertEquals(Set.of("john@mail", "bob@other"), index.find("jo"));
+        assertEquals(Set.of("john@mail", "jane@mail", "bob@other"), index.find("@"));
+    }
+
+    @Test
+    void find_keywordHavingAllTrigramsButNotContained_shouldNotMatch() {
+        index.put("anna@mail", "abcd", "bcde", "anna@mail");
+
+        assertTrue(index.find("abcde").isEmpty());
+    }
+
+    @Test
+    void put_existingDocument_shouldReplaceFields() {
+        index.put("jane@mail", "Jane", "Doe", "jane@mail");
+
+        assertEquals(Set.of("john@mail", "jane@mail"), index.find("doe"));
+        assertTrue(index.find("smith").isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void remove_shouldRemoveDocumentFromResults() {
+        index.remove("john@mail");
+
+        assertEquals(Set.of("bob@other"), index.find("john"));
+        assertEquals(2, index.size());
+    }
+}